@@ -64,6 +64,8 @@ public abstract class AbstractService<C extends EdmEnabledODataClient> {
 
   private PersistenceManager persistenceManager;
 
+  private volatile int flushBatchSize = 0;
+
   protected AbstractService(final String compressedMetadata, final String metadataETag,
       final ODataServiceVersion version, final String serviceRoot, final boolean transactional) {
 
@@ -122,6 +124,32 @@ public abstract class AbstractService<C extends EdmEnabledODataClient> {
     return transactional;
   }
 
+  /**
+   * Gets the maximum number of changes a non-transactional flush sends in one <tt>$batch</tt> changeset.
+   *
+   * @return the maximum number of changes per changeset; <tt>0</tt> if every change is sent as a single request
+   */
+  public int getFlushBatchSize() {
+    return flushBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of changes a non-transactional flush sends in one <tt>$batch</tt> changeset.
+   * <br/>
+   * Changes referring to each other (e.g. links to new entities) are always sent in the same changeset, so a
+   * changeset may be larger; independent changesets are sent concurrently using the client executor.
+   * Has no effect on transactional services, which send all changes in a single changeset.
+   *
+   * @param flushBatchSize the maximum number of changes per changeset; <tt>0</tt> (default) to send every change
+   * as a single request
+   */
+  public void setFlushBatchSize(final int flushBatchSize) {
+    if (flushBatchSize < 0) {
+      throw new IllegalArgumentException("Invalid flush batch size " + flushBatchSize);
+    }
+    this.flushBatchSize = flushBatchSize;
+  }
+
   public PersistenceManager getPersistenceManager() {
     synchronized (this) {
       if (persistenceManager == null) {
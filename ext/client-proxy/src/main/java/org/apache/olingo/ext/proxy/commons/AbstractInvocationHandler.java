@@ -25,7 +25,6 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.net.URI;
-import java.util.Arrays;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -46,6 +45,7 @@ import org.apache.olingo.ext.proxy.context.AttachedEntityStatus;
 import org.apache.olingo.ext.proxy.context.Context;
 import org.apache.olingo.ext.proxy.context.EntityContext;
 import org.apache.olingo.ext.proxy.utils.CoreUtils;
+import org.apache.olingo.ext.proxy.utils.TypeDescriptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,16 +71,7 @@ abstract class AbstractInvocationHandler implements InvocationHandler {
   }
 
   protected boolean isSelfMethod(final Method method) {
-    final Method[] selfMethods = getClass().getMethods();
-
-    boolean result = false;
-
-    for (int i = 0; i < selfMethods.length && !result; i++) {
-      result = method.getName().equals(selfMethods[i].getName())
-          && Arrays.equals(method.getParameterTypes(), selfMethods[i].getParameterTypes());
-    }
-
-    return result;
+    return TypeDescriptor.forType(getClass()).hasMethod(method);
   }
 
   protected Object invokeSelfMethod(final Method method, final Object[] args)
@@ -19,17 +19,39 @@
 package org.apache.olingo.ext.proxy.commons;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.olingo.client.api.communication.ODataServerErrorException;
 import org.apache.olingo.client.api.communication.request.ODataBasicRequest;
 import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
 import org.apache.olingo.client.api.communication.request.ODataRequest;
 import org.apache.olingo.client.api.communication.request.ODataStreamedRequest;
+import org.apache.olingo.client.api.communication.request.batch.BatchManager;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchRequest;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchResponseItem;
+import org.apache.olingo.client.api.communication.request.batch.ODataChangeset;
+import org.apache.olingo.client.api.communication.response.ODataBatchResponse;
 import org.apache.olingo.client.api.communication.response.ODataEntityCreateResponse;
 import org.apache.olingo.client.api.communication.response.ODataEntityUpdateResponse;
 import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientLink;
+import org.apache.olingo.client.core.communication.header.ODataErrorResponseChecker;
+import org.apache.olingo.client.core.communication.request.batch.ODataChangesetResponseItem;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.ext.proxy.AbstractService;
 import org.apache.olingo.ext.proxy.api.ODataFlushException;
 import org.apache.olingo.ext.proxy.api.ODataResponseError;
@@ -37,6 +59,9 @@ import org.apache.olingo.ext.proxy.api.ODataResponseError;
 /**
  * {@link org.apache.olingo.ext.proxy.api.PersistenceManager} implementation not using OData batch requests: any
  * read-write operation will be sent separately to the OData service when calling <tt>flush()</tt>.
+ * <br/>
+ * If a flush batch size is set on the service (see {@link AbstractService#setFlushBatchSize(int)}), the operations
+ * are instead grouped into <tt>$batch</tt> changesets, which are sent concurrently.
  */
 public class NonTransactionalPersistenceManagerImpl extends AbstractPersistenceManager {
 
@@ -48,6 +73,11 @@ public class NonTransactionalPersistenceManagerImpl extends AbstractPersistenceM
 
   @Override
   protected void doFlush(final PersistenceChanges changes, final TransactionItems items) {
+    if (service.getFlushBatchSize() > 0) {
+      doFlushInBatches(changes, service.getFlushBatchSize());
+      return;
+    }
+
     final Map<Integer, URI> responses = new HashMap<Integer, URI>();
 
     int index = 0;
@@ -105,4 +135,329 @@ public class NonTransactionalPersistenceManagerImpl extends AbstractPersistenceM
       }
     }
   }
+
+  /**
+   * Sends the changes as <tt>$batch</tt> requests with one changeset each.
+   * <br/>
+   * Changes referring to each other as <tt>$n</tt> are put into the same changeset, where the references are
+   * renumbered to Content-IDs; otherwise changes are packed in their original order into changesets of at most
+   * <tt>batchSize</tt> changes. The batch requests are executed concurrently on the client executor; responses are
+   * applied to the entities on the calling thread.
+   */
+  private void doFlushInBatches(final PersistenceChanges changes, final int batchSize) {
+    final List<ODataBatchableRequest> requests = new ArrayList<ODataBatchableRequest>(changes.getChanges().keySet());
+
+    final List<FutureTask<ChangesetResult>> tasks = new ArrayList<FutureTask<ChangesetResult>>();
+    for (final List<Integer> changeset : groupChanges(requests, changes, batchSize)) {
+      final FutureTask<ChangesetResult> task = new FutureTask<ChangesetResult>(new Callable<ChangesetResult>() {
+        @Override
+        public ChangesetResult call() {
+          return sendChangeset(requests, changeset);
+        }
+      });
+      tasks.add(task);
+      service.getClient().getConfiguration().getExecutor().execute(task);
+    }
+
+    final List<ODataResponseError> errors = new ArrayList<ODataResponseError>();
+    int statusCode = 0;
+    for (FutureTask<ChangesetResult> task : tasks) {
+      // run tasks not yet picked up by the executor on this thread: the executor may be busy with this very flush
+      task.run();
+
+      final ChangesetResult result;
+      try {
+        result = task.get();
+      } catch (CancellationException e) {
+        continue;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ODataRuntimeException(e);
+      } catch (ExecutionException e) {
+        cancel(tasks);
+        // sendChangeset does not throw checked exceptions
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw (RuntimeException) e.getCause();
+      }
+
+      for (Map.Entry<Integer, Object> entry : result.results.entrySet()) {
+        final EntityInvocationHandler handler = changes.getChanges().get(requests.get(entry.getKey()));
+        if (handler != null) {
+          if (entry.getValue() instanceof ClientEntity) {
+            handler.setEntity((ClientEntity) entry.getValue());
+            LOG.debug("Upgrade object '{}'", handler);
+          } else {
+            handler.applyChanges();
+          }
+        }
+      }
+
+      if (!result.errors.isEmpty()) {
+        errors.addAll(result.errors);
+        statusCode = result.statusCode;
+        if (!service.getClient().getConfiguration().isContinueOnError()) {
+          cancel(tasks);
+        }
+      }
+    }
+
+    if (!errors.isEmpty()) {
+      throw new ODataFlushException(statusCode, errors);
+    }
+  }
+
+  private static void cancel(final List<FutureTask<ChangesetResult>> tasks) {
+    for (FutureTask<ChangesetResult> task : tasks) {
+      task.cancel(false);
+    }
+  }
+
+  /**
+   * Groups the changes connected by <tt>$n</tt> references or by the entities they target, and packs the groups into
+   * changesets. Changes of the same entity, e.g. an update of its properties followed by an update of its media
+   * stream or by its deletion, thus keep their order.
+   *
+   * @return changesets as lists of ascending positions in <tt>requests</tt>
+   */
+  static List<List<Integer>> groupChanges(
+      final List<ODataBatchableRequest> requests, final PersistenceChanges changes, final int batchSize) {
+
+    // union-find on the positions of the changes
+    final int[] parents = new int[requests.size()];
+    for (int i = 0; i < parents.length; i++) {
+      parents[i] = i;
+    }
+    final Map<String, Integer> changesByTarget = new HashMap<String, Integer>();
+    for (int i = 0; i < requests.size(); i++) {
+      final ClientEntity payload = changes.getPayload(requests.get(i));
+      for (Integer reference : getReferences(requests.get(i), payload)) {
+        if (reference >= 1 && reference <= requests.size()) {
+          parents[root(parents, i)] = root(parents, reference - 1);
+        }
+      }
+      for (String target : getTargets(requests.get(i), payload)) {
+        final Integer previous = changesByTarget.put(target, i);
+        if (previous != null) {
+          parents[root(parents, i)] = root(parents, previous);
+        }
+      }
+    }
+
+    final Map<Integer, List<Integer>> groups = new LinkedHashMap<Integer, List<Integer>>();
+    for (int i = 0; i < requests.size(); i++) {
+      final int root = root(parents, i);
+      List<Integer> group = groups.get(root);
+      if (group == null) {
+        group = new ArrayList<Integer>();
+        groups.put(root, group);
+      }
+      group.add(i);
+    }
+
+    final List<List<Integer>> changesets = new ArrayList<List<Integer>>();
+    List<Integer> changeset = new ArrayList<Integer>();
+    for (List<Integer> group : groups.values()) {
+      if (!changeset.isEmpty() && changeset.size() + group.size() > batchSize) {
+        changesets.add(changeset);
+        changeset = new ArrayList<Integer>();
+      }
+      changeset.addAll(group);
+    }
+    if (!changeset.isEmpty()) {
+      changesets.add(changeset);
+    }
+
+    for (List<Integer> item : changesets) {
+      Collections.sort(item);
+      renumber(requests, changes, item);
+    }
+    return changesets;
+  }
+
+  private static int root(final int[] parents, final int position) {
+    int root = position;
+    while (parents[root] != root) {
+      parents[root] = parents[parents[root]];
+      root = parents[root];
+    }
+    return root;
+  }
+
+  private static Set<Integer> getReferences(final ODataBatchableRequest request, final ClientEntity payload) {
+    final Set<Integer> references = new HashSet<Integer>();
+    addReference(references, request.getURI());
+    if (payload != null) {
+      for (ClientLink link : payload.getNavigationLinks()) {
+        addReference(references, link.getLink());
+      }
+    }
+    return references;
+  }
+
+  /**
+   * Gets the entities a change refers to without <tt>$n</tt> reference: the entity addressed by its URI, also when
+   * only its media stream or a reference is changed, and the entities its payload links to.
+   * Creations in an entity set have no target, so that they are not grouped with each other.
+   */
+  private static Set<String> getTargets(final ODataBatchableRequest request, final ClientEntity payload) {
+    final Set<String> targets = new HashSet<String>();
+    addTarget(targets, request.getURI(), request.getMethod() == HttpMethod.POST);
+    if (payload != null) {
+      for (ClientLink link : payload.getNavigationLinks()) {
+        addTarget(targets, link.getLink(), false);
+      }
+    }
+    return targets;
+  }
+
+  private static void addTarget(final Set<String> targets, final URI uri, final boolean keyRequired) {
+    if (uri == null || getReference(uri) != null) {
+      return;
+    }
+    String target = uri.toASCIIString();
+    final int queryIndex = target.indexOf('?');
+    if (queryIndex >= 0) {
+      target = target.substring(0, queryIndex);
+    }
+    // the entity is addressed up to its key; further segments address its media stream, properties or links
+    final int keyEnd = target.indexOf(')');
+    if (keyEnd >= 0) {
+      target = target.substring(0, keyEnd + 1);
+    } else if (keyRequired) {
+      return;
+    }
+    targets.add(target);
+  }
+
+  private static void addReference(final Set<Integer> references, final URI uri) {
+    final Integer reference = getReference(uri);
+    if (reference != null) {
+      references.add(reference);
+    }
+  }
+
+  private static Integer getReference(final URI uri) {
+    final String value = uri == null ? null : uri.toASCIIString();
+    if (value == null || !value.startsWith("$")) {
+      return null;
+    }
+    final int slashIndex = value.indexOf('/');
+    try {
+      return Integer.valueOf(value.substring(1, slashIndex < 0 ? value.length() : slashIndex));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Replaces the <tt>$n</tt> references to positions of changes by the Content-IDs within the changeset.
+   */
+  private static void renumber(
+      final List<ODataBatchableRequest> requests, final PersistenceChanges changes, final List<Integer> changeset) {
+    final Map<Integer, Integer> contentIds = new HashMap<Integer, Integer>();
+    for (int i = 0; i < changeset.size(); i++) {
+      contentIds.put(changeset.get(i) + 1, i + 1);
+    }
+
+    for (Integer position : changeset) {
+      final ODataBatchableRequest request = requests.get(position);
+      final URI uri = renumber(request.getURI(), contentIds);
+      if (uri != null) {
+        ((ODataRequest) request).setURI(uri);
+      }
+      final ClientEntity payload = changes.getPayload(request);
+      if (payload != null) {
+        for (ClientLink link : payload.getNavigationLinks()) {
+          final URI linkURI = renumber(link.getLink(), contentIds);
+          if (linkURI != null) {
+            link.setLink(linkURI);
+          }
+        }
+      }
+    }
+  }
+
+  private static URI renumber(final URI uri, final Map<Integer, Integer> contentIds) {
+    final Integer reference = getReference(uri);
+    final Integer contentId = reference == null ? null : contentIds.get(reference);
+    return contentId == null || contentId.equals(reference)
+        ? null
+        : URI.create("$" + contentId + uri.toASCIIString().substring(1 + reference.toString().length()));
+  }
+
+  ChangesetResult sendChangeset(final List<ODataBatchableRequest> requests, final List<Integer> positions) {
+    final ODataBatchRequest request =
+        service.getClient().getBatchRequestFactory().getBatchRequest(service.getClient().getServiceRoot());
+    ((ODataRequest) request).setAccept(
+        service.getClient().getConfiguration().getDefaultBatchAcceptFormat().toContentTypeString());
+
+    final BatchManager batchManager = (BatchManager) ((ODataStreamedRequest<?, ?>) request).payloadManager();
+    final ODataChangeset changeset = batchManager.addChangeset();
+    for (Integer position : positions) {
+      changeset.addRequest(requests.get(position));
+    }
+
+    final ODataBatchResponse response = batchManager.getResponse();
+    try {
+      // see TransactionalPersistenceManagerImpl about the accepted status codes
+      if (response.getStatusCode() != 202 && response.getStatusCode() != 200) {
+        throw new ODataServerErrorException(new ResponseStatusLine(response));
+      }
+
+      final ChangesetResult result = new ChangesetResult(response.getStatusCode());
+
+      final Iterator<ODataBatchResponseItem> batchResItor = response.getBody();
+      if (!batchResItor.hasNext()) {
+        throw new IllegalStateException("Unexpected operation result");
+      }
+      final ODataBatchResponseItem item = batchResItor.next();
+      if (!(item instanceof ODataChangesetResponseItem)) {
+        throw new IllegalStateException("Unexpected batch response item " + item.getClass().getSimpleName());
+      }
+      final ODataChangesetResponseItem chgres = (ODataChangesetResponseItem) item;
+
+      for (Integer position : positions) {
+        if (!chgres.hasNext()) {
+          break;
+        }
+        final ODataResponse res = chgres.next();
+        if (res.getStatusCode() >= 400) {
+          result.errors.add(new ODataResponseError(ODataErrorResponseChecker.checkResponse(
+              service.getClient(),
+              new ResponseStatusLine(res),
+              res.getRawResponse(),
+              ((ODataRequest) request).getAccept()), position + 1, (ODataRequest) requests.get(position)));
+        } else if (res instanceof ODataEntityCreateResponse && res.getStatusCode() == 201) {
+          result.results.put(position, ((ODataEntityCreateResponse<?>) res).getBody());
+        } else if (res instanceof ODataEntityUpdateResponse && res.getStatusCode() == 200) {
+          result.results.put(position, ((ODataEntityUpdateResponse<?>) res).getBody());
+        } else if ((res instanceof ODataEntityCreateResponse || res instanceof ODataEntityUpdateResponse)
+            && res.getStatusCode() == 204) {
+          result.results.put(position, null);
+        }
+      }
+      return result;
+    } finally {
+      response.close();
+    }
+  }
+
+  /**
+   * Outcome of a changeset: new entity states (or <tt>null</tt> to apply the local changes) by position of the
+   * change, and errors.
+   */
+  static final class ChangesetResult {
+
+    final int statusCode;
+
+    final Map<Integer, Object> results = new LinkedHashMap<Integer, Object>();
+
+    final List<ODataResponseError> errors = new ArrayList<ODataResponseError>();
+
+    ChangesetResult(final int statusCode) {
+      this.statusCode = statusCode;
+    }
+  }
 }
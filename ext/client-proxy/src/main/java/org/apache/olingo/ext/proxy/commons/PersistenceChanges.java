@@ -19,7 +19,9 @@
 package org.apache.olingo.ext.proxy.commons;
 
 import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
+import org.apache.olingo.client.api.domain.ClientEntity;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -28,10 +30,30 @@ public class PersistenceChanges {
   private final Map<ODataBatchableRequest, EntityInvocationHandler> requests =
           new LinkedHashMap<ODataBatchableRequest, EntityInvocationHandler>();
 
+  private final Map<ODataBatchableRequest, ClientEntity> payloads = new HashMap<ODataBatchableRequest, ClientEntity>();
+
   public void addChange(final ODataBatchableRequest request, final EntityInvocationHandler handler) {
     this.requests.put(request, handler);
   }
 
+  public void addChange(
+          final ODataBatchableRequest request, final EntityInvocationHandler handler, final ClientEntity payload) {
+    addChange(request, handler);
+    if (payload != null) {
+      this.payloads.put(request, payload);
+    }
+  }
+
+  /**
+   * Gets the entity sent by a request, whose navigation links may refer to other changes as <tt>$n</tt>.
+   *
+   * @param request request of a change
+   * @return entity or <tt>null</tt> if the request has no entity payload
+   */
+  public ClientEntity getPayload(final ODataBatchableRequest request) {
+    return payloads.get(request);
+  }
+
   public Map<ODataBatchableRequest, EntityInvocationHandler> getChanges() {
     return requests;
   }
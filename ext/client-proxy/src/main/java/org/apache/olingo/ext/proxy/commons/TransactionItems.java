@@ -20,9 +20,9 @@ package org.apache.olingo.ext.proxy.commons;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 public class TransactionItems {
 
@@ -30,51 +30,62 @@ public class TransactionItems {
 
   private final List<Integer> values = new ArrayList<Integer>();
 
+  /**
+   * Index of the first occurrence of each key, to keep lookups constant while flushing many entities.
+   */
+  private final Map<EntityInvocationHandler, Integer> keyIndexes = new HashMap<EntityInvocationHandler, Integer>();
+
+  /**
+   * Index of the first occurrence of each value.
+   */
+  private final Map<Integer, Integer> valueIndexes = new HashMap<Integer, Integer>();
+
   public EntityInvocationHandler get(final Integer value) {
-    if (value != null && values.contains(value)) {
-      return keys.get(values.indexOf(value));
-    } else {
-      return null;
-    }
+    final Integer index = value == null ? null : valueIndexes.get(value);
+    return index == null ? null : keys.get(index);
   }
 
   public Integer get(final EntityInvocationHandler key) {
-    if (key != null && keys.contains(key)) {
-      return values.get(keys.indexOf(key));
-    } else {
-      return null;
-    }
+    final Integer index = key == null ? null : keyIndexes.get(key);
+    return index == null ? null : values.get(index);
   }
 
   public void remove(final EntityInvocationHandler key) {
-    if (keys.contains(key)) {
-      values.remove(keys.indexOf(key));
-      keys.remove(key);
+    final Integer index = keyIndexes.get(key);
+    if (index != null) {
+      keys.remove(index.intValue());
+      values.remove(index.intValue());
+      reindex();
     }
   }
 
   public void normalize() {
-    final Set<Integer> toBeRemoved = new HashSet<Integer>();
-    for (EntityInvocationHandler key : keys) {
-      int i = keys.indexOf(key);
-      if (values.get(i) == null) {
-        toBeRemoved.add(i);
+    int target = 0;
+    for (int i = 0; i < keys.size(); i++) {
+      if (values.get(i) != null) {
+        keys.set(target, keys.get(i));
+        values.set(target, values.get(i));
+        target++;
       }
     }
-
-    for (int i : toBeRemoved) {
-      keys.remove(i);
-      values.remove(i);
-    }
+    keys.subList(target, keys.size()).clear();
+    values.subList(target, values.size()).clear();
+    reindex();
   }
 
   public void put(final EntityInvocationHandler key, final Integer value) {
     // replace just in case of null current value; otherwise add the new entry
-    if (key != null && keys.contains(key) && values.get(keys.indexOf(key)) == null) {
-      remove(key);
+    final Integer index = key == null ? null : keyIndexes.get(key);
+    if (index != null && values.get(index) == null) {
+      values.set(index, value);
+      if (value != null && !valueIndexes.containsKey(value)) {
+        valueIndexes.put(value, index);
+      }
+    } else {
+      keys.add(key);
+      values.add(value);
+      index(keys.size() - 1);
     }
-    keys.add(key);
-    values.add(value);
   }
 
   public List<Integer> sortedValues() {
@@ -84,7 +95,7 @@ public class TransactionItems {
   }
 
   public boolean contains(final EntityInvocationHandler key) {
-    return keys.contains(key);
+    return keyIndexes.containsKey(key);
   }
 
   public int size() {
@@ -94,4 +105,23 @@ public class TransactionItems {
   public boolean isEmpty() {
     return keys.isEmpty();
   }
+
+  private void index(final int index) {
+    final EntityInvocationHandler key = keys.get(index);
+    if (key != null && !keyIndexes.containsKey(key)) {
+      keyIndexes.put(key, index);
+    }
+    final Integer value = values.get(index);
+    if (value != null && !valueIndexes.containsKey(value)) {
+      valueIndexes.put(value, index);
+    }
+  }
+
+  private void reindex() {
+    keyIndexes.clear();
+    valueIndexes.clear();
+    for (int i = 0; i < keys.size(); i++) {
+      index(i);
+    }
+  }
 }
@@ -23,8 +23,6 @@ import org.apache.olingo.ext.proxy.api.annotations.EntityType;
 import org.apache.olingo.ext.proxy.api.annotations.Key;
 import org.apache.olingo.ext.proxy.api.annotations.KeyRef;
 import org.apache.olingo.ext.proxy.api.annotations.Namespace;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AccessibleObject;
@@ -40,11 +38,6 @@ import java.util.Set;
 
 public final class ClassUtils {
 
-  /**
-   * Logger.
-   */
-  private static final Logger LOG = LoggerFactory.getLogger(ClassUtils.class);
-
   private ClassUtils() {
     // Empty private constructor for static utility classes
   }
@@ -78,23 +71,7 @@ public final class ClassUtils {
 
   public static Method findGetterByAnnotatedName(
           final Class<?> clazz, final Class<? extends Annotation> ann, final String name) {
-    final Method[] methods = clazz.getMethods();
-
-    Method result = null;
-    for (int i = 0; i < methods.length && result == null; i++) {
-      final Annotation annotation = methods[i].getAnnotation(ann);
-      try {
-        if ((annotation != null)
-                && methods[i].getName().startsWith("get") // Assumption: getter is always prefixed by 'get' word 
-                && name.equals(ann.getMethod("name").invoke(annotation))) {
-          result = methods[i];
-        }
-      } catch (Exception e) {
-        LOG.warn("Error retrieving value annotation name for {}.{}", clazz.getName(), methods[i].getName());
-      }
-    }
-
-    return result;
+    return TypeDescriptor.forType(clazz).getGetterByAnnotatedName(ann, name);
   }
 
   public static <ANN extends Annotation> ANN getAnnotation(final Class<ANN> reference, final AccessibleObject obj) {
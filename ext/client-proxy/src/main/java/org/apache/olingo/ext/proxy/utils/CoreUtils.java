@@ -33,8 +33,6 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.olingo.client.api.EdmEnabledODataClient;
@@ -66,7 +64,6 @@ import org.apache.olingo.ext.proxy.api.annotations.ComplexType;
 import org.apache.olingo.ext.proxy.api.annotations.CompoundKey;
 import org.apache.olingo.ext.proxy.api.annotations.CompoundKeyElement;
 import org.apache.olingo.ext.proxy.api.annotations.EnumType;
-import org.apache.olingo.ext.proxy.api.annotations.Key;
 import org.apache.olingo.ext.proxy.api.annotations.Namespace;
 import org.apache.olingo.ext.proxy.api.annotations.NavigationProperty;
 import org.apache.olingo.ext.proxy.api.annotations.Property;
@@ -363,16 +360,13 @@ public final class CoreUtils {
   }
 
   private static Class<?> getPropertyClass(final Class<?> entityClass, final String propertyName) {
-    Class<?> propertyClass = null;
-    try {
-      final Method getter = entityClass.getMethod("get" + StringUtils.capitalize(propertyName));
-      if (getter != null) {
-        propertyClass = getter.getReturnType();
-      }
-    } catch (Exception e) {
-      LOG.error("Could not determine the Java type of {}", propertyName, e);
+    final TypeDescriptor.Accessor accessor =
+        TypeDescriptor.forType(entityClass).getAccessor("get" + StringUtils.capitalize(propertyName));
+    if (accessor == null) {
+      LOG.error("Could not determine the Java type of {}", propertyName);
+      return null;
     }
-    return propertyClass;
+    return accessor.getGetter().getReturnType();
   }
 
   public static URIBuilder buildEditLink(
@@ -400,19 +394,9 @@ public final class CoreUtils {
   }
 
   public static Map<String, Object> getCompoundKey(final Object key) {
-    final Set<CompoundKeyElementWrapper> elements = new TreeSet<CompoundKeyElementWrapper>();
-
-    for (Method method : key.getClass().getMethods()) {
-      final Annotation annotation = method.getAnnotation(CompoundKeyElement.class);
-      if (annotation instanceof CompoundKeyElement) {
-        elements.add(new CompoundKeyElementWrapper(
-            ((CompoundKeyElement) annotation).name(), method, ((CompoundKeyElement) annotation).position()));
-      }
-    }
-
     final LinkedHashMap<String, Object> map = new LinkedHashMap<String, Object>();
 
-    for (CompoundKeyElementWrapper element : elements) {
+    for (CompoundKeyElementWrapper element : TypeDescriptor.forType(key.getClass()).getCompoundKeyElements()) {
       try {
         map.put(element.getName(), element.getMethod().invoke(key));
       } catch (Exception e) {
@@ -638,15 +622,7 @@ public final class CoreUtils {
   }
 
   private static String firstValidEntityKey(final Class<?> entityTypeRef) {
-    for (Method method : entityTypeRef.getDeclaredMethods()) {
-      if (method.getAnnotation(Key.class) != null) {
-        final Annotation ann = method.getAnnotation(Property.class);
-        if (ann != null) {
-          return ((Property) ann).name();
-        }
-      }
-    }
-    return null;
+    return TypeDescriptor.forType(entityTypeRef).getKeyPropertyName();
   }
 
   public static URI getMediaEditLink(final String name, final ClientEntity entity) {
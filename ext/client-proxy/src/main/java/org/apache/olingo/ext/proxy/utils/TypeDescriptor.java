@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.olingo.ext.proxy.api.annotations.CompoundKeyElement;
+import org.apache.olingo.ext.proxy.api.annotations.Key;
+import org.apache.olingo.ext.proxy.api.annotations.NavigationProperty;
+import org.apache.olingo.ext.proxy.api.annotations.Property;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reflection metadata of a generated proxy interface or key class, computed once per class.
+ * <br/>
+ * Proxy invocations look up their getters, setters, keys and annotated names here instead of
+ * scanning the methods of the class and reading their annotations on every call.
+ * <br/>
+ * The cache does not keep classes and their class loaders alive: the classes are weakly referenced keys, and
+ * since a descriptor refers to its class through its methods, descriptors are only softly referenced.
+ */
+public final class TypeDescriptor {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(TypeDescriptor.class);
+
+  private static final Map<Class<?>, SoftReference<TypeDescriptor>> DESCRIPTORS =
+          new WeakHashMap<Class<?>, SoftReference<TypeDescriptor>>();
+
+  /**
+   * Structural property or navigation property behind a getter and its setter.
+   */
+  public static final class Accessor {
+
+    private final Method getter;
+
+    private final Property property;
+
+    private final NavigationProperty navigationProperty;
+
+    private Accessor(final Method getter) {
+      this.getter = getter;
+      this.property = getter.getAnnotation(Property.class);
+      this.navigationProperty = property == null ? getter.getAnnotation(NavigationProperty.class) : null;
+    }
+
+    public Method getGetter() {
+      return getter;
+    }
+
+    /**
+     * @return the property annotation of the getter or <tt>null</tt>
+     */
+    public Property getProperty() {
+      return property;
+    }
+
+    /**
+     * @return the navigation property annotation of the getter or <tt>null</tt>
+     */
+    public NavigationProperty getNavigationProperty() {
+      return navigationProperty;
+    }
+  }
+
+  private final Class<?> type;
+
+  private final Map<String, Accessor> accessors = new HashMap<String, Accessor>();
+
+  private final Set<String> propertyNames = new HashSet<String>();
+
+  private final Set<String> methodSignatures = new HashSet<String>();
+
+  private final String keyPropertyName;
+
+  private final List<CompoundKeyElementWrapper> compoundKeyElements;
+
+  private final ConcurrentMap<Class<? extends Annotation>, Map<String, Method>> gettersByAnnotatedName =
+          new ConcurrentHashMap<Class<? extends Annotation>, Map<String, Method>>();
+
+  private TypeDescriptor(final Class<?> type) {
+    this.type = type;
+
+    final TreeSet<CompoundKeyElementWrapper> keyElements = new TreeSet<CompoundKeyElementWrapper>();
+    for (Method method : type.getMethods()) {
+      methodSignatures.add(signature(method.getName(), method.getParameterTypes()));
+
+      // Assumption: for each getter will always exist a setter and viceversa.
+      if (method.getName().startsWith("get") && method.getParameterTypes().length == 0) {
+        final Accessor accessor = new Accessor(method);
+        accessors.put(method.getName(), accessor);
+        accessors.put("set" + method.getName().substring(3), accessor);
+      }
+
+      final Property property = method.getAnnotation(Property.class);
+      if (property != null) {
+        propertyNames.add(property.name());
+      }
+
+      final CompoundKeyElement keyElement = method.getAnnotation(CompoundKeyElement.class);
+      if (keyElement != null) {
+        keyElements.add(new CompoundKeyElementWrapper(keyElement.name(), method, keyElement.position()));
+      }
+    }
+    compoundKeyElements = Collections.unmodifiableList(new ArrayList<CompoundKeyElementWrapper>(keyElements));
+
+    String keyName = null;
+    for (Method method : type.getDeclaredMethods()) {
+      if (keyName == null && method.getAnnotation(Key.class) != null) {
+        final Property property = method.getAnnotation(Property.class);
+        if (property != null) {
+          keyName = property.name();
+        }
+      }
+    }
+    keyPropertyName = keyName;
+  }
+
+  /**
+   * Gets the descriptor of the given class, computing it on first use.
+   *
+   * @param type generated proxy interface or key class
+   * @return descriptor of the class
+   */
+  public static TypeDescriptor forType(final Class<?> type) {
+    synchronized (DESCRIPTORS) {
+      final SoftReference<TypeDescriptor> reference = DESCRIPTORS.get(type);
+      final TypeDescriptor descriptor = reference == null ? null : reference.get();
+      if (descriptor != null) {
+        return descriptor;
+      }
+    }
+    // The descriptor is computed outside of the lock; concurrent callers may compute it twice.
+    final TypeDescriptor descriptor = new TypeDescriptor(type);
+    synchronized (DESCRIPTORS) {
+      final SoftReference<TypeDescriptor> reference = DESCRIPTORS.get(type);
+      final TypeDescriptor previous = reference == null ? null : reference.get();
+      if (previous != null) {
+        return previous;
+      }
+      DESCRIPTORS.put(type, new SoftReference<TypeDescriptor>(descriptor));
+      return descriptor;
+    }
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  /**
+   * Gets the accessor of a getter or of the setter corresponding to a getter.
+   *
+   * @param methodName name of a getter without parameters or of its setter
+   * @return accessor or <tt>null</tt> if the class has no such getter
+   */
+  public Accessor getAccessor(final String methodName) {
+    return accessors.get(methodName);
+  }
+
+  /**
+   * @return names of all properties annotated with {@link Property}
+   */
+  public Set<String> getPropertyNames() {
+    return Collections.unmodifiableSet(propertyNames);
+  }
+
+  /**
+   * Checks whether the class has a public method with the same name and parameter types.
+   *
+   * @param method method, usually of another class
+   * @return <tt>true</tt> if the class has such a method
+   */
+  public boolean hasMethod(final Method method) {
+    return methodSignatures.contains(signature(method.getName(), method.getParameterTypes()));
+  }
+
+  /**
+   * @return name of the first declared key property or <tt>null</tt>
+   */
+  public String getKeyPropertyName() {
+    return keyPropertyName;
+  }
+
+  /**
+   * @return getters annotated with {@link CompoundKeyElement}, ordered by position
+   */
+  public List<CompoundKeyElementWrapper> getCompoundKeyElements() {
+    return compoundKeyElements;
+  }
+
+  /**
+   * Finds the getter annotated with the given annotation having the given name.
+   *
+   * @param ann annotation with a <tt>name</tt> attribute
+   * @param name value of the <tt>name</tt> attribute
+   * @return getter or <tt>null</tt>
+   */
+  public Method getGetterByAnnotatedName(final Class<? extends Annotation> ann, final String name) {
+    Map<String, Method> getters = gettersByAnnotatedName.get(ann);
+    if (getters == null) {
+      getters = getGettersByAnnotatedName(ann);
+      final Map<String, Method> previous = gettersByAnnotatedName.putIfAbsent(ann, getters);
+      if (previous != null) {
+        getters = previous;
+      }
+    }
+    return getters.get(name);
+  }
+
+  private Map<String, Method> getGettersByAnnotatedName(final Class<? extends Annotation> ann) {
+    final Map<String, Method> getters = new HashMap<String, Method>();
+    for (Method method : type.getMethods()) {
+      final Annotation annotation = method.getAnnotation(ann);
+      // Assumption: getter is always prefixed by 'get' word
+      if (annotation != null && method.getName().startsWith("get")) {
+        try {
+          final Object name = ann.getMethod("name").invoke(annotation);
+          if (name instanceof String && !getters.containsKey(name)) {
+            getters.put((String) name, method);
+          }
+        } catch (Exception e) {
+          LOG.warn("Error retrieving value annotation name for {}.{}", type.getName(), method.getName());
+        }
+      }
+    }
+    return Collections.unmodifiableMap(getters);
+  }
+
+  private static String signature(final String name, final Class<?>[] parameterTypes) {
+    return parameterTypes.length == 0 ? name : name + Arrays.toString(parameterTypes);
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.olingo.client.api.Configuration;
+import org.apache.olingo.client.api.EdmEnabledODataClient;
+import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.ext.proxy.AbstractService;
+import org.apache.olingo.ext.proxy.api.ODataFlushException;
+import org.apache.olingo.ext.proxy.api.ODataResponseError;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class NonTransactionalPersistenceManagerImplTest {
+
+  private static final String SERVICE_ROOT = "http://localhost/odata.svc/";
+
+  @Test
+  public void groupByReference() {
+    final PersistenceChanges changes = new PersistenceChanges();
+    final List<ODataBatchableRequest> requests = Arrays.asList(
+        add(changes, HttpMethod.POST, SERVICE_ROOT + "People"),
+        add(changes, HttpMethod.POST, SERVICE_ROOT + "People"),
+        add(changes, HttpMethod.PUT, "$1/$value"));
+
+    assertEquals(changesets(new int[] { 0, 2 }, new int[] { 1 }),
+        NonTransactionalPersistenceManagerImpl.groupChanges(requests, changes, 1));
+  }
+
+  @Test
+  public void groupByTarget() {
+    final PersistenceChanges changes = new PersistenceChanges();
+    final List<ODataBatchableRequest> requests = Arrays.asList(
+        add(changes, HttpMethod.PATCH, SERVICE_ROOT + "People(1)"),
+        add(changes, HttpMethod.PATCH, SERVICE_ROOT + "People(2)"),
+        add(changes, HttpMethod.PUT, SERVICE_ROOT + "People(1)/$value"),
+        add(changes, HttpMethod.DELETE, SERVICE_ROOT + "People(2)?$format=json"),
+        add(changes, HttpMethod.PATCH, SERVICE_ROOT + "People(3)"));
+
+    assertEquals(changesets(new int[] { 0, 2 }, new int[] { 1, 3 }, new int[] { 4 }),
+        NonTransactionalPersistenceManagerImpl.groupChanges(requests, changes, 2));
+  }
+
+  @Test
+  public void groupByLinkTarget() {
+    final PersistenceChanges changes = new PersistenceChanges();
+    final ClientEntity payload = newEntity();
+    payload.getNavigationLinks().add(ODataClientFactory.getClient().getObjectFactory()
+        .newEntityNavigationLink("Friend", URI.create(SERVICE_ROOT + "People(2)")));
+    final List<ODataBatchableRequest> requests = Arrays.asList(
+        add(changes, HttpMethod.PATCH, SERVICE_ROOT + "People(1)", payload),
+        add(changes, HttpMethod.POST, SERVICE_ROOT + "People"),
+        add(changes, HttpMethod.DELETE, SERVICE_ROOT + "People(2)"));
+
+    assertEquals(changesets(new int[] { 0, 2 }, new int[] { 1 }),
+        NonTransactionalPersistenceManagerImpl.groupChanges(requests, changes, 1));
+  }
+
+  @Test
+  public void createsAreNotGroupedByEntitySet() {
+    final PersistenceChanges changes = new PersistenceChanges();
+    final List<ODataBatchableRequest> requests = Arrays.asList(
+        add(changes, HttpMethod.POST, SERVICE_ROOT + "People"),
+        add(changes, HttpMethod.POST, SERVICE_ROOT + "People"),
+        add(changes, HttpMethod.POST, SERVICE_ROOT + "People"));
+
+    assertEquals(changesets(new int[] { 0, 1 }, new int[] { 2 }),
+        NonTransactionalPersistenceManagerImpl.groupChanges(requests, changes, 2));
+  }
+
+  @Test
+  public void renumberContentIds() {
+    final PersistenceChanges changes = new PersistenceChanges();
+    final ClientEntity payload = newEntity();
+    payload.getNavigationLinks().add(ODataClientFactory.getClient().getObjectFactory()
+        .newEntityNavigationLink("Friend", URI.create("$2")));
+    final List<ODataBatchableRequest> requests = Arrays.asList(
+        add(changes, HttpMethod.POST, SERVICE_ROOT + "People"),
+        add(changes, HttpMethod.POST, SERVICE_ROOT + "People"),
+        add(changes, HttpMethod.POST, SERVICE_ROOT + "People", payload),
+        add(changes, HttpMethod.PUT, "$2/$value"));
+
+    assertEquals(changesets(new int[] { 0 }, new int[] { 1, 2, 3 }),
+        NonTransactionalPersistenceManagerImpl.groupChanges(requests, changes, 1));
+    assertEquals(URI.create("$1"), payload.getNavigationLink("Friend").getLink());
+    assertEquals(URI.create("$1/$value"), requests.get(3).getURI());
+    assertEquals(URI.create(SERVICE_ROOT + "People"), requests.get(0).getURI());
+  }
+
+  @Test
+  public void errorCancelsFollowingChangesets() {
+    final RecordingManager manager = new RecordingManager(false);
+    final ODataResponseError error = new ODataResponseError(new ODataRuntimeException("failed"), 2, null);
+    manager.errors.put(1, error);
+
+    try {
+      manager.doFlush(newChanges(3), new TransactionItems());
+      fail("Expected an ODataFlushException.");
+    } catch (final ODataFlushException e) {
+      assertEquals(Arrays.asList(error), e.getErrors());
+      assertEquals(200, e.getStatusCode());
+    }
+    assertEquals(changesets(new int[] { 0 }, new int[] { 1 }), manager.sent);
+  }
+
+  @Test
+  public void continueOnErrorCollectsErrors() {
+    final RecordingManager manager = new RecordingManager(true);
+    final ODataResponseError firstError = new ODataResponseError(new ODataRuntimeException("failed"), 1, null);
+    final ODataResponseError secondError = new ODataResponseError(new ODataRuntimeException("failed"), 3, null);
+    manager.errors.put(0, firstError);
+    manager.errors.put(2, secondError);
+
+    try {
+      manager.doFlush(newChanges(3), new TransactionItems());
+      fail("Expected an ODataFlushException.");
+    } catch (final ODataFlushException e) {
+      assertEquals(Arrays.asList(firstError, secondError), e.getErrors());
+    }
+    assertEquals(changesets(new int[] { 0 }, new int[] { 1 }, new int[] { 2 }), manager.sent);
+  }
+
+  @Test
+  public void exceptionCancelsFollowingChangesets() {
+    final RecordingManager manager = new RecordingManager(true);
+    final ODataRuntimeException exception = new ODataRuntimeException("failed");
+    manager.exceptions.put(0, exception);
+
+    try {
+      manager.doFlush(newChanges(2), new TransactionItems());
+      fail("Expected an ODataRuntimeException.");
+    } catch (final ODataRuntimeException e) {
+      assertSame(exception, e);
+    }
+    assertEquals(changesets(new int[] { 0 }), manager.sent);
+  }
+
+  private static List<List<Integer>> changesets(final int[]... positions) {
+    final List<List<Integer>> changesets = new ArrayList<List<Integer>>();
+    for (int[] changeset : positions) {
+      final List<Integer> list = new ArrayList<Integer>();
+      for (int position : changeset) {
+        list.add(position);
+      }
+      changesets.add(list);
+    }
+    return changesets;
+  }
+
+  private static ClientEntity newEntity() {
+    return ODataClientFactory.getClient().getObjectFactory().newEntity(new FullQualifiedName("Namespace", "Person"));
+  }
+
+  private static PersistenceChanges newChanges(final int count) {
+    final PersistenceChanges changes = new PersistenceChanges();
+    for (int i = 1; i <= count; i++) {
+      add(changes, HttpMethod.PATCH, SERVICE_ROOT + "People(" + i + ")");
+    }
+    return changes;
+  }
+
+  private static ODataBatchableRequest add(final PersistenceChanges changes, final HttpMethod method,
+      final String uri) {
+    return add(changes, method, uri, null);
+  }
+
+  /** Adds a change whose request keeps the URI set by renumbering. */
+  private static ODataBatchableRequest add(final PersistenceChanges changes, final HttpMethod method,
+      final String uri, final ClientEntity payload) {
+    final ODataBatchableRequest request = mock(ODataBatchableRequest.class);
+    final URI[] current = new URI[] { URI.create(uri) };
+    when(request.getMethod()).thenReturn(method);
+    when(request.getURI()).thenAnswer(new Answer<URI>() {
+      @Override
+      public URI answer(final InvocationOnMock invocation) {
+        return current[0];
+      }
+    });
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) {
+        current[0] = (URI) invocation.getArguments()[0];
+        return null;
+      }
+    }).when(request).setURI(any(URI.class));
+    changes.addChange(request, null, payload);
+    return request;
+  }
+
+  /**
+   * Persistence manager with changesets of single changes which records the sent changesets instead of sending them;
+   * its executor never runs tasks, so all changesets are sent one after the other by the flushing thread.
+   */
+  private static class RecordingManager extends NonTransactionalPersistenceManagerImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<List<Integer>> sent = new ArrayList<List<Integer>>();
+
+    private final Map<Integer, ODataResponseError> errors = new HashMap<Integer, ODataResponseError>();
+
+    private final Map<Integer, RuntimeException> exceptions = new HashMap<Integer, RuntimeException>();
+
+    RecordingManager(final boolean continueOnError) {
+      super(mockService(continueOnError));
+    }
+
+    @Override
+    ChangesetResult sendChangeset(final List<ODataBatchableRequest> requests, final List<Integer> positions) {
+      sent.add(positions);
+      final Integer position = positions.get(0);
+      if (exceptions.containsKey(position)) {
+        throw exceptions.get(position);
+      }
+      final ChangesetResult result = new ChangesetResult(200);
+      if (errors.containsKey(position)) {
+        result.errors.add(errors.get(position));
+      } else {
+        result.results.put(position, null);
+      }
+      return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AbstractService<?> mockService(final boolean continueOnError) {
+      final Configuration configuration = mock(Configuration.class);
+      when(configuration.getExecutor()).thenReturn(mock(ExecutorService.class));
+      when(configuration.isContinueOnError()).thenReturn(continueOnError);
+      final EdmEnabledODataClient client = mock(EdmEnabledODataClient.class);
+      when(client.getConfiguration()).thenReturn(configuration);
+      final AbstractService<EdmEnabledODataClient> service = mock(AbstractService.class);
+      when(service.getClient()).thenReturn(client);
+      when(service.getFlushBatchSize()).thenReturn(1);
+      return service;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.ext.proxy.api.annotations.Key;
+import org.apache.olingo.ext.proxy.api.annotations.Property;
+import org.junit.Test;
+
+public class TypeDescriptorTest {
+
+  public interface Sample {
+
+    @Key
+    @Property(name = "ID", type = "Edm.Int32")
+    Integer getId();
+
+    void setId(Integer id);
+
+    @Property(name = "Name", type = "Edm.String")
+    String getName();
+  }
+
+  @Test
+  public void descriptor() {
+    final TypeDescriptor descriptor = TypeDescriptor.forType(Sample.class);
+    assertSame(descriptor, TypeDescriptor.forType(Sample.class));
+    assertSame(Sample.class, descriptor.getType());
+    assertEquals("ID", descriptor.getKeyPropertyName());
+    assertEquals(2, descriptor.getPropertyNames().size());
+    assertEquals("getId", descriptor.getAccessor("setId").getGetter().getName());
+    assertEquals("Name", descriptor.getAccessor("getName").getProperty().name());
+    assertNull(descriptor.getAccessor("getUnknown"));
+    assertEquals("getName", descriptor.getGetterByAnnotatedName(Property.class, "Name").getName());
+  }
+
+  @Test
+  public void classLoaderIsReleased() throws Exception {
+    final WeakReference<ClassLoader> loader = describeInOwnClassLoader();
+
+    // Softly reachable objects are guaranteed to be cleared before an OutOfMemoryError is thrown.
+    List<byte[]> memory = new ArrayList<byte[]>();
+    try {
+      while (true) {
+        memory.add(new byte[1024 * 1024]);
+      }
+    } catch (final OutOfMemoryError e) {
+      memory = Collections.emptyList();
+    }
+    assertEquals(0, memory.size());
+    assertNull(loader.get());
+  }
+
+  private WeakReference<ClassLoader> describeInOwnClassLoader() throws ClassNotFoundException {
+    final ClassLoader loader = new IsolatingClassLoader();
+    final Class<?> type = loader.loadClass(Sample.class.getName());
+    assertSame(loader, type.getClassLoader());
+    assertNotNull(TypeDescriptor.forType(type).getAccessor("getName"));
+    return new WeakReference<ClassLoader>(loader);
+  }
+
+  /** Defines its own copy of {@link Sample} and delegates all other classes to the test class loader. */
+  private static final class IsolatingClassLoader extends ClassLoader {
+
+    private IsolatingClassLoader() {
+      super(TypeDescriptorTest.class.getClassLoader());
+    }
+
+    @Override
+    protected synchronized Class<?> loadClass(final String name, final boolean resolve)
+            throws ClassNotFoundException {
+      if (!Sample.class.getName().equals(name)) {
+        return super.loadClass(name, resolve);
+      }
+      Class<?> type = findLoadedClass(name);
+      if (type == null) {
+        final byte[] bytes = readClass(name);
+        type = defineClass(name, bytes, 0, bytes.length);
+      }
+      return type;
+    }
+
+    private byte[] readClass(final String name) throws ClassNotFoundException {
+      final InputStream input = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+      if (input == null) {
+        throw new ClassNotFoundException(name);
+      }
+      try {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int count;
+        while ((count = input.read(buffer)) != -1) {
+          output.write(buffer, 0, count);
+        }
+        return output.toByteArray();
+      } catch (final IOException e) {
+        throw new ClassNotFoundException(name, e);
+      } finally {
+        try {
+          input.close();
+        } catch (final IOException e) {
+          // ignore
+        }
+      }
+    }
+  }
+}
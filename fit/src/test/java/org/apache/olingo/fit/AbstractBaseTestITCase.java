@@ -30,7 +30,6 @@ import org.apache.commons.io.IOUtils;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.fit.server.TomcatTestServer;
 import org.apache.olingo.server.tecsvc.TechnicalServlet;
-import org.apache.olingo.server.tecsvc.async.TechnicalStatusMonitorServlet;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 
@@ -47,7 +46,6 @@ public abstract class AbstractBaseTestITCase {
           ClassNotFoundException, ServletException {
     server = TomcatTestServer.init(9080)
         .addServlet(TechnicalServlet.class, "/odata-server-tecsvc/odata.svc/*")
-        .addServlet(TechnicalStatusMonitorServlet.class, "/odata-server-tecsvc/status/*")
         .addAuthServlet(TechnicalServlet.class, "/odata-server-tecsvc/auth", "/*")
         .addServlet(StaticContent.create("org-odata-core-v1.xml"),
             "/odata-server-tecsvc/v4.0/cs02/vocabularies/Org.OData.Core.V1.xml")
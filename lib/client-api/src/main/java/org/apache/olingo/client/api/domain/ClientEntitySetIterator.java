@@ -18,20 +18,20 @@
  */
 package org.apache.olingo.client.api.domain;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.URI;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataEntitySetIteratorRequest;
+import org.apache.olingo.client.api.communication.response.ODataResponse;
 import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.serialization.EntitySetReader;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
-import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.slf4j.Logger;
@@ -40,6 +40,12 @@ import org.slf4j.LoggerFactory;
 /**
  * OData entity set iterator class.
  * <br/>
+ * Entities are de-serialized one at a time while iterating, straight from the response stream: only the entity to be
+ * returned next is kept in memory, whatever the size of the entity set.
+ * When {@link #followNextLinks(boolean) following next links}, the pages of a server-side paged entity set are
+ * retrieved and iterated transparently, one after the other.
+ * Errors de-serializing the response are logged and end the iteration.
+ * <br/>
  * <b>Please don't forget to call the <tt>close()>/</tt> method when not needed any more.</b>
  *
  * @param <E> concrete ODataEntity implementation
@@ -57,15 +63,19 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
 
   protected ResWrap<Entity> cached;
 
-  private final InputStream stream;
+  private ContentType contentType;
+
+  private EntitySetReader reader;
 
-  private final ContentType contentType;
+  private ODataResponse response;
 
   private T entitySet;
 
-  private final ByteArrayOutputStream osEntitySet;
+  private boolean followNextLinks;
 
-  private final String namespaces;
+  private boolean prefetch;
+
+  private Future<ODataResponse> nextPage;
 
   private boolean available = true;
 
@@ -80,47 +90,41 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
                                  final ContentType contentType) {
 
     this.odataClient = odataClient;
-    this.stream = stream;
     this.contentType = contentType;
-    this.osEntitySet = new ByteArrayOutputStream();
-    
-    if(contentType.isCompatible(ContentType.APPLICATION_ATOM_SVC)
-        || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML)) {
-      namespaces = getAllElementAttributes(stream, "feed", osEntitySet);
-    } else {
-      namespaces = null;
-      try {
-        if (consume(stream, "\"value\":", osEntitySet, true) >= 0) {
-          int c = 0;
-          while (c != '[' && (c = stream.read()) >= 0) {
-            osEntitySet.write(c);
-          }
-        }
-      } catch (IOException e) {
-        LOG.error("Error parsing entity set", e);
-        throw new IllegalStateException(e);
-      }
-    }
+    this.reader = open(stream, contentType);
+  }
+
+  /**
+   * Makes this iterator continue with the page referenced by the next link, each time the current page has been
+   * consumed, until a page without next link is reached.
+   *
+   * @param prefetch whether the next page has to be requested in background as soon as its link is known, so that
+   * its round trip overlaps with the processing of the last entities of the current page
+   * @return this iterator
+   */
+  public ClientEntitySetIterator<T, E> followNextLinks(final boolean prefetch) {
+    this.followNextLinks = true;
+    this.prefetch = prefetch;
+    return this;
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public boolean hasNext() {
     if (available && cached == null) {
-      if (contentType.isCompatible(ContentType.APPLICATION_ATOM_SVC)
-          || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML)) {
-        cached = nextAtomEntityFromEntitySet(stream, osEntitySet, namespaces);
-      } else {
-        cached = nextJSONEntityFromEntitySet(stream, osEntitySet);
+      cached = read();
+
+      URI next = cached == null && followNextLinks ? getNextLink() : null;
+      while (next != null) {
+        openNextPage(next);
+        cached = read();
+        next = cached == null ? getNextLink() : null;
       }
 
       if (cached == null) {
         available = false;
-        try {
-          entitySet = (T) odataClient.getReader().
-                  readEntitySet(new ByteArrayInputStream(osEntitySet.toByteArray()), contentType);
-        } catch (final ODataDeserializerException e) {
-          available = false;
+        if (reader != null) {
+          entitySet = (T) odataClient.getBinder().getODataEntitySet(reader.getEntitySet());
         }
         close();
       }
@@ -153,8 +157,23 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
    * Closes the current iterator.
    */
   public void close() {
-    IOUtils.closeQuietly(stream);
-    IOUtils.closeQuietly(osEntitySet);
+    if (reader != null) {
+      reader.close();
+    }
+    if (response != null) {
+      response.close();
+      response = null;
+    }
+    if (nextPage != null) {
+      if (!nextPage.cancel(false)) {
+        try {
+          nextPage.get().close();
+        } catch (final Exception e) {
+          LOG.debug("Prefetched page could not be retrieved", e);
+        }
+      }
+      nextPage = null;
+    }
   }
 
   /**
@@ -169,153 +188,81 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
     return entitySet.getNext();
   }
 
-  private ResWrap<Entity> nextJSONEntityFromEntitySet(final InputStream input, final OutputStream osEntitySet) {
-    final ByteArrayOutputStream entity = new ByteArrayOutputStream();
-
-    ResWrap<Entity> jsonEntity = null;
+  private EntitySetReader open(final InputStream stream, final ContentType contentType) {
     try {
-      int c;
-
-      boolean foundNewOne = false;
-
-      do {
-        c = input.read();
-        if (c == '{') {
-          entity.write(c);
-          c = -1;
-          foundNewOne = true;
-        }
-        if (c == ']') {
-          osEntitySet.write(c);
-          c = -1;
-        }
-      } while (c >= 0);
-
-      if (foundNewOne) {
-        int objectCount = 1;
-        int stringCount = 0;
-        c = 0;
-
-        boolean previousCharIsEscape = false;
-        
-        while (objectCount > 0 && c >= 0) {
-          c = input.read();
-          if (c == '{' && stringCount <= 0) {
-              objectCount++;
-          } else if (c == '}' && stringCount <= 0) {
-            objectCount--;
-            // Detect JSON Strings to be able to correctly detect an Entity
-          } else if (c == '"' && stringCount <= 0  && !previousCharIsEscape) {
-            stringCount++;
-          } else if (c == '"' && stringCount > 0  && !previousCharIsEscape) {
-            stringCount--;
-          }
-          entity.write(c);
-          if (c == '\\' && !previousCharIsEscape) {
-            previousCharIsEscape = true;
-          } else {
-            previousCharIsEscape = false;
-          }
-        }
-
-        if (c >= 0) {
-          jsonEntity = odataClient.getDeserializer(ContentType.JSON).toEntity(
-                  new ByteArrayInputStream(entity.toByteArray()));
-        }
-      } else {
-        while ((c = input.read()) >= 0) {
-          osEntitySet.write(c);
-        }
-      }
-    } catch (Exception e) {
-      LOG.error("Error retrieving entities from EntitySet", e);
+      return odataClient.getDeserializer(contentType).toEntitySetReader(stream);
+    } catch (final ODataDeserializerException e) {
+      LOG.error("Error parsing entity set", e);
+      return null;
     }
-
-    return jsonEntity;
   }
 
-  private ResWrap<Entity> nextAtomEntityFromEntitySet(
-          final InputStream input, final OutputStream osEntitySet, final String namespaces) {
-
-    final ByteArrayOutputStream entity = new ByteArrayOutputStream();
-
-    ResWrap<Entity> atomEntity = null;
-
+  private ResWrap<Entity> read() {
+    if (reader == null) {
+      return null;
+    }
+    final ResWrap<Entity> entity;
     try {
-      if (consume(input, "<entry>", osEntitySet, false) >= 0) {
-        entity.write("<entry ".getBytes(Constants.UTF8));
-        entity.write(namespaces.getBytes(Constants.UTF8));
-        entity.write(">".getBytes(Constants.UTF8));
-
-        if (consume(input, "</entry>", entity, true) >= 0) {
-          atomEntity = odataClient.getDeserializer(ContentType.APPLICATION_ATOM_XML).
-                  toEntity(new ByteArrayInputStream(entity.toByteArray()));
-        }
-      }
-    } catch (Exception e) {
+      entity = reader.next();
+    } catch (final ODataDeserializerException e) {
       LOG.error("Error retrieving entities from EntitySet", e);
+      reader.close();
+      reader = null;
+      return null;
     }
 
-    return atomEntity;
-  }
-
-  private String getAllElementAttributes(final InputStream input, final String name, final OutputStream os) {
-    final ByteArrayOutputStream attrs = new ByteArrayOutputStream();
-
-    String res;
-
-    try {
-      byte[] attrsDeclaration = null;
-
-      final String key = "<" + name + " ";
-      if (consume(input, key, os, true) >= 0 && consume(input, ">", attrs, false) >= 0) {
-        attrsDeclaration = attrs.toByteArray();
-        os.write(attrsDeclaration);
-        os.write('>');
+    if (entity != null && prefetch && nextPage == null) {
+      final URI next = getNextLink();
+      if (next != null) {
+        nextPage = odataClient.getConfiguration().getExecutor().submit(new Callable<ODataResponse>() {
+          @Override
+          public ODataResponse call() {
+            return request(next);
+          }
+        });
       }
-
-      res = attrsDeclaration == null ? "" : new String(attrsDeclaration, Constants.UTF8).trim();
-    } catch (Exception e) {
-      LOG.error("Error retrieving entities from EntitySet", e);
-      res = "";
     }
+    return entity;
+  }
 
-    return res.endsWith("/") ? res.substring(0, res.length() - 1) : res;
+  private URI getNextLink() {
+    return reader == null || reader.getEntitySet().getPayload().getNext() == null
+        ? null
+        : odataClient.getBinder().getODataEntitySet(reader.getEntitySet()).getNext();
   }
 
-  private int consume(
-          final InputStream input, final String end, final OutputStream os, final boolean includeEndKey)
-          throws IOException {
-
-    final char[] endKey = end.toCharArray();
-    final char[] endLowerKey = end.toLowerCase().toCharArray();
-    final char[] endUpperKey = end.toUpperCase().toCharArray();
-
-    int pos = 0;
-    int c = 0;
-    while (pos < endKey.length && (c = input.read()) >= 0) {
-      if (c == endLowerKey[pos] || c == endUpperKey[pos]) {
-        pos++;
-        if (includeEndKey && os != null) {
-          os.write(c);
-        }
-      } else if (pos > 0) {
-        if (!includeEndKey && os != null) {
-          for (int i = 0; i < pos; i++) {
-            os.write(endKey[i]);
-          }
-        }
-        if (os != null) {
-          os.write(c);
-        }
-        pos = 0;
-      } else {
-        if (os != null) {
-          os.write(c);
+  private ODataResponse request(final URI next) {
+    final ODataEntitySetIteratorRequest<ClientEntitySet, ClientEntity> request =
+        odataClient.getRetrieveRequestFactory().getEntitySetIteratorRequest(next);
+    request.setFormat(contentType);
+    return request.execute();
+  }
+
+  private void openNextPage(final URI next) {
+    final ODataResponse page;
+    if (nextPage == null) {
+      page = request(next);
+    } else {
+      try {
+        page = nextPage.get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        close();
+        throw new IllegalStateException(e);
+      } catch (final ExecutionException e) {
+        close();
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
         }
+        throw new IllegalStateException(e.getCause());
+      } finally {
+        nextPage = null;
       }
     }
 
-    return c;
+    close();
+    response = page;
+    contentType = ContentType.parse(page.getContentType());
+    reader = open(page.getRawResponse(), contentType);
   }
 }
@@ -55,4 +55,13 @@ public interface ClientODataDeserializer extends ODataDeserializer {
    * @throws ODataDeserializerException
    */
   ResWrap<Delta> toDelta(InputStream input) throws ODataDeserializerException;
+
+  /**
+   * Opens a reader de-serializing the entities of the entity set in the given InputStream one at a time.
+   *
+   * @param input stream to be de-serialized; it is closed when the returned reader is closed.
+   * @return {@link EntitySetReader} instance.
+   * @throws ODataDeserializerException
+   */
+  EntitySetReader toEntitySetReader(InputStream input) throws ODataDeserializerException;
 }
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.serialization;
+
+import java.io.Closeable;
+
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+
+/**
+ * Pull reader over an entity set payload.
+ * <br/>
+ * Entities are de-serialized one at a time, straight from the source stream; only the entity last returned is held
+ * in memory. Feed-level information (count, next link, delta link, annotations) is collected while reading and is
+ * complete once {@link #next()} has returned <tt>null</tt>.
+ */
+public interface EntitySetReader extends Closeable {
+
+  /**
+   * Reads the next entity of the entity set.
+   *
+   * @return the next entity, or <tt>null</tt> if the entity set has no more entities
+   * @throws ODataDeserializerException if the payload cannot be read
+   */
+  ResWrap<Entity> next() throws ODataDeserializerException;
+
+  /**
+   * Gets the entity set read so far, without any entities.
+   * <br/>
+   * Information placed after the entities in the payload (as the next link usually is) is available as soon as the
+   * last entity has been read.
+   *
+   * @return entity set with context URL and metadata ETag
+   */
+  ResWrap<EntityCollection> getEntitySet();
+
+  /**
+   * Closes the reader and the underlying stream.
+   */
+  @Override
+  void close();
+}
@@ -35,6 +35,12 @@ public class BasicAuthHttpClientFactory extends DefaultHttpClientFactory {
   private final String password;
 
   public BasicAuthHttpClientFactory(final String username, final String password) {
+    this(username, password, null);
+  }
+
+  public BasicAuthHttpClientFactory(final String username, final String password,
+          final HttpClientConnectionPool connectionPool) {
+    super(connectionPool);
     this.username = username;
     this.password = password;
   }
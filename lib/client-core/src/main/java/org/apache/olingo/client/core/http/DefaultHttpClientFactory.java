@@ -20,26 +20,76 @@ package org.apache.olingo.client.core.http;
 
 import java.net.URI;
 
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.params.CoreProtocolPNames;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.apache.olingo.commons.api.http.HttpMethod;
 
 /**
  * Default implementation returning HttpClients with default parameters.
+ * <br/>
+ * Without {@link HttpClientConnectionPool} each HttpClient gets its own connection which is closed together
+ * with the client; with a pool, the HttpClients share the kept-alive connections of the pool.
  */
 public class DefaultHttpClientFactory extends AbstractHttpClientFactory {
 
+  /** Parameter holding the last response of an HttpClient using a connection pool */
+  private static final String LAST_RESPONSE = DefaultHttpClientFactory.class.getName() + ".lastResponse";
+
+  private final HttpClientConnectionPool connectionPool;
+
+  public DefaultHttpClientFactory() {
+    this(null);
+  }
+
+  public DefaultHttpClientFactory(final HttpClientConnectionPool connectionPool) {
+    this.connectionPool = connectionPool;
+  }
+
+  public HttpClientConnectionPool getConnectionPool() {
+    return connectionPool;
+  }
+
   @Override
   public DefaultHttpClient create(final HttpMethod method, final URI uri) {
-    final DefaultHttpClient client = new DefaultHttpClient();
+    final DefaultHttpClient client;
+    if (connectionPool == null) {
+      client = new DefaultHttpClient();
+    } else {
+      client = new DefaultHttpClient(connectionPool.getConnectionManager());
+      client.setKeepAliveStrategy(connectionPool.getKeepAliveStrategy());
+      final HttpParams params = client.getParams();
+      client.addResponseInterceptor(new HttpResponseInterceptor() {
+        @Override
+        public void process(final HttpResponse response, final HttpContext context) {
+          params.setParameter(LAST_RESPONSE, response);
+        }
+      });
+    }
     client.getParams().setParameter(CoreProtocolPNames.USER_AGENT, USER_AGENT);
     return client;
   }
 
+  /**
+   * Closes the connection of the client or, with a connection pool, returns the connection to the pool
+   * after consuming what is left of the last response.
+   */
   @Override
   public void close(final HttpClient httpClient) {
-    httpClient.getConnectionManager().shutdown();
+    if (connectionPool == null) {
+      httpClient.getConnectionManager().shutdown();
+    } else {
+      final Object response = httpClient.getParams().getParameter(LAST_RESPONSE);
+      if (response instanceof HttpResponse) {
+        httpClient.getParams().removeParameter(LAST_RESPONSE);
+        EntityUtils.consumeQuietly(((HttpResponse) response).getEntity());
+      }
+    }
   }
 
 }
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Pool of HTTP connections that are kept alive and re-used by all HTTP clients created by
+ * a {@link DefaultHttpClientFactory} (or one of its subclasses) constructed with this pool.
+ * <br/>
+ * Idle and expired connections are closed by a background thread.
+ * The pool counts how often connections have been leased and how long the clients had to wait for them;
+ * together with the pool statistics this shows whether the limits fit the load.
+ * <br/>
+ * The pool is meant to be shared for the life time of an application and must be closed at its end.
+ */
+public class HttpClientConnectionPool implements Closeable {
+
+  public static final int DEFAULT_MAX_TOTAL = 100;
+
+  public static final int DEFAULT_MAX_PER_ROUTE = 20;
+
+  public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+
+  public static final long DEFAULT_MAX_IDLE_MILLIS = 60000;
+
+  private static final long EVICTION_INTERVAL_MILLIS = 5000;
+
+  private final MeasuringConnectionManager connectionManager;
+
+  private final ConnectionKeepAliveStrategy keepAliveStrategy;
+
+  private final ScheduledExecutorService evictor;
+
+  public HttpClientConnectionPool() {
+    this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE, DEFAULT_KEEP_ALIVE_MILLIS, DEFAULT_MAX_IDLE_MILLIS);
+  }
+
+  /**
+   * @param maxTotal maximum number of connections
+   * @param maxPerRoute maximum number of connections to a single host
+   * @param keepAliveMillis how long a connection is kept alive if the server does not say it in its response
+   * @param maxIdleMillis how long a connection may stay unused in the pool before it is closed
+   */
+  public HttpClientConnectionPool(final int maxTotal, final int maxPerRoute,
+      final long keepAliveMillis, final long maxIdleMillis) {
+
+    connectionManager = new MeasuringConnectionManager();
+    connectionManager.setMaxTotal(maxTotal);
+    connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+    keepAliveStrategy = new ConnectionKeepAliveStrategy() {
+      @Override
+      public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+        final long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return duration > 0 ? duration : keepAliveMillis;
+      }
+    };
+
+    evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "olingo-http-connection-eviction");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    evictor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(maxIdleMillis, TimeUnit.MILLISECONDS);
+      }
+    }, EVICTION_INTERVAL_MILLIS, EVICTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Sets the maximum number of connections to the host of the given URI.
+   * @param uri URI with scheme, host, and optionally port
+   * @param max maximum number of connections
+   */
+  public void setMaxPerRoute(final URI uri, final int max) {
+    connectionManager.setMaxPerRoute(getRoute(uri), max);
+  }
+
+  /**
+   * Gets the statistics of the whole pool: leased, available, and pending connections, and the limit.
+   * @return pool statistics
+   */
+  public PoolStats getTotalStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  /**
+   * Gets the statistics of the connections to the host of the given URI.
+   * @param uri URI with scheme, host, and optionally port
+   * @return pool statistics of the route
+   */
+  public PoolStats getStats(final URI uri) {
+    return connectionManager.getStats(getRoute(uri));
+  }
+
+  /** Returns how often a connection has been leased from the pool. */
+  public long getLeaseCount() {
+    return connectionManager.leaseCount.get();
+  }
+
+  /**
+   * Returns how long all leases of connections have waited in total.
+   * @param unit time unit of the result
+   */
+  public long getLeaseWaitTime(final TimeUnit unit) {
+    return unit.convert(connectionManager.leaseWaitNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns how long the longest lease of a connection has waited.
+   * @param unit time unit of the result
+   */
+  public long getMaxLeaseWaitTime(final TimeUnit unit) {
+    return unit.convert(connectionManager.maxLeaseWaitNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /** Closes all connections and stops the background thread. */
+  @Override
+  public void close() {
+    evictor.shutdownNow();
+    connectionManager.shutdown();
+  }
+
+  protected ClientConnectionManager getConnectionManager() {
+    return connectionManager;
+  }
+
+  protected ConnectionKeepAliveStrategy getKeepAliveStrategy() {
+    return keepAliveStrategy;
+  }
+
+  private static HttpRoute getRoute(final URI uri) {
+    final boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+    final int port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+    return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+  }
+
+  /** Connection manager that measures how long requests for connections wait. */
+  private static class MeasuringConnectionManager extends PoolingClientConnectionManager {
+
+    private final AtomicLong leaseCount = new AtomicLong();
+
+    private final AtomicLong leaseWaitNanos = new AtomicLong();
+
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+
+    MeasuringConnectionManager() {
+      super(SchemeRegistryFactory.createDefault());
+    }
+
+    @Override
+    public ClientConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+      final ClientConnectionRequest request = super.requestConnection(route, state);
+      return new ClientConnectionRequest() {
+        @Override
+        public ManagedClientConnection getConnection(final long timeout, final TimeUnit unit)
+            throws InterruptedException, ConnectionPoolTimeoutException {
+          final long start = System.nanoTime();
+          try {
+            return request.getConnection(timeout, unit);
+          } finally {
+            measure(System.nanoTime() - start);
+          }
+        }
+
+        @Override
+        public void abortRequest() {
+          request.abortRequest();
+        }
+      };
+    }
+
+    private void measure(final long waitNanos) {
+      leaseCount.incrementAndGet();
+      leaseWaitNanos.addAndGet(waitNanos);
+      long max = maxLeaseWaitNanos.get();
+      while (waitNanos > max && !maxLeaseWaitNanos.compareAndSet(max, waitNanos)) {
+        max = maxLeaseWaitNanos.get();
+      }
+    }
+  }
+}
@@ -49,6 +49,13 @@ public class NTLMAuthHttpClientFactory extends DefaultHttpClientFactory {
   public NTLMAuthHttpClientFactory(final String username, final String password,
           final String workstation, final String domain) {
 
+    this(username, password, workstation, domain, null);
+  }
+
+  public NTLMAuthHttpClientFactory(final String username, final String password,
+          final String workstation, final String domain, final HttpClientConnectionPool connectionPool) {
+
+    super(connectionPool);
     this.username = username;
     this.password = password;
     this.workstation = workstation;
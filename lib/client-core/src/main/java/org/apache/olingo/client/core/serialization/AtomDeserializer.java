@@ -35,8 +35,10 @@ import javax.xml.stream.events.Attribute;
 import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.serialization.EntitySetReader;
 import org.apache.olingo.client.api.serialization.ODataDeserializer;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.commons.api.Constants;
@@ -765,53 +767,65 @@ public class AtomDeserializer implements ODataDeserializer {
     }
   }
 
-  private EntityCollection entitySet(final XMLEventReader reader, final StartElement start)
-      throws XMLStreamException, EdmPrimitiveTypeException {
-    if (!Constants.QNAME_ATOM_ELEM_FEED.equals(start.getName())) {
-      return null;
-    }
+  private EntityCollection newEntitySet(final StartElement start) {
     final EntityCollection entitySet = new EntityCollection();
     final Attribute xmlBase = start.getAttributeByName(Constants.QNAME_ATTR_XML_BASE);
     if (xmlBase != null) {
       entitySet.setBaseURI(URI.create(xmlBase.getValue()));
     }
+    return entitySet;
+  }
+
+  private void feedElement(final XMLEventReader reader, final StartElement start, final EntityCollection entitySet)
+      throws XMLStreamException, EdmPrimitiveTypeException {
+    if (countQName.equals(start.getName())) {
+      count(reader, start, entitySet);
+    } else if (Constants.QNAME_ATOM_ELEM_ID.equals(start.getName())) {
+      common(reader, start, entitySet, "id");
+    } else if (Constants.QNAME_ATOM_ELEM_TITLE.equals(start.getName())) {
+      common(reader, start, entitySet, "title");
+    } else if (Constants.QNAME_ATOM_ELEM_SUMMARY.equals(start.getName())) {
+      common(reader, start, entitySet, "summary");
+    } else if (Constants.QNAME_ATOM_ELEM_UPDATED.equals(start.getName())) {
+      common(reader, start, entitySet, "updated");
+    } else if (Constants.QNAME_ATOM_ELEM_LINK.equals(start.getName())) {
+      final Attribute rel = start.getAttributeByName(QName.valueOf(Constants.ATTR_REL));
+      if (rel != null) {
+        if (Constants.NEXT_LINK_REL.equals(rel.getValue())) {
+          final Attribute href = start.getAttributeByName(QName.valueOf(Constants.ATTR_HREF));
+          if (href != null) {
+            entitySet.setNext(URI.create(href.getValue()));
+          }
+        }
+        if (Constants.NS_DELTA_LINK_REL.equals(rel.getValue())) {
+          final Attribute href = start.getAttributeByName(QName.valueOf(Constants.ATTR_HREF));
+          if (href != null) {
+            entitySet.setDeltaLink(URI.create(href.getValue()));
+          }
+        }
+      }
+    } else if (annotationQName.equals(start.getName())) {
+      entitySet.getAnnotations().add(annotation(reader, start));
+    }
+  }
+
+  private EntityCollection entitySet(final XMLEventReader reader, final StartElement start)
+      throws XMLStreamException, EdmPrimitiveTypeException {
+    if (!Constants.QNAME_ATOM_ELEM_FEED.equals(start.getName())) {
+      return null;
+    }
+    final EntityCollection entitySet = newEntitySet(start);
 
     boolean foundEndFeed = false;
     while (reader.hasNext() && !foundEndFeed) {
       final XMLEvent event = reader.nextEvent();
       if (event.isStartElement()) {
-        if (countQName.equals(event.asStartElement().getName())) {
-          count(reader, event.asStartElement(), entitySet);
-        } else if (Constants.QNAME_ATOM_ELEM_ID.equals(event.asStartElement().getName())) {
-          common(reader, event.asStartElement(), entitySet, "id");
-        } else if (Constants.QNAME_ATOM_ELEM_TITLE.equals(event.asStartElement().getName())) {
-          common(reader, event.asStartElement(), entitySet, "title");
-        } else if (Constants.QNAME_ATOM_ELEM_SUMMARY.equals(event.asStartElement().getName())) {
-          common(reader, event.asStartElement(), entitySet, "summary");
-        } else if (Constants.QNAME_ATOM_ELEM_UPDATED.equals(event.asStartElement().getName())) {
-          common(reader, event.asStartElement(), entitySet, "updated");
-        } else if (Constants.QNAME_ATOM_ELEM_LINK.equals(event.asStartElement().getName())) {
-          final Attribute rel = event.asStartElement().getAttributeByName(QName.valueOf(Constants.ATTR_REL));
-          if (rel != null) {
-            if (Constants.NEXT_LINK_REL.equals(rel.getValue())) {
-              final Attribute href = event.asStartElement().getAttributeByName(QName.valueOf(Constants.ATTR_HREF));
-              if (href != null) {
-                entitySet.setNext(URI.create(href.getValue()));
-              }
-            }
-            if (Constants.NS_DELTA_LINK_REL.equals(rel.getValue())) {
-              final Attribute href = event.asStartElement().getAttributeByName(QName.valueOf(Constants.ATTR_HREF));
-              if (href != null) {
-                entitySet.setDeltaLink(URI.create(href.getValue()));
-              }
-            }
-          }
-        } else if (Constants.QNAME_ATOM_ELEM_ENTRY.equals(event.asStartElement().getName())) {
+        if (Constants.QNAME_ATOM_ELEM_ENTRY.equals(event.asStartElement().getName())) {
           entitySet.getEntities().add(entity(reader, event.asStartElement()));
         } else if (entryRefQName.equals(event.asStartElement().getName())) {
           entitySet.getEntities().add(entityRef(event.asStartElement()));
-        } else if (annotationQName.equals(event.asStartElement().getName())) {
-          entitySet.getAnnotations().add(annotation(reader, event.asStartElement()));
+        } else {
+          feedElement(reader, event.asStartElement(), entitySet);
         }
       }
 
@@ -836,6 +850,108 @@ public class AtomDeserializer implements ODataDeserializer {
     }
   }
 
+  /**
+   * Opens a reader de-serializing the entries of the feed in the given stream one at a time.
+   *
+   * @param input stream to be de-serialized
+   * @return entity set reader
+   * @throws ODataDeserializerException if the stream does not start with a feed
+   */
+  public EntitySetReader toEntitySetReader(final InputStream input) throws ODataDeserializerException {
+    try {
+      final XMLEventReader reader = getReader(input);
+      final StartElement start = skipBeforeFirstStartElement(reader);
+      if (!Constants.QNAME_ATOM_ELEM_FEED.equals(start.getName())) {
+        throw new ODataDeserializerException("No feed found!");
+      }
+      return new AtomEntitySetReader(input, reader, start);
+    } catch (final XMLStreamException e) {
+      IOUtils.closeQuietly(input);
+      throw new ODataDeserializerException(e);
+    } catch (final EdmPrimitiveTypeException e) {
+      IOUtils.closeQuietly(input);
+      throw new ODataDeserializerException(e);
+    }
+  }
+
+  /**
+   * Reads the feed up to the start of each entry; feed elements after the last entry (such as the next link) are
+   * therefore known as soon as the last entry has been read.
+   */
+  private class AtomEntitySetReader implements EntitySetReader {
+
+    private final InputStream input;
+
+    private final XMLEventReader reader;
+
+    private final StartElement start;
+
+    private final EntityCollection entitySet;
+
+    private StartElement entry;
+
+    AtomEntitySetReader(final InputStream input, final XMLEventReader reader, final StartElement start)
+        throws XMLStreamException, EdmPrimitiveTypeException {
+
+      this.input = input;
+      this.reader = reader;
+      this.start = start;
+      entitySet = newEntitySet(start);
+      advance();
+    }
+
+    private void advance() throws XMLStreamException, EdmPrimitiveTypeException {
+      entry = null;
+      boolean foundEndFeed = false;
+      while (entry == null && !foundEndFeed && reader.hasNext()) {
+        final XMLEvent event = reader.nextEvent();
+        if (event.isStartElement()) {
+          if (Constants.QNAME_ATOM_ELEM_ENTRY.equals(event.asStartElement().getName())
+              || entryRefQName.equals(event.asStartElement().getName())) {
+            entry = event.asStartElement();
+          } else {
+            feedElement(reader, event.asStartElement(), entitySet);
+          }
+        }
+
+        if (event.isEndElement() && start.getName().equals(event.asEndElement().getName())) {
+          foundEndFeed = true;
+        }
+      }
+    }
+
+    @Override
+    public ResWrap<Entity> next() throws ODataDeserializerException {
+      if (entry == null) {
+        return null;
+      }
+      try {
+        final ResWrap<Entity> res = getContainer(entry, entity(reader, entry));
+        advance();
+        return res;
+      } catch (final XMLStreamException e) {
+        throw new ODataDeserializerException(e);
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new ODataDeserializerException(e);
+      }
+    }
+
+    @Override
+    public ResWrap<EntityCollection> getEntitySet() {
+      return getContainer(start, entitySet);
+    }
+
+    @Override
+    public void close() {
+      try {
+        reader.close();
+      } catch (final XMLStreamException e) {
+        // ignore: the underlying stream gets closed anyway
+      }
+      IOUtils.closeQuietly(input);
+    }
+  }
+
   private ODataError error(final XMLEventReader reader, final StartElement start) throws XMLStreamException {
     final ODataError error = new ODataError();
     error.setDetails(new ArrayList<ODataErrorDetail>(0));
@@ -35,6 +35,7 @@ import org.apache.olingo.client.api.data.ServiceDocument;
 import org.apache.olingo.client.api.edm.xml.Edmx;
 import org.apache.olingo.client.api.edm.xml.XMLMetadata;
 import org.apache.olingo.client.api.serialization.ClientODataDeserializer;
+import org.apache.olingo.client.api.serialization.EntitySetReader;
 import org.apache.olingo.client.api.serialization.ODataDeserializer;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.client.core.data.JSONServiceDocumentDeserializer;
@@ -219,6 +220,13 @@ public class ClientODataDeserializerImpl implements ClientODataDeserializer {
     }
   }
 
+  @Override
+  public EntitySetReader toEntitySetReader(final InputStream input) throws ODataDeserializerException {
+    return deserializer instanceof AtomDeserializer
+        ? ((AtomDeserializer) deserializer).toEntitySetReader(input)
+        : ((JsonDeserializer) deserializer).toEntitySetReader(input);
+  }
+
   @Override
   public List<CsdlSchema> fetchTermDefinitionSchema(List<InputStream> input) {
     List<CsdlSchema> schemas = new ArrayList<CsdlSchema>();
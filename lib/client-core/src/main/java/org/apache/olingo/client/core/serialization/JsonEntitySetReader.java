@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.serialization.EntitySetReader;
+import org.apache.olingo.client.api.serialization.ODataDeserializerException;
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.Annotation;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Operation;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+/**
+ * Reads the entities of a JSON entity set one at a time, directly from the parser.
+ * <br/>
+ * The reader always stays positioned on the start of the next entity, so entity-set fields following the
+ * <tt>value</tt> array (such as the next link) are known as soon as the last entity has been read.
+ */
+class JsonEntitySetReader implements EntitySetReader {
+
+  private final InputStream input;
+
+  private final JsonParser parser;
+
+  private final JsonDeserializer deserializer;
+
+  private final JsonEntityDeserializer entityDeserializer;
+
+  private final EntityCollection entitySet = new EntityCollection();
+
+  private URI contextURL;
+
+  private String metadataETag;
+
+  private boolean inValue;
+
+  private boolean atEntity;
+
+  JsonEntitySetReader(final boolean serverMode, final InputStream input, final JsonParser parser)
+      throws IOException {
+
+    this.input = input;
+    this.parser = parser;
+    deserializer = new JsonDeserializer(serverMode);
+    entityDeserializer = new JsonEntityDeserializer(serverMode);
+
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new JsonParseException("Expected OData EntitySet", parser.getCurrentLocation());
+    }
+    advance();
+  }
+
+  /**
+   * Moves the parser to the start of the next entity, reading all entity-set fields on the way.
+   */
+  private void advance() throws IOException {
+    atEntity = false;
+    while (true) {
+      if (inValue) {
+        final JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+          atEntity = true;
+          return;
+        } else if (token != JsonToken.END_ARRAY) {
+          throw new JsonParseException("Expected OData Entity", parser.getCurrentLocation());
+        }
+        inValue = false;
+      }
+
+      if (parser.nextToken() != JsonToken.FIELD_NAME) {
+        return;
+      }
+      final String name = parser.getCurrentName();
+      if (parser.nextToken() == JsonToken.START_ARRAY && Constants.VALUE.equals(name)) {
+        inValue = true;
+      } else {
+        field(name);
+      }
+    }
+  }
+
+  private void field(final String name) throws IOException {
+    if (Constants.JSON_CONTEXT.equals(name) || Constants.JSON_METADATA.equals(name)) {
+      final String value = parser.getValueAsString();
+      if (value != null && (contextURL == null || Constants.JSON_CONTEXT.equals(name))) {
+        contextURL = URI.create(value);
+        entitySet.setBaseURI(URI.create(StringUtils.substringBefore(value, Constants.METADATA)));
+      }
+    } else if (Constants.JSON_METADATA_ETAG.equals(name)) {
+      metadataETag = parser.getValueAsString();
+    } else if (Constants.JSON_COUNT.equals(name)) {
+      if (parser.getCurrentToken() != JsonToken.VALUE_NULL) {
+        entitySet.setCount(parser.getValueAsInt());
+      }
+    } else if (Constants.JSON_NEXT_LINK.equals(name)) {
+      final String value = parser.getValueAsString();
+      if (value != null) {
+        entitySet.setNext(URI.create(value));
+      }
+    } else if (Constants.JSON_DELTA_LINK.equals(name)) {
+      final String value = parser.getValueAsString();
+      if (value != null) {
+        entitySet.setDeltaLink(URI.create(value));
+      }
+    } else if (name.length() > 0 && name.charAt(0) == '@') {
+      final JsonNode node = parser.getCodec().readTree(parser);
+      final Annotation annotation = new Annotation();
+      annotation.setTerm(name.substring(1));
+      try {
+        deserializer.value(annotation, node == null ? NullNode.getInstance() : node, parser.getCodec());
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new IOException(e);
+      }
+      entitySet.getAnnotations().add(annotation);
+    } else if (name.length() > 0 && name.charAt(0) == '#') {
+      final JsonNode node = parser.getCodec().readTree(parser);
+      final Operation operation = new Operation();
+      operation.setMetadataAnchor(name);
+      operation.setTitle(node.get(Constants.ATTR_TITLE).asText());
+      operation.setTarget(URI.create(node.get(Constants.ATTR_TARGET).asText()));
+      entitySet.getOperations().add(operation);
+    }
+    parser.skipChildren();
+  }
+
+  @Override
+  public ResWrap<Entity> next() throws ODataDeserializerException {
+    if (!atEntity) {
+      return null;
+    }
+    try {
+      final ResWrap<Entity> entity = entityDeserializer.doDeserialize(parser);
+      advance();
+      return entity;
+    } catch (final IOException e) {
+      throw new ODataDeserializerException(e);
+    }
+  }
+
+  @Override
+  public ResWrap<EntityCollection> getEntitySet() {
+    return new ResWrap<EntityCollection>(contextURL, metadataETag, entitySet);
+  }
+
+  @Override
+  public void close() {
+    IOUtils.closeQuietly(parser);
+    IOUtils.closeQuietly(input);
+  }
+}
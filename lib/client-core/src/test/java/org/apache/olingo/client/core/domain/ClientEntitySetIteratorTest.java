@@ -21,6 +21,8 @@ package org.apache.olingo.client.core.domain;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 
@@ -28,11 +30,17 @@ import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.domain.ClientEntity;
 import org.apache.olingo.client.api.domain.ClientEntitySet;
 import org.apache.olingo.client.api.domain.ClientEntitySetIterator;
+import org.apache.olingo.client.api.serialization.EntitySetReader;
 import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
 public class ClientEntitySetIteratorTest {
   
     @Test
@@ -203,4 +211,132 @@ public class ClientEntitySetIteratorTest {
         Assert.assertEquals("http://localhost:8082/odata-server-tecsvc/"
             + "odata.svc/ESServerSidePaging?%24skiptoken=1%2A10", entitySetIterator.getNext().toString());
     }
+
+    @Test
+    public void testAtomEntitySetIterator() throws IOException, URISyntaxException {
+        String str = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+            + "<feed xmlns=\"http://www.w3.org/2005/Atom\" xmlns:d=\"http://docs.oasis-open.org/odata/ns/data\" "
+            + "xmlns:m=\"http://docs.oasis-open.org/odata/ns/metadata\" "
+            + "m:context=\"http://localhost/odata.svc/$metadata#ESAllPrim\">"
+            + "<m:count>3</m:count>"
+            + "<entry><id>http://localhost/odata.svc/ESAllPrim(1)</id><content type=\"application/xml\">"
+            + "<m:properties><d:PropertyInt16 m:type=\"Int16\">1</d:PropertyInt16></m:properties></content></entry>"
+            + "<entry><id>http://localhost/odata.svc/ESAllPrim(2)</id><content type=\"application/xml\">"
+            + "<m:properties><d:PropertyInt16 m:type=\"Int16\">2</d:PropertyInt16></m:properties></content></entry>"
+            + "<link rel=\"next\" href=\"http://localhost/odata.svc/ESAllPrim?$skiptoken=2\"/>"
+            + "</feed>";
+
+        InputStream stream = new ByteArrayInputStream(str.getBytes(Constants.UTF8));
+        ODataClient oDataClient = ODataClientFactory.getClient();
+        ClientEntitySetIterator<ClientEntitySet, ClientEntity> entitySetIterator =
+            new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(
+            oDataClient, stream, ContentType.APPLICATION_ATOM_XML);
+
+        ArrayList<ClientEntity> entities = new ArrayList<ClientEntity>();
+        while (entitySetIterator.hasNext()) {
+            entities.add(entitySetIterator.next());
+        }
+
+        Assert.assertEquals(2, entities.size());
+        Assert.assertEquals("1", entities.get(0).getProperty("PropertyInt16").getPrimitiveValue().toString());
+        Assert.assertEquals("2", entities.get(1).getProperty("PropertyInt16").getPrimitiveValue().toString());
+        Assert.assertEquals("http://localhost/odata.svc/ESAllPrim?$skiptoken=2",
+            entitySetIterator.getNext().toString());
+    }
+
+    @Test
+    public void testEntitySetReaderTrailingFields() throws Exception {
+        String str = "{\"@odata.context\":\"$metadata#ESAllPrim\","
+            + "\"value\":[{\"PropertyInt16\":1},{\"PropertyInt16\":2}],"
+            + "\"@odata.count\":2,"
+            + "\"@odata.nextLink\":\"ESAllPrim?$skiptoken=2\","
+            + "\"@Custom.Annotation\":\"text\"}";
+
+        ODataClient oDataClient = ODataClientFactory.getClient();
+        EntitySetReader reader = oDataClient.getDeserializer(ContentType.JSON)
+            .toEntitySetReader(new ByteArrayInputStream(str.getBytes(Constants.UTF8)));
+
+        Assert.assertNotNull(reader.next());
+        Assert.assertNull(reader.getEntitySet().getPayload().getNext());
+        Assert.assertNotNull(reader.next());
+        // the fields after the last entity are read together with it
+        Assert.assertEquals("ESAllPrim?$skiptoken=2", reader.getEntitySet().getPayload().getNext().toString());
+        Assert.assertEquals(Integer.valueOf(2), reader.getEntitySet().getPayload().getCount());
+        Assert.assertEquals(1, reader.getEntitySet().getPayload().getAnnotations().size());
+        Assert.assertEquals("$metadata#ESAllPrim", reader.getEntitySet().getContextURL().toString());
+        Assert.assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testEntitySetIteratorMalformedEntity() throws Exception {
+        String str = "{\"@odata.context\":\"$metadata#ESAllPrim\","
+            + "\"value\":[{\"PropertyInt16\":1},{\"PropertyInt16\":]}";
+
+        ClientEntitySetIterator<ClientEntitySet, ClientEntity> entitySetIterator =
+            new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(ODataClientFactory.getClient(),
+                new ByteArrayInputStream(str.getBytes(Constants.UTF8)), ContentType.JSON);
+
+        // de-serialization errors are logged and end the iteration
+        Assert.assertTrue(entitySetIterator.hasNext());
+        Assert.assertEquals("1", entitySetIterator.next().getProperty("PropertyInt16").getPrimitiveValue().toString());
+        Assert.assertFalse(entitySetIterator.hasNext());
+    }
+
+    @Test
+    public void testEntitySetIteratorMalformedEntitySet() throws Exception {
+        ClientEntitySetIterator<ClientEntitySet, ClientEntity> entitySetIterator =
+            new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(ODataClientFactory.getClient(),
+                new ByteArrayInputStream("[]".getBytes(Constants.UTF8)), ContentType.JSON);
+
+        Assert.assertFalse(entitySetIterator.hasNext());
+    }
+
+    @Test
+    public void testEntitySetIteratorFollowNextLinks() throws Exception {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        final String serviceRoot = "http://localhost:" + server.getAddress().getPort() + "/odata.svc/";
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final String query = exchange.getRequestURI().getRawQuery();
+                final int page = query == null ? 0 : Integer.parseInt(query.substring(query.indexOf('=') + 1));
+                final byte[] body = page(serviceRoot, page).getBytes(Constants.UTF8);
+                exchange.getResponseHeaders().set("Content-Type", ContentType.JSON.toContentTypeString());
+                exchange.sendResponseHeaders(200, body.length);
+                final OutputStream output = exchange.getResponseBody();
+                output.write(body);
+                output.close();
+            }
+        });
+        server.start();
+        try {
+            ODataClient oDataClient = ODataClientFactory.getClient();
+            InputStream stream = new ByteArrayInputStream(page(serviceRoot, 0).getBytes(Constants.UTF8));
+            ClientEntitySetIterator<ClientEntitySet, ClientEntity> entitySetIterator =
+                new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(oDataClient, stream, ContentType.JSON)
+                .followNextLinks(true);
+
+            ArrayList<ClientEntity> entities = new ArrayList<ClientEntity>();
+            while (entitySetIterator.hasNext()) {
+                entities.add(entitySetIterator.next());
+            }
+
+            Assert.assertEquals(6, entities.size());
+            for (int i = 0; i < entities.size(); i++) {
+                Assert.assertEquals(String.valueOf(i),
+                    entities.get(i).getProperty("PropertyInt16").getPrimitiveValue().toString());
+            }
+            Assert.assertNull(entitySetIterator.getNext());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static String page(final String serviceRoot, final int page) {
+        return "{\"@odata.context\":\"" + serviceRoot + "$metadata#ESServerSidePaging\","
+            + "\"value\":[{\"PropertyInt16\":" + (2 * page) + "},{\"PropertyInt16\":" + (2 * page + 1) + "}]"
+            + (page < 2 ? ",\"@odata.nextLink\":\"ESServerSidePaging?$skiptoken=" + (page + 1) + "\"" : "")
+            + "}";
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpClientConnectionPoolTest {
+
+  private static final byte[] PAYLOAD = new byte[20000];
+
+  private HttpServer server;
+  private URI uri;
+  private final Set<InetSocketAddress> clientAddresses =
+      Collections.synchronizedSet(new HashSet<InetSocketAddress>());
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        clientAddresses.add(exchange.getRemoteAddress());
+        exchange.sendResponseHeaders(200, PAYLOAD.length);
+        final OutputStream body = exchange.getResponseBody();
+        body.write(PAYLOAD);
+        body.close();
+      }
+    });
+    server.start();
+    uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/service");
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void connectionsAreReused() throws Exception {
+    final HttpClientConnectionPool pool = new HttpClientConnectionPool();
+    try {
+      final DefaultHttpClientFactory factory = new DefaultHttpClientFactory(pool);
+      for (int i = 0; i < 10; i++) {
+        final HttpClient client = factory.create(HttpMethod.GET, uri);
+        final HttpResponse response = client.execute(new HttpGet(uri));
+        assertEquals(PAYLOAD.length, EntityUtils.toByteArray(response.getEntity()).length);
+        factory.close(client);
+      }
+
+      assertEquals(1, clientAddresses.size());
+      assertEquals(10, pool.getLeaseCount());
+      assertTrue(pool.getMaxLeaseWaitTime(TimeUnit.NANOSECONDS) <= pool.getLeaseWaitTime(TimeUnit.NANOSECONDS));
+      assertEquals(0, pool.getTotalStats().getLeased());
+      assertEquals(1, pool.getTotalStats().getAvailable());
+      assertEquals(1, pool.getStats(uri).getAvailable());
+    } finally {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void closeReleasesUnreadResponse() throws Exception {
+    final HttpClientConnectionPool pool = new HttpClientConnectionPool(2, 1,
+        HttpClientConnectionPool.DEFAULT_KEEP_ALIVE_MILLIS, HttpClientConnectionPool.DEFAULT_MAX_IDLE_MILLIS);
+    try {
+      final DefaultHttpClientFactory factory = new BasicAuthHttpClientFactory("user", "password", pool);
+      for (int i = 0; i < 3; i++) {
+        final HttpClient client = factory.create(HttpMethod.GET, uri);
+        client.execute(new HttpGet(uri));
+        assertEquals(1, pool.getTotalStats().getLeased());
+        factory.close(client);
+        assertEquals(0, pool.getTotalStats().getLeased());
+      }
+      assertEquals(1, clientAddresses.size());
+    } finally {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void withoutPoolNoReuse() throws Exception {
+    final DefaultHttpClientFactory factory = new DefaultHttpClientFactory();
+    for (int i = 0; i < 3; i++) {
+      final HttpClient client = factory.create(HttpMethod.GET, uri);
+      EntityUtils.consume(client.execute(new HttpGet(uri)).getEntity());
+      factory.close(client);
+    }
+    assertEquals(3, clientAddresses.size());
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.olingo.commons.api.data;
 import org.apache.olingo.commons.api.ex.ODataNotSupportedException;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -31,7 +32,12 @@ public abstract class EntityIterator extends AbstractEntityCollection implements
   
   private URI next;
   
+  private URI deltaLink;
+
   private Integer count;
+
+  private final List<Operation> operations = new ArrayList<Operation>();
+
   /**
    * {@inheritDoc}
    */
@@ -56,13 +62,10 @@ public abstract class EntityIterator extends AbstractEntityCollection implements
 
   /**
    * {@inheritDoc}
-   * <p/>
-   * <b>ATTENTION:</b> <code>getOperations</code> is not supported by default.
    */
   @Override
   public List<Operation> getOperations() {
-    //"Remove is not supported for iteration over Entities."
-    throw new ODataNotSupportedException("Entity Iterator does not support getOperations() by default");
+    return operations;
   }
 
   /**
@@ -74,8 +77,10 @@ public abstract class EntityIterator extends AbstractEntityCollection implements
   }
 
   /**
-   * Gets count
-   * 
+   * Gets count.
+   * <p/>
+   * Serializers read the count before and, if it has not been known then, again after the iteration,
+   * so it can also be set while iterating.
    */
   public Integer getCount() {
     return count;
@@ -83,19 +88,30 @@ public abstract class EntityIterator extends AbstractEntityCollection implements
 
   /**
    * Gets next link.
-   *
+   * <p/>
+   * Serializers read the next link after the iteration, so it can also be set while iterating.
    */
   public URI getNext() {
     return next;
   }
 
   /**
-   * {@inheritDoc}
+   * Gets delta link.
    * <p/>
-   * <b>ATTENTION:</b> <code>getDeltaLink</code> is not supported by default.
+   * Serializers read the delta link after the iteration, so it can also be set while iterating.
    */
+  @Override
   public URI getDeltaLink() {
-    throw new ODataNotSupportedException("Entity Iterator does not support getDeltaLink()");
+    return deltaLink;
+  }
+
+  /**
+   * Sets delta link.
+   *
+   * @param deltaLink delta link.
+   */
+  public void setDeltaLink(final URI deltaLink) {
+    this.deltaLink = deltaLink;
   }
   
   /**
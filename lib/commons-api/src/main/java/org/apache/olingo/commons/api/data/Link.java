@@ -33,6 +33,7 @@ public class Link extends Annotatable {
   private String mediaETag;
   private Entity entity;
   private EntityCollection entitySet;
+  private EntityIterator entityIterator;
   private String bindingLink;
   private List<String> bindingLinks = new ArrayList<String>();
 
@@ -162,6 +163,35 @@ public class Link extends Annotatable {
     this.entitySet = entitySet;
   }
 
+  /**
+   * Gets the in-line entities provided as iterator.
+   *
+   * @return in-line entity iterator.
+   */
+  public EntityIterator getInlineEntityIterator() {
+    return entityIterator;
+  }
+
+  /**
+   * Sets the in-line entities as iterator, so that they are read only while the link is serialized.
+   * It takes precedence over the in-line entity set; count, next link, and delta link of the iterator
+   * can be set while iterating and are written after the entities.
+   *
+   * @param entityIterator entity iterator.
+   */
+  public void setInlineEntityIterator(final EntityIterator entityIterator) {
+    this.entityIterator = entityIterator;
+  }
+
+  /**
+   * Gets the in-line entities, either the in-line entity iterator or, if that is not set, the in-line entity set.
+   *
+   * @return in-line entities or <tt>null</tt> if neither is set.
+   */
+  public AbstractEntityCollection getInlineEntityCollection() {
+    return entityIterator == null ? entitySet : entityIterator;
+  }
+
   /**
    * If this is a "toOne" relationship this method delivers the binding link or <tt>null</tt> if not set.
    * @return String the binding link.
@@ -212,6 +242,7 @@ public class Link extends Annotatable {
         && (mediaETag == null ? other.mediaETag == null : mediaETag.equals(other.mediaETag))
         && (entity == null ? other.entity == null : entity.equals(other.entity))
         && (entitySet == null ? other.entitySet == null : entitySet.equals(other.entitySet))
+        && (entityIterator == null ? other.entityIterator == null : entityIterator.equals(other.entityIterator))
         && (bindingLink == null ? other.bindingLink == null : bindingLink.equals(other.bindingLink))
         && bindingLinks.equals(other.bindingLinks);
   }
@@ -226,6 +257,7 @@ public class Link extends Annotatable {
     result = 31 * result + (mediaETag == null ? 0 : mediaETag.hashCode());
     result = 31 * result + (entity == null ? 0 : entity.hashCode());
     result = 31 * result + (entitySet == null ? 0 : entitySet.hashCode());
+    result = 31 * result + (entityIterator == null ? 0 : entityIterator.hashCode());
     result = 31 * result + (bindingLink == null ? 0 : bindingLink.hashCode());
     result = 31 * result + bindingLinks.hashCode();
     return result;
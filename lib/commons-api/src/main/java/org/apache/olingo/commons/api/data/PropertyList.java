@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * List of properties which finds a property by its name without scanning the whole list.
+ * <p>The name index is built with the first lookup and rebuilt after the list has been modified.
+ * Properties may be renamed while they are in the list, so a name which is not found in the index
+ * is searched in the list; if it is found there, the index is rebuilt with the next lookup.</p>
+ */
+public class PropertyList extends ArrayList<Property> {
+
+  private static final long serialVersionUID = -1871617562066417312L;
+
+  /** Up to this size a linear search is faster than the name index. */
+  private static final int INDEX_THRESHOLD = 8;
+
+  private transient NameIndex index;
+
+  public PropertyList() {
+    super();
+  }
+
+  public PropertyList(final Collection<? extends Property> properties) {
+    super(properties);
+  }
+
+  /**
+   * Gets the first property with the given name.
+   * @param name property name
+   * @return property with given name if found, null otherwise
+   */
+  public Property getProperty(final String name) {
+    if (size() <= INDEX_THRESHOLD) {
+      return find(name);
+    }
+
+    NameIndex currentIndex = index;
+    if (currentIndex == null || currentIndex.modCount != modCount) {
+      currentIndex = new NameIndex(this, modCount);
+      index = currentIndex;
+    }
+    final Property property = currentIndex.get(this, name);
+    if (property != null && property != NameIndex.OUTDATED) {
+      return property;
+    }
+
+    // Properties may have been renamed since the index has been built.
+    final Property found = find(name);
+    if (found != null || property == NameIndex.OUTDATED) {
+      index = null;
+    }
+    return found;
+  }
+
+  /**
+   * Replaces a property; the name index is rebuilt with the next lookup
+   * since replacing does not count as structural modification.
+   */
+  @Override
+  public Property set(final int position, final Property property) {
+    index = null;
+    return super.set(position, property);
+  }
+
+  /**
+   * Gets the first property with the given name from a list of properties;
+   * uses the name index if the list is a {@link PropertyList}.
+   * @param properties list of properties
+   * @param name property name
+   * @return property with given name if found, null otherwise
+   */
+  public static Property getProperty(final List<Property> properties, final String name) {
+    if (properties instanceof PropertyList) {
+      return ((PropertyList) properties).getProperty(name);
+    }
+    for (final Property property : properties) {
+      if (property != null && name.equals(property.getName())) {
+        return property;
+      }
+    }
+    return null;
+  }
+
+  private Property find(final String name) {
+    for (final Property property : this) {
+      if (property != null && name.equals(property.getName())) {
+        return property;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Immutable mapping from names to the positions of their first occurrence;
+   * final fields make it safe to share between threads reading the same list.
+   */
+  private static final class NameIndex {
+    private static final Property OUTDATED = new Property();
+
+    private final Map<String, Integer> positions;
+    private final int modCount;
+
+    NameIndex(final List<Property> properties, final int modCount) {
+      this.modCount = modCount;
+      positions = new HashMap<String, Integer>(properties.size() * 4 / 3 + 1);
+      for (int position = properties.size() - 1; position >= 0; position--) {
+        final Property property = properties.get(position);
+        if (property != null && property.getName() != null) {
+          positions.put(property.getName(), position);
+        }
+      }
+    }
+
+    /**
+     * Gets the indexed property with the given name.
+     * @return the property, <code>null</code> if the name is not indexed,
+     * or {@link #OUTDATED} if the property at the indexed position has another name
+     */
+    Property get(final List<Property> properties, final String name) {
+      final Integer position = positions.get(name);
+      if (position == null) {
+        return null;
+      }
+      final Property property = position < properties.size() ? properties.get(position) : null;
+      return property != null && name.equals(property.getName()) ? property : OUTDATED;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PropertyListTest {
+
+  @Test
+  public void smallEntity() {
+    Entity entity = new Entity();
+    entity.addProperty(createProperty("A")).addProperty(createProperty("B"));
+    assertSame(entity.getProperties().get(1), entity.getProperty("B"));
+    assertNull(entity.getProperty("C"));
+  }
+
+  @Test
+  public void wideEntity() {
+    Entity entity = createWideEntity(200);
+    assertSame(entity.getProperties().get(0), entity.getProperty("Property0"));
+    assertSame(entity.getProperties().get(199), entity.getProperty("Property199"));
+    assertNull(entity.getProperty("Property200"));
+  }
+
+  @Test
+  public void firstOfDuplicates() {
+    Entity entity = createWideEntity(20);
+    final Property duplicate = createProperty("Property5");
+    entity.addProperty(duplicate);
+    assertSame(entity.getProperties().get(5), entity.getProperty("Property5"));
+
+    entity.getProperties().remove(5);
+    assertSame(duplicate, entity.getProperty("Property5"));
+  }
+
+  @Test
+  public void modifications() {
+    Entity entity = createWideEntity(20);
+    assertEquals("Property10", entity.getProperty("Property10").getName());
+
+    final Property added = createProperty("Added");
+    entity.getProperties().add(0, added);
+    assertSame(added, entity.getProperty("Added"));
+    assertSame(entity.getProperties().get(11), entity.getProperty("Property10"));
+
+    final Property replacement = createProperty("Property10");
+    entity.getProperties().set(11, replacement);
+    assertSame(replacement, entity.getProperty("Property10"));
+
+    final Property other = createProperty("Other");
+    entity.getProperties().set(11, other);
+    assertNull(entity.getProperty("Property10"));
+    assertSame(other, entity.getProperty("Other"));
+
+    for (final Iterator<Property> iterator = entity.getProperties().iterator(); iterator.hasNext();) {
+      if ("Added".equals(iterator.next().getName())) {
+        iterator.remove();
+      }
+    }
+    assertNull(entity.getProperty("Added"));
+    assertSame(entity.getProperties().get(0), entity.getProperty("Property0"));
+
+    entity.getProperties().clear();
+    assertNull(entity.getProperty("Property0"));
+  }
+
+  @Test
+  public void renamedProperty() {
+    Entity entity = createWideEntity(20);
+    final Property property = entity.getProperty("Property3");
+    property.setName("Renamed");
+    assertNull(entity.getProperty("Property3"));
+    assertSame(property, entity.getProperty("Renamed"));
+  }
+
+  @Test
+  public void renamedPropertyLookedUpByNewName() {
+    Entity entity = createWideEntity(20);
+    assertSame(entity.getProperties().get(5), entity.getProperty("Property5"));
+    final Property property = entity.getProperties().get(3);
+    property.setName("Renamed");
+    assertSame(property, entity.getProperty("Renamed"));
+    assertSame(property, entity.getProperty("Renamed"));
+    assertNull(entity.getProperty("Property3"));
+    assertSame(entity.getProperties().get(5), entity.getProperty("Property5"));
+
+    ComplexValue complexValue = new ComplexValue();
+    complexValue.getValue().addAll(createWideEntity(20).getProperties());
+    assertSame(complexValue.getValue().get(5), complexValue.getProperty("Property5"));
+    complexValue.getValue().get(7).setName("Property5");
+    // The first property with the new name wins.
+    assertSame(complexValue.getValue().get(5), complexValue.getProperty("Property5"));
+    complexValue.getValue().get(5).setName("Other");
+    assertSame(complexValue.getValue().get(7), complexValue.getProperty("Property5"));
+  }
+
+  @Test
+  public void complexValue() {
+    ComplexValue complexValue = new ComplexValue();
+    complexValue.getValue().addAll(createWideEntity(30).getProperties());
+    assertSame(complexValue.getValue().get(17), complexValue.getProperty("Property17"));
+    assertNull(complexValue.getProperty("Property30"));
+  }
+
+  @Test
+  public void otherLists() {
+    final List<Property> properties = Arrays.asList(createProperty("A"), createProperty("B"));
+    assertSame(properties.get(1), PropertyList.getProperty(properties, "B"));
+    assertNull(PropertyList.getProperty(properties, "C"));
+  }
+
+  private Entity createWideEntity(final int size) {
+    Entity entity = new Entity();
+    for (int i = 0; i < size; i++) {
+      entity.addProperty(createProperty("Property" + i));
+    }
+    return entity;
+  }
+
+  private Property createProperty(final String name) {
+    return new Property(null, name, ValueType.PRIMITIVE, name);
+  }
+}
@@ -23,17 +23,25 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmAction;
+import org.apache.olingo.commons.api.edm.EdmActionImport;
 import org.apache.olingo.commons.api.edm.EdmAnnotations;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
 import org.apache.olingo.commons.api.edm.EdmEntityContainer;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmEnumType;
 import org.apache.olingo.commons.api.edm.EdmFunction;
+import org.apache.olingo.commons.api.edm.EdmFunctionImport;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmOperation;
 import org.apache.olingo.commons.api.edm.EdmParameter;
 import org.apache.olingo.commons.api.edm.EdmSchema;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
 import org.apache.olingo.commons.api.edm.EdmTerm;
 import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
@@ -41,61 +49,67 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
 
 public abstract class AbstractEdm implements Edm {
 
-  protected Map<String, EdmSchema> schemas;
-  protected List<EdmSchema> schemaList;
+  protected volatile Map<String, EdmSchema> schemas;
+  protected volatile List<EdmSchema> schemaList;
   private boolean isEntityDerivedFromES;
   private boolean isComplexDerivedFromES;
   private boolean isPreviousES;
 
-  private final Map<FullQualifiedName, EdmEntityContainer> entityContainers =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityContainer>());
+  private final ConcurrentMap<FullQualifiedName, EdmEntityContainer> entityContainers =
+      new ConcurrentHashMap<FullQualifiedName, EdmEntityContainer>();
 
-  private final Map<FullQualifiedName, EdmEnumType> enumTypes =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEnumType>());
+  private final ConcurrentMap<FullQualifiedName, EdmEnumType> enumTypes =
+      new ConcurrentHashMap<FullQualifiedName, EdmEnumType>();
 
-  private final Map<FullQualifiedName, EdmTypeDefinition> typeDefinitions =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmTypeDefinition>());
+  private final ConcurrentMap<FullQualifiedName, EdmTypeDefinition> typeDefinitions =
+      new ConcurrentHashMap<FullQualifiedName, EdmTypeDefinition>();
 
-  private final Map<FullQualifiedName, EdmEntityType> entityTypes =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityType>());
+  private final ConcurrentMap<FullQualifiedName, EdmEntityType> entityTypes =
+      new ConcurrentHashMap<FullQualifiedName, EdmEntityType>();
 
-  private final Map<FullQualifiedName, EdmComplexType> complexTypes =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmComplexType>());
+  private final ConcurrentMap<FullQualifiedName, EdmComplexType> complexTypes =
+      new ConcurrentHashMap<FullQualifiedName, EdmComplexType>();
 
-  private final Map<FullQualifiedName, EdmAction> unboundActions =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmAction>());
+  private final ConcurrentMap<FullQualifiedName, EdmAction> unboundActions =
+      new ConcurrentHashMap<FullQualifiedName, EdmAction>();
 
-  private final Map<FullQualifiedName, List<EdmFunction>> unboundFunctionsByName =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, List<EdmFunction>>());
+  private final ConcurrentMap<FullQualifiedName, List<EdmFunction>> unboundFunctionsByName =
+      new ConcurrentHashMap<FullQualifiedName, List<EdmFunction>>();
 
-  private final Map<FunctionMapKey, EdmFunction> unboundFunctionsByKey =
-      Collections.synchronizedMap(new HashMap<FunctionMapKey, EdmFunction>());
+  private final ConcurrentMap<FunctionMapKey, EdmFunction> unboundFunctionsByKey =
+      new ConcurrentHashMap<FunctionMapKey, EdmFunction>();
 
-  private final Map<ActionMapKey, EdmAction> boundActions =
-      Collections.synchronizedMap(new HashMap<ActionMapKey, EdmAction>());
+  private final ConcurrentMap<ActionMapKey, EdmAction> boundActions =
+      new ConcurrentHashMap<ActionMapKey, EdmAction>();
 
-  private final Map<FunctionMapKey, EdmFunction> boundFunctions =
-      Collections.synchronizedMap(new HashMap<FunctionMapKey, EdmFunction>());
+  private final ConcurrentMap<FunctionMapKey, EdmFunction> boundFunctions =
+      new ConcurrentHashMap<FunctionMapKey, EdmFunction>();
 
-  private final Map<FullQualifiedName, EdmTerm> terms =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmTerm>());
+  private final ConcurrentMap<FullQualifiedName, EdmTerm> terms =
+      new ConcurrentHashMap<FullQualifiedName, EdmTerm>();
 
-  private final Map<TargetQualifierMapKey, EdmAnnotations> annotationGroups =
-      Collections.synchronizedMap(new HashMap<TargetQualifierMapKey, EdmAnnotations>());
+  private final ConcurrentMap<TargetQualifierMapKey, EdmAnnotations> annotationGroups =
+      new ConcurrentHashMap<TargetQualifierMapKey, EdmAnnotations>();
 
-  private Map<String, String> aliasToNamespaceInfo = null;
+  private volatile Map<String, String> aliasToNamespaceInfo = null;
   
-  private final Map<FullQualifiedName, EdmEntityType> entityTypesWithAnnotations =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityType>());
+  private final ConcurrentMap<FullQualifiedName, EdmEntityType> entityTypesWithAnnotations =
+      new ConcurrentHashMap<FullQualifiedName, EdmEntityType>();
   
-  private final Map<FullQualifiedName, EdmEntityType> entityTypesDerivedFromES =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityType>());
+  private final ConcurrentMap<FullQualifiedName, EdmEntityType> entityTypesDerivedFromES =
+      new ConcurrentHashMap<FullQualifiedName, EdmEntityType>();
   
-  private final Map<FullQualifiedName, EdmComplexType> complexTypesWithAnnotations =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmComplexType>());
+  private final ConcurrentMap<FullQualifiedName, EdmComplexType> complexTypesWithAnnotations =
+      new ConcurrentHashMap<FullQualifiedName, EdmComplexType>();
   
-  private final Map<FullQualifiedName, EdmComplexType> complexTypesDerivedFromES =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmComplexType>());
+  private final ConcurrentMap<FullQualifiedName, EdmComplexType> complexTypesDerivedFromES =
+      new ConcurrentHashMap<FullQualifiedName, EdmComplexType>();
+
+  /** The entity container requested without name; concurrent maps cannot hold the <code>null</code> key. */
+  private volatile EdmEntityContainer defaultEntityContainer;
+
+  /** Set once the complete metadata has been built; the provider is not asked for unknown names afterwards. */
+  private volatile boolean frozen = false;
 
   private Map<String, List<CsdlAnnotation>> annotationMap = 
       new HashMap<String, List<CsdlAnnotation>>();
@@ -114,9 +128,9 @@ public abstract class AbstractEdm implements Edm {
       initSchemas();
     }
 
-    EdmSchema schema = schemas.get(namespace);
+    EdmSchema schema = get(schemas, namespace);
     if (schema == null) {
-      schema = schemas.get(aliasToNamespaceInfo.get(namespace));
+      schema = get(schemas, get(aliasToNamespaceInfo, namespace));
     }
     return schema;
   }
@@ -124,14 +138,112 @@ public abstract class AbstractEdm implements Edm {
   private void initSchemas() {
     loadAliasToNamespaceInfo();
     Map<String, EdmSchema> localSchemas = createSchemas();
-    schemas = Collections.synchronizedMap(localSchemas);
+    schemas = concurrentCopy(localSchemas);
 
-    schemaList = Collections.unmodifiableList(new ArrayList<EdmSchema>(schemas.values()));
+    schemaList = Collections.unmodifiableList(new ArrayList<EdmSchema>(localSchemas.values()));
   }
 
   private void loadAliasToNamespaceInfo() {
     Map<String, String> localAliasToNamespaceInfo = createAliasToNamespaceInfo();
-    aliasToNamespaceInfo = Collections.synchronizedMap(localAliasToNamespaceInfo);
+    aliasToNamespaceInfo = concurrentCopy(localAliasToNamespaceInfo);
+  }
+
+  /**
+   * Builds the complete metadata eagerly: every element of every schema is created and resolved once,
+   * including the lazily initialized parts like properties, keys, parameters, and navigation targets.
+   * Afterwards the metadata is frozen, i.e., looking up a name that is not in the schemas
+   * returns <code>null</code> without calling back into the provider.
+   * <br/>The freeze covers schemas, entity containers with their elements, entity types, complex types,
+   * enumeration types, type definitions, and unbound operations. It does not cover:
+   * <ul>
+   * <li>bound actions and functions, because their lookup depends on the derivation hierarchy
+   * of the binding type;</li>
+   * <li>terms and annotations, because they usually come from referenced vocabularies outside of the schemas;</li>
+   * <li>{@link #getEntityTypeWithAnnotations(FullQualifiedName)},
+   * {@link #getComplexTypeWithAnnotations(FullQualifiedName)}, and the lookups of types derived from entity sets,
+   * because they apply the annotations of the provider to separately cached instances.</li>
+   * </ul>
+   * These are still resolved on demand and may call the provider.
+   * <br/>The schemas must therefore contain all elements that can be requested.
+   */
+  public void freeze() {
+    if (frozen) {
+      return;
+    }
+    for (final EdmSchema schema : getSchemas()) {
+      for (final EdmTypeDefinition typeDefinition : schema.getTypeDefinitions()) {
+        typeDefinition.getUnderlyingType();
+      }
+      for (final EdmComplexType complexType : schema.getComplexTypes()) {
+        resolve(complexType);
+      }
+      for (final EdmEntityType entityType : schema.getEntityTypes()) {
+        resolve(entityType);
+        for (final EdmKeyPropertyRef keyPropertyRef : entityType.getKeyPropertyRefs()) {
+          keyPropertyRef.getProperty();
+        }
+        entityType.hasStream();
+      }
+      for (final EdmAction action : schema.getActions()) {
+        resolve(action);
+      }
+      for (final EdmFunction function : schema.getFunctions()) {
+        resolve(function);
+      }
+      for (final EdmTerm term : schema.getTerms()) {
+        term.getType();
+      }
+      final EdmEntityContainer container = schema.getEntityContainer();
+      if (container != null) {
+        resolve(container);
+      }
+    }
+    final EdmEntityContainer defaultContainer = getEntityContainer();
+    if (defaultContainer != null) {
+      resolve(defaultContainer);
+    }
+    frozen = true;
+  }
+
+  /** Returns whether the metadata has been built completely by {@link #freeze()}. */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  private static void resolve(final EdmStructuredType type) {
+    type.getBaseType();
+    for (final String name : type.getPropertyNames()) {
+      type.getStructuralProperty(name).getType();
+    }
+    for (final String name : type.getNavigationPropertyNames()) {
+      type.getNavigationProperty(name).getType();
+    }
+  }
+
+  private static void resolve(final EdmOperation operation) {
+    for (final String name : operation.getParameterNames()) {
+      operation.getParameter(name).getType();
+    }
+    if (operation.getReturnType() != null) {
+      operation.getReturnType().getType();
+    }
+  }
+
+  private static void resolve(final EdmEntityContainer container) {
+    for (final EdmBindingTarget entitySet : container.getEntitySets()) {
+      entitySet.getEntityType();
+      entitySet.getNavigationPropertyBindings();
+    }
+    for (final EdmBindingTarget singleton : container.getSingletons()) {
+      singleton.getEntityType();
+      singleton.getNavigationPropertyBindings();
+    }
+    for (final EdmActionImport actionImport : container.getActionImports()) {
+      actionImport.getUnboundAction();
+    }
+    for (final EdmFunctionImport functionImport : container.getFunctionImports()) {
+      functionImport.getUnboundFunctions();
+    }
   }
 
   @Override
@@ -142,13 +254,15 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmEntityContainer getEntityContainer(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEntityContainer container = entityContainers.get(fqn);
-    if (container == null) {
+    EdmEntityContainer container = fqn == null ? defaultEntityContainer : entityContainers.get(fqn);
+    if (container == null && !frozen) {
       container = createEntityContainer(fqn);
       if (container != null) {
-        entityContainers.put(fqn, container);
         if (fqn == null) {
-          entityContainers.put(new FullQualifiedName(container.getNamespace(), container.getName()), container);
+          defaultEntityContainer = container;
+          cache(entityContainers, new FullQualifiedName(container.getNamespace(), container.getName()), container);
+        } else {
+          container = cache(entityContainers, fqn, container);
         }
       }
     }
@@ -158,11 +272,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmEnumType getEnumType(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEnumType enumType = enumTypes.get(fqn);
-    if (enumType == null) {
+    EdmEnumType enumType = get(enumTypes, fqn);
+    if (enumType == null && !frozen) {
       enumType = createEnumType(fqn);
       if (enumType != null) {
-        enumTypes.put(fqn, enumType);
+        enumType = cache(enumTypes, fqn, enumType);
       }
     }
     return enumType;
@@ -171,11 +285,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmTypeDefinition getTypeDefinition(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmTypeDefinition typeDefinition = typeDefinitions.get(fqn);
-    if (typeDefinition == null) {
+    EdmTypeDefinition typeDefinition = get(typeDefinitions, fqn);
+    if (typeDefinition == null && !frozen) {
       typeDefinition = createTypeDefinition(fqn);
       if (typeDefinition != null) {
-        typeDefinitions.put(fqn, typeDefinition);
+        typeDefinition = cache(typeDefinitions, fqn, typeDefinition);
       }
     }
     return typeDefinition;
@@ -184,11 +298,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmEntityType getEntityType(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEntityType entityType = entityTypes.get(fqn);
-    if (entityType == null) {
+    EdmEntityType entityType = get(entityTypes, fqn);
+    if (entityType == null && !frozen) {
       entityType = createEntityType(fqn);
       if (entityType != null) {
-        entityTypes.put(fqn, entityType);
+        entityType = cache(entityTypes, fqn, entityType);
       }
     }
     return entityType;
@@ -197,11 +311,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmEntityType getEntityTypeWithAnnotations(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEntityType entityType = entityTypesWithAnnotations.get(fqn);
+    EdmEntityType entityType = get(entityTypesWithAnnotations, fqn);
     if (entityType == null) {
       entityType = createEntityType(fqn);
       if (entityType != null) {
-          entityTypesWithAnnotations.put(fqn, entityType);
+          entityType = cache(entityTypesWithAnnotations, fqn, entityType);
       }
     }
     setIsPreviousES(false);
@@ -215,11 +329,11 @@ public abstract class AbstractEdm implements Edm {
     if (!isPreviousES() && getEntityContainer() != null) {
        getEntityContainer().getEntitySetsWithAnnotations();
     }
-    EdmEntityType entityType = entityTypesDerivedFromES.get(fqn);
+    EdmEntityType entityType = get(entityTypesDerivedFromES, fqn);
     if (entityType == null) {
       entityType = createEntityType(fqn);
       if (entityType != null) {
-          entityTypesDerivedFromES.put(fqn, entityType);
+          entityType = cache(entityTypesDerivedFromES, fqn, entityType);
       }
     }
     this.isEntityDerivedFromES = false;
@@ -233,11 +347,11 @@ public abstract class AbstractEdm implements Edm {
     if (!isPreviousES() && getEntityContainer() != null) {
        getEntityContainer().getEntitySetsWithAnnotations();
     }
-    EdmComplexType complexType = complexTypesDerivedFromES.get(fqn);
+    EdmComplexType complexType = get(complexTypesDerivedFromES, fqn);
     if (complexType == null) {
       complexType = createComplexType(fqn);
       if (complexType != null) {
-          complexTypesDerivedFromES.put(fqn, complexType);
+          complexType = cache(complexTypesDerivedFromES, fqn, complexType);
       }
     }
     this.isComplexDerivedFromES = false;
@@ -247,11 +361,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmComplexType getComplexType(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmComplexType complexType = complexTypes.get(fqn);
-    if (complexType == null) {
+    EdmComplexType complexType = get(complexTypes, fqn);
+    if (complexType == null && !frozen) {
       complexType = createComplexType(fqn);
       if (complexType != null) {
-        complexTypes.put(fqn, complexType);
+        complexType = cache(complexTypes, fqn, complexType);
       }
     }
     return complexType;
@@ -260,11 +374,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmComplexType getComplexTypeWithAnnotations(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmComplexType complexType = complexTypesWithAnnotations.get(fqn);
+    EdmComplexType complexType = get(complexTypesWithAnnotations, fqn);
     if (complexType == null) {
       complexType = createComplexType(fqn);
       if (complexType != null) {
-          complexTypesWithAnnotations.put(fqn, complexType);
+          complexType = cache(complexTypesWithAnnotations, fqn, complexType);
       }
     }
     setIsPreviousES(false);
@@ -274,11 +388,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmAction getUnboundAction(final FullQualifiedName actionName) {
     final FullQualifiedName fqn = resolvePossibleAlias(actionName);
-    EdmAction action = unboundActions.get(fqn);
-    if (action == null) {
+    EdmAction action = get(unboundActions, fqn);
+    if (action == null && !frozen) {
       action = createUnboundAction(fqn);
       if (action != null) {
-        unboundActions.put(actionName, action);
+        action = cache(unboundActions, actionName, action);
       }
     }
 
@@ -296,7 +410,7 @@ public abstract class AbstractEdm implements Edm {
     if (action == null) {
       action = createBoundAction(actionFqn, bindingParameterTypeFqn, isBindingParameterCollection);
       if (action != null) {
-        boundActions.put(key, action);
+        action = cache(boundActions, key, action);
       }
     }
 
@@ -307,11 +421,13 @@ public abstract class AbstractEdm implements Edm {
   public List<EdmFunction> getUnboundFunctions(final FullQualifiedName functionName) {
     final FullQualifiedName functionFqn = resolvePossibleAlias(functionName);
 
-    List<EdmFunction> functions = unboundFunctionsByName.get(functionFqn);
-    if (functions == null) {
+    List<EdmFunction> functions = get(unboundFunctionsByName, functionFqn);
+    if (functions == null && frozen) {
+      functions = Collections.emptyList();
+    } else if (functions == null) {
       functions = createUnboundFunctions(functionFqn);
       if (functions != null) {
-        unboundFunctionsByName.put(functionFqn, functions);
+        functions = cache(unboundFunctionsByName, functionFqn, functions);
 
         for (EdmFunction unbound : functions) {
           final FunctionMapKey key = new FunctionMapKey(
@@ -319,7 +435,7 @@ public abstract class AbstractEdm implements Edm {
               unbound.getBindingParameterTypeFqn(),
               unbound.isBindingParameterTypeCollection(),
               unbound.getParameterNames());
-          unboundFunctionsByKey.put(key, unbound);
+          cache(unboundFunctionsByKey, key, unbound);
         }
       }
     }
@@ -333,10 +449,10 @@ public abstract class AbstractEdm implements Edm {
 
     final FunctionMapKey key = new FunctionMapKey(functionFqn, null, null, parameterNames);
     EdmFunction function = unboundFunctionsByKey.get(key);
-    if (function == null) {
+    if (function == null && !frozen) {
       function = createUnboundFunction(functionFqn, parameterNames);
       if (function != null) {
-        unboundFunctionsByKey.put(key, function);
+        function = cache(unboundFunctionsByKey, key, function);
       }
     }
 
@@ -357,7 +473,7 @@ public abstract class AbstractEdm implements Edm {
       function = createBoundFunction(functionFqn, bindingParameterTypeFqn, isBindingParameterCollection,
           parameterNames);
       if (function != null) {
-        boundFunctions.put(key, function);
+        function = cache(boundFunctions, key, function);
       }
     }
 
@@ -367,11 +483,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmTerm getTerm(final FullQualifiedName termName) {
     final FullQualifiedName fqn = resolvePossibleAlias(termName);
-    EdmTerm term = terms.get(fqn);
+    EdmTerm term = get(terms, fqn);
     if (term == null) {
       term = createTerm(fqn);
       if (term != null) {
-        terms.put(fqn, term);
+        term = cache(terms, fqn, term);
       }
     }
     return term;
@@ -385,7 +501,7 @@ public abstract class AbstractEdm implements Edm {
     if (_annotations == null) {
       _annotations = createAnnotationGroup(fqn, qualifier);
       if (_annotations != null) {
-        annotationGroups.put(key, _annotations);
+        _annotations = cache(annotationGroups, key, _annotations);
       }
     }
     return _annotations;
@@ -397,7 +513,7 @@ public abstract class AbstractEdm implements Edm {
     }
     FullQualifiedName finalFQN = null;
     if (namespaceOrAliasFQN != null) {
-      final String namespace = aliasToNamespaceInfo.get(namespaceOrAliasFQN.getNamespace());
+      final String namespace = get(aliasToNamespaceInfo, namespaceOrAliasFQN.getNamespace());
       // If not contained in info it must be a namespace
       if (namespace == null) {
         finalFQN = namespaceOrAliasFQN;
@@ -408,18 +524,54 @@ public abstract class AbstractEdm implements Edm {
     return finalFQN;
   }
 
+  /**
+   * Gets a value from one of the caches, which are concurrent maps without support for the <code>null</code> key.
+   */
+  private static <K, V> V get(final Map<K, V> cache, final K key) {
+    return key == null ? null : cache.get(key);
+  }
+
+  /**
+   * Puts a created value into one of the caches unless another thread has been faster.
+   * @return the value in the cache, to be used by the caller instead of the created one
+   */
+  private static <K, V> V cache(final ConcurrentMap<K, V> cache, final K key, final V value) {
+    if (key == null) {
+      return value;
+    }
+    final V cachedValue = cache.putIfAbsent(key, value);
+    return cachedValue == null ? value : cachedValue;
+  }
+
+  /** Copies a map without the entries a concurrent map cannot hold. */
+  private static <K, V> ConcurrentMap<K, V> concurrentCopy(final Map<K, V> map) {
+    ConcurrentMap<K, V> copy = new ConcurrentHashMap<K, V>();
+    for (final Map.Entry<K, V> entry : map.entrySet()) {
+      if (entry.getKey() != null && entry.getValue() != null) {
+        copy.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return copy;
+  }
+
   protected abstract Map<String, EdmSchema> createSchemas();
 
   protected abstract Map<String, String> createAliasToNamespaceInfo();
 
   public void cacheAliasNamespaceInfo(final String alias, final String namespace) {
-    aliasToNamespaceInfo.put(alias, namespace);
+    if (alias != null && namespace != null) {
+      aliasToNamespaceInfo.put(alias, namespace);
+    }
   }
 
   protected abstract EdmEntityContainer createEntityContainer(FullQualifiedName containerName);
 
   public void cacheEntityContainer(final FullQualifiedName containerFQN, final EdmEntityContainer container) {
-    entityContainers.put(containerFQN, container);
+    if (containerFQN == null) {
+      defaultEntityContainer = container;
+    } else {
+      entityContainers.put(containerFQN, container);
+    }
   }
 
   protected abstract EdmEnumType createEnumType(FullQualifiedName enumName);
@@ -468,10 +620,7 @@ public abstract class AbstractEdm implements Edm {
     if (function.isBound()) {
       boundFunctions.put(key, function);
     } else {
-      if (!unboundFunctionsByName.containsKey(functionName)) {
-        unboundFunctionsByName.put(functionName, new ArrayList<EdmFunction>());
-      }
-      unboundFunctionsByName.get(functionName).add(function);
+      cache(unboundFunctionsByName, functionName, new ArrayList<EdmFunction>()).add(function);
 
       unboundFunctionsByKey.put(key, function);
     }
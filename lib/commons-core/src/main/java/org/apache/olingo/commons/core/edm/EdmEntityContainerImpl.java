@@ -20,9 +20,9 @@ package org.apache.olingo.commons.core.edm;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmActionImport;
@@ -57,22 +57,22 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
   private final FullQualifiedName parentContainerName;
 
   private List<EdmSingleton> singletons;
-  private final Map<String, EdmSingleton> singletonCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmSingleton>());
+  private final ConcurrentMap<String, EdmSingleton> singletonCache =
+      new ConcurrentHashMap<String, EdmSingleton>();
   private List<EdmEntitySet> entitySets;
-  private final Map<String, EdmEntitySet> entitySetCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmEntitySet>());
+  private final ConcurrentMap<String, EdmEntitySet> entitySetCache =
+      new ConcurrentHashMap<String, EdmEntitySet>();
   private List<EdmActionImport> actionImports;
-  private final Map<String, EdmActionImport> actionImportCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmActionImport>());
+  private final ConcurrentMap<String, EdmActionImport> actionImportCache =
+      new ConcurrentHashMap<String, EdmActionImport>();
   private List<EdmFunctionImport> functionImports;
-  private final Map<String, EdmFunctionImport> functionImportCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmFunctionImport>());
+  private final ConcurrentMap<String, EdmFunctionImport> functionImportCache =
+      new ConcurrentHashMap<String, EdmFunctionImport>();
 	  private boolean isAnnotationsIncluded = false;
-  private final Map<String, EdmEntitySet> entitySetWithAnnotationsCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmEntitySet>());
-  private final Map<String, EdmSingleton> singletonWithAnnotationsCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmSingleton>());
+  private final ConcurrentMap<String, EdmEntitySet> entitySetWithAnnotationsCache =
+      new ConcurrentHashMap<String, EdmEntitySet>();
+  private final ConcurrentMap<String, EdmSingleton> singletonWithAnnotationsCache =
+      new ConcurrentHashMap<String, EdmSingleton>();
   private boolean isSingletonAnnotationsIncluded = false;
   private final String SLASH = "/";
   private final String DOT = ".";
@@ -107,16 +107,16 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 
   @Override
   public EdmSingleton getSingleton(final String singletonName) {
-    EdmSingleton singleton = singletonWithAnnotationsCache.get(singletonName);
+    EdmSingleton singleton = get(singletonWithAnnotationsCache, singletonName);
     if (singleton == null) {
-      singleton = singletonCache.get(singletonName);
-      if (singleton == null) {
+      singleton = get(singletonCache, singletonName);
+      if (singleton == null && !isFrozen()) {
         singleton = createSingleton(singletonName);
         if (singleton != null) {
           if (isSingletonAnnotationsIncluded) {
-            singletonWithAnnotationsCache.put(singletonName, singleton);
+            singleton = cache(singletonWithAnnotationsCache, singletonName, singleton);
           } else {
-            singletonCache.put(singletonName, singleton);
+            singleton = cache(singletonCache, singletonName, singleton);
           }
         }
       }
@@ -126,16 +126,16 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 
   @Override
   public EdmEntitySet getEntitySet(final String entitySetName) {
-    EdmEntitySet entitySet = entitySetWithAnnotationsCache.get(entitySetName);
+    EdmEntitySet entitySet = get(entitySetWithAnnotationsCache, entitySetName);
     if (entitySet == null) {
-      entitySet = entitySetCache.get(entitySetName);
-      if (entitySet == null) {
+      entitySet = get(entitySetCache, entitySetName);
+      if (entitySet == null && !isFrozen()) {
         entitySet = createEntitySet(entitySetName);
         if (entitySet != null) {
           if (isAnnotationsIncluded) {
-            entitySetWithAnnotationsCache.put(entitySetName, entitySet);
+            entitySet = cache(entitySetWithAnnotationsCache, entitySetName, entitySet);
           } else {
-            entitySetCache.put(entitySetName, entitySet);
+            entitySet = cache(entitySetCache, entitySetName, entitySet);
           }
         }
       }
@@ -146,11 +146,11 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 
   @Override
   public EdmActionImport getActionImport(final String actionImportName) {
-    EdmActionImport actionImport = actionImportCache.get(actionImportName);
-    if (actionImport == null) {
+    EdmActionImport actionImport = get(actionImportCache, actionImportName);
+    if (actionImport == null && !isFrozen()) {
       actionImport = createActionImport(actionImportName);
       if (actionImport != null) {
-        actionImportCache.put(actionImportName, actionImport);
+        actionImport = cache(actionImportCache, actionImportName, actionImport);
       }
     }
     return actionImport;
@@ -158,16 +158,38 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 
   @Override
   public EdmFunctionImport getFunctionImport(final String functionImportName) {
-    EdmFunctionImport functionImport = functionImportCache.get(functionImportName);
-    if (functionImport == null) {
+    EdmFunctionImport functionImport = get(functionImportCache, functionImportName);
+    if (functionImport == null && !isFrozen()) {
       functionImport = createFunctionImport(functionImportName);
       if (functionImport != null) {
-        functionImportCache.put(functionImportName, functionImport);
+        functionImport = cache(functionImportCache, functionImportName, functionImport);
       }
     }
     return functionImport;
   }
 
+  /** Returns whether all elements of the container are known because the metadata has been built completely. */
+  private boolean isFrozen() {
+    return edm instanceof AbstractEdm && ((AbstractEdm) edm).isFrozen();
+  }
+
+  /** Gets a value from one of the caches, which are concurrent maps without support for the <code>null</code> key. */
+  private static <V> V get(final ConcurrentMap<String, V> cache, final String name) {
+    return name == null ? null : cache.get(name);
+  }
+
+  /**
+   * Puts a created value into one of the caches unless another thread has been faster.
+   * @return the value in the cache, to be used by the caller instead of the created one
+   */
+  private static <V> V cache(final ConcurrentMap<String, V> cache, final String name, final V value) {
+    if (name == null) {
+      return value;
+    }
+    final V cachedValue = cache.putIfAbsent(name, value);
+    return cachedValue == null ? value : cachedValue;
+  }
+
   @Override
   public List<EdmEntitySet> getEntitySets() {
     if (entitySets == null) {
@@ -23,20 +23,28 @@ import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
 /**
  * Implementation of the EDM primitive type DateTimeOffset.
+ * <p>Literals are parsed and formatted without regular expressions. Values of type {@link Long}, {@link Date},
+ * and {@link Timestamp} in the years {@value #FIRST_FAST_YEAR} to {@value #LAST_FAST_YEAR} are converted
+ * arithmetically without creating a {@link Calendar}; before that range, the Julian calendar
+ * used by {@link java.util.GregorianCalendar} would give different results.</p>
  */
 public final class EdmDateTimeOffset extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "(-?\\p{Digit}{4,})-(\\p{Digit}{2})-(\\p{Digit}{2})"
-          + "T(\\p{Digit}{2}):(\\p{Digit}{2})(?::(\\p{Digit}{2})(\\.(\\p{Digit}{0,12}?)0*)?)?"
-          + "(Z|([-+]\\p{Digit}{2}:\\p{Digit}{2}))?");
+  private static final int FIRST_FAST_YEAR = 1583;
+  private static final int LAST_FAST_YEAR = 9999;
+  private static final long FIRST_FAST_MILLIS = -12212553600000L; // 1583-01-01T00:00:00Z
+  private static final long LAST_FAST_MILLIS = 253402300799999L; // 9999-12-31T23:59:59.999Z
+  private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+
+  /** Time zones with fixed offsets, keyed by the offset in minutes; they are cloned before use. */
+  private static final ConcurrentMap<Integer, TimeZone> TIME_ZONES = new ConcurrentHashMap<Integer, TimeZone>();
 
   private static final EdmDateTimeOffset INSTANCE = new EdmDateTimeOffset();
 
@@ -54,47 +62,55 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
       final Boolean isNullable, final Integer maxLength, final Integer precision,
       final Integer scale, final Boolean isUnicode, final Class<T> returnType) throws EdmPrimitiveTypeException {
 
-    final Matcher matcher = PATTERN.matcher(value);
-    if (!matcher.matches()) {
+    // The literal has the form -?YYYY+-MM-DDThh:mm(:ss(.s+)?)?(Z|[-+]hh:mm)?
+    final int length = value.length();
+    final int yearStart = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+    final int yearEnd = value.indexOf('-', yearStart);
+    final int year = yearEnd - yearStart < 4 ? -1 : parseDigits(value, yearStart, yearEnd);
+    if (year < 0 || yearEnd + 12 > length
+        || value.charAt(yearEnd + 3) != '-' || value.charAt(yearEnd + 6) != 'T' || value.charAt(yearEnd + 9) != ':') {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
-
-    final String timeZoneOffset = matcher.group(9) == null || matcher.group(10) == null
-        || matcher.group(10).matches("[-+]0+:0+") ? "" : matcher.group(10);
-    final Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT" + timeZoneOffset));
-    if (dateTimeValue.get(Calendar.ZONE_OFFSET) == 0 && !timeZoneOffset.isEmpty()) {
+    final int month = parseDigits(value, yearEnd + 1, yearEnd + 3);
+    final int day = parseDigits(value, yearEnd + 4, yearEnd + 6);
+    final int hour = parseDigits(value, yearEnd + 7, yearEnd + 9);
+    final int minute = parseDigits(value, yearEnd + 10, yearEnd + 12);
+    int position = yearEnd + 12;
+    int second = 0;
+    int fractionStart = -1;
+    int fractionEnd = -1;
+    if (position < length && value.charAt(position) == ':') {
+      second = position + 3 > length ? -1 : parseDigits(value, position + 1, position + 3);
+      position += 3;
+      if (position < length && value.charAt(position) == '.') {
+        fractionStart = position + 1;
+        fractionEnd = skipDigits(value, fractionStart);
+        position = fractionEnd;
+      }
+    }
+    final int offsetInMinutes = parseOffset(value, position);
+    if (month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || offsetInMinutes == Integer.MIN_VALUE
+        || fractionStart >= 0 && (fractionEnd == fractionStart || fractionEnd - fractionStart > 12)) {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
-    dateTimeValue.clear();
-
-    dateTimeValue.set(
-        Short.parseShort(matcher.group(1)),
-        Byte.parseByte(matcher.group(2)) - 1, // month is zero-based
-        Byte.parseByte(matcher.group(3)),
-        Byte.parseByte(matcher.group(4)),
-        Byte.parseByte(matcher.group(5)),
-        matcher.group(6) == null ? 0 : Byte.parseByte(matcher.group(6)));
 
+    int milliSeconds = 0;
     int nanoSeconds = 0;
-    if (matcher.group(7) != null) {
-      if (matcher.group(7).length() == 1 || matcher.group(7).length() > 13) {
-        throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
-      }
-      final String decimals = matcher.group(8);
-      if (decimals.length() > (precision == null ? 0 : precision)) {
+    if (fractionStart >= 0) {
+      final int decimals = significantDigits(value, fractionStart, fractionEnd);
+      if (decimals > (precision == null ? 0 : precision)) {
         throw new EdmPrimitiveTypeException("The literal '" + value + "' does not match the facets' constraints.");
       }
       if (returnType.isAssignableFrom(Timestamp.class)) {
-        if (decimals.length() <= 9) {
-          nanoSeconds = Integer.parseInt(decimals + "000000000".substring(decimals.length()));
+        if (decimals <= 9) {
+          nanoSeconds = parseFraction(value, fractionStart, decimals, 9);
         } else {
           throw new EdmPrimitiveTypeException("The literal '" + value
               + "' cannot be converted to value type " + returnType + ".");
         }
       } else {
-        if (decimals.length() <= 3) {
-          final String milliSeconds = decimals + "000".substring(decimals.length());
-          dateTimeValue.set(Calendar.MILLISECOND, Short.parseShort(milliSeconds));
+        if (decimals <= 3) {
+          milliSeconds = parseFraction(value, fractionStart, decimals, 3);
         } else {
           throw new EdmPrimitiveTypeException("The literal '" + value
               + "' cannot be converted to value type " + returnType + ".");
@@ -102,6 +118,26 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
       }
     }
 
+    if (yearStart == 0 && year >= FIRST_FAST_YEAR && year <= LAST_FAST_YEAR
+        && !returnType.isAssignableFrom(Calendar.class)
+        && (returnType.isAssignableFrom(Long.class) || returnType.isAssignableFrom(Date.class)
+        || returnType.isAssignableFrom(Timestamp.class))) {
+      if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+          || hour > 23 || minute > 59 || second > 59) {
+        throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+      }
+      final long millis = daysFromCivil(year, month, day) * MILLIS_PER_DAY
+          + ((hour * 60L + minute - offsetInMinutes) * 60 + second) * 1000 + milliSeconds;
+      return convertDateTime(millis, nanoSeconds, returnType);
+    }
+
+    final Calendar dateTimeValue = Calendar.getInstance(getTimeZone(offsetInMinutes));
+    dateTimeValue.clear();
+    dateTimeValue.set(yearStart == 0 ? year : -year, month - 1, day, hour, minute, second); // month is zero-based
+    if (milliSeconds > 0) {
+      dateTimeValue.set(Calendar.MILLISECOND, milliSeconds);
+    }
+
     try {
       return convertDateTime(dateTimeValue, nanoSeconds, returnType);
     } catch (final IllegalArgumentException e) {
@@ -111,6 +147,153 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
     }
   }
 
+  /**
+   * Parses the optional time-zone offset at the end of a date/time literal.
+   * @return the offset in minutes or {@link Integer#MIN_VALUE} if the rest of the literal is not a valid offset
+   */
+  private static int parseOffset(final String value, final int position) {
+    final int length = value.length();
+    if (position > length) {
+      return Integer.MIN_VALUE;
+    } else if (position == length || position == length - 1 && value.charAt(position) == 'Z') {
+      return 0;
+    }
+    final char sign = value.charAt(position);
+    if (position + 6 != length || sign != '+' && sign != '-' || value.charAt(position + 3) != ':') {
+      return Integer.MIN_VALUE;
+    }
+    final int hours = parseDigits(value, position + 1, position + 3);
+    final int minutes = parseDigits(value, position + 4, position + 6);
+    if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+      return Integer.MIN_VALUE;
+    }
+    return (sign == '-' ? -1 : 1) * (hours * 60 + minutes);
+  }
+
+  /**
+   * Returns a time zone with the given fixed offset from GMT.
+   * @param offsetInMinutes the offset in minutes
+   * @return a new {@link TimeZone} instance that may be modified by the caller
+   */
+  private static TimeZone getTimeZone(final int offsetInMinutes) {
+    final Integer key = offsetInMinutes;
+    TimeZone timeZone = TIME_ZONES.get(key);
+    if (timeZone == null) {
+      final StringBuilder id = new StringBuilder("GMT");
+      if (offsetInMinutes != 0) {
+        id.append(offsetInMinutes < 0 ? '-' : '+');
+        appendTwoDigits(id, Math.abs(offsetInMinutes) / 60);
+        id.append(':');
+        appendTwoDigits(id, Math.abs(offsetInMinutes) % 60);
+      }
+      timeZone = TimeZone.getTimeZone(id.toString());
+      TIME_ZONES.putIfAbsent(key, timeZone);
+    }
+    return (TimeZone) timeZone.clone();
+  }
+
+  /**
+   * Parses the decimal digits in the given range of a string.
+   * @param value the string
+   * @param start the index of the first digit
+   * @param end the index after the last digit; at most nine digits are allowed
+   * @return the non-negative number or <code>-1</code> if the range contains anything other than digits
+   */
+  protected static int parseDigits(final String value, final int start, final int end) {
+    if (end - start > 9) {
+      return -1;
+    }
+    int result = 0;
+    for (int index = start; index < end; index++) {
+      final char c = value.charAt(index);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      result = result * 10 + (c - '0');
+    }
+    return result;
+  }
+
+  /**
+   * Returns the index of the first character at or after the given index that is not a decimal digit.
+   */
+  protected static int skipDigits(final String value, final int start) {
+    int index = start;
+    while (index < value.length() && value.charAt(index) >= '0' && value.charAt(index) <= '9') {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Counts the decimal digits of fractional seconds without the trailing zeroes.
+   */
+  protected static int significantDigits(final String value, final int start, final int end) {
+    int index = end;
+    while (index > start && value.charAt(index - 1) == '0') {
+      index--;
+    }
+    return index - start;
+  }
+
+  /**
+   * Parses fractional seconds.
+   * @param value the literal
+   * @param start the index of the first decimal digit
+   * @param digits the number of digits to parse; must not be greater than <code>scale</code>
+   * @param scale the number of decimal digits of the result, e.g., three for milliseconds
+   * @return the fractional seconds in units of <code>10<sup>-scale</sup></code> seconds
+   */
+  protected static int parseFraction(final String value, final int start, final int digits, final int scale) {
+    int result = parseDigits(value, start, start + digits);
+    for (int i = digits; i < scale; i++) {
+      result *= 10;
+    }
+    return result;
+  }
+
+  private static boolean isLeapYear(final int year) {
+    return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  private static int daysInMonth(final int year, final int month) {
+    return month == 2 ? isLeapYear(year) ? 29 : 28 : month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * Computes the number of days since 1970-01-01 in the proleptic Gregorian calendar.
+   * The algorithm is described in <a href="http://howardhinnant.github.io/date_algorithms.html">
+   * chrono-Compatible Low-Level Date Algorithms</a>.
+   */
+  private static long daysFromCivil(final int year, final int month, final int day) {
+    final int y = month <= 2 ? year - 1 : year;
+    final int era = (y >= 0 ? y : y - 399) / 400;
+    final int yearOfEra = y - era * 400;
+    final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+
+  /**
+   * Converts milliseconds since 1970-01-01T00:00:00Z into the requested return type.
+   * @param millis the value
+   * @param nanoSeconds nanoseconds part of the value; only used for the {@link Timestamp} return type
+   * @param returnType the class of the returned value; it must be one of {@link Long}, {@link Date},
+   *                   or {@link Timestamp}
+   * @return the converted value
+   */
+  private static <T> T convertDateTime(final long millis, final int nanoSeconds, final Class<T> returnType) {
+    if (returnType.isAssignableFrom(Long.class)) {
+      return returnType.cast(millis);
+    } else if (returnType.isAssignableFrom(Date.class)) {
+      return returnType.cast(new Date(millis));
+    } else {
+      Timestamp timestamp = new Timestamp(millis);
+      timestamp.setNanos(nanoSeconds);
+      return returnType.cast(timestamp);
+    }
+  }
+
   /**
    * <p>Converts a {@link Calendar} value into the requested return type if possible.</p>
    * <p>It is expected that the {@link Calendar} value will already be in the desired time zone.</p>
@@ -170,9 +353,15 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
       final Boolean isNullable, final Integer maxLength, final Integer precision,
       final Integer scale, final Boolean isUnicode) throws EdmPrimitiveTypeException {
 
+    final long millis = value instanceof Date ? ((Date) value).getTime()
+        : value instanceof Long ? ((Long) value).longValue() : Long.MIN_VALUE;
+    if (millis >= FIRST_FAST_MILLIS && millis <= LAST_FAST_MILLIS) {
+      return formatMillis(value, millis, precision);
+    }
+
     final Calendar dateTimeValue = createDateTime(value, false);
 
-    StringBuilder result = new StringBuilder();
+    StringBuilder result = new StringBuilder(35);
     final int year = dateTimeValue.get(Calendar.YEAR);
     appendTwoDigits(result, year / 100);
     appendTwoDigits(result, year % 100);
@@ -198,14 +387,68 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
 
     final int offsetInMinutes = (dateTimeValue.get(Calendar.ZONE_OFFSET)
         + dateTimeValue.get(Calendar.DST_OFFSET)) / 60 / 1000;
-    final int offsetHours = offsetInMinutes / 60;
-    final int offsetMinutes = Math.abs(offsetInMinutes % 60);
-    final String offsetString = offsetInMinutes == 0 ? "Z" : String.format("%+03d:%02d", offsetHours, offsetMinutes);
-    result.append(offsetString);
+    if (offsetInMinutes == 0) {
+      result.append('Z');
+    } else {
+      result.append(offsetInMinutes < 0 ? '-' : '+');
+      appendTwoDigits(result, Math.abs(offsetInMinutes) / 60);
+      result.append(':');
+      appendTwoDigits(result, Math.abs(offsetInMinutes) % 60);
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Formats milliseconds since 1970-01-01T00:00:00Z in UTC without creating a {@link Calendar}.
+   * The algorithm to compute the date is described in
+   * <a href="http://howardhinnant.github.io/date_algorithms.html">chrono-Compatible Low-Level Date Algorithms</a>.
+   */
+  private static <T> String formatMillis(final T value, final long millis, final Integer precision)
+      throws EdmPrimitiveTypeException {
+    final long days = floorDiv(millis, MILLIS_PER_DAY);
+    final int millisOfDay = (int) (millis - days * MILLIS_PER_DAY);
+
+    final long shiftedDays = days + 719468;
+    final long era = (shiftedDays >= 0 ? shiftedDays : shiftedDays - 146096) / 146097;
+    final int dayOfEra = (int) (shiftedDays - era * 146097);
+    final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+    final int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+    final int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+    final int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+    StringBuilder result = new StringBuilder(31);
+    appendTwoDigits(result, year / 100);
+    appendTwoDigits(result, year % 100);
+    result.append('-');
+    appendTwoDigits(result, month);
+    result.append('-');
+    appendTwoDigits(result, day);
+    result.append('T');
+    appendTwoDigits(result, millisOfDay / 3600000);
+    result.append(':');
+    appendTwoDigits(result, millisOfDay / 60000 % 60);
+    result.append(':');
+    appendTwoDigits(result, millisOfDay / 1000 % 60);
+
+    final int fractionalSecs = value instanceof Timestamp ? ((Timestamp) value).getNanos() : millisOfDay % 1000;
+    try {
+      appendFractionalSeconds(result, fractionalSecs, value instanceof Timestamp, precision);
+    } catch (final IllegalArgumentException e) {
+      throw new EdmPrimitiveTypeException("The value '" + value + "' does not match the facets' constraints.", e);
+    }
+    result.append('Z');
 
     return result.toString();
   }
 
+  private static long floorDiv(final long dividend, final long divisor) {
+    final long quotient = dividend / divisor;
+    return dividend % divisor < 0 ? quotient - 1 : quotient;
+  }
+
   /**
    * Creates a date/time value from the given value.
    *
@@ -217,12 +460,12 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
   protected static <T> Calendar createDateTime(final T value, final boolean isLocal) throws EdmPrimitiveTypeException {
     Calendar dateTimeValue;
     if (value instanceof Date) {
-      dateTimeValue = Calendar.getInstance(isLocal ? TimeZone.getDefault() : TimeZone.getTimeZone("GMT"));
+      dateTimeValue = Calendar.getInstance(isLocal ? TimeZone.getDefault() : getTimeZone(0));
       dateTimeValue.setTime((Date) value);
     } else if (value instanceof Calendar) {
       dateTimeValue = (Calendar) ((Calendar) value).clone();
     } else if (value instanceof Long) {
-      dateTimeValue = Calendar.getInstance(isLocal ? TimeZone.getDefault() : TimeZone.getTimeZone("GMT"));
+      dateTimeValue = Calendar.getInstance(isLocal ? TimeZone.getDefault() : getTimeZone(0));
       dateTimeValue.setTimeInMillis((Long) value);
     } else {
       throw new EdmPrimitiveTypeException("The value type " + value.getClass() + " is not supported.");
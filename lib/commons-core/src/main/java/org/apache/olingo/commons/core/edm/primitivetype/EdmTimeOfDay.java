@@ -20,16 +20,11 @@ package org.apache.olingo.commons.core.edm.primitivetype;
 
 import java.sql.Timestamp;
 import java.util.Calendar;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
 public final class EdmTimeOfDay extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "(\\p{Digit}{2}):(\\p{Digit}{2})(?::(\\p{Digit}{2})(\\.(\\p{Digit}{0,}?)0*)?)?");
-
   private static final EdmTimeOfDay INSTANCE = new EdmTimeOfDay();
 
   public static EdmTimeOfDay getInstance() {
@@ -46,37 +41,53 @@ public final class EdmTimeOfDay extends SingletonPrimitiveType {
       final Boolean isNullable, final Integer maxLength, final Integer precision,
       final Integer scale, final Boolean isUnicode, final Class<T> returnType) throws EdmPrimitiveTypeException {
 
-    final Matcher matcher = PATTERN.matcher(value);
-    if (!matcher.matches()) {
+    // The literal has the form hh:mm(:ss(.s+)?)?
+    final int length = value.length();
+    if (length < 5 || value.charAt(2) != ':') {
+      throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+    }
+    final int hour = EdmDateTimeOffset.parseDigits(value, 0, 2);
+    final int minute = EdmDateTimeOffset.parseDigits(value, 3, 5);
+    int second = 0;
+    int fractionStart = -1;
+    int fractionEnd = -1;
+    int position = 5;
+    if (length > position) {
+      second = length < 8 || value.charAt(5) != ':' ? -1 : EdmDateTimeOffset.parseDigits(value, 6, 8);
+      position = 8;
+      if (length > position && value.charAt(position) == '.') {
+        fractionStart = position + 1;
+        fractionEnd = EdmDateTimeOffset.skipDigits(value, fractionStart);
+        position = fractionEnd;
+      }
+    }
+    if (hour < 0 || minute < 0 || second < 0 || position < length
+        || fractionStart >= 0 && (fractionEnd == fractionStart || fractionEnd - fractionStart > 12)) {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
 
     final Calendar dateTimeValue = Calendar.getInstance();
     dateTimeValue.clear();
-    dateTimeValue.set(Calendar.HOUR_OF_DAY, Byte.parseByte(matcher.group(1)));
-    dateTimeValue.set(Calendar.MINUTE, Byte.parseByte(matcher.group(2)));
-    dateTimeValue.set(Calendar.SECOND, matcher.group(3) == null ? 0 : Byte.parseByte(matcher.group(3)));
+    dateTimeValue.set(Calendar.HOUR_OF_DAY, hour);
+    dateTimeValue.set(Calendar.MINUTE, minute);
+    dateTimeValue.set(Calendar.SECOND, second);
 
     int nanoSeconds = 0;
-    if (matcher.group(4) != null) {
-      if (matcher.group(4).length() == 1 || matcher.group(4).length() > 13) {
-        throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
-      }
-      final String decimals = matcher.group(5);
-      if (decimals.length() > (precision == null ? 0 : precision)) {
+    if (fractionStart >= 0) {
+      final int decimals = EdmDateTimeOffset.significantDigits(value, fractionStart, fractionEnd);
+      if (decimals > (precision == null ? 0 : precision)) {
         throw new EdmPrimitiveTypeException("The literal '" + value + "' does not match the facets' constraints.");
       }
       if (returnType.isAssignableFrom(Timestamp.class)) {
-        if (decimals.length() <= 9) {
-          nanoSeconds = Integer.parseInt(decimals + "000000000".substring(decimals.length()));
+        if (decimals <= 9) {
+          nanoSeconds = EdmDateTimeOffset.parseFraction(value, fractionStart, decimals, 9);
         } else {
           throw new EdmPrimitiveTypeException("The literal '" + value
               + "' cannot be converted to value type " + returnType + ".");
         }
       } else {
-        if (decimals.length() <= 3) {
-          final String milliSeconds = decimals + "000".substring(decimals.length());
-          dateTimeValue.set(Calendar.MILLISECOND, Short.parseShort(milliSeconds));
+        if (decimals <= 3) {
+          dateTimeValue.set(Calendar.MILLISECOND, EdmDateTimeOffset.parseFraction(value, fractionStart, decimals, 3));
         } else {
           throw new EdmPrimitiveTypeException("The literal '" + value
               + "' cannot be converted to value type " + returnType + ".");
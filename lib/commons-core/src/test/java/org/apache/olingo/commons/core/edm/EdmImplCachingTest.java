@@ -21,6 +21,7 @@ package org.apache.olingo.commons.core.edm;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -30,6 +31,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmAction;
@@ -139,6 +145,41 @@ public class EdmImplCachingTest {
     assertNotSame(entityType, entityType2);
   }
 
+  @Test
+  public void cacheEntityTypeConcurrently() throws Exception {
+    final int threadCount = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<EdmEntityType>> results = new ArrayList<Future<EdmEntityType>>();
+      for (int i = 0; i < threadCount; i++) {
+        results.add(executor.submit(new Callable<EdmEntityType>() {
+          @Override
+          public EdmEntityType call() throws Exception {
+            start.await();
+            return edm.getEntityType(NAME1);
+          }
+        }));
+      }
+      start.countDown();
+
+      final EdmEntityType entityType = edm.getEntityType(NAME1);
+      assertNotNull(entityType);
+      for (final Future<EdmEntityType> result : results) {
+        assertTrue(entityType == result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void noCacheForNullName() {
+    assertNull(edm.getEntityType(null));
+    assertNull(edm.getComplexType(null));
+    assertNull(edm.getTerm(null));
+  }
+
   @Test
   public void cacheComplexType() {
     EdmComplexType complexType = edm.getComplexType(NAME1);
@@ -87,6 +87,9 @@ public class EdmDateTest extends PrimitiveTypeBaseTest {
     expectContentErrorInValueOfString(instance, "2012-02-1");
     expectContentErrorInValueOfString(instance, "2012-2-12");
     expectContentErrorInValueOfString(instance, "123-02-03");
+    expectContentErrorInValueOfString(instance, "2012-02-03 ");
+    expectContentErrorInValueOfString(instance, "2012-0a-03");
+    expectContentErrorInValueOfString(instance, "-2012-02-");
 
     expectTypeErrorInValueOfString(instance, "2012-02-29");
   }
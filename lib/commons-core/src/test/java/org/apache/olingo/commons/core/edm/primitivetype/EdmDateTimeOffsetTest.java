@@ -157,4 +157,42 @@ public class EdmDateTimeOffsetTest extends PrimitiveTypeBaseTest {
 
     expectTypeErrorInValueOfString(instance, "2012-02-29T01:02:03Z");
   }
+
+  @Test
+  public void arithmeticConversionMatchesCalendar() throws Exception {
+    Calendar dateTime = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    for (final long millis : new long[] { -12212553600000L, -12212553600001L, -2208988800000L, -1L, 0L,
+        951782400000L, 1330558323007L, 4107542400000L, 253402300799999L, -62135596800000L }) {
+      dateTime.setTimeInMillis(millis);
+      final String expected = instance.valueToString(dateTime, null, null, 3, null, null);
+      assertEquals(expected, instance.valueToString(millis, null, null, 3, null, null));
+      assertEquals(expected, instance.valueToString(new Date(millis), null, null, 3, null, null));
+      assertEquals(Long.valueOf(millis), instance.valueOfString(expected, null, null, 3, null, null, Long.class));
+      assertEquals(dateTime.getTimeInMillis(),
+          instance.valueOfString(expected, null, null, 3, null, null, Calendar.class).getTimeInMillis());
+    }
+
+    assertEquals(Long.valueOf(-12219292800000L), instance.valueOfString("1582-10-15T00:00:00Z", null, null, null,
+        null, null, Long.class));
+    assertEquals(Long.valueOf(-12219292800000L - 86400000L), instance.valueOfString("1582-10-04T00:00:00Z", null,
+        null, null, null, null, Long.class));
+    assertEquals(Long.valueOf(951827400000L), instance.valueOfString("2000-02-29T12:00:00.000-00:30", null, null,
+        null, null, null, Long.class));
+
+    dateTime.setTimeZone(TimeZone.getTimeZone("GMT-00:30"));
+    dateTime.setTimeInMillis(951827400000L);
+    assertEquals("2000-02-29T12:00:00-00:30", instance.valueToString(dateTime, null, null, null, null, null));
+
+    expectContentErrorInValueOfString(instance, "2011-02-29T00:00:00Z");
+    expectContentErrorInValueOfString(instance, "2012-04-31T00:00:00Z");
+    expectContentErrorInValueOfString(instance, "2012-01-01T24:00:00Z");
+    expectContentErrorInValueOfString(instance, "2012-01-01T00:60:00Z");
+    expectContentErrorInValueOfString(instance, "2012-01-01T00:00:60Z");
+    expectContentErrorInValueOfString(instance, "2012-01-01T00:00:00+05:60");
+    expectContentErrorInValueOfString(instance, "2012-01-01T00:00:00+05:00Z");
+    expectContentErrorInValueOfString(instance, "2012-1-01T00:00:00Z");
+    expectContentErrorInValueOfString(instance, "12-01-01T00:00:00Z");
+    expectContentErrorInValueOfString(instance, "2012-01-01T00:00:0");
+    expectContentErrorInValueOfString(instance, "");
+  }
 }
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.api;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Netty handler that can also process requests whose body is still arriving
+ * and write the responses to the channel while their content is produced.
+ */
+public interface ODataNettyStreamingHandler extends ODataNettyHandler {
+
+  /**
+   * <p>Processes a NettyRequest as an OData request, reading its body while processing
+   * and writing the response to the channel in chunks as soon as the content is produced.</p>
+   * <p>Writing waits while the channel is not writable, so the memory needed for the response
+   * does not grow with its size. Therefore this method should be called outside the event loop
+   * of the channel; the <code>ODataNettyChannelHandler</code> of the server core does that.</p>
+   * @param request - head of a HTTP OData request
+   * @param body - body of the request
+   * @param context - context of the channel the response is written to
+   */
+  void processNettyRequest(HttpRequest request, InputStream body, ChannelHandlerContext context,
+      Map<String, String> requestParameters);
+}
@@ -18,8 +18,10 @@
  */
 package org.apache.olingo.server.api;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
@@ -27,12 +29,19 @@ import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.async.AsyncRequestSelector;
+import org.apache.olingo.server.api.async.AsyncSupport;
 import org.apache.olingo.server.api.debug.DebugResponseHelper;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.ODataDeserializer;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.evaluation.EntityFilter;
+import org.apache.olingo.server.api.evaluation.EntitySorter;
+import org.apache.olingo.server.api.evaluation.FunctionEvaluator;
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.paging.ServerSidePaging;
 import org.apache.olingo.server.api.prefer.Preferences;
 import org.apache.olingo.server.api.serializer.EdmAssistedSerializer;
 import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
@@ -40,6 +49,10 @@ import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriHelper;
+import org.apache.olingo.server.api.uri.UriInfoCache;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
 
 /**
  * Root object for serving factory tasks and support loose coupling of implementation (core) from the API.
@@ -104,6 +117,7 @@ public abstract class OData {
 
   /**
    * Creates a new ODataHttpHandler for handling OData requests in an HTTP context.
+   * The handler can be shared by concurrent requests after all processors have been registered.
    *
    * @param serviceMetadata - metadata object required to handle an OData request
    */
@@ -136,12 +150,104 @@ public abstract class OData {
   public abstract ServiceMetadata createServiceMetadata(CsdlEdmProvider edmProvider, List<EdmxReference> references,
       ServiceMetadataETagSupport serviceMetadataETagSupport);
 
+  /**
+   * Creates a metadata object for this service.
+   * If <code>frozen</code> is set, the complete metadata is built eagerly from all schemas of the provider
+   * while this method runs; in that case the provider must return all metadata elements in its schemas.
+   * Afterwards the provider is no longer called for schemas, entity containers and their entity sets,
+   * singletons, action imports and function imports, entity types, complex types, enumeration types,
+   * type definitions, and unbound actions and functions; unknown names of these kinds result in
+   * <code>null</code> or empty results.
+   * The provider is still called on demand for bound actions and functions, for terms and annotations,
+   * and for the lookups of types with annotations or of types derived from entity sets.
+   * The resulting metadata object is meant to be created once and shared by all requests.
+   * Without application-specific ETag support, frozen metadata use a hash of the metadata document as ETag
+   * for the metadata document and the service document.
+   *
+   * @param edmProvider a custom or default implementation for creating metadata
+   * @param references list of edmx references
+   * @param serviceMetadataETagSupport
+   * @param frozen whether the metadata is built completely at creation time
+   * @return a service metadata implementation
+   */
+  public abstract ServiceMetadata createServiceMetadata(CsdlEdmProvider edmProvider, List<EdmxReference> references,
+      ServiceMetadataETagSupport serviceMetadataETagSupport, boolean frozen);
+
   /**
    * Creates a new URI helper object for performing URI-related tasks.
    * It can be used in Processor implementations.
    */
   public abstract UriHelper createUriHelper();
 
+  /**
+   * Creates a new cache for parsed and validated URIs.
+   * The cache should be created once per service and registered at its handlers.
+   *
+   * @param maximumSize the maximum number of cached URIs; must be positive
+   * @return a thread-safe URI cache
+   */
+  public abstract UriInfoCache createUriInfoCache(int maximumSize);
+
+  /**
+   * Creates a new support for the asynchronous processing of requests with the preference
+   * <code>respond-async</code>.
+   * The support should be created once per service and registered at its handlers.
+   *
+   * @param executor the executor processing the accepted requests; its work queue should be bounded.
+   *                 Any executor can be used, e.g., one starting a virtual thread per task on runtimes providing them.
+   * @param maximumJobs the maximum number of jobs held at the same time, pending or finished; must be positive
+   * @param timeToLive the time in milliseconds a finished job is kept for the retrieval of its result
+   * @param spoolThreshold the size in bytes above which request bodies and results are written to temporary files
+   * @param spoolDirectory the directory for the temporary files or <code>null</code> for the system default
+   * @param selector selects the requests processed asynchronously or <code>null</code> to select all requests
+   * @return a thread-safe async support
+   */
+  public abstract AsyncSupport createAsyncSupport(Executor executor, int maximumJobs, long timeToLive,
+      int spoolThreshold, File spoolDirectory, AsyncRequestSelector selector);
+
+  /**
+   * Creates new request metrics aggregating the latencies, payload sizes and errors of requests.
+   * The metrics should be created once per service and registered at its handlers.
+   *
+   * @return thread-safe request metrics
+   */
+  public abstract RequestMetrics createRequestMetrics();
+
+  /**
+   * Creates a new support for server-side paging of streamed entity collections
+   * with skip tokens holding the values of the <code>$orderby</code> and key properties.
+   *
+   * @return a thread-safe server-side paging support
+   */
+  public abstract ServerSidePaging createServerSidePaging();
+
+  /**
+   * Compiles a filter expression into a filter that can be applied to any number of entities.
+   *
+   * @param expression the expression of the filter system query option
+   * @param uriInfo the URI info the expression is part of, used to resolve parameter aliases
+   * @param functionEvaluator evaluates function calls in the expression;
+   *                          if <code>null</code>, function calls are not supported
+   * @return a thread-safe filter
+   * @throws ODataApplicationException if the expression cannot be compiled
+   */
+  public abstract EntityFilter createEntityFilter(Expression expression, UriInfoResource uriInfo,
+      FunctionEvaluator functionEvaluator) throws ODataApplicationException;
+
+  /**
+   * Compiles the items of an orderby system query option into a sorter that can be applied
+   * to any number of entities.
+   *
+   * @param orderByOption the orderby system query option
+   * @param uriInfo the URI info the option is part of, used to resolve parameter aliases
+   * @param functionEvaluator evaluates function calls in the expressions;
+   *                          if <code>null</code>, function calls are not supported
+   * @return a thread-safe sorter
+   * @throws ODataApplicationException if an expression cannot be compiled
+   */
+  public abstract EntitySorter createEntitySorter(OrderByOption orderByOption, UriInfoResource uriInfo,
+      FunctionEvaluator functionEvaluator) throws ODataApplicationException;
+
   /**
    * Creates a new deserializer object for reading content in the specified format.
    * Deserializers are used in Processor implementations.
@@ -180,6 +286,21 @@ public abstract class OData {
    */
   public abstract ODataDeserializer createDeserializer(ContentType contentType,
       ServiceMetadata metadata, final List<String> versions) throws DeserializerException;
+
+  /**
+   * Creates a new deserializer object for reading content in the specified format.
+   * Deserializers are used in Processor implementations.
+   * <p>A streaming JSON deserializer builds entities directly while reading the request body,
+   * without holding a complete JSON tree of it in memory; the results are the same.
+   * Other formats are always read in a streaming fashion.</p>
+   *
+   * @param contentType any content type supported by Olingo (XML, JSON ...)
+   * @param metadata ServiceMetada of the service
+   * @param versions service versions
+   * @param streaming whether JSON entity payloads are read token by token
+   */
+  public abstract ODataDeserializer createDeserializer(ContentType contentType,
+      ServiceMetadata metadata, List<String> versions, boolean streaming) throws DeserializerException;
   
   /**
    * Creates a primitive-type instance.
@@ -27,6 +27,10 @@ import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 
 /**
  * Handles HTTP requests as OData requests.
+ * <br>
+ * A handler is safe for concurrent use once it has been configured:
+ * create it once, e.g., when a servlet is initialized, register all processors and extensions,
+ * and share it for all requests afterwards.
  */
 public interface ODataHttpHandler extends ODataHandler {
 
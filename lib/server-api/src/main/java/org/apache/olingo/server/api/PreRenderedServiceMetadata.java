@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.serializer.PreRenderedDocument;
+import org.apache.olingo.server.api.serializer.SerializerException;
+
+/**
+ * <p>Service metadata which serialize the metadata document and the service document only once
+ * per format and keep the serialized bytes.</p>
+ * <p>The documents are cached by the string representation of the content type, including its parameters.
+ * They are never invalidated, so the metadata must not change after the first document has been requested.</p>
+ * <p>The {@link org.apache.olingo.server.api.processor.DefaultProcessor} serves the documents of
+ * service metadata implementing this interface and serializes them for every request otherwise.</p>
+ */
+public interface PreRenderedServiceMetadata extends ServiceMetadata {
+
+  /**
+   * Gets the metadata document in the given format.
+   * It is serialized at the first request for that format and re-used afterwards.
+   * @param contentType format of the metadata document
+   * @return pre-rendered metadata document
+   * @throws SerializerException if the format is not supported or serialization fails
+   */
+  PreRenderedDocument getMetadataDocument(ContentType contentType) throws SerializerException;
+
+  /**
+   * Gets the service document in the given format, without service root.
+   * It is serialized at the first request for that format and re-used afterwards.
+   * @param contentType format of the service document
+   * @return pre-rendered service document
+   * @throws SerializerException if the format is not supported or serialization fails
+   */
+  PreRenderedDocument getServiceDocument(ContentType contentType) throws SerializerException;
+}
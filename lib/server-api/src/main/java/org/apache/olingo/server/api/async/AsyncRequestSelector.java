@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.async;
+
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.uri.UriInfo;
+
+/**
+ * Selects the requests with the preference <code>respond-async</code> which are processed asynchronously
+ * by an {@link AsyncSupport}. All other requests are processed synchronously, as if the preference were not given.
+ */
+public interface AsyncRequestSelector {
+
+  /**
+   * Decides whether the request is processed asynchronously.
+   * @param request the request with the preference <code>respond-async</code>
+   * @param uriInfo the parsed and validated URI of the request
+   * @return <code>true</code> if the request is processed as job
+   */
+  boolean isAsynchronous(ODataRequest request, UriInfo uriInfo);
+}
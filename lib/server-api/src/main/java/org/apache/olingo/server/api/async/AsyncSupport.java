@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.async;
+
+import org.apache.olingo.server.api.ODataHandler;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.OlingoExtension;
+import org.apache.olingo.server.api.uri.UriInfo;
+
+/**
+ * <p>Asynchronous processing of requests with the preference <code>respond-async</code>.</p>
+ * <p>An instance is created once via
+ * {@link org.apache.olingo.server.api.OData#createAsyncSupport(java.util.concurrent.Executor, int, long, int,
+ * java.io.File, AsyncRequestSelector)} and can be registered at every handler of the same service via
+ * {@link org.apache.olingo.server.api.ODataHandler#register(OlingoExtension)}.
+ * Such a handler answers a request with the preference <code>respond-async</code> immediately with
+ * <code>202 Accepted</code> and processes it as a job on the executor of this instance, with the processors
+ * registered at the handler. The <code>Location</code> header of the answer points to the status monitor of the
+ * job, <code>{service root}/{@value #STATUS_MONITOR_SEGMENT}/{job id}</code>, served by the same handler:</p>
+ * <ul>
+ * <li><code>GET</code> returns <code>202 Accepted</code> while the job is pending and the response of the request
+ * as <code>application/http</code> once it has finished; the job is removed thereafter.</li>
+ * <li><code>DELETE</code> cancels the job and removes it. A job which has not started yet is not processed at all.
+ * The thread of a running job is interrupted; processors which check the interruption status of their thread
+ * or wait interruptibly stop early, the others run to completion. In both cases the result is discarded.</li>
+ * </ul>
+ * <p>A request is processed synchronously, as if the preference were not given, if the selector given at creation
+ * does not select it, the maximum number of jobs has been reached, or the executor rejects the job.
+ * Results larger than the spool threshold are written to temporary files.
+ * Finished jobs whose results have not been retrieved within their time to live are removed.</p>
+ * <p>Implementations are thread-safe.</p>
+ */
+public interface AsyncSupport extends OlingoExtension {
+
+  /** Path segment after the service root under which the status monitors of the jobs are located. */
+  String STATUS_MONITOR_SEGMENT = "$async";
+
+  /**
+   * Checks whether the request is directed to a status monitor.
+   * @param request the request
+   * @return <code>true</code> for a status-monitor request
+   */
+  boolean isStatusMonitorRequest(ODataRequest request);
+
+  /**
+   * Answers a request to a status monitor.
+   * @param request the status-monitor request
+   * @param response the response
+   * @throws ODataLibraryException if the HTTP method is not supported by status monitors
+   */
+  void processStatusMonitor(ODataRequest request, ODataResponse response) throws ODataLibraryException;
+
+  /**
+   * Accepts the request as job if it has the preference <code>respond-async</code>, is selected,
+   * and capacity is left.
+   * If the job is accepted, the response is set to <code>202 Accepted</code>; otherwise the request
+   * has to be processed synchronously.
+   * @param handler the handler processing the job
+   * @param request the request
+   * @param uriInfo the parsed and validated URI of the request
+   * @param response the response
+   * @return <code>true</code> if the request has been accepted as job
+   */
+  boolean accept(ODataHandler handler, ODataRequest request, UriInfo uriInfo, ODataResponse response);
+
+  /**
+   * Gets the maximum number of jobs held at the same time, pending or finished.
+   * @return the maximum number of jobs
+   */
+  int getMaximumJobs();
+
+  /**
+   * Gets the number of jobs which have been accepted but have not finished yet.
+   * @return the number of pending jobs
+   */
+  int getPendingJobCount();
+
+  /**
+   * Gets the number of finished jobs whose results have not been retrieved yet.
+   * @return the number of finished jobs
+   */
+  int getFinishedJobCount();
+
+  /**
+   * Gets the number of requests with the preference <code>respond-async</code>
+   * which have been processed synchronously because no further job could be accepted.
+   * @return the rejection count
+   */
+  long getRejectedCount();
+
+  /**
+   * Cancels all pending jobs and removes all jobs with their results.
+   * The executor is not shut down; this is up to its owner.
+   */
+  void shutdown();
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.batch;
+
+import java.util.concurrent.Executor;
+
+import org.apache.olingo.server.api.OlingoExtension;
+
+/**
+ * <p>Enables the parallel execution of independent query operations in batch requests.</p>
+ * <p>If implemented this interface can be registered at the ODataHttpHandler. Batch requests handled with
+ * {@link IncrementalBatchFacade#handleBatchRequestIncrementally(
+ * org.apache.olingo.server.api.deserializer.batch.BatchRequestPartIterator, String, boolean)}
+ * then execute consecutive query operations (GET requests outside of change sets) concurrently on the
+ * {@link #getExecutor() executor}. A change set is executed only after all parts before it have completed,
+ * and no part after it is started before it has completed, so Content-ID references and the atomicity of
+ * change sets are not affected. The response parts are always written in the order of the request parts.</p>
+ * <p>Parallel execution is used for all batch requests if {@link #isParallelByDefault()} returns true;
+ * otherwise only for batch requests with the preference {@value #PREFERENCE_PARALLEL}.
+ * Processors registered at the same handler must be able to handle requests concurrently.</p>
+ */
+public interface BatchExecutionSupport extends OlingoExtension {
+
+  /** Name of the preference with which a client requests parallel execution of a batch request. */
+  String PREFERENCE_PARALLEL = "olingo.parallel";
+
+  /**
+   * Gets the executor on which query operations are executed.
+   * @return the executor
+   */
+  Executor getExecutor();
+
+  /**
+   * Gets the maximum number of query operations which are read ahead and executed concurrently.
+   * @return the maximum number of concurrent query operations, at least 1
+   */
+  int getMaxParallelism();
+
+  /**
+   * Whether query operations of all batch requests are executed in parallel,
+   * regardless of the preference {@value #PREFERENCE_PARALLEL}.
+   * @return true if parallel execution is used for all batch requests
+   */
+  boolean isParallelByDefault();
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.batch;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartIterator;
+
+/**
+ * <p>Batch facade which can handle the parts of a batch request while the batch response is written.</p>
+ * <p>The facades passed to {@link org.apache.olingo.server.api.processor.BatchProcessor BatchProcessor}s
+ * by the handlers of the library implement this interface.</p>
+ * <p>With incremental handling the parts are handled only when the response content is written, i.e., after
+ * the status code and the headers of the batch response have been sent. A failure in a part is answered
+ * with an error response part, but a failure while writing the response cannot be reported anymore;
+ * the client then receives a truncated response body. Processors therefore have to opt in to incremental
+ * handling, e.g., if the client asks for it with the preference {@value #PREFERENCE_INCREMENTAL}, and should
+ * use {@link #handleBatchRequest(org.apache.olingo.server.api.deserializer.batch.BatchRequestPart)}
+ * for all parts otherwise.</p>
+ */
+public interface IncrementalBatchFacade extends BatchFacade {
+
+  /** Name of the preference with which a client accepts incremental handling of a batch request. */
+  String PREFERENCE_INCREMENTAL = "olingo.incremental";
+
+  /**
+   * <p>Handles the parts of a batch request while the batch response is written.</p>
+   * <p>Each part is read from the iterator, handled as in {@link #handleBatchRequest(
+   * org.apache.olingo.server.api.deserializer.batch.BatchRequestPart)},
+   * and its response is serialized before the next part is read, so neither the request nor the response
+   * is held in memory as a whole. Processing stops after the first failed part
+   * unless <code>continueOnError</code> is set.</p>
+   * <p>The first part is read immediately, so errors in the structure of the request body are reported
+   * by this method; errors found later are answered with an error response part. Exceptions thrown
+   * while a part is handled are answered with an error response part, too, with status code 500
+   * unless the exception provides one. All other parts are handled when the returned content is written,
+   * see the description of this interface for the consequences.</p>
+   * @param parts the parts of the batch request, e.g., from
+   * {@link org.apache.olingo.server.api.deserializer.IncrementalFixedFormatDeserializer#parseBatchRequestIncrementally(
+   * java.io.InputStream, String, org.apache.olingo.server.api.deserializer.batch.BatchOptions)}
+   * @param boundary the boundary between the parts of the batch response
+   * @param continueOnError whether to handle further parts after a failed part
+   * @return the content of the batch response
+   * @throws ODataApplicationException
+   * @throws ODataLibraryException
+   */
+  ODataContent handleBatchRequestIncrementally(BatchRequestPartIterator parts, String boundary,
+      boolean continueOnError) throws ODataApplicationException, ODataLibraryException;
+}
@@ -60,7 +60,9 @@ public class DeserializerException extends ODataLibraryException {
     /** parameter: action parameter name */
     INVALID_ACTION_PARAMETER_TYPE,
     /** parameter: parameterName */
-    INVALID_NULL_PARAMETER;
+    INVALID_NULL_PARAMETER,
+    /** parameter: skip token */
+    INVALID_SKIP_TOKEN;
 
     @Override
     public String getKey() {
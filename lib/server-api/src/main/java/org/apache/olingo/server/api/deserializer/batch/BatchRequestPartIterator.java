@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.deserializer.batch;
+
+/**
+ * Iterates over the {@link BatchRequestPart}s of a batch request body while it is being read.
+ * Each call to {@link #next()} consumes exactly one MIME part (a change set or a query operation)
+ * from the underlying input stream, so only the current part is held in memory.
+ */
+public interface BatchRequestPartIterator {
+
+  /**
+   * Checks whether the batch request contains a further part;
+   * reads the next part from the input stream if necessary.
+   * @return true if another part is available
+   * @throws BatchDeserializerException if the next part is malformed
+   */
+  boolean hasNext() throws BatchDeserializerException;
+
+  /**
+   * Gets the next part of the batch request.
+   * @return the next {@link BatchRequestPart}
+   * @throws BatchDeserializerException if the next part is malformed
+   * @throws java.util.NoSuchElementException if there are no more parts
+   */
+  BatchRequestPart next() throws BatchDeserializerException;
+}
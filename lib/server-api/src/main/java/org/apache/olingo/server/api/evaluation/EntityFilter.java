@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.evaluation;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * <p>A filter expression compiled once and applicable to any number of entities.</p>
+ * <p>Member paths are resolved and literals are converted when the filter is created,
+ * not for every entity. Instances are immutable and can be shared between threads.</p>
+ * @see org.apache.olingo.server.api.OData#createEntityFilter(
+ * org.apache.olingo.server.api.uri.queryoption.expression.Expression,
+ * org.apache.olingo.server.api.uri.UriInfoResource, FunctionEvaluator)
+ */
+public interface EntityFilter {
+
+  /**
+   * Evaluates the filter for the given entity.
+   * @param entity the entity
+   * @return <code>true</code> if the entity is not filtered out
+   * @throws ODataApplicationException if the expression cannot be evaluated for the entity
+   *                                   or its result is not of type Edm.Boolean
+   */
+  boolean matches(Entity entity) throws ODataApplicationException;
+
+  /**
+   * Removes all entities from the list the filter does not match.
+   * @param entities a modifiable list of entities
+   * @throws ODataApplicationException if the expression cannot be evaluated for an entity
+   */
+  void apply(List<Entity> entities) throws ODataApplicationException;
+
+  /**
+   * Removes all entities from the collection the filter does not match.
+   * @param entityCollection the entity collection
+   * @throws ODataApplicationException if the expression cannot be evaluated for an entity
+   */
+  void apply(EntityCollection entityCollection) throws ODataApplicationException;
+}
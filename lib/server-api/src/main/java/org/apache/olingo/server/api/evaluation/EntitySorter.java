@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.evaluation;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * <p>The items of an orderby system query option compiled once and applicable to any number of entities.</p>
+ * <p>The sort keys of each entity are evaluated once before sorting, not in every comparison.
+ * <code>null</code> values are ordered before all other values.
+ * Instances are immutable and can be shared between threads.</p>
+ * @see org.apache.olingo.server.api.OData#createEntitySorter(
+ * org.apache.olingo.server.api.uri.queryoption.OrderByOption,
+ * org.apache.olingo.server.api.uri.UriInfoResource, FunctionEvaluator)
+ */
+public interface EntitySorter {
+
+  /**
+   * Sorts the list of entities; the sort is stable.
+   * @param entities a modifiable list of entities
+   * @throws ODataApplicationException if an orderby expression cannot be evaluated for an entity
+   */
+  void sort(List<Entity> entities) throws ODataApplicationException;
+
+  /**
+   * Sorts the entities of the collection; the sort is stable.
+   * @param entityCollection the entity collection
+   * @throws ODataApplicationException if an orderby expression cannot be evaluated for an entity
+   */
+  void sort(EntityCollection entityCollection) throws ODataApplicationException;
+}
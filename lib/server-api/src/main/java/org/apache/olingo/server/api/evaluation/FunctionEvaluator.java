@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.evaluation;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResourceFunction;
+
+/**
+ * Evaluates the function calls in expressions of system query options,
+ * e.g., <code>$filter=PropertyInt16 eq Namespace.Function()</code>.
+ */
+public interface FunctionEvaluator {
+
+  /**
+   * Calls a function with the given parameters.
+   * @param function the function call including its parameters
+   * @param uriInfo the URI info the expression is part of, used to resolve parameter aliases
+   * @return the result of the function: an {@link org.apache.olingo.commons.api.data.EntityCollection},
+   *         an {@link org.apache.olingo.commons.api.data.Entity}, or a
+   *         {@link org.apache.olingo.commons.api.data.Property} with the primitive or complex value
+   * @throws ODataApplicationException if the function cannot be called
+   */
+  Object evaluate(UriResourceFunction function, UriInfoResource uriInfo) throws ODataApplicationException;
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+/**
+ * <p>Distribution of recorded values.</p>
+ * <p>Values are counted in buckets whose width grows with the value, so that the value at a percentile
+ * is known with a relative precision of a few percent. Minimum, maximum and sum are exact.</p>
+ */
+public interface HistogramSnapshot {
+
+  /**
+   * Gets the number of recorded values.
+   * @return the count
+   */
+  long getCount();
+
+  /**
+   * Gets the smallest recorded value.
+   * @return the minimum or 0 if no value has been recorded
+   */
+  long getMin();
+
+  /**
+   * Gets the largest recorded value.
+   * @return the maximum or 0 if no value has been recorded
+   */
+  long getMax();
+
+  /**
+   * Gets the sum of all recorded values.
+   * @return the sum
+   */
+  long getSum();
+
+  /**
+   * Gets the arithmetic mean of the recorded values.
+   * @return the mean or 0 if no value has been recorded
+   */
+  double getMean();
+
+  /**
+   * Gets the value below or at which the given percentage of the recorded values lie.
+   * The result is the highest value of the bucket the percentile falls into, but not more than the maximum.
+   * @param percentile the percentile between 0 and 100, e.g., 99.9
+   * @return the value at the percentile or 0 if no value has been recorded
+   */
+  long getValueAtPercentile(double percentile);
+}
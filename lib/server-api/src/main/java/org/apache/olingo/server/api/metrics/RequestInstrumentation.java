@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import org.apache.olingo.server.api.OlingoExtension;
+
+/**
+ * <p>Instrumentation of the requests processed by a handler.</p>
+ * <p>An instrumentation is registered at a handler via
+ * {@link org.apache.olingo.server.api.ODataHandler#register(OlingoExtension)}; the same instance can be
+ * registered at every handler of a service. A default implementation aggregating the measurements in
+ * histograms is created via {@link org.apache.olingo.server.api.OData#createRequestMetrics()}.
+ * A handler without instrumentation takes no measurements at all.</p>
+ * <p>The methods are called on the threads processing the requests, concurrently and while the request
+ * is still open. Implementations have to be thread-safe, should return quickly, and must not throw
+ * exceptions.</p>
+ */
+public interface RequestInstrumentation extends OlingoExtension {
+
+  /**
+   * Records the duration of a phase of a request.
+   * Phases which are not reached, e.g., because the URI could not be parsed, are not recorded.
+   * @param phase the phase
+   * @param durationNanos the duration in nanoseconds
+   */
+  void phaseCompleted(RequestPhase phase, long durationNanos);
+
+  /**
+   * Records a completed request.
+   * The parts of a batch request are recorded as requests of their own.
+   * @param entitySetName the name of the entity set or singleton addressed by the first segment
+   *                      of the resource path or <code>null</code>, e.g., for metadata requests
+   * @param processorName the simple name of the processor interface the request has been dispatched to,
+   *                      e.g., <code>EntityCollectionProcessor</code>, or <code>null</code> if the request
+   *                      has not been dispatched
+   * @param statusCode the HTTP status code of the response or 500 if the response could not be written
+   * @param durationNanos the duration of the request in nanoseconds
+   * @param requestSize the size of the request body in bytes as given by its <code>Content-Length</code> header
+   *                    or -1 if unknown
+   * @param responseSize the number of bytes written as response body or -1 if unknown, e.g., if the
+   *                     response has not been written by the handler itself or could not be written
+   */
+  void requestCompleted(String entitySetName, String processorName, int statusCode, long durationNanos,
+      long requestSize, long responseSize);
+}
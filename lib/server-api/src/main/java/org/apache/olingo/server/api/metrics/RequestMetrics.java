@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+/**
+ * <p>Request instrumentation which aggregates all measurements in histograms.</p>
+ * <p>An instance is created once via {@link org.apache.olingo.server.api.OData#createRequestMetrics()}
+ * and registered at every handler of the service. Recording does not lock and does not allocate once
+ * the statistics of an entity set or a processor exist.
+ * The aggregated values can be exported at any time, e.g., from a monitoring endpoint of the application,
+ * via {@link #getSnapshot()}.</p>
+ * <p>Implementations are thread-safe.</p>
+ */
+public interface RequestMetrics extends RequestInstrumentation {
+
+  /**
+   * Gets a copy of the values aggregated so far.
+   * Requests completing while the snapshot is taken may be partially included.
+   * @return the snapshot
+   */
+  RequestMetricsSnapshot getSnapshot();
+
+  /**
+   * Discards all values aggregated so far.
+   */
+  void reset();
+}
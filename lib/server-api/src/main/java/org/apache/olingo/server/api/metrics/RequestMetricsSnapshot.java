@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import java.util.Map;
+
+/**
+ * Values aggregated by {@link RequestMetrics} up to a point in time.
+ */
+public interface RequestMetricsSnapshot {
+
+  /**
+   * Gets the statistics of all requests.
+   * @return the statistics
+   */
+  RequestStatistics getTotal();
+
+  /**
+   * Gets the statistics of the requests per addressed entity set or singleton.
+   * Requests not addressing an entity set or a singleton are only part of the {@link #getTotal() total}.
+   * @return an unmodifiable map from entity-set or singleton name to statistics, sorted by name
+   */
+  Map<String, RequestStatistics> getEntitySets();
+
+  /**
+   * Gets the statistics of the requests per processor interface they have been dispatched to.
+   * @return an unmodifiable map from simple name of the processor interface to statistics, sorted by name
+   */
+  Map<String, RequestStatistics> getProcessors();
+
+  /**
+   * Gets the durations of the phases of all requests in nanoseconds.
+   * @return an unmodifiable map with an entry for every phase
+   */
+  Map<RequestPhase, HistogramSnapshot> getPhases();
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+/**
+ * Phases of the processing of a request which are measured separately.
+ */
+public enum RequestPhase {
+  /** Copying method, headers and URI of the HTTP request into the OData request. */
+  READ_REQUEST,
+  /** Parsing the resource path and the query options. */
+  PARSE_URI,
+  /** Validating the parsed URI against the HTTP method. */
+  VALIDATE_URI,
+  /**
+   * Selecting the processor and processing the request.
+   * This includes the serialization of the response content unless the content is streamed.
+   */
+  DISPATCH,
+  /** Writing the error response for an exception. */
+  HANDLE_ERROR,
+  /** Writing the response to the HTTP response, including the serialization of streamed content. */
+  WRITE_RESPONSE
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+/**
+ * Aggregated measurements of a group of requests.
+ */
+public interface RequestStatistics {
+
+  /**
+   * Gets the number of requests.
+   * @return the request count
+   */
+  long getRequestCount();
+
+  /**
+   * Gets the number of requests answered with a status code of 400 or higher.
+   * @return the error count
+   */
+  long getErrorCount();
+
+  /**
+   * Gets the durations of the requests in nanoseconds.
+   * @return the latency histogram
+   */
+  HistogramSnapshot getLatency();
+
+  /**
+   * Gets the sizes of the request bodies in bytes; requests with unknown size are not included.
+   * @return the request-size histogram
+   */
+  HistogramSnapshot getRequestSize();
+
+  /**
+   * Gets the sizes of the response bodies in bytes; responses with unknown size are not included.
+   * @return the response-size histogram
+   */
+  HistogramSnapshot getResponseSize();
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.paging;
+
+import java.util.Set;
+
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+
+/**
+ * <p>Declares the system query options a data source has applied already to the entities it returns,
+ * for example by translating them into a database query.</p>
+ * <p>An {@link org.apache.olingo.commons.api.data.EntityIterator} implementing this interface
+ * is passed through {@link ServerSidePaging#apply} without repeating the declared options.
+ * A source applying {@link SystemQueryOptionKind#SKIPTOKEN} should read the key values of
+ * {@link ServerSidePaging#decodeSkipToken} and return only the entities after them, and it should return
+ * at least one entity more than the page size so that the library can decide whether a next link is needed.</p>
+ */
+public interface AppliedQueryOptions {
+
+  /**
+   * Gets the system query options that have been applied by the data source.
+   * @return the applied options; never <code>null</code>
+   */
+  Set<SystemQueryOptionKind> getAppliedQueryOptions();
+}
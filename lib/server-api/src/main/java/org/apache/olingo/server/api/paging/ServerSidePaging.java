@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.paging;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+
+/**
+ * <p>Applies <code>$skip</code>, <code>$top</code>, <code>$skiptoken</code>, and server-side paging
+ * to streamed entity collections.</p>
+ * <p>Only the options not declared as applied by the data source (see {@link AppliedQueryOptions}) are applied.
+ * They are applied lazily while the entities are iterated, so the entities never have to be held
+ * in memory at the same time. Skip tokens are opaque, URL-safe encodings of a {@link SkipToken}
+ * identifying the last entity of the previous page by the values of the properties in <code>$orderby</code>
+ * and of its key properties.</p>
+ * <p>If the request has a <code>$orderby</code> of primitive properties, the next page starts with the first
+ * entity ordered after these values, so it does not matter whether the last entity of the previous page
+ * has been deleted in the meantime. Therefore the entities must be ordered by the properties in
+ * <code>$orderby</code> and then by the key properties in ascending order; <code>null</code> values come first.
+ * Otherwise the order of the entities is not known; the next page starts after the entity with the key values
+ * of the skip token, and the skip token is rejected if that entity does not exist anymore.</p>
+ */
+public interface ServerSidePaging {
+
+  /**
+   * Wraps the given entities so that the options not applied by the data source
+   * are applied during the iteration.
+   * If a page size is given or encoded in the skip token and there are more entities than fit onto the page,
+   * the next link of the returned iterator is set at the end of the page.
+   * The next link is the request URI without <code>$skip</code> and <code>$top</code>
+   * and with a new <code>$skiptoken</code>.
+   * @param entities the entities from the data source
+   * @param entityType the type of the entities
+   * @param uriInfo the URI information containing the query options
+   * @param maxPageSize the maximum page size or <code>null</code> for no server-side paging
+   * @param rawRequestUri the raw request URI used to construct the next link
+   * @return the entities of the requested page
+   * @throws ODataLibraryException if the skip token is invalid, was created for another order,
+   *                               or its entity does not exist anymore
+   */
+  EntityIterator apply(EntityIterator entities, EdmEntityType entityType, UriInfoResource uriInfo,
+      Integer maxPageSize, String rawRequestUri) throws ODataLibraryException;
+
+  /**
+   * Decodes a skip token created by this paging support.
+   * @param entityType the type of the entities
+   * @param skipToken the value of the system query option <code>$skiptoken</code>
+   * @return the decoded token
+   * @throws DeserializerException if the skip token is not valid for the entity type
+   */
+  SkipToken decodeSkipToken(EdmEntityType entityType, String skipToken) throws DeserializerException;
+
+  /**
+   * Encodes the given entity's values of the given primitive properties into a skip token.
+   * @param entityType the type of the entity
+   * @param entity the last entity of the current page
+   * @param propertyNames the names of the properties in the order of significance;
+   *                      <code>null</code> for the key properties
+   * @param pageSize the page size or <code>null</code>
+   * @param top the number of entities still to be returned after the current page
+   *            or <code>null</code> if not restricted
+   * @return the skip token
+   * @throws SerializerException if a property is not a primitive property of the entity type
+   */
+  String encodeSkipToken(EdmEntityType entityType, Entity entity, List<String> propertyNames,
+      Integer pageSize, Integer top) throws SerializerException;
+}
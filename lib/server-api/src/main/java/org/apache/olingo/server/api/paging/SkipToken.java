@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.paging;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>A decoded keyset skip token.</p>
+ * <p>The token identifies the last entity of the previous page by the values of some of its properties,
+ * the properties in <code>$orderby</code> followed by the key properties, so that the next page can be read
+ * as the entities following these values instead of skipping all entities before them. The token also keeps
+ * the page size and the number of entities still requested by <code>$top</code> since the next link does not
+ * repeat <code>$top</code> and <code>$skip</code>.</p>
+ */
+public final class SkipToken {
+
+  private final Map<String, Object> values;
+  private final Integer pageSize;
+  private final Integer top;
+
+  /**
+   * Creates a skip token.
+   * @param values the property values of the last entity of the previous page, in the order of significance
+   * @param pageSize the page size or <code>null</code>
+   * @param top the number of entities still to be returned or <code>null</code> if not restricted
+   */
+  public SkipToken(final Map<String, Object> values, final Integer pageSize, final Integer top) {
+    this.values = Collections.unmodifiableMap(new LinkedHashMap<String, Object>(values));
+    this.pageSize = pageSize;
+    this.top = top;
+  }
+
+  /**
+   * Gets the property values of the last entity of the previous page.
+   * @return an unmodifiable map from property names to values of the default Java types
+   *         of the properties' primitive types, in the order of significance
+   */
+  public Map<String, Object> getValues() {
+    return values;
+  }
+
+  /**
+   * Gets the page size.
+   * @return the page size or <code>null</code>
+   */
+  public Integer getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Gets the number of entities that are still to be returned because of <code>$top</code>.
+   * @return the number or <code>null</code> if not restricted
+   */
+  public Integer getTop() {
+    return top;
+  }
+
+  @Override
+  public String toString() {
+    return values + ";pageSize=" + pageSize + ";top=" + top;
+  }
+}
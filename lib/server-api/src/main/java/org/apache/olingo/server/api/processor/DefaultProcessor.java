@@ -31,10 +31,12 @@ import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
+import org.apache.olingo.server.api.PreRenderedServiceMetadata;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.PreRenderedDocument;
 import org.apache.olingo.server.api.uri.UriInfo;
 
 /**
@@ -77,8 +79,13 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
       if (HttpMethod.HEAD == request.getMethod()) {
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
       } else {
-        ODataSerializer serializer = odata.createSerializer(requestedContentType);
-        response.setContent(serializer.serviceDocument(serviceMetadata, null).getContent());
+        if (serviceMetadata instanceof PreRenderedServiceMetadata) {
+          writeDocument(request, response,
+              ((PreRenderedServiceMetadata) serviceMetadata).getServiceDocument(requestedContentType));
+        } else {
+          ODataSerializer serializer = odata.createSerializer(requestedContentType);
+          response.setContent(serializer.serviceDocument(serviceMetadata, null).getContent());
+        }
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
         response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
       }
@@ -107,14 +114,59 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
       if (HttpMethod.HEAD == request.getMethod()) {
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
       } else {
-        ODataSerializer serializer = odata.createSerializer(requestedContentType);
-        response.setContent(serializer.metadataDocument(serviceMetadata).getContent());
+        if (serviceMetadata instanceof PreRenderedServiceMetadata) {
+          writeDocument(request, response,
+              ((PreRenderedServiceMetadata) serviceMetadata).getMetadataDocument(requestedContentType));
+        } else {
+          ODataSerializer serializer = odata.createSerializer(requestedContentType);
+          response.setContent(serializer.metadataDocument(serviceMetadata).getContent());
+        }
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
         response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
       }
     }
   }
 
+  /**
+   * Writes a pre-rendered document, compressed if the client accepts a supported content coding.
+   */
+  private void writeDocument(final ODataRequest request, final ODataResponse response,
+      final PreRenderedDocument document) {
+    final String contentCoding = getContentCoding(request.getHeader(HttpHeader.ACCEPT_ENCODING));
+    if (contentCoding == null) {
+      response.setContent(document.getContent());
+    } else {
+      response.setContent(document.getContent(contentCoding));
+      response.setHeader(HttpHeader.CONTENT_ENCODING, contentCoding);
+    }
+    response.setHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+  }
+
+  /**
+   * Chooses a supported content coding from the value of an Accept-Encoding header;
+   * gzip is preferred over deflate, codings with a quality value of zero are not acceptable.
+   * @return the content coding or <code>null</code> if the content should not be compressed
+   */
+  private static String getContentCoding(final String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    boolean deflate = false;
+    for (final String element : acceptEncoding.split(",")) {
+      final String[] parts = element.split(";");
+      final String coding = parts[0].trim();
+      if (parts.length > 1 && parts[1].trim().matches("[qQ]\\s*=\\s*0(\\.0*)?")) {
+        continue;
+      }
+      if (PreRenderedDocument.GZIP.equalsIgnoreCase(coding)) {
+        return PreRenderedDocument.GZIP;
+      } else if (PreRenderedDocument.DEFLATE.equalsIgnoreCase(coding)) {
+        deflate = true;
+      }
+    }
+    return deflate ? PreRenderedDocument.DEFLATE : null;
+  }
+
   @Override
   public void processError(final ODataRequest request, final ODataResponse response,
       final ODataServerError serverError,
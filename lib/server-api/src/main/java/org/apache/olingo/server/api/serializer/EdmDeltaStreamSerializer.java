@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.serializer;
+
+import org.apache.olingo.commons.api.data.Delta;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.server.api.ServiceMetadata;
+
+/**
+ * Delta serializer which can also write delta responses whose entries are produced while the response is written.
+ * The JSON delta serializers created by
+ * {@link org.apache.olingo.server.api.OData#createEdmDeltaSerializer(org.apache.olingo.commons.api.format.ContentType,
+ * java.util.List)} implement this interface.
+ */
+public interface EdmDeltaStreamSerializer extends EdmDeltaSerializer {
+
+  /**
+   * Writes a delta response whose entries are read from an iterator only while the response content is written.
+   * Entries of the iterator that are {@link org.apache.olingo.commons.api.data.DeletedEntity DeletedEntity}
+   * instances are written as deleted entities.
+   * Count, next link, and delta link are taken from the iterator; if the count is not known before the
+   * iteration, it is written after the entries.
+   * @param metadata             metadata for the service
+   * @param referencedEntityType the {@link EdmEntityType} or <code>null</code> if not available
+   * @param entities             the added, changed, and deleted entities
+   * @param delta                further entries written after the iterated ones, typically the added and
+   *                             deleted links, or <code>null</code>
+   * @param options              options for the serializer; they must contain the context URL
+   */
+  SerializerStreamResult entityCollectionStreamed(ServiceMetadata metadata, EdmEntityType referencedEntityType,
+      EntityIterator entities, Delta delta, EntityCollectionSerializerOptions options) throws SerializerException;
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.serializer;
+
+import java.io.InputStream;
+
+/**
+ * A document that has been serialized once and is shared by all requests,
+ * like the metadata document or the service document of a service.
+ */
+public interface PreRenderedDocument extends SerializerResult {
+
+  /** The content coding for gzip compression */
+  String GZIP = "gzip";
+  /** The content coding for deflate compression */
+  String DEFLATE = "deflate";
+
+  /**
+   * Returns the serialized content, compressed with the given content coding.
+   * The compressed variants are computed only once, too.
+   * @param contentCoding {@link #GZIP} or {@link #DEFLATE}
+   * @return compressed content or <code>null</code> if the content coding is not supported
+   */
+  InputStream getContent(String contentCoding);
+}
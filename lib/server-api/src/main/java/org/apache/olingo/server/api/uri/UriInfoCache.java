@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.uri;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.OlingoExtension;
+
+/**
+ * <p>Bounded cache for parsed and validated URIs.</p>
+ * <p>A cache instance is created once via {@link org.apache.olingo.server.api.OData#createUriInfoCache(int)}
+ * and can be registered at every handler of the same service via
+ * {@link org.apache.olingo.server.api.ODataHandler#register(OlingoExtension)}.
+ * Requests with the same method and base URI whose percent-decoded resource path and query options
+ * differ only in the values of literals then share one cache entry and skip URI parsing and validation.
+ * This applies to the literals in key predicates, in <code>$filter</code>, and in <code>$top</code>
+ * and <code>$skip</code>, as long as the literals are of the same type; key values are validated against
+ * their key properties nevertheless. All other literals, e.g., function parameters, literals in lambda
+ * expressions, or in nested options of <code>$expand</code>, must match exactly.
+ * URIs which differ in the order of their query options or in letter case are cached as separate entries.
+ * If the cache is full, the least recently used entry is evicted.</p>
+ * <p>Every lookup returns a new {@link UriInfo} object, so that concurrent requests do not share
+ * URI info objects.</p>
+ * <p>Implementations are thread-safe.</p>
+ */
+public interface UriInfoCache extends OlingoExtension {
+
+  /**
+   * Looks up the URI info for a request.
+   * @param edm the EDM the URI info must have been parsed against
+   * @param method the HTTP method of the request
+   * @param path the raw OData path
+   * @param query the raw query string, may be <code>null</code>
+   * @param baseUri the raw base URI, may be <code>null</code>
+   * @return the cached URI info or <code>null</code> if there is none
+   */
+  UriInfo get(Edm edm, HttpMethod method, String path, String query, String baseUri);
+
+  /**
+   * Stores the URI info for a request, possibly evicting the least recently used entry.
+   * URI info objects not created by the URI parser of this library are not stored.
+   * @param edm the EDM the URI info has been parsed against
+   * @param method the HTTP method of the request
+   * @param path the raw OData path
+   * @param query the raw query string, may be <code>null</code>
+   * @param baseUri the raw base URI, may be <code>null</code>
+   * @param uriInfo the parsed and validated URI info
+   */
+  void put(Edm edm, HttpMethod method, String path, String query, String baseUri, UriInfo uriInfo);
+
+  /**
+   * Gets the maximum number of entries held by this cache.
+   * @return the maximum size
+   */
+  int getMaximumSize();
+
+  /**
+   * Gets the current number of entries held by this cache.
+   * @return the number of entries
+   */
+  int size();
+
+  /**
+   * Gets the number of lookups which found a cached URI.
+   * @return the hit count
+   */
+  long getHitCount();
+
+  /**
+   * Gets the number of lookups which had to parse the URI.
+   * @return the miss count
+   */
+  long getMissCount();
+
+  /**
+   * Gets the number of entries which have been evicted because the cache was full.
+   * @return the eviction count
+   */
+  long getEvictionCount();
+
+  /**
+   * Removes all entries from this cache; the counters are not reset.
+   */
+  void clear();
+}
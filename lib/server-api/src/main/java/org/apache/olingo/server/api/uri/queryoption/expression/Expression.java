@@ -20,6 +20,10 @@ package org.apache.olingo.server.api.uri.queryoption.expression;
 
 /**
  * Super class of all classes used to build the expression tree
+ * <br>
+ * Expression trees created by the URI parser are immutable and compare structurally:
+ * equal expressions have equal hash codes and are usually even the same instance,
+ * so they can be used as keys, e.g., for caching query results.
  */
 public interface Expression extends VisitableExpression {
   // No additional methods needed for now.
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of the benchmark jar. Accepts the options of the JMH command line and writes the results
+ * in JSON format to <code>jmh-result.json</code>, so that they can be collected and compared across builds.
+ * Use the JMH options <code>-rf</code> and <code>-rff</code> to choose another result format or file.
+ */
+public final class Benchmarks {
+
+  private Benchmarks() {
+    // Empty private constructor for the main class
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final List<String> arguments = new ArrayList<String>();
+    if (!Arrays.asList(args).contains("-rf")) {
+      arguments.add("-rf");
+      arguments.add("json");
+    }
+    arguments.addAll(Arrays.asList(args));
+    org.openjdk.jmh.Main.main(arguments.toArray(new String[arguments.size()]));
+  }
+}
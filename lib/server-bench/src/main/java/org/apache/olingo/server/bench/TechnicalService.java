@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark fixture with the metadata and data of the technical service.
+ */
+@State(Scope.Benchmark)
+public class TechnicalService {
+
+  public static final String BASE_URI = "http://localhost/odata.svc";
+
+  public OData odata;
+  public ServiceMetadata metadata;
+  public DataProvider data;
+
+  @Setup
+  public void setup() {
+    odata = OData.newInstance();
+    metadata = odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    data = new DataProvider(odata, metadata.getEdm());
+  }
+
+  public EdmEntitySet getEntitySet(final String name) {
+    return metadata.getEdm().getEntityContainer().getEntitySet(name);
+  }
+}
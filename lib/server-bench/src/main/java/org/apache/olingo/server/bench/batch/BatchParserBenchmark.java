@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench.batch;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.bench.TechnicalService;
+import org.apache.olingo.server.core.deserializer.batch.BatchParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of multipart batch requests consisting of retrieve requests and a changeset
+ * with one create request for each retrieve request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchParserBenchmark {
+
+  private static final String CRLF = "\r\n";
+  private static final String BOUNDARY = "batch_8194-cf13-1f56";
+  private static final String CHANGESET_BOUNDARY = "changeset_f980-1cb6-94dd";
+  private static final String PART_HEADERS = "Content-Type: application/http" + CRLF
+      + "Content-Transfer-Encoding: binary" + CRLF;
+
+  /** Number of retrieve requests and of create requests. */
+  @Param({ "10", "100" })
+  public int requests;
+
+  private byte[] content;
+  private BatchOptions options;
+
+  @Setup
+  public void setup() throws Exception {
+    StringBuilder batch = new StringBuilder();
+    for (int i = 0; i < requests; i++) {
+      batch.append("--").append(BOUNDARY).append(CRLF)
+          .append(PART_HEADERS)
+          .append(CRLF)
+          .append("GET ESAllPrim(").append(i).append(")?$select=PropertyString HTTP/1.1").append(CRLF)
+          .append("Accept: application/json;odata.metadata=minimal").append(CRLF)
+          .append(CRLF)
+          .append(CRLF);
+    }
+    batch.append("--").append(BOUNDARY).append(CRLF)
+        .append("Content-Type: multipart/mixed; boundary=").append(CHANGESET_BOUNDARY).append(CRLF)
+        .append(CRLF);
+    for (int i = 0; i < requests; i++) {
+      final String body = "{\"PropertyInt16\":" + i + ",\"PropertyString\":\"Entity " + i + "\"}";
+      batch.append("--").append(CHANGESET_BOUNDARY).append(CRLF)
+          .append(PART_HEADERS)
+          .append("Content-ID: ").append(i + 1).append(CRLF)
+          .append(CRLF)
+          .append("POST ESAllPrim HTTP/1.1").append(CRLF)
+          .append("Content-Type: application/json").append(CRLF)
+          .append("Content-Length: ").append(body.length()).append(CRLF)
+          .append(CRLF)
+          .append(body).append(CRLF);
+    }
+    batch.append("--").append(CHANGESET_BOUNDARY).append("--").append(CRLF)
+        .append(CRLF)
+        .append("--").append(BOUNDARY).append("--");
+    content = batch.toString().getBytes(Charset.forName("UTF-8"));
+    options = BatchOptions.with().rawBaseUri(TechnicalService.BASE_URI).rawServiceResolutionUri("").build();
+
+    if (parse().size() != requests + 1) {
+      throw new IllegalStateException("Batch parsing failed.");
+    }
+  }
+
+  @Benchmark
+  public List<BatchRequestPart> parse() throws Exception {
+    return new BatchParser().parseBatchRequest(new ByteArrayInputStream(content), BOUNDARY, options);
+  }
+}
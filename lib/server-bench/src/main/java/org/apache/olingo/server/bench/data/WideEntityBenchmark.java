@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlAbstractEdmProvider;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainer;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainerInfo;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
+import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlPropertyRef;
+import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.processor.queryoptions.options.FilterHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Property access on entities with many properties, alone and as part of serialization and filtering.
+ * The linear lookup is the behavior before entities indexed their properties by name.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WideEntityBenchmark {
+
+  private static final int PROPERTY_COUNT = 200;
+  private static final int ENTITY_COUNT = 100;
+  private static final String NAMESPACE = "olingo.bench";
+  private static final FullQualifiedName CONTAINER = new FullQualifiedName(NAMESPACE, "Container");
+  private static final FullQualifiedName ENTITY_TYPE = new FullQualifiedName(NAMESPACE, "ETWide");
+  private static final String ENTITY_SET = "ESWide";
+
+  private OData odata;
+  private ServiceMetadata metadata;
+  private EdmEntitySet entitySet;
+  private EntityCollection entities;
+  private ODataSerializer serializer;
+  private EntityCollectionSerializerOptions options;
+  private UriInfo filterUriInfo;
+  private final byte[] buffer = new byte[8192];
+
+  @Setup
+  public void setup() throws Exception {
+    odata = OData.newInstance();
+    metadata = odata.createServiceMetadata(new WideEdmProvider(), Collections.<EdmxReference> emptyList());
+    entitySet = metadata.getEdm().getEntityContainer().getEntitySet(ENTITY_SET);
+    entities = new EntityCollection();
+    for (int i = 0; i < ENTITY_COUNT; i++) {
+      entities.getEntities().add(createEntity(i));
+    }
+    serializer = odata.createSerializer(ContentType.JSON);
+    options = EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(entitySet).build())
+        .build();
+    filterUriInfo = new Parser(metadata.getEdm(), odata).parseUri(ENTITY_SET,
+        "$filter=" + getName(PROPERTY_COUNT - 2) + " gt 50 and " + getName(PROPERTY_COUNT - 3) + " ne 'x'",
+        null, "http://localhost/");
+  }
+
+  @Benchmark
+  public int linearLookup() {
+    int found = 0;
+    for (final Entity entity : entities.getEntities()) {
+      for (int i = 0; i < PROPERTY_COUNT; i += 10) {
+        final String name = getName(i);
+        for (final Property property : entity.getProperties()) {
+          if (name.equals(property.getName())) {
+            found++;
+            break;
+          }
+        }
+      }
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int indexedLookup() {
+    int found = 0;
+    for (final Entity entity : entities.getEntities()) {
+      for (int i = 0; i < PROPERTY_COUNT; i += 10) {
+        if (entity.getProperty(getName(i)) != null) {
+          found++;
+        }
+      }
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int serialize() throws Exception {
+    return drain(serializer.entityCollection(metadata, entitySet.getEntityType(), entities, options).getContent());
+  }
+
+  @Benchmark
+  public int filter() throws Exception {
+    EntityCollection result = new EntityCollection();
+    result.getEntities().addAll(entities.getEntities());
+    FilterHandler.applyFilterSystemQuery(filterUriInfo.getFilterOption(), result, filterUriInfo,
+        metadata.getEdm());
+    return result.getEntities().size();
+  }
+
+  private int drain(final InputStream content) throws IOException {
+    int size = 0;
+    int count;
+    while ((count = content.read(buffer)) > 0) {
+      size += count;
+    }
+    content.close();
+    return size;
+  }
+
+  private static Entity createEntity(final int index) {
+    Entity entity = new Entity();
+    for (int i = 0; i < PROPERTY_COUNT; i++) {
+      entity.addProperty(i % 3 == 2 ?
+          new Property(null, getName(i), ValueType.PRIMITIVE, "Value " + index) :
+          new Property(null, getName(i), ValueType.PRIMITIVE, index * PROPERTY_COUNT + i));
+    }
+    return entity;
+  }
+
+  private static String getName(final int index) {
+    return index < 10 ? "Property00" + index : index < 100 ? "Property0" + index : "Property" + index;
+  }
+
+  /** Metadata with a single entity set of a type with many primitive properties. */
+  private static class WideEdmProvider extends CsdlAbstractEdmProvider {
+
+    @Override
+    public CsdlEntityType getEntityType(final FullQualifiedName entityTypeName) {
+      if (!ENTITY_TYPE.equals(entityTypeName)) {
+        return null;
+      }
+      List<CsdlProperty> properties = new ArrayList<CsdlProperty>(PROPERTY_COUNT);
+      for (int i = 0; i < PROPERTY_COUNT; i++) {
+        properties.add(new CsdlProperty().setName(getName(i)).setType(i % 3 == 2 ?
+            EdmPrimitiveTypeKind.String.getFullQualifiedName() :
+            EdmPrimitiveTypeKind.Int32.getFullQualifiedName()));
+      }
+      return new CsdlEntityType().setName(ENTITY_TYPE.getName())
+          .setKey(Collections.singletonList(new CsdlPropertyRef().setName(getName(0))))
+          .setProperties(properties);
+    }
+
+    @Override
+    public CsdlEntitySet getEntitySet(final FullQualifiedName entityContainer, final String entitySetName) {
+      return CONTAINER.equals(entityContainer) && ENTITY_SET.equals(entitySetName) ?
+          new CsdlEntitySet().setName(ENTITY_SET).setType(ENTITY_TYPE) :
+          null;
+    }
+
+    @Override
+    public CsdlEntityContainer getEntityContainer() {
+      return new CsdlEntityContainer().setName(CONTAINER.getName())
+          .setEntitySets(Collections.singletonList(getEntitySet(CONTAINER, ENTITY_SET)));
+    }
+
+    @Override
+    public CsdlEntityContainerInfo getEntityContainerInfo(final FullQualifiedName entityContainerName) {
+      return entityContainerName == null || CONTAINER.equals(entityContainerName) ?
+          new CsdlEntityContainerInfo().setContainerName(CONTAINER) :
+          null;
+    }
+
+    @Override
+    public List<CsdlSchema> getSchemas() {
+      return Collections.singletonList(new CsdlSchema().setNamespace(NAMESPACE)
+          .setEntityTypes(Collections.singletonList(getEntityType(ENTITY_TYPE)))
+          .setEntityContainer(getEntityContainer()));
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench.deserializer;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.ContextURL.Suffix;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.bench.TechnicalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Deserialization of request bodies: a single entity and a collection of entities,
+ * with primitive properties and with primitive collections,
+ * both written by the serializer of the same format beforehand.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityDeserializerBenchmark {
+
+  @Param({ "application/json", "application/xml" })
+  public String format;
+
+  @Param({ "ESAllPrim", "ESCollAllPrim" })
+  public String entitySetName;
+
+  private ODataDeserializer deserializer;
+  private EdmEntityType entityType;
+  private byte[] entity;
+  private byte[] entityCollection;
+
+  @Setup
+  public void setup(final TechnicalService service) throws Exception {
+    final ContentType contentType = ContentType.create(format);
+    final ODataSerializer serializer = service.odata.createSerializer(contentType);
+    deserializer = service.odata.createDeserializer(contentType, service.metadata);
+    final EdmEntitySet entitySet = service.getEntitySet(entitySetName);
+    entityType = entitySet.getEntityType();
+
+    final EntityCollection data = service.data.readAll(entitySet);
+    final Entity first = data.getEntities().get(0);
+    entity = IOUtils.toByteArray(serializer.entity(service.metadata, entityType, first,
+        EntitySerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(entitySet).suffix(Suffix.ENTITY).build())
+            .build())
+        .getContent());
+    entityCollection = IOUtils.toByteArray(serializer.entityCollection(service.metadata, entityType, data,
+        EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(entitySet).build())
+            .id(TechnicalService.BASE_URI + "/" + entitySetName)
+            .build())
+        .getContent());
+
+    if (entity().getProperties().size() != first.getProperties().size()) {
+      throw new IllegalStateException("Deserialization failed.");
+    }
+    entityCollection();
+  }
+
+  @Benchmark
+  public Entity entity() throws Exception {
+    return deserializer.entity(new ByteArrayInputStream(entity), entityType).getEntity();
+  }
+
+  @Benchmark
+  public EntityCollection entityCollection() throws Exception {
+    return deserializer.entityCollection(new ByteArrayInputStream(entityCollection), entityType)
+        .getEntityCollection();
+  }
+}
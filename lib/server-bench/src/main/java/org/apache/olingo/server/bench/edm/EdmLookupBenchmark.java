@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench.edm;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmFunction;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.server.bench.TechnicalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of metadata lookups on one EDM shared by many threads, as done while parsing URIs
+ * and serializing responses. All lookups hit the caches of the EDM.
+ * Use the JMH option <code>-t</code> to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class EdmLookupBenchmark {
+
+  private static final FullQualifiedName ENTITY_TYPE = new FullQualifiedName("olingo.odata.test1", "ETTwoKeyNav");
+  private static final FullQualifiedName ALIASED_ENTITY_TYPE =
+      new FullQualifiedName("Namespace1_Alias", "ETAllPrim");
+  private static final FullQualifiedName BOUND_FUNCTION =
+      new FullQualifiedName("olingo.odata.test1", "BFCESTwoKeyNavRTString");
+  private static final List<String> NO_PARAMETERS = Collections.emptyList();
+
+  private Edm edm;
+
+  @Setup
+  public void setup(final TechnicalService service) {
+    edm = service.metadata.getEdm();
+    if (getEntityType() == null || getAliasedEntityType() == null || getBoundFunction() == null
+        || getEntitySet() == null) {
+      throw new IllegalStateException("Metadata lookup failed.");
+    }
+  }
+
+  @Benchmark
+  public EdmEntityType getEntityType() {
+    return edm.getEntityType(ENTITY_TYPE);
+  }
+
+  @Benchmark
+  public EdmEntityType getAliasedEntityType() {
+    return edm.getEntityType(ALIASED_ENTITY_TYPE);
+  }
+
+  @Benchmark
+  public EdmFunction getBoundFunction() {
+    return edm.getBoundFunction(BOUND_FUNCTION, ENTITY_TYPE, true, NO_PARAMETERS);
+  }
+
+  @Benchmark
+  public EdmEntitySet getEntitySet() {
+    return edm.getEntityContainer().getEntitySet("ESTwoKeyNav");
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench.edm;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the conversion of temporal primitive values from and to literals,
+ * done for every such property value during deserialization, serialization, and URI parsing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemporalPrimitiveTypeBenchmark {
+
+  private static final String DATE_TIME_OFFSET = "2012-12-03T07:16:23.123456789Z";
+  private static final String DATE_TIME_OFFSET_WITH_ZONE = "2012-12-03T07:16:23+05:30";
+  private static final String DATE = "2012-12-03";
+  private static final String TIME_OF_DAY = "07:16:23.123";
+
+  private final EdmPrimitiveType dateTimeOffset =
+      EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.DateTimeOffset);
+  private final EdmPrimitiveType date = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Date);
+  private final EdmPrimitiveType timeOfDay = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.TimeOfDay);
+
+  private Timestamp timestamp;
+  private Calendar calendar;
+
+  @Setup
+  public void setup() throws EdmPrimitiveTypeException {
+    timestamp = timestampValueOfString();
+    calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT+05:30"));
+    calendar.setTimeInMillis(timestamp.getTime());
+  }
+
+  @Benchmark
+  public Timestamp timestampValueOfString() throws EdmPrimitiveTypeException {
+    return dateTimeOffset.valueOfString(DATE_TIME_OFFSET, null, null, 9, null, null, Timestamp.class);
+  }
+
+  @Benchmark
+  public Long millisValueOfString() throws EdmPrimitiveTypeException {
+    return dateTimeOffset.valueOfString(DATE_TIME_OFFSET_WITH_ZONE, null, null, null, null, null, Long.class);
+  }
+
+  @Benchmark
+  public Calendar calendarValueOfString() throws EdmPrimitiveTypeException {
+    return dateTimeOffset.valueOfString(DATE_TIME_OFFSET_WITH_ZONE, null, null, null, null, null, Calendar.class);
+  }
+
+  @Benchmark
+  public String timestampValueToString() throws EdmPrimitiveTypeException {
+    return dateTimeOffset.valueToString(timestamp, null, null, 9, null, null);
+  }
+
+  @Benchmark
+  public String calendarValueToString() throws EdmPrimitiveTypeException {
+    return dateTimeOffset.valueToString(calendar, null, null, 9, null, null);
+  }
+
+  @Benchmark
+  public Calendar dateValueOfString() throws EdmPrimitiveTypeException {
+    return date.valueOfString(DATE, null, null, null, null, null, Calendar.class);
+  }
+
+  @Benchmark
+  public Calendar timeOfDayValueOfString() throws EdmPrimitiveTypeException {
+    return timeOfDay.valueOfString(TIME_OF_DAY, null, null, 3, null, null, Calendar.class);
+  }
+}
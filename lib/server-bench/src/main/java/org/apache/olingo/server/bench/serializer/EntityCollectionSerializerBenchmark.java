@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench.serializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.bench.TechnicalService;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of entity collections of different shapes:
+ * <ul>
+ * <li><code>flat</code>: entities with primitive properties only,</li>
+ * <li><code>wide</code>: entities with primitive collections and nested complex values,</li>
+ * <li><code>expanded</code>: entities with two levels of expanded navigation properties.</li>
+ * </ul>
+ * The entities of the technical service are repeated to reach the given size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityCollectionSerializerBenchmark {
+
+  @Param({ "application/json", "application/xml" })
+  public String format;
+
+  @Param({ "flat", "wide", "expanded" })
+  public String shape;
+
+  @Param({ "100" })
+  public int size;
+
+  private ODataSerializer serializer;
+  private EdmEntitySet entitySet;
+  private EntityCollection entities;
+  private EntityCollectionSerializerOptions options;
+  private final byte[] buffer = new byte[8192];
+
+  @Setup
+  public void setup(final TechnicalService service) throws Exception {
+    serializer = service.odata.createSerializer(ContentType.create(format));
+
+    final String entitySetName;
+    final String query;
+    if ("flat".equals(shape)) {
+      entitySetName = "ESAllPrim";
+      query = null;
+    } else if ("wide".equals(shape)) {
+      entitySetName = "ESMixPrimCollComp";
+      query = null;
+    } else {
+      entitySetName = "ESKeyNav";
+      query = "$expand=NavPropertyETTwoKeyNavMany($expand=NavPropertyETKeyNavOne),NavPropertyETKeyNavOne";
+    }
+    entitySet = service.getEntitySet(entitySetName);
+    final UriInfo uriInfo = new Parser(service.metadata.getEdm(), service.odata)
+        .parseUri(entitySetName, query, null, TechnicalService.BASE_URI);
+
+    final List<Entity> source = service.data.readAll(entitySet).getEntities();
+    entities = new EntityCollection();
+    for (int i = 0; i < size; i++) {
+      entities.getEntities().add(source.get(i % source.size()));
+    }
+    options = EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(entitySet).build())
+        .expand(uriInfo.getExpandOption())
+        .id(TechnicalService.BASE_URI + "/" + entitySetName)
+        .build();
+  }
+
+  @Benchmark
+  public int entityCollection(final TechnicalService service) throws Exception {
+    return drain(serializer.entityCollection(service.metadata, entitySet.getEntityType(), entities, options)
+        .getContent());
+  }
+
+  private int drain(final InputStream content) throws IOException {
+    int size = 0;
+    int count;
+    while ((count = content.read(buffer)) > 0) {
+      size += count;
+    }
+    content.close();
+    return size;
+  }
+}
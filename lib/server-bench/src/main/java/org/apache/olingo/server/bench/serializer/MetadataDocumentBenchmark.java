@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench.serializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.PreRenderedServiceMetadata;
+import org.apache.olingo.server.api.serializer.PreRenderedDocument;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.bench.TechnicalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares serializing the metadata document for every request with the pre-rendered document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataDocumentBenchmark {
+
+  @Benchmark
+  public long serialize(final TechnicalService service) throws SerializerException, IOException {
+    return consume(service.odata.createSerializer(ContentType.APPLICATION_XML)
+        .metadataDocument(service.metadata).getContent());
+  }
+
+  @Benchmark
+  public long preRendered(final TechnicalService service) throws SerializerException, IOException {
+    return consume(getDocument(service).getContent());
+  }
+
+  @Benchmark
+  public long preRenderedGzip(final TechnicalService service) throws SerializerException, IOException {
+    return consume(getDocument(service).getContent(PreRenderedDocument.GZIP));
+  }
+
+  private static PreRenderedDocument getDocument(final TechnicalService service) throws SerializerException {
+    return ((PreRenderedServiceMetadata) service.metadata).getMetadataDocument(ContentType.APPLICATION_XML);
+  }
+
+  private static long consume(final InputStream content) throws IOException {
+    final byte[] buffer = new byte[8192];
+    long size = 0;
+    int count;
+    while ((count = content.read(buffer)) >= 0) {
+      size += count;
+    }
+    return size;
+  }
+}
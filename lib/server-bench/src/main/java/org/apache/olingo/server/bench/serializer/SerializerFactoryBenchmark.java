@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Compares a JSON or XML factory created per response with the shared factories the serializers use.
+ * Run with <code>-prof gc</code> to see the allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerFactoryBenchmark {
+
+  private static final JsonFactory SHARED_JSON_FACTORY = new JsonFactory();
+  private static final XMLOutputFactory SHARED_XML_FACTORY = XMLOutputFactory.newInstance();
+
+  @Benchmark
+  public int jsonGeneratorWithNewFactory() throws IOException {
+    return writeJson(new JsonFactory());
+  }
+
+  @Benchmark
+  public int jsonGeneratorWithSharedFactory() throws IOException {
+    return writeJson(SHARED_JSON_FACTORY);
+  }
+
+  @Benchmark
+  public int xmlWriterWithNewFactory() throws XMLStreamException {
+    return writeXml(XMLOutputFactory.newInstance());
+  }
+
+  @Benchmark
+  public int xmlWriterWithSharedFactory() throws XMLStreamException {
+    return writeXml(SHARED_XML_FACTORY);
+  }
+
+  private static int writeJson(final JsonFactory factory) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(64);
+    JsonGenerator json = factory.createGenerator(outputStream);
+    json.writeStartObject();
+    json.writeNumberField("PropertyInt16", 32767);
+    json.writeEndObject();
+    json.close();
+    return outputStream.size();
+  }
+
+  private static int writeXml(final XMLOutputFactory factory) throws XMLStreamException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(64);
+    XMLStreamWriter writer = factory.createXMLStreamWriter(outputStream, "UTF-8");
+    writer.writeStartDocument("UTF-8", "1.0");
+    writer.writeStartElement("PropertyInt16");
+    writer.writeCharacters("32767");
+    writer.writeEndElement();
+    writer.writeEndDocument();
+    writer.close();
+    return outputStream.size();
+  }
+}
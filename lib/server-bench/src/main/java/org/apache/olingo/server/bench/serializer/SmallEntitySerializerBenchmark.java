@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench.serializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.ContextURL.Suffix;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.bench.TechnicalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of a single small entity, the most frequent response of typical services.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmallEntitySerializerBenchmark {
+
+  @Param({ "application/json", "application/xml" })
+  public String format;
+
+  private ODataSerializer serializer;
+  private EdmEntitySet entitySet;
+  private Entity entity;
+  private EntitySerializerOptions options;
+  private final byte[] buffer = new byte[8192];
+
+  @Setup
+  public void setup(final TechnicalService service) throws Exception {
+    serializer = service.odata.createSerializer(ContentType.create(format));
+    entitySet = service.getEntitySet("ESAllPrim");
+    entity = service.data.readAll(entitySet).getEntities().get(0);
+    options = EntitySerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(entitySet).suffix(Suffix.ENTITY).build())
+        .build();
+  }
+
+  @Benchmark
+  public int entity(final TechnicalService service) throws Exception {
+    return drain(serializer.entity(service.metadata, entitySet.getEntityType(), entity, options).getContent());
+  }
+
+  private int drain(final InputStream content) throws IOException {
+    int size = 0;
+    int count;
+    while ((count = content.read(buffer)) > 0) {
+      size += count;
+    }
+    content.close();
+    return size;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench.uri;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.bench.TechnicalService;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing and validation of request URIs with typical combinations of system query options.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriParserBenchmark {
+
+  /** Request URIs relative to the service root; the query is separated by '?'. */
+  @Param({
+      "ESAllPrim(32767)?$select=PropertyInt16,PropertyString",
+      "ESAllPrim?$filter=PropertyInt16 gt 10 and startswith(PropertyString,'First') or PropertyDouble le 3.5"
+          + "&$orderby=PropertyString desc&$top=10&$skip=5&$count=true",
+      "ESKeyNav(1)?$expand=NavPropertyETTwoKeyNavMany($filter=PropertyInt16 eq 1;"
+          + "$expand=NavPropertyETKeyNavOne($select=PropertyString);$orderby=PropertyString;$top=3)"
+          + "&$select=PropertyInt16,PropertyString",
+      "ESTwoKeyNav?$apply=filter(PropertyInt16 gt 0)/groupby((PropertyString),"
+          + "aggregate(PropertyInt16 with sum as Total))" })
+  public String uri;
+
+  private String path;
+  private String query;
+  private Parser parser;
+
+  @Setup
+  public void setup(final TechnicalService service) throws Exception {
+    final int queryStart = uri.indexOf('?');
+    path = queryStart < 0 ? uri : uri.substring(0, queryStart);
+    query = queryStart < 0 ? null : uri.substring(queryStart + 1);
+    parser = new Parser(service.metadata.getEdm(), service.odata);
+    parse();
+  }
+
+  @Benchmark
+  public UriInfo parse() throws Exception {
+    return parser.parseUri(path, query, null, TechnicalService.BASE_URI);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Writes the response content as HTTP chunks to a channel as soon as a chunk is full.
+ * While the channel is not writable, writing waits until the previously written chunks have been sent,
+ * so that the memory needed for a response does not depend on its size.
+ * Waiting is skipped on the event loop of the channel where it would block the sending itself.
+ */
+class ChunkedContentOutputStream extends OutputStream {
+
+  private final ChannelHandlerContext context;
+  private final int chunkSize;
+  private ByteBuf chunk;
+  private ChannelFuture lastWrite;
+  private boolean finished = false;
+
+  ChunkedContentOutputStream(final ChannelHandlerContext context, final int chunkSize) {
+    this.context = context;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    getChunk().writeByte(b);
+    if (!chunk.isWritable()) {
+      writeChunk();
+    }
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    int offset = off;
+    int remaining = len;
+    while (remaining > 0) {
+      final ByteBuf buffer = getChunk();
+      final int count = Math.min(remaining, buffer.writableBytes());
+      buffer.writeBytes(b, offset, count);
+      offset += count;
+      remaining -= count;
+      if (!buffer.isWritable()) {
+        writeChunk();
+      }
+    }
+  }
+
+  /** Sends the content written so far as chunk, to be called by producers that want to reduce latency. */
+  @Override
+  public void flush() throws IOException {
+    if (chunk != null && chunk.isReadable()) {
+      writeChunk();
+    }
+  }
+
+  /** Sends the remaining content and the end of the response. */
+  @Override
+  public void close() throws IOException {
+    finish();
+  }
+
+  /**
+   * Sends the remaining content and the end of the response, if not done already.
+   * @return the future of the last write
+   */
+  ChannelFuture finish() throws IOException {
+    if (!finished) {
+      finished = true;
+      flush();
+      if (chunk != null) {
+        chunk.release();
+        chunk = null;
+      }
+      lastWrite = context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+    return lastWrite;
+  }
+
+  /** Drops the content not sent yet, without ending the response; used if producing the content has failed. */
+  void discard() {
+    finished = true;
+    if (chunk != null) {
+      chunk.release();
+      chunk = null;
+    }
+  }
+
+  private ByteBuf getChunk() throws IOException {
+    if (finished) {
+      throw new IOException("The response has already been finished.");
+    }
+    if (chunk == null) {
+      chunk = context.alloc().buffer(chunkSize, chunkSize);
+    }
+    return chunk;
+  }
+
+  private void writeChunk() throws IOException {
+    lastWrite = context.writeAndFlush(new DefaultHttpContent(chunk));
+    chunk = null;
+    if (!context.channel().isWritable() && !context.executor().inEventLoop()) {
+      lastWrite.awaitUninterruptibly();
+    }
+    if (lastWrite.isDone() && !lastWrite.isSuccess()) {
+      throw new IOException("The response could not be sent.", lastWrite.cause());
+    }
+  }
+}
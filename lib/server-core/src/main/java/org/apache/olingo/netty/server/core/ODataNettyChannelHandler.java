@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.core;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import org.apache.olingo.netty.server.api.ODataNettyStreamingHandler;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * <p>Channel handler that streams OData requests and responses; it is placed behind an
+ * <code>HttpServerCodec</code> in the pipeline, without aggregating the HTTP messages.</p>
+ * <p>Each request is processed by the given executor as soon as its head has arrived,
+ * while its body is still being received. The response is written in chunks while it is produced.
+ * Requests of one channel are processed one after the other so that pipelined responses keep their order.</p>
+ * <p>A new instance is needed for each channel.</p>
+ */
+public class ODataNettyChannelHandler extends ChannelInboundHandlerAdapter {
+
+  private final ODataNettyStreamingHandler handler;
+  private final Map<String, String> requestParameters;
+  private final Executor executor;
+  private final Queue<Runnable> tasks = new ArrayDeque<Runnable>();
+  private boolean processing = false;
+  private RequestBodyInputStream body;
+
+  /**
+   * @param handler - handler for the OData requests
+   * @param requestParameters - parameters like the context path, see
+   * {@link ODataNettyStreamingHandler#processNettyRequest(HttpRequest, java.io.InputStream,
+   * ChannelHandlerContext, Map)}
+   * @param executor - executor for processing the requests, outside the event loop
+   */
+  public ODataNettyChannelHandler(final ODataNettyStreamingHandler handler, final Map<String, String> requestParameters,
+      final Executor executor) {
+    this.handler = handler;
+    this.requestParameters = requestParameters;
+    this.executor = executor;
+  }
+
+  @Override
+  public void channelRead(final ChannelHandlerContext context, final Object message) {
+    try {
+      RequestBodyInputStream requestBody = body;
+      if (message instanceof HttpRequest) {
+        requestBody = new RequestBodyInputStream(context.channel());
+        body = requestBody;
+      }
+      if (message instanceof HttpContent && body != null) {
+        body.offer(((HttpContent) message).content());
+        if (message instanceof LastHttpContent) {
+          body.end();
+          body = null;
+        }
+      }
+      if (message instanceof HttpRequest) {
+        schedule(new RequestTask(context, (HttpRequest) message, requestBody));
+      }
+    } finally {
+      ReferenceCountUtil.release(message);
+    }
+  }
+
+  @Override
+  public void channelInactive(final ChannelHandlerContext context) throws Exception {
+    if (body != null) {
+      body.end();
+      body = null;
+    }
+    super.channelInactive(context);
+  }
+
+  @Override
+  public void exceptionCaught(final ChannelHandlerContext context, final Throwable cause) {
+    context.close();
+  }
+
+  private synchronized void schedule(final Runnable task) {
+    tasks.add(task);
+    if (!processing) {
+      processing = true;
+      executor.execute(tasks.poll());
+    }
+  }
+
+  private synchronized void scheduleNext() {
+    final Runnable task = tasks.poll();
+    if (task == null) {
+      processing = false;
+    } else {
+      executor.execute(task);
+    }
+  }
+
+  private class RequestTask implements Runnable {
+    private final ChannelHandlerContext context;
+    private final HttpRequest request;
+    private final RequestBodyInputStream requestBody;
+
+    RequestTask(final ChannelHandlerContext context, final HttpRequest request,
+        final RequestBodyInputStream requestBody) {
+      this.context = context;
+      this.request = request;
+      this.requestBody = requestBody;
+    }
+
+    @Override
+    public void run() {
+      try {
+        handler.processNettyRequest(request, requestBody, context, requestParameters);
+      } finally {
+        requestBody.close();
+        scheduleNext();
+      }
+    }
+  }
+}
@@ -34,7 +34,7 @@ import java.util.Set;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
-import org.apache.olingo.netty.server.api.ODataNettyHandler;
+import org.apache.olingo.netty.server.api.ODataNettyStreamingHandler;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataLibraryException;
@@ -48,16 +48,22 @@ import org.apache.olingo.server.core.ODataHandlerException;
 import org.apache.olingo.server.core.ODataHandlerImpl;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 
-import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 
-public class ODataNettyHandlerImpl implements ODataNettyHandler {
+public class ODataNettyHandlerImpl implements ODataNettyStreamingHandler {
 
   public static final int COPY_BUFFER_SIZE = 8192;
 
@@ -160,18 +166,17 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
    * Extract the information part of Netty Request and fill OData Request
    * @param odRequest
    * @param httpRequest
+   * @param body
    * @param split
    * @param contextPath
    * @return
    * @throws ODataLibraryException
    */
   private ODataRequest fillODataRequest(final ODataRequest odRequest, final HttpRequest httpRequest,
-	      final int split, final String contextPath) throws ODataLibraryException {
+	      final InputStream body, final int split, final String contextPath) throws ODataLibraryException {
 	    final int requestHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillODataRequest");
 	    try {
-	    	ByteBuf byteBuf = ((HttpContent)httpRequest).content();
-	    	ByteBufInputStream inputStream = new ByteBufInputStream(byteBuf);
-	      odRequest.setBody(inputStream);
+	      odRequest.setBody(body);
 	      
 	      odRequest.setProtocol(httpRequest.protocolVersion().text());
 	      odRequest.setMethod(extractMethod(httpRequest));
@@ -308,7 +313,7 @@ public void processNettyRequest(HttpRequest request, HttpResponse response,
     final int processMethodHandle = 
     		debugger.startRuntimeMeasurement("ODataNettyHandlerImpl", "process");
     try {
-      fillODataRequest(odRequest, request, 
+      fillODataRequest(odRequest, request, new ByteBufInputStream(((HttpContent) request).content()),
           requestParameters.get(SPLIT) != null? Integer.parseInt(requestParameters.get(SPLIT)) : split, 
               requestParameters.get(CONTEXT_PATH));
 
@@ -323,6 +328,101 @@ public void processNettyRequest(HttpRequest request, HttpResponse response,
     convertToHttp(response, odResponse);
   }
 
+  @Override
+  public void processNettyRequest(final HttpRequest request, final InputStream body,
+      final ChannelHandlerContext context, final Map<String, String> requestParameters) {
+    ODataRequest odRequest = new ODataRequest();
+    ODataResponse odResponse;
+
+    final int processMethodHandle = debugger.startRuntimeMeasurement("ODataNettyHandlerImpl", "process");
+    try {
+      fillODataRequest(odRequest, request, body,
+          requestParameters.get(SPLIT) != null ? Integer.parseInt(requestParameters.get(SPLIT)) : split,
+          requestParameters.get(CONTEXT_PATH));
+
+      odResponse = process(odRequest);
+      // ALL future methods after process must not throw exceptions!
+    } catch (Exception e) {
+      odResponse = handleException(odRequest, e);
+    }
+    debugger.stopRuntimeMeasurement(processMethodHandle);
+
+    writeResponse(request, odResponse, context);
+  }
+
+  /**
+   * Writes the OData response to the channel: the head first, then the content in chunks
+   * while it is produced. HTTP/1.0 clients get the content without chunked encoding,
+   * delimited by closing the connection.
+   * @param request
+   * @param odResponse
+   * @param context
+   */
+  static void writeResponse(final HttpRequest request, final ODataResponse odResponse,
+      final ChannelHandlerContext context) {
+    final boolean http10 = HttpVersion.HTTP_1_0.equals(request.protocolVersion());
+    boolean keepAlive = HttpUtil.isKeepAlive(request);
+    final HttpResponse response = new DefaultHttpResponse(request.protocolVersion(),
+        HttpResponseStatus.valueOf(odResponse.getStatusCode()));
+    for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
+      for (String headerValue : entry.getValue()) {
+        response.headers().add(entry.getKey(), headerValue);
+      }
+    }
+
+    ChannelFuture lastWrite;
+    if (odResponse.getContent() == null && odResponse.getODataContent() == null) {
+      HttpUtil.setContentLength(response, 0);
+      context.write(response);
+      lastWrite = context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+    } else {
+      if (http10) {
+        keepAlive = false;
+      } else {
+        HttpUtil.setTransferEncodingChunked(response, true);
+      }
+      HttpUtil.setKeepAlive(response, keepAlive);
+      context.write(response);
+      final ChunkedContentOutputStream output = new ChunkedContentOutputStream(context, COPY_BUFFER_SIZE);
+      try {
+        if (odResponse.getContent() == null) {
+          odResponse.getODataContent().write(output);
+        } else {
+          final InputStream input = odResponse.getContent();
+          try {
+            final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int count;
+            while ((count = input.read(buffer)) >= 0) {
+              output.write(buffer, 0, count);
+            }
+          } finally {
+            input.close();
+          }
+        }
+        lastWrite = output.finish();
+      } catch (IOException e) {
+        abortResponse(output, context);
+        return;
+      } catch (RuntimeException e) {
+        // Lazily produced content fails with ODataRuntimeException after the head has been sent.
+        abortResponse(output, context);
+        return;
+      }
+    }
+    if (!keepAlive) {
+      lastWrite.addListener(ChannelFutureListener.CLOSE);
+    }
+  }
+
+  /**
+   * Aborts a response whose head has been sent already; the client can only notice
+   * that the response is incomplete by the connection being closed.
+   */
+  private static void abortResponse(final ChunkedContentOutputStream output, final ChannelHandlerContext context) {
+    output.discard();
+    context.close();
+  }
+
   public ODataResponse process(ODataRequest request) {
     return handler.process(request);
   }
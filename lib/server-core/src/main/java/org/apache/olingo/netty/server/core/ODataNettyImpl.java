@@ -18,8 +18,10 @@
  */
 package org.apache.olingo.netty.server.core;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
@@ -30,15 +32,23 @@ import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.netty.server.api.ODataNetty;
 import org.apache.olingo.netty.server.api.ODataNettyHandler;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataHandler;
 import org.apache.olingo.server.api.ODataHttpHandler;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.async.AsyncRequestSelector;
+import org.apache.olingo.server.api.async.AsyncSupport;
 import org.apache.olingo.server.api.debug.DebugResponseHelper;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.ODataDeserializer;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.evaluation.EntityFilter;
+import org.apache.olingo.server.api.evaluation.EntitySorter;
+import org.apache.olingo.server.api.evaluation.FunctionEvaluator;
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.paging.ServerSidePaging;
 import org.apache.olingo.server.api.prefer.Preferences;
 import org.apache.olingo.server.api.serializer.EdmAssistedSerializer;
 import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
@@ -46,6 +56,10 @@ import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriHelper;
+import org.apache.olingo.server.api.uri.UriInfoCache;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
 
 public class ODataNettyImpl extends ODataNetty {
   
@@ -114,11 +128,50 @@ public class ODataNettyImpl extends ODataNetty {
     return odata.createServiceMetadata(edmProvider, references, serviceMetadataETagSupport);
   }
 
+  @Override
+  public ServiceMetadata createServiceMetadata(CsdlEdmProvider edmProvider, List<EdmxReference> references,
+      ServiceMetadataETagSupport serviceMetadataETagSupport, boolean frozen) {
+    return odata.createServiceMetadata(edmProvider, references, serviceMetadataETagSupport, frozen);
+  }
+
   @Override
   public UriHelper createUriHelper() {
     return odata.createUriHelper();
   }
 
+  @Override
+  public UriInfoCache createUriInfoCache(int maximumSize) {
+    return odata.createUriInfoCache(maximumSize);
+  }
+
+  @Override
+  public RequestMetrics createRequestMetrics() {
+    return odata.createRequestMetrics();
+  }
+
+  @Override
+  public AsyncSupport createAsyncSupport(Executor executor, int maximumJobs, long timeToLive,
+      int spoolThreshold, File spoolDirectory, AsyncRequestSelector selector) {
+    return odata.createAsyncSupport(executor, maximumJobs, timeToLive, spoolThreshold, spoolDirectory, selector);
+  }
+
+  @Override
+  public ServerSidePaging createServerSidePaging() {
+    return odata.createServerSidePaging();
+  }
+
+  @Override
+  public EntityFilter createEntityFilter(final Expression expression, final UriInfoResource uriInfo,
+      final FunctionEvaluator functionEvaluator) throws ODataApplicationException {
+    return odata.createEntityFilter(expression, uriInfo, functionEvaluator);
+  }
+
+  @Override
+  public EntitySorter createEntitySorter(final OrderByOption orderByOption, final UriInfoResource uriInfo,
+      final FunctionEvaluator functionEvaluator) throws ODataApplicationException {
+    return odata.createEntitySorter(orderByOption, uriInfo, functionEvaluator);
+  }
+
   @Override
   public ODataDeserializer createDeserializer(ContentType contentType) throws DeserializerException {
     return odata.createDeserializer(contentType);
@@ -172,5 +225,11 @@ public class ODataNettyImpl extends ODataNetty {
       throws DeserializerException {
     return odata.createDeserializer(contentType, metadata, versions);
   }
+
+  @Override
+  public ODataDeserializer createDeserializer(ContentType contentType, ServiceMetadata metadata, List<String> versions,
+      boolean streaming) throws DeserializerException {
+    return odata.createDeserializer(contentType, metadata, versions, streaming);
+  }
   
 }
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+
+/**
+ * Request body that is read while its chunks are still arriving from the channel.
+ * The channel stops reading while too many chunks are waiting to be consumed.
+ */
+class RequestBodyInputStream extends InputStream {
+
+  /** Marks the end of the body; it is never offered as chunk because it has no readable bytes. */
+  private static final ByteBuf END = Unpooled.EMPTY_BUFFER;
+
+  static final int MAX_PENDING_CHUNKS = 16;
+
+  private final Channel channel;
+  private final BlockingQueue<ByteBuf> chunks = new LinkedBlockingQueue<ByteBuf>();
+  private ByteBuf current;
+  private boolean ended = false;
+  private boolean closed = false;
+
+  RequestBodyInputStream(final Channel channel) {
+    this.channel = channel;
+  }
+
+  /** Adds a chunk of the body; called on the event loop of the channel. */
+  synchronized void offer(final ByteBuf chunk) {
+    if (!closed && chunk.isReadable()) {
+      chunks.add(chunk.retain());
+      if (chunks.size() >= MAX_PENDING_CHUNKS) {
+        channel.config().setAutoRead(false);
+      }
+    }
+  }
+
+  /** Marks the end of the body, also if the connection has been lost before. */
+  synchronized void end() {
+    if (!closed) {
+      chunks.add(END);
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    return nextChunk() ? current.readByte() & 0xFF : -1;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextChunk()) {
+      return -1;
+    }
+    final int count = Math.min(len, current.readableBytes());
+    current.readBytes(b, off, count);
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return current == null ? 0 : current.readableBytes();
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      release();
+      ByteBuf chunk;
+      while ((chunk = chunks.poll()) != null) {
+        chunk.release();
+      }
+      channel.config().setAutoRead(true);
+    }
+  }
+
+  private boolean nextChunk() throws IOException {
+    while (current == null || !current.isReadable()) {
+      release();
+      if (ended || closed) {
+        return false;
+      }
+      try {
+        current = chunks.take();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for the request body.");
+      }
+      if (current == END) {
+        current = null;
+        ended = true;
+        return false;
+      }
+      if (!channel.config().isAutoRead() && chunks.size() < MAX_PENDING_CHUNKS / 2) {
+        channel.config().setAutoRead(true);
+      }
+    }
+    return true;
+  }
+
+  private void release() {
+    if (current != null) {
+      current.release();
+      current = null;
+    }
+  }
+}
@@ -18,8 +18,8 @@
  */
 package org.apache.olingo.server.core;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
@@ -35,9 +35,13 @@ import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.OlingoExtension;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.api.batch.BatchExecutionSupport;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
 import org.apache.olingo.server.api.etag.PreconditionException;
+import org.apache.olingo.server.api.metrics.RequestInstrumentation;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.processor.DefaultProcessor;
 import org.apache.olingo.server.api.processor.ErrorProcessor;
 import org.apache.olingo.server.api.processor.Processor;
@@ -45,9 +49,11 @@ import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 import org.apache.olingo.server.api.serializer.RepresentationType;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoCache;
 import org.apache.olingo.server.api.uri.queryoption.FormatOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.metrics.RequestRecorder;
 import org.apache.olingo.server.core.uri.parser.Parser;
 import org.apache.olingo.server.core.uri.parser.UriParserException;
 import org.apache.olingo.server.core.uri.parser.UriParserSemanticException;
@@ -56,29 +62,87 @@ import org.apache.olingo.server.core.uri.queryoption.FormatOptionImpl;
 import org.apache.olingo.server.core.uri.validator.UriValidationException;
 import org.apache.olingo.server.core.uri.validator.UriValidator;
 
+/**
+ * <p>Handles OData requests by parsing their URIs and dispatching them to the registered processors.</p>
+ * <p>A handler is meant to be created and configured once and then to be shared by all requests,
+ * so that the lazily filled caches of the service metadata survive across requests.
+ * Processors and extensions have to be registered before the first request is processed.
+ * The state of a single request is kept in an {@link ODataRequestContext}; each request is processed
+ * by a lightweight request-scoped handler which shares the configuration of the handler it has been
+ * created from.</p>
+ */
 public class ODataHandlerImpl implements ODataHandler {
 
   private final OData odata;
   private final ServiceMetadata serviceMetadata;
-  private final List<Processor> processors = new LinkedList<Processor>();
+  private final List<Processor> processors;
   private final ServerCoreDebugger debugger;
+  private final RequestRecorder recorder;
 
-  private CustomContentTypeSupport customContentTypeSupport;
-  private CustomETagSupport customETagSupport;
+  private volatile CustomContentTypeSupport customContentTypeSupport;
+  private volatile CustomETagSupport customETagSupport;
+  private volatile UriInfoCache uriInfoCache;
+  private volatile BatchExecutionSupport batchExecutionSupport;
+  private volatile AsyncSupport asyncSupport;
+  private volatile RequestInstrumentation instrumentation;
 
-  private UriInfo uriInfo;
-  private Exception lastThrownException;
+  /** The request this handler is scoped to or <code>null</code> for the shared handler. */
+  private final ODataRequestContext context;
 
   public ODataHandlerImpl(final OData odata, final ServiceMetadata serviceMetadata, final ServerCoreDebugger debugger) {
     this.odata = odata;
     this.serviceMetadata = serviceMetadata;
     this.debugger = debugger;
+    recorder = RequestRecorder.DISABLED;
+    processors = new CopyOnWriteArrayList<Processor>();
+    context = null;
 
     register(new DefaultRedirectProcessor());
     register(new DefaultProcessor());
   }
 
+  private ODataHandlerImpl(final ODataHandlerImpl handler, final ODataRequestContext context) {
+    odata = handler.odata;
+    serviceMetadata = handler.serviceMetadata;
+    processors = handler.processors;
+    debugger = context.getDebugger();
+    recorder = context.getRecorder();
+    customContentTypeSupport = handler.customContentTypeSupport;
+    customETagSupport = handler.customETagSupport;
+    uriInfoCache = handler.uriInfoCache;
+    batchExecutionSupport = handler.batchExecutionSupport;
+    asyncSupport = handler.asyncSupport;
+    instrumentation = handler.instrumentation;
+    this.context = context;
+  }
+
+  /**
+   * Processes a request in a new request context.
+   * Requests processed from within another request, e.g., the parts of a batch request,
+   * share the debugger of the enclosing request.
+   * If an instrumentation is registered, the request is reported to it once the response has been created.
+   */
+  @Override
   public ODataResponse process(final ODataRequest request) {
+    final ODataRequestContext requestContext =
+        new ODataRequestContext(debugger, RequestRecorder.create(instrumentation));
+    final ODataResponse response = process(request, requestContext);
+    requestContext.getRecorder().requestCompleted(request, response.getStatusCode(), requestContext.getUriInfo(), -1);
+    return response;
+  }
+
+  /**
+   * Processes a request and records its state in the given context.
+   * The caller completes the request at the recorder of the context.
+   * @param request the request
+   * @param context the context of the request
+   * @return the response
+   */
+  public ODataResponse process(final ODataRequest request, final ODataRequestContext context) {
+    return new ODataHandlerImpl(this, context).processRequest(request);
+  }
+
+  private ODataResponse processRequest(final ODataRequest request) {
     ODataResponse response = new ODataResponse();
     final int responseHandle = debugger.startRuntimeMeasurement("ODataHandler", "process");
     try {
@@ -137,51 +201,114 @@ public class ODataHandlerImpl implements ODataHandler {
       throw e;
     }
 
-    final int measurementUriParser = debugger.startRuntimeMeasurement("Parser", "parseUri");
-    try {
-      uriInfo = new Parser(serviceMetadata.getEdm(), odata)
-          .parseUri(request.getRawODataPath(), request.getRawQueryPath(), null, request.getRawBaseUri());
-    } catch (final ODataLibraryException e) {
-      debugger.stopRuntimeMeasurement(measurementUriParser);
-      debugger.stopRuntimeMeasurement(measurementHandle);
-      throw e;
+    if (asyncSupport != null && asyncSupport.isStatusMonitorRequest(request)) {
+      try {
+        asyncSupport.processStatusMonitor(request, response);
+      } finally {
+        debugger.stopRuntimeMeasurement(measurementHandle);
+      }
+      return;
     }
-    debugger.stopRuntimeMeasurement(measurementUriParser);
 
-    final int measurementUriValidator = debugger.startRuntimeMeasurement("UriValidator", "validate");
     final HttpMethod method = request.getMethod();
-    try {
-      new UriValidator().validate(uriInfo, method);
-    } catch (final UriValidationException e) {
+    UriInfo requestUriInfo = uriInfoCache == null ? null : getCachedUriInfo(request, method);
+    if (requestUriInfo == null) {
+      final int measurementUriParser = debugger.startRuntimeMeasurement("Parser", "parseUri");
+      final long parseStarted = recorder.startPhase();
+      try {
+        requestUriInfo = new Parser(serviceMetadata.getEdm(), odata)
+            .parseUri(request.getRawODataPath(), request.getRawQueryPath(), null, request.getRawBaseUri());
+        context.setUriInfo(requestUriInfo);
+      } catch (final ODataLibraryException e) {
+        recorder.phaseCompleted(RequestPhase.PARSE_URI, parseStarted);
+        debugger.stopRuntimeMeasurement(measurementUriParser);
+        debugger.stopRuntimeMeasurement(measurementHandle);
+        throw e;
+      }
+      recorder.phaseCompleted(RequestPhase.PARSE_URI, parseStarted);
+      debugger.stopRuntimeMeasurement(measurementUriParser);
+
+      final int measurementUriValidator = debugger.startRuntimeMeasurement("UriValidator", "validate");
+      final long validateStarted = recorder.startPhase();
+      try {
+        new UriValidator().validate(requestUriInfo, method);
+      } catch (final UriValidationException e) {
+        recorder.phaseCompleted(RequestPhase.VALIDATE_URI, validateStarted);
+        debugger.stopRuntimeMeasurement(measurementUriValidator);
+        debugger.stopRuntimeMeasurement(measurementHandle);
+        throw e;
+      }
+      recorder.phaseCompleted(RequestPhase.VALIDATE_URI, validateStarted);
       debugger.stopRuntimeMeasurement(measurementUriValidator);
+
+      if (uriInfoCache != null) {
+        uriInfoCache.put(serviceMetadata.getEdm(), method,
+            request.getRawODataPath(), request.getRawQueryPath(), request.getRawBaseUri(), requestUriInfo);
+      }
+    } else {
+      context.setUriInfo(requestUriInfo);
+    }
+
+    if (asyncSupport != null && asyncSupport.accept(this, request, requestUriInfo, response)) {
       debugger.stopRuntimeMeasurement(measurementHandle);
-      throw e;
+      return;
     }
-    debugger.stopRuntimeMeasurement(measurementUriValidator);
 
     final int measurementDispatcher = debugger.startRuntimeMeasurement("ODataDispatcher", "dispatch");
+    final long dispatchStarted = recorder.startPhase();
     try {
-      new ODataDispatcher(uriInfo, this).dispatch(request, response);
+      new ODataDispatcher(requestUriInfo, this).dispatch(request, response);
     } finally {
+      recorder.phaseCompleted(RequestPhase.DISPATCH, dispatchStarted);
       debugger.stopRuntimeMeasurement(measurementDispatcher);
       debugger.stopRuntimeMeasurement(measurementHandle);
     }
   }
 
+  private UriInfo getCachedUriInfo(final ODataRequest request, final HttpMethod method) {
+    final int measurementHandle = debugger.startRuntimeMeasurement("UriInfoCache", "get");
+    final UriInfo cachedUriInfo = uriInfoCache.get(serviceMetadata.getEdm(), method,
+        request.getRawODataPath(), request.getRawQueryPath(), request.getRawBaseUri());
+    debugger.stopRuntimeMeasurement(measurementHandle);
+    return cachedUriInfo;
+  }
+
+  /**
+   * Writes an error response for an exception.
+   * If this handler is not scoped to a request, the exception is handled in a new request context.
+   */
   public void handleException(final ODataRequest request, final ODataResponse response,
       final ODataServerError serverError, final Exception exception) {
+    if (context == null) {
+      handleException(request, response, serverError, exception, new ODataRequestContext(debugger));
+    } else {
+      handleExceptionInContext(request, response, serverError, exception);
+    }
+  }
+
+  /**
+   * Writes an error response for an exception and records the exception in the given context.
+   */
+  public void handleException(final ODataRequest request, final ODataResponse response,
+      final ODataServerError serverError, final Exception exception, final ODataRequestContext context) {
+    new ODataHandlerImpl(this, context).handleExceptionInContext(request, response, serverError, exception);
+  }
+
+  private void handleExceptionInContext(final ODataRequest request, final ODataResponse response,
+      final ODataServerError serverError, final Exception exception) {
     final int measurementHandle = debugger.startRuntimeMeasurement("ODataHandler", "handleException");
-    lastThrownException = exception;
+    final long handleStarted = recorder.startPhase();
+    context.setLastThrownException(exception);
     ErrorProcessor exceptionProcessor;
     try {
-      exceptionProcessor = selectProcessor(ErrorProcessor.class);
+      exceptionProcessor = lookupProcessor(ErrorProcessor.class);
     } catch (ODataHandlerException e) {
       // This cannot happen since there is always an ExceptionProcessor registered.
       exceptionProcessor = new DefaultProcessor();
     }
     ContentType requestedContentType;
     try {
-      final FormatOption formatOption = getFormatOption(request, uriInfo);
+      final FormatOption formatOption = getFormatOption(request, context.getUriInfo());
       requestedContentType = ContentNegotiator.doContentNegotiation(formatOption, request,
           getCustomContentTypeSupport(), RepresentationType.ERROR);
     } catch (final AcceptHeaderContentNegotiatorException e) {
@@ -192,6 +319,7 @@ public class ODataHandlerImpl implements ODataHandler {
     final int measurementError = debugger.startRuntimeMeasurement("ErrorProcessor", "processError");
     exceptionProcessor.processError(request, response, serverError, requestedContentType);
     debugger.stopRuntimeMeasurement(measurementError);
+    recorder.phaseCompleted(RequestPhase.HANDLE_ERROR, handleStarted);
     debugger.stopRuntimeMeasurement(measurementHandle);
   }
 
@@ -213,6 +341,9 @@ public class ODataHandlerImpl implements ODataHandler {
 
       final String formatOption = SystemQueryOptionKind.FORMAT.toString();
       int index = query.indexOf(formatOption);
+      if (index == -1) {
+        return null;
+      }
       int endIndex = query.indexOf('&', index);
       if(endIndex == -1) {
         endIndex = query.length();
@@ -241,6 +372,12 @@ public class ODataHandlerImpl implements ODataHandler {
   }
 
   <T extends Processor> T selectProcessor(final Class<T> cls) throws ODataHandlerException {
+    final T processor = lookupProcessor(cls);
+    recorder.setProcessor(cls);
+    return processor;
+  }
+
+  private <T extends Processor> T lookupProcessor(final Class<T> cls) throws ODataHandlerException {
     for (final Processor processor : processors) {
       if (cls.isAssignableFrom(processor.getClass())) {
         processor.init(odata, serviceMetadata);
@@ -261,6 +398,15 @@ public class ODataHandlerImpl implements ODataHandler {
       this.customContentTypeSupport = (CustomContentTypeSupport) extension;
     } else if(extension instanceof CustomETagSupport) {
       this.customETagSupport = (CustomETagSupport) extension;
+    } else if (extension instanceof UriInfoCache) {
+      this.uriInfoCache = (UriInfoCache) extension;
+      debugger.setUriInfoCache(uriInfoCache);
+    } else if (extension instanceof BatchExecutionSupport) {
+      this.batchExecutionSupport = (BatchExecutionSupport) extension;
+    } else if (extension instanceof AsyncSupport) {
+      this.asyncSupport = (AsyncSupport) extension;
+    } else if (extension instanceof RequestInstrumentation) {
+      this.instrumentation = (RequestInstrumentation) extension;
     } else {
       throw new ODataRuntimeException("Got not supported exception with class name " +
           extension.getClass().getSimpleName());
@@ -275,11 +421,35 @@ public class ODataHandlerImpl implements ODataHandler {
     return customETagSupport;
   }
 
+  public UriInfoCache getUriInfoCache() {
+    return uriInfoCache;
+  }
+
+  public BatchExecutionSupport getBatchExecutionSupport() {
+    return batchExecutionSupport;
+  }
+
+  public AsyncSupport getAsyncSupport() {
+    return asyncSupport;
+  }
+
+  /**
+   * Gets the registered instrumentation.
+   * @return the instrumentation or <code>null</code> if requests are not measured
+   */
+  public RequestInstrumentation getRequestInstrumentation() {
+    return instrumentation;
+  }
+
+  public boolean isDebugMode() {
+    return debugger.isDebugMode();
+  }
+
   public Exception getLastThrownException() {
-    return lastThrownException;
+    return context == null ? null : context.getLastThrownException();
   }
 
   public UriInfo getUriInfo() {
-    return uriInfo;
+    return context == null ? null : context.getUriInfo();
   }
 }
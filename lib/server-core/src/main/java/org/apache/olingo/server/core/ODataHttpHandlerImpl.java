@@ -38,6 +38,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataHttpHandler;
@@ -50,9 +51,11 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.debug.DebugSupport;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.processor.Processor;
 import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.metrics.RequestRecorder;
 
 public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
@@ -62,7 +65,7 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   private final ODataHandlerImpl handler;
   private final ServerCoreDebugger debugger;
 
-  private int split = 0;
+  private volatile int split = 0;
 
   public ODataHttpHandlerImpl(final OData odata, final ServiceMetadata serviceMetadata) {
     debugger = new ServerCoreDebugger(odata);
@@ -79,32 +82,48 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     ODataRequest odRequest = new ODataRequest();
     Exception exception = null;
     ODataResponse odResponse;
-    debugger.resolveDebugMode(request);
+    // This handler is shared by concurrent requests, so everything request-specific lives in the context.
+    final ServerCoreDebugger requestDebugger = debugger.newRequestDebugger();
+    requestDebugger.resolveDebugMode(request);
+    final RequestRecorder recorder = RequestRecorder.create(handler.getRequestInstrumentation());
+    final ODataRequestContext context = new ODataRequestContext(requestDebugger, recorder);
 
-    final int processMethodHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "process");
+    final int processMethodHandle = requestDebugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "process");
     try {
-      fillODataRequest(odRequest, request, split);
+      final long readStarted = recorder.startPhase();
+      fillODataRequest(odRequest, request, split, requestDebugger);
+      recorder.phaseCompleted(RequestPhase.READ_REQUEST, readStarted);
 
-      odResponse = process(odRequest);
+      odResponse = handler.process(odRequest, context);
       // ALL future methods after process must not throw exceptions!
     } catch (Exception e) {
       exception = e;
-      odResponse = handleException(odRequest, e);
+      odResponse = handleException(odRequest, e, context);
     }
-    debugger.stopRuntimeMeasurement(processMethodHandle);
+    requestDebugger.stopRuntimeMeasurement(processMethodHandle);
 
-    if (debugger.isDebugMode()) {
+    if (requestDebugger.isDebugMode()) {
       Map<String, String> serverEnvironmentVariables = createEnvironmentVariablesMap(request);
       if (exception == null) {
         // This is to ensure that we have access to the thrown OData Exception
-        exception = handler.getLastThrownException();
+        exception = context.getLastThrownException();
       }
       odResponse =
-          debugger.createDebugResponse(odRequest, odResponse, exception, handler.getUriInfo(),
+          requestDebugger.createDebugResponse(odRequest, odResponse, exception, context.getUriInfo(),
               serverEnvironmentVariables);
     }
 
-    convertToHttp(response, odResponse);
+    final long writeStarted = recorder.startPhase();
+    int statusCode = HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
+    long responseSize = -1;
+    try {
+      responseSize = convertToHttpCounted(response, odResponse);
+      statusCode = odResponse.getStatusCode();
+    } finally {
+      // A response which could not be written is recorded as server error of unknown size.
+      recorder.phaseCompleted(RequestPhase.WRITE_RESPONSE, writeStarted);
+      recorder.requestCompleted(odRequest, statusCode, context.getUriInfo(), responseSize);
+    }
   }
 
   private Map<String, String> createEnvironmentVariablesMap(final HttpServletRequest request) {
@@ -135,7 +154,8 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     this.split = split;
   }
 
-  private ODataResponse handleException(final ODataRequest odRequest, final Exception e) {
+  private ODataResponse handleException(final ODataRequest odRequest, final Exception e,
+      final ODataRequestContext context) {
     ODataResponse resp = new ODataResponse();
     ODataServerError serverError;
     if (e instanceof ODataHandlerException) {
@@ -145,11 +165,19 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     } else {
       serverError = ODataExceptionHelper.createServerErrorObject(e);
     }
-    handler.handleException(odRequest, resp, serverError, e);
+    handler.handleException(odRequest, resp, serverError, e, context);
     return resp;
   }
 
   static void convertToHttp(final HttpServletResponse response, final ODataResponse odResponse) {
+    convertToHttpCounted(response, odResponse);
+  }
+
+  /**
+   * Writes status, headers and content of an OData response to the HTTP response.
+   * @return the number of bytes written as response body
+   */
+  static long convertToHttpCounted(final HttpServletResponse response, final ODataResponse odResponse) {
     response.setStatus(odResponse.getStatusCode());
 
     for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
@@ -159,16 +187,24 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     }
 
     if (odResponse.getContent() != null) {
-      copyContent(odResponse.getContent(), response);
+      return copyContentCounted(Channels.newChannel(odResponse.getContent()), response);
     } else if (odResponse.getODataContent() != null) {
-      writeContent(odResponse, response);
+      return writeContentCounted(odResponse, response);
     }
+    return 0;
   }
   
   static void writeContent(final ODataResponse odataResponse, final HttpServletResponse servletResponse) {
+    writeContentCounted(odataResponse, servletResponse);
+  }
+
+  private static long writeContentCounted(final ODataResponse odataResponse,
+      final HttpServletResponse servletResponse) {
     try {
       ODataContent res = odataResponse.getODataContent();
-      res.write(Channels.newChannel(servletResponse.getOutputStream()));
+      final CountingChannel output = new CountingChannel(Channels.newChannel(servletResponse.getOutputStream()));
+      res.write(output);
+      return output.count;
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
     }
@@ -179,15 +215,22 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   }
 
   static void copyContent(final ReadableByteChannel input, final HttpServletResponse servletResponse) {
+    copyContentCounted(input, servletResponse);
+  }
+
+  private static long copyContentCounted(final ReadableByteChannel input,
+      final HttpServletResponse servletResponse) {
     WritableByteChannel output = null;
+    long count = 0;
     try {
       ByteBuffer inBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
       output = Channels.newChannel(servletResponse.getOutputStream());
       while (input.read(inBuffer) > 0) {
         inBuffer.flip();
-        output.write(inBuffer);
+        count += output.write(inBuffer);
         inBuffer.clear();
       }
+      return count;
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
     } finally {
@@ -207,25 +250,25 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   }
   
   private ODataRequest fillODataRequest(final ODataRequest odRequest, final HttpServletRequest httpRequest,
-      final int split) throws ODataLibraryException {
-    final int requestHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillODataRequest");
+      final int split, final ServerCoreDebugger requestDebugger) throws ODataLibraryException {
+    final int requestHandle = requestDebugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillODataRequest");
     try {
       odRequest.setBody(httpRequest.getInputStream());
       odRequest.setProtocol(httpRequest.getProtocol());
       odRequest.setMethod(extractMethod(httpRequest));
-      int innerHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "copyHeaders");
+      int innerHandle = requestDebugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "copyHeaders");
       copyHeaders(odRequest, httpRequest);
-      debugger.stopRuntimeMeasurement(innerHandle);
-      innerHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillUriInformation");
+      requestDebugger.stopRuntimeMeasurement(innerHandle);
+      innerHandle = requestDebugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillUriInformation");
       fillUriInformation(odRequest, httpRequest, split);
-      debugger.stopRuntimeMeasurement(innerHandle);
+      requestDebugger.stopRuntimeMeasurement(innerHandle);
 
       return odRequest;
     } catch (final IOException e) {
       throw new DeserializerException("An I/O exception occurred.", e,
           DeserializerException.MessageKeys.IO_EXCEPTION);
     } finally {
-      debugger.stopRuntimeMeasurement(requestHandle);
+      requestDebugger.stopRuntimeMeasurement(requestHandle);
     }
   }
   
@@ -346,4 +389,31 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   public void register(final DebugSupport debugSupport) {
     debugger.setDebugSupportProcessor(debugSupport);
   }
+
+  /** Channel that counts the bytes written to the channel it wraps. */
+  private static final class CountingChannel implements WritableByteChannel {
+    private final WritableByteChannel channel;
+    private long count = 0;
+
+    private CountingChannel(final WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public int write(final ByteBuffer source) throws IOException {
+      final int written = channel.write(source);
+      count += written;
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
 }
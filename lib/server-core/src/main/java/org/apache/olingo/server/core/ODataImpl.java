@@ -18,8 +18,10 @@
  */
 package org.apache.olingo.server.core;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.apache.olingo.commons.api.constants.Constantsv00;
 import org.apache.olingo.commons.api.constants.Constantsv01;
@@ -31,15 +33,23 @@ import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataHandler;
 import org.apache.olingo.server.api.ODataHttpHandler;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.async.AsyncRequestSelector;
+import org.apache.olingo.server.api.async.AsyncSupport;
 import org.apache.olingo.server.api.debug.DebugResponseHelper;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.ODataDeserializer;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.evaluation.EntityFilter;
+import org.apache.olingo.server.api.evaluation.EntitySorter;
+import org.apache.olingo.server.api.evaluation.FunctionEvaluator;
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.paging.ServerSidePaging;
 import org.apache.olingo.server.api.prefer.Preferences;
 import org.apache.olingo.server.api.serializer.EdmAssistedSerializer;
 import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
@@ -47,12 +57,22 @@ import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriHelper;
+import org.apache.olingo.server.api.uri.UriInfoCache;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.core.async.AsyncSupportImpl;
 import org.apache.olingo.server.core.debug.DebugResponseHelperImpl;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 import org.apache.olingo.server.core.deserializer.FixedFormatDeserializerImpl;
 import org.apache.olingo.server.core.deserializer.json.ODataJsonDeserializer;
+import org.apache.olingo.server.core.deserializer.json.ODataJsonStreamDeserializer;
 import org.apache.olingo.server.core.deserializer.xml.ODataXmlDeserializer;
 import org.apache.olingo.server.core.etag.ETagHelperImpl;
+import org.apache.olingo.server.core.evaluation.EntityFilterImpl;
+import org.apache.olingo.server.core.evaluation.EntitySorterImpl;
+import org.apache.olingo.server.core.metrics.RequestMetricsImpl;
+import org.apache.olingo.server.core.paging.ServerSidePagingImpl;
 import org.apache.olingo.server.core.prefer.PreferencesImpl;
 import org.apache.olingo.server.core.serializer.FixedFormatSerializerImpl;
 import org.apache.olingo.server.core.serializer.json.EdmAssistedJsonSerializer;
@@ -61,6 +81,7 @@ import org.apache.olingo.server.core.serializer.json.JsonDeltaSerializer;
 import org.apache.olingo.server.core.serializer.json.JsonDeltaSerializerWithNavigations;
 import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
+import org.apache.olingo.server.core.uri.UriInfoCacheImpl;
 
 public class ODataImpl extends OData {
 
@@ -181,6 +202,13 @@ public class ODataImpl extends OData {
     return new ServiceMetadataImpl(edmProvider, references, serviceMetadataETagSupport);
   }
 
+  @Override
+  public ServiceMetadata createServiceMetadata(final CsdlEdmProvider edmProvider,
+      final List<EdmxReference> references, final ServiceMetadataETagSupport serviceMetadataETagSupport,
+      final boolean frozen) {
+    return new ServiceMetadataImpl(edmProvider, references, serviceMetadataETagSupport, frozen);
+  }
+
   @Override
   public FixedFormatDeserializer createFixedFormatDeserializer() {
     return new FixedFormatDeserializerImpl();
@@ -191,6 +219,39 @@ public class ODataImpl extends OData {
     return new UriHelperImpl();
   }
 
+  @Override
+  public UriInfoCache createUriInfoCache(final int maximumSize) {
+    return new UriInfoCacheImpl(maximumSize);
+  }
+
+  @Override
+  public RequestMetrics createRequestMetrics() {
+    return new RequestMetricsImpl();
+  }
+
+  @Override
+  public AsyncSupport createAsyncSupport(final Executor executor, final int maximumJobs, final long timeToLive,
+      final int spoolThreshold, final File spoolDirectory, final AsyncRequestSelector selector) {
+    return new AsyncSupportImpl(executor, maximumJobs, timeToLive, spoolThreshold, spoolDirectory, selector);
+  }
+
+  @Override
+  public ServerSidePaging createServerSidePaging() {
+    return new ServerSidePagingImpl();
+  }
+
+  @Override
+  public EntityFilter createEntityFilter(final Expression expression, final UriInfoResource uriInfo,
+      final FunctionEvaluator functionEvaluator) throws ODataApplicationException {
+    return EntityFilterImpl.compile(expression, uriInfo, functionEvaluator);
+  }
+
+  @Override
+  public EntitySorter createEntitySorter(final OrderByOption orderByOption, final UriInfoResource uriInfo,
+      final FunctionEvaluator functionEvaluator) throws ODataApplicationException {
+    return EntitySorterImpl.compile(orderByOption, uriInfo, functionEvaluator);
+  }
+
   @Override
   public ODataDeserializer createDeserializer(final ContentType contentType) throws DeserializerException {
     if (contentType.isCompatible(ContentType.JSON)) {
@@ -258,6 +319,19 @@ public class ODataImpl extends OData {
   
   }
 
+  @Override
+  public ODataDeserializer createDeserializer(final ContentType contentType, final ServiceMetadata metadata,
+      final List<String> versions, final boolean streaming) throws DeserializerException {
+    if (streaming && contentType.isCompatible(ContentType.JSON)) {
+      IConstants constants = new Constantsv00();
+      if (versions != null && versions.size() > 0 && getMaxVersion(versions) > 4) {
+        constants = new Constantsv01();
+      }
+      return new ODataJsonStreamDeserializer(contentType, metadata, constants);
+    }
+    return createDeserializer(contentType, metadata, versions);
+  }
+
   @Override
   public ODataDeserializer createDeserializer(ContentType contentType, ServiceMetadata metadata, List<String> versions)
       throws DeserializerException {
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.metrics.RequestRecorder;
+
+/**
+ * State of a single request processed by an {@link ODataHandlerImpl}.
+ * The handler itself is shared by concurrent requests and therefore keeps no per-request state;
+ * everything a request needs to remember, e.g., for the debug response, is collected here.
+ */
+public class ODataRequestContext {
+
+  private final ServerCoreDebugger debugger;
+  private final RequestRecorder recorder;
+  private UriInfo uriInfo;
+  private Exception lastThrownException;
+
+  /**
+   * Creates a context.
+   * @param debugger the debugger that collects the runtime measurements of this request
+   */
+  public ODataRequestContext(final ServerCoreDebugger debugger) {
+    this(debugger, RequestRecorder.DISABLED);
+  }
+
+  /**
+   * Creates a context.
+   * @param debugger the debugger that collects the runtime measurements of this request
+   * @param recorder the recorder that reports the metrics of this request
+   */
+  public ODataRequestContext(final ServerCoreDebugger debugger, final RequestRecorder recorder) {
+    this.debugger = debugger;
+    this.recorder = recorder;
+  }
+
+  public ServerCoreDebugger getDebugger() {
+    return debugger;
+  }
+
+  public RequestRecorder getRecorder() {
+    return recorder;
+  }
+
+  /**
+   * Gets the parsed URI of the request.
+   * @return the URI info or <code>null</code> if the URI has not been parsed successfully
+   */
+  public UriInfo getUriInfo() {
+    return uriInfo;
+  }
+
+  void setUriInfo(final UriInfo uriInfo) {
+    this.uriInfo = uriInfo;
+  }
+
+  /**
+   * Gets the exception which has been turned into an error response.
+   * @return the exception or <code>null</code> if no error occurred
+   */
+  public Exception getLastThrownException() {
+    return lastThrownException;
+  }
+
+  void setLastThrownException(final Exception lastThrownException) {
+    this.lastThrownException = lastThrownException;
+  }
+}
@@ -23,6 +23,7 @@ import java.io.OutputStream;
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
 
+import org.apache.olingo.commons.api.data.Delta;
 import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
@@ -31,11 +32,14 @@ import org.apache.olingo.server.api.ODataContentWriteErrorCallback;
 import org.apache.olingo.server.api.ODataContentWriteErrorContext;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.serializer.SerializerStreamResult;
 import org.apache.olingo.server.core.serializer.SerializerStreamResultImpl;
+import org.apache.olingo.server.core.serializer.json.JsonDeltaSerializer;
+import org.apache.olingo.server.core.serializer.json.JsonDeltaSerializerWithNavigations;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
 import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
 
@@ -121,6 +125,35 @@ public class ODataWritableContent implements ODataContent {
     }
   }
 
+  private static class StreamContentForJsonDelta extends StreamContent {
+    private EdmDeltaSerializer deltaSerializer;
+    private Delta delta;
+
+    public StreamContentForJsonDelta(EntityIterator iterator, EdmEntityType entityType,
+        EdmDeltaSerializer deltaSerializer, ServiceMetadata metadata, Delta delta,
+        EntityCollectionSerializerOptions options) {
+      super(iterator, entityType, metadata, options);
+
+      this.deltaSerializer = deltaSerializer;
+      this.delta = delta;
+    }
+
+    protected void writeEntity(EntityIterator entity, OutputStream outputStream) throws SerializerException {
+      try {
+        if (deltaSerializer instanceof JsonDeltaSerializerWithNavigations) {
+          ((JsonDeltaSerializerWithNavigations) deltaSerializer).entityCollectionIntoStream(metadata, entityType,
+              entity, delta, options, outputStream);
+        } else {
+          ((JsonDeltaSerializer) deltaSerializer).entityCollectionIntoStream(metadata, entityType,
+              entity, delta, options, outputStream);
+        }
+        outputStream.flush();
+      } catch (final IOException e) {
+        throw new ODataRuntimeException("Failed entity serialization", e);
+      }
+    }
+  }
+
   @Override
   public void write(WritableByteChannel writeChannel) {
     this.streamContent.write(Channels.newOutputStream(writeChannel));
@@ -141,6 +174,12 @@ public class ODataWritableContent implements ODataContent {
     return new ODataWritableContentBuilder(iterator, entityType, serializer, metadata, options);
   }
 
+  public static ODataWritableContentBuilder with(EntityIterator iterator, EdmEntityType entityType,
+      EdmDeltaSerializer deltaSerializer, ServiceMetadata metadata, Delta delta,
+      EntityCollectionSerializerOptions options) {
+    return new ODataWritableContentBuilder(iterator, entityType, deltaSerializer, metadata, delta, options);
+  }
+
   public static class WriteErrorContext implements ODataContentWriteErrorContext {
     private ODataLibraryException exception;
 
@@ -161,6 +200,8 @@ public class ODataWritableContent implements ODataContent {
 
   public static class ODataWritableContentBuilder {
     private ODataSerializer serializer;
+    private EdmDeltaSerializer deltaSerializer;
+    private Delta delta;
     private EntityIterator entities;
     private ServiceMetadata metadata;
     private EdmEntityType entityType;
@@ -176,8 +217,24 @@ public class ODataWritableContent implements ODataContent {
       this.options = options;
     }
 
+    public ODataWritableContentBuilder(EntityIterator entities, EdmEntityType entityType,
+        EdmDeltaSerializer deltaSerializer, ServiceMetadata metadata, Delta delta,
+        EntityCollectionSerializerOptions options) {
+      this.entities = entities;
+      this.entityType = entityType;
+      this.deltaSerializer = deltaSerializer;
+      this.metadata = metadata;
+      this.delta = delta;
+      this.options = options;
+    }
+
     public ODataContent buildContent() {
-      if (serializer instanceof ODataJsonSerializer) {
+      if (deltaSerializer instanceof JsonDeltaSerializer
+          || deltaSerializer instanceof JsonDeltaSerializerWithNavigations) {
+        StreamContent input = new StreamContentForJsonDelta(entities, entityType,
+            deltaSerializer, metadata, delta, options);
+        return new ODataWritableContent(input);
+      } else if (serializer instanceof ODataJsonSerializer) {
         StreamContent input = new StreamContentForJson(entities, entityType,
             (ODataJsonSerializer) serializer, metadata, options);
         return new ODataWritableContent(input);
@@ -21,29 +21,76 @@ package org.apache.olingo.server.core;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.core.edm.EdmProviderImpl;
-import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.PreRenderedServiceMetadata;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.serializer.PreRenderedDocument;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.serializer.PreRenderedDocumentImpl;
 
 /**
  */
-public class ServiceMetadataImpl implements ServiceMetadata {
+public class ServiceMetadataImpl implements PreRenderedServiceMetadata {
 
   private final Edm edm;
   private final List<EdmxReference> references;
   private final ServiceMetadataETagSupport serviceMetadataETagSupport;
+  private final ConcurrentMap<String, PreRenderedDocumentImpl> metadataDocuments =
+      new ConcurrentHashMap<String, PreRenderedDocumentImpl>();
+  private final ConcurrentMap<String, PreRenderedDocumentImpl> serviceDocuments =
+      new ConcurrentHashMap<String, PreRenderedDocumentImpl>();
 
   public ServiceMetadataImpl(final CsdlEdmProvider edmProvider, final List<EdmxReference> references,
       final ServiceMetadataETagSupport serviceMetadataETagSupport) {
-    edm = new EdmProviderImpl(edmProvider);
+    this(edmProvider, references, serviceMetadataETagSupport, false);
+  }
+
+  public ServiceMetadataImpl(final CsdlEdmProvider edmProvider, final List<EdmxReference> references,
+      final ServiceMetadataETagSupport serviceMetadataETagSupport, final boolean frozen) {
+    final EdmProviderImpl edmImpl = new EdmProviderImpl(edmProvider);
+    if (frozen) {
+      edmImpl.freeze();
+    }
+    edm = edmImpl;
     this.references = new ArrayList<EdmxReference>();
     this.references.addAll(references);
-    this.serviceMetadataETagSupport = serviceMetadataETagSupport;
+    this.serviceMetadataETagSupport = frozen && serviceMetadataETagSupport == null ?
+        createContentHashETagSupport() :
+        serviceMetadataETagSupport;
+  }
+
+  /**
+   * Creates ETags from the hash of the XML metadata document.
+   * The service document is derived from the metadata, so the same ETag fits both documents.
+   */
+  private ServiceMetadataETagSupport createContentHashETagSupport() {
+    final String eTag;
+    try {
+      eTag = "W/\"" + ((PreRenderedDocumentImpl) getMetadataDocument(ContentType.APPLICATION_XML)).getContentHash()
+          + "\"";
+    } catch (final SerializerException e) {
+      throw new ODataRuntimeException("Cannot serialize the metadata document.", e);
+    }
+    return new ServiceMetadataETagSupport() {
+      @Override
+      public String getMetadataETag() {
+        return eTag;
+      }
+
+      @Override
+      public String getServiceDocumentETag() {
+        return eTag;
+      }
+    };
   }
 
   @Override
@@ -65,4 +112,34 @@ public class ServiceMetadataImpl implements ServiceMetadata {
   public ServiceMetadataETagSupport getServiceMetadataETagSupport() {
     return serviceMetadataETagSupport;
   }
+
+  @Override
+  public PreRenderedDocument getMetadataDocument(final ContentType contentType) throws SerializerException {
+    final String key = contentType.toContentTypeString();
+    PreRenderedDocumentImpl document = metadataDocuments.get(key);
+    if (document == null) {
+      document = new PreRenderedDocumentImpl(
+          new ODataImpl().createSerializer(contentType).metadataDocument(this).getContent());
+      final PreRenderedDocumentImpl cachedDocument = metadataDocuments.putIfAbsent(key, document);
+      if (cachedDocument != null) {
+        document = cachedDocument;
+      }
+    }
+    return document;
+  }
+
+  @Override
+  public PreRenderedDocument getServiceDocument(final ContentType contentType) throws SerializerException {
+    final String key = contentType.toContentTypeString();
+    PreRenderedDocumentImpl document = serviceDocuments.get(key);
+    if (document == null) {
+      document = new PreRenderedDocumentImpl(
+          new ODataImpl().createSerializer(contentType).serviceDocument(this, null).getContent());
+      final PreRenderedDocumentImpl cachedDocument = serviceDocuments.putIfAbsent(key, document);
+      if (cachedDocument != null) {
+        document = cachedDocument;
+      }
+    }
+    return document;
+  }
 }
@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.format.PreferenceName;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.async.AsyncRequestSelector;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.ODataHandlerException;
+import org.apache.olingo.server.core.prefer.PreferencesImpl;
+import org.apache.olingo.server.core.serializer.AsyncResponseSerializer;
+
+/**
+ * <p>Jobs for requests with the preference <code>respond-async</code>, executed on a given executor.</p>
+ * <p>Request bodies are copied when a job is accepted since the original request is finished with the
+ * <code>202 Accepted</code> answer. Results are serialized as <code>application/http</code> as soon as a job has
+ * finished, so the status monitor only has to copy them. Both are held in {@link Spool}s.
+ * Expired jobs are removed whenever a job is accepted or a status monitor is requested.
+ * Each job holds one of <code>maximumJobs</code> permits from the time it is accepted until it is removed,
+ * so the bound also holds for concurrently accepted requests.</p>
+ * <p>A job remembers the thread running it so that a cancellation can interrupt it.</p>
+ */
+public class AsyncSupportImpl implements AsyncSupport {
+
+  private static final String STATUS_MONITOR_PATH = "/" + STATUS_MONITOR_SEGMENT + "/";
+  private static final String CONTENT_TRANSFER_ENCODING = "Content-Transfer-Encoding";
+
+  private final Executor executor;
+  private final int maximumJobs;
+  private final long timeToLive;
+  private final int spoolThreshold;
+  private final File spoolDirectory;
+  private final AsyncRequestSelector selector;
+  private final ConcurrentMap<String, Job> jobs = new ConcurrentHashMap<String, Job>();
+  private final Semaphore jobPermits;
+  private final AtomicLong rejectedCount = new AtomicLong();
+
+  public AsyncSupportImpl(final Executor executor, final int maximumJobs, final long timeToLive,
+      final int spoolThreshold, final File spoolDirectory, final AsyncRequestSelector selector) {
+    if (executor == null) {
+      throw new ODataRuntimeException("An executor is required for asynchronous processing.");
+    }
+    if (maximumJobs < 1) {
+      throw new ODataRuntimeException("The maximum number of jobs must be positive but was " + maximumJobs);
+    }
+    this.executor = executor;
+    this.maximumJobs = maximumJobs;
+    jobPermits = new Semaphore(maximumJobs);
+    this.timeToLive = timeToLive;
+    this.spoolThreshold = spoolThreshold;
+    this.spoolDirectory = spoolDirectory;
+    this.selector = selector;
+  }
+
+  @Override
+  public boolean isStatusMonitorRequest(final ODataRequest request) {
+    return request.getRawODataPath() != null && request.getRawODataPath().startsWith(STATUS_MONITOR_PATH);
+  }
+
+  @Override
+  public boolean accept(final ODataHandler handler, final ODataRequest request, final UriInfo uriInfo,
+      final ODataResponse response) {
+    if (request instanceof JobRequest
+        || !new PreferencesImpl(request.getHeaders(HttpHeader.PREFER)).hasRespondAsync()
+        || selector != null && !selector.isAsynchronous(request, uriInfo)) {
+      return false;
+    }
+
+    removeExpiredJobs();
+    if (!jobPermits.tryAcquire()) {
+      rejectedCount.incrementAndGet();
+      return false;
+    }
+
+    final Job job;
+    try {
+      job = new Job(handler, new JobRequest(request, spool(request.getBody())));
+    } catch (final RuntimeException e) {
+      jobPermits.release();
+      throw e;
+    }
+    jobs.put(job.id, job);
+    try {
+      executor.execute(job);
+    } catch (final RejectedExecutionException e) {
+      remove(job);
+      rejectedCount.incrementAndGet();
+      request.setBody(job.request.getBody());
+      return false;
+    }
+
+    response.setStatusCode(HttpStatusCode.ACCEPTED.getStatusCode());
+    response.setHeader(HttpHeader.LOCATION, getLocation(request, job.id));
+    response.setHeader(HttpHeader.PREFERENCE_APPLIED, PreferenceName.RESPOND_ASYNC.getName());
+    return true;
+  }
+
+  @Override
+  public void processStatusMonitor(final ODataRequest request, final ODataResponse response)
+      throws ODataHandlerException {
+    removeExpiredJobs();
+    final String id = request.getRawODataPath().substring(STATUS_MONITOR_PATH.length());
+    final Job job = jobs.get(id);
+    if (job == null) {
+      response.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
+      return;
+    }
+
+    if (request.getMethod() == HttpMethod.GET) {
+      if (job.result == null) {
+        response.setStatusCode(HttpStatusCode.ACCEPTED.getStatusCode());
+        response.setHeader(HttpHeader.LOCATION, getLocation(request, id));
+      } else if (remove(job)) {
+        try {
+          response.setContent(job.result.openStream());
+        } catch (final IOException e) {
+          job.result.delete();
+          throw new ODataRuntimeException("Result of asynchronous request cannot be read.", e);
+        }
+        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+        response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_HTTP.toContentTypeString());
+        response.setHeader(CONTENT_TRANSFER_ENCODING, "binary");
+        response.setHeader(HttpHeader.CONTENT_LENGTH, String.valueOf(job.result.size()));
+      } else {
+        response.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
+      }
+    } else if (request.getMethod() == HttpMethod.DELETE) {
+      if (remove(job)) {
+        job.cancel();
+      }
+      response.setStatusCode(HttpStatusCode.NO_CONTENT.getStatusCode());
+    } else {
+      throw new ODataHandlerException("HTTP method " + request.getMethod() + " is not allowed for status monitors.",
+          ODataHandlerException.MessageKeys.HTTP_METHOD_NOT_ALLOWED, request.getMethod().toString());
+    }
+  }
+
+  /**
+   * Removes the job and gives back its permit.
+   * @return <code>false</code> if the job has already been removed
+   */
+  private boolean remove(final Job job) {
+    if (jobs.remove(job.id, job)) {
+      jobPermits.release();
+      return true;
+    }
+    return false;
+  }
+
+  private String getLocation(final ODataRequest request, final String id) {
+    return request.getRawBaseUri() + STATUS_MONITOR_PATH + id;
+  }
+
+  private Spool spool(final InputStream body) {
+    final Spool spool = new Spool(spoolThreshold, spoolDirectory);
+    if (body != null) {
+      try {
+        final byte[] buffer = new byte[8192];
+        int count;
+        while ((count = body.read(buffer)) > 0) {
+          spool.write(buffer, 0, count);
+        }
+        spool.close();
+      } catch (final IOException e) {
+        spool.delete();
+        throw new ODataRuntimeException("Error on reading request content", e);
+      }
+    }
+    return spool;
+  }
+
+  private void removeExpiredJobs() {
+    final long now = System.currentTimeMillis();
+    for (final Job job : jobs.values()) {
+      if (job.result != null && now - job.finishedAt > timeToLive && remove(job)) {
+        job.cancel();
+      }
+    }
+  }
+
+  @Override
+  public int getMaximumJobs() {
+    return maximumJobs;
+  }
+
+  @Override
+  public int getPendingJobCount() {
+    int count = 0;
+    for (final Job job : jobs.values()) {
+      if (job.result == null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int getFinishedJobCount() {
+    return jobs.size() - getPendingJobCount();
+  }
+
+  @Override
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  @Override
+  public void shutdown() {
+    for (final Job job : jobs.values()) {
+      if (remove(job)) {
+        job.cancel();
+      }
+    }
+  }
+
+  /**
+   * Copy of an accepted request, detached from the original request.
+   */
+  private static final class JobRequest extends ODataRequest {
+
+    private final Spool body;
+
+    private JobRequest(final ODataRequest request, final Spool body) {
+      this.body = body;
+      setMethod(request.getMethod());
+      setProtocol(request.getProtocol());
+      setRawBaseUri(request.getRawBaseUri());
+      setRawODataPath(request.getRawODataPath());
+      setRawQueryPath(request.getRawQueryPath());
+      setRawRequestUri(request.getRawRequestUri());
+      setRawServiceResolutionUri(request.getRawServiceResolutionUri());
+      for (final Map.Entry<String, List<String>> header : request.getAllHeaders().entrySet()) {
+        addHeader(header.getKey(), header.getValue());
+      }
+      try {
+        setBody(body.openStream());
+      } catch (final IOException e) {
+        body.delete();
+        throw new ODataRuntimeException("Error on reading request content", e);
+      }
+    }
+  }
+
+  private final class Job implements Runnable {
+
+    private final String id = UUID.randomUUID().toString();
+    private final ODataHandler handler;
+    private final JobRequest request;
+    private boolean cancelled;
+    private Thread thread;
+    private volatile long finishedAt;
+    private volatile Spool result;
+
+    private Job(final ODataHandler handler, final JobRequest request) {
+      this.handler = handler;
+      this.request = request;
+    }
+
+    @Override
+    public void run() {
+      synchronized (this) {
+        if (cancelled) {
+          request.body.delete();
+          return;
+        }
+        thread = Thread.currentThread();
+      }
+
+      Spool spool = new Spool(spoolThreshold, spoolDirectory);
+      try {
+        final ODataResponse response = handler.process(request);
+        new AsyncResponseSerializer().serialize(response, spool);
+        spool.close();
+      } catch (final IOException e) {
+        spool = failed(spool);
+      } catch (final RuntimeException e) {
+        spool = failed(spool);
+      } finally {
+        request.body.delete();
+      }
+
+      synchronized (this) {
+        thread = null;
+        finishedAt = System.currentTimeMillis();
+        result = spool;
+        if (cancelled) {
+          spool.delete();
+          // The interruption was meant for this job only, not for the next task of the executor thread.
+          Thread.interrupted();
+        }
+      }
+    }
+
+    private Spool failed(final Spool spool) {
+      spool.delete();
+      final ODataResponse error = new ODataResponse();
+      error.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+      final Spool errorSpool = new Spool(Integer.MAX_VALUE, null);
+      try {
+        new AsyncResponseSerializer().serialize(error, errorSpool);
+      } catch (final IOException e) {
+        // cannot happen in memory
+      }
+      return errorSpool;
+    }
+
+    private synchronized void cancel() {
+      cancelled = true;
+      if (thread != null) {
+        thread.interrupt();
+      }
+      if (result != null) {
+        result.delete();
+      }
+    }
+  }
+}
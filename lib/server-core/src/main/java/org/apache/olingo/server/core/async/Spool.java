@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Output stream which keeps its content in memory up to a threshold and moves it to a temporary file beyond.
+ * The content can be read once via {@link #openStream()}; closing that stream deletes the temporary file.
+ */
+class Spool extends OutputStream {
+
+  private final int threshold;
+  private final File directory;
+  private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+  private File file;
+  private OutputStream fileOutput;
+  private long size;
+
+  Spool(final int threshold, final File directory) {
+    this.threshold = threshold;
+    this.directory = directory;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    if (file == null && size + len > threshold) {
+      file = File.createTempFile("olingo-async-", ".tmp", directory);
+      fileOutput = new BufferedOutputStream(new FileOutputStream(file));
+      memory.writeTo(fileOutput);
+      memory = null;
+    }
+    if (file == null) {
+      memory.write(b, off, len);
+    } else {
+      fileOutput.write(b, off, len);
+    }
+    size += len;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (fileOutput != null) {
+      fileOutput.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (fileOutput != null) {
+      fileOutput.close();
+    }
+  }
+
+  long size() {
+    return size;
+  }
+
+  InputStream openStream() throws IOException {
+    if (file == null) {
+      return new ByteArrayInputStream(memory.toByteArray());
+    }
+    return new FileInputStream(file) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          delete();
+        }
+      }
+    };
+  }
+
+  void delete() {
+    if (fileOutput != null) {
+      try {
+        fileOutput.close();
+      } catch (final IOException e) {
+        // ignore: the file gets deleted anyway
+      }
+    }
+    if (file != null && file.exists() && !file.delete()) {
+      file.deleteOnExit();
+    }
+  }
+}
@@ -19,19 +19,26 @@
 package org.apache.olingo.server.core.batchhandler;
 
 import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataHandler;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
-import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.batch.BatchExecutionSupport;
+import org.apache.olingo.server.api.batch.IncrementalBatchFacade;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartIterator;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 import org.apache.olingo.server.api.processor.BatchProcessor;
+import org.apache.olingo.server.core.ODataHandlerImpl;
 import org.apache.olingo.server.core.deserializer.batch.BatchParserCommon;
 
-public class BatchFacadeImpl implements BatchFacade {
+public class BatchFacadeImpl implements IncrementalBatchFacade {
   private final BatchPartHandler partHandler;
+  private final ODataHandlerImpl errorHandler;
+  private final ODataRequest batchRequest;
+  private final BatchExecutionSupport parallelExecution;
 
   /**
    * Creates a new BatchFacade.
@@ -42,6 +49,28 @@ public class BatchFacadeImpl implements BatchFacade {
   public BatchFacadeImpl(final ODataHandler oDataHandler, final BatchProcessor batchProcessor,
                          final boolean isStrict) {
     partHandler = new BatchPartHandler(oDataHandler, batchProcessor, this);
+    errorHandler = null;
+    batchRequest = null;
+    parallelExecution = null;
+  }
+
+  /**
+   * Creates a new BatchFacade which answers errors found while a batch response is written
+   * with error documents.
+   * @param oDataHandler      handler
+   * @param batchRequest      the batch request
+   * @param batchProcessor    batch processor
+   * @param isStrict          mode switch (currently not used)
+   * @param parallelExecution support for parallel execution of query operations
+   *                          or <code>null</code> for sequential execution
+   */
+  public BatchFacadeImpl(final ODataHandlerImpl oDataHandler, final ODataRequest batchRequest,
+                         final BatchProcessor batchProcessor, final boolean isStrict,
+                         final BatchExecutionSupport parallelExecution) {
+    partHandler = new BatchPartHandler(oDataHandler, batchProcessor, this);
+    errorHandler = oDataHandler;
+    this.batchRequest = batchRequest;
+    this.parallelExecution = parallelExecution;
   }
 
   @Override
@@ -56,6 +85,15 @@ public class BatchFacadeImpl implements BatchFacade {
     return partHandler.handleBatchRequest(request);
   }
 
+  @Override
+  public ODataContent handleBatchRequestIncrementally(final BatchRequestPartIterator parts, final String boundary,
+      final boolean continueOnError) throws ODataApplicationException, ODataLibraryException {
+    // Reading the first part reports a malformed request body before the response is committed.
+    parts.hasNext();
+    return new BatchResponseContent(partHandler, parts, boundary, continueOnError, errorHandler, batchRequest,
+        parallelExecution);
+  }
+
   @Override
   public String extractBoundaryFromContentType(final String contentType) throws BatchDeserializerException {
     return BatchParserCommon.getBoundary(contentType, 0);
@@ -20,6 +20,7 @@ package org.apache.olingo.server.core.batchhandler;
 
 import java.util.List;
 
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
@@ -27,6 +28,7 @@ import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.batch.BatchExecutionSupport;
 import org.apache.olingo.server.api.batch.BatchFacade;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
@@ -34,6 +36,7 @@ import org.apache.olingo.server.api.processor.BatchProcessor;
 import org.apache.olingo.server.core.ODataHandlerException;
 import org.apache.olingo.server.core.ODataHandlerImpl;
 import org.apache.olingo.server.core.deserializer.batch.BatchParserCommon;
+import org.apache.olingo.server.core.prefer.PreferencesImpl;
 
 public class BatchHandler {
   private final BatchProcessor batchProcessor;
@@ -52,9 +55,31 @@ public class BatchHandler {
     validateRequest(request);
     validatePreferHeader(request);
 
-    final BatchFacade operation = new BatchFacadeImpl(oDataHandler, batchProcessor, isStrict);
+    final BatchFacade operation = new BatchFacadeImpl(oDataHandler, request, batchProcessor, isStrict,
+        getParallelExecution(request));
     batchProcessor.processBatch(operation, request, response);
   }
+
+  /**
+   * Gets the registered support for parallel execution if it applies to the given batch request.
+   * Runtime measurements of debug requests are not collected concurrently, so those are executed sequentially.
+   * @return the {@link BatchExecutionSupport} or <code>null</code> for sequential execution
+   */
+  private BatchExecutionSupport getParallelExecution(final ODataRequest request) {
+    final BatchExecutionSupport support = oDataHandler.getBatchExecutionSupport();
+    if (support == null || oDataHandler.isDebugMode()) {
+      return null;
+    }
+    if (support.getMaxParallelism() < 1) {
+      throw new ODataRuntimeException("The maximum parallelism of batch execution must be at least 1.");
+    }
+
+    return support.isParallelByDefault()
+        || new PreferencesImpl(request.getHeaders(HttpHeader.PREFER))
+            .getPreference(BatchExecutionSupport.PREFERENCE_PARALLEL) != null ?
+        support :
+        null;
+  }
   
   /** Checks if Prefer header is set with return=minimal or 
    * return=representation for batch requests
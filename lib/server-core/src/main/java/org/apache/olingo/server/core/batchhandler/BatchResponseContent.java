@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batchhandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ODataServerError;
+import org.apache.olingo.server.api.batch.BatchExecutionSupport;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartIterator;
+import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+import org.apache.olingo.server.api.serializer.BatchSerializerException;
+import org.apache.olingo.server.core.ODataExceptionHelper;
+import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.serializer.BatchResponseSerializer;
+
+/**
+ * Batch response which handles the parts of the batch request while it is written.
+ * Each request part is read, handled, and its response part is written before the next request part is read.
+ * If parallel execution is enabled, consecutive query operations are read ahead and handled concurrently;
+ * change sets are handled alone, after all parts before them have completed.
+ */
+public class BatchResponseContent implements ODataContent {
+  private final BatchPartHandler partHandler;
+  private final BatchRequestPartIterator parts;
+  private final String boundary;
+  private final boolean continueOnError;
+  private final ODataHandlerImpl errorHandler;
+  private final ODataRequest batchRequest;
+  private final Executor executor;
+  private final int maxParallelism;
+  private BatchRequestPart pendingPart;
+  private boolean isMalformed = false;
+
+  public BatchResponseContent(final BatchPartHandler partHandler, final BatchRequestPartIterator parts,
+      final String boundary, final boolean continueOnError,
+      final ODataHandlerImpl errorHandler, final ODataRequest batchRequest,
+      final BatchExecutionSupport parallelExecution) {
+    this.partHandler = partHandler;
+    this.parts = parts;
+    this.boundary = boundary;
+    this.continueOnError = continueOnError;
+    this.errorHandler = errorHandler;
+    this.batchRequest = batchRequest;
+    executor = parallelExecution == null ? null : parallelExecution.getExecutor();
+    maxParallelism = parallelExecution == null ? 1 : parallelExecution.getMaxParallelism();
+  }
+
+  @Override
+  public void write(final WritableByteChannel channel) {
+    write(Channels.newOutputStream(channel));
+  }
+
+  @Override
+  public void write(final OutputStream stream) {
+    final BatchResponseSerializer serializer = new BatchResponseSerializer();
+    try {
+      boolean proceed = true;
+      while (proceed) {
+        final List<Future<PartResult>> responseParts = handleNextParts();
+        proceed = !responseParts.isEmpty() && !isMalformed;
+        for (final Future<PartResult> responsePart : responseParts) {
+          final ODataResponsePart result = getResult(responsePart).toResponsePart();
+          serializer.serializePart(result, boundary, stream);
+          if (!continueOnError && isFailed(result)) {
+            proceed = false;
+            break;
+          }
+        }
+      }
+      serializer.serializeEnd(boundary, stream);
+      stream.flush();
+    } catch (final BatchSerializerException e) {
+      throw new ODataRuntimeException("Error on writing batch response part", e);
+    } catch (final IOException e) {
+      throw new ODataRuntimeException("Error on writing batch response", e);
+    }
+  }
+
+  /**
+   * Starts the handling of the next request parts: either a single part or,
+   * with parallel execution, up to <code>maxParallelism</code> consecutive query operations.
+   * @return the response parts in the order of the request parts; empty if all parts have been handled
+   */
+  private List<Future<PartResult>> handleNextParts() {
+    final List<Future<PartResult>> responseParts = new ArrayList<Future<PartResult>>();
+    while (responseParts.size() < maxParallelism) {
+      BatchRequestPart part = pendingPart;
+      pendingPart = null;
+      try {
+        if (part == null) {
+          if (!parts.hasNext()) {
+            break;
+          }
+          part = parts.next();
+        }
+      } catch (final BatchDeserializerException e) {
+        // The position in the request body is not reliable anymore, so no further part is read.
+        isMalformed = true;
+        final FutureTask<PartResult> task = new FutureTask<PartResult>(
+            new Failure(ODataExceptionHelper.createServerErrorObject(e, null), e));
+        task.run();
+        responseParts.add(task);
+        break;
+      }
+
+      final FutureTask<PartResult> task = new FutureTask<PartResult>(new PartHandling(part));
+      if (executor != null && isQueryOperation(part)) {
+        try {
+          executor.execute(task);
+        } catch (final RejectedExecutionException e) {
+          // The executor is saturated or shut down; the part is handled in the calling thread instead.
+          task.run();
+        }
+        responseParts.add(task);
+      } else if (responseParts.isEmpty()) {
+        task.run();
+        responseParts.add(task);
+        break;
+      } else {
+        // This part may depend on the parts before it, so it is handled when they have completed.
+        pendingPart = part;
+        break;
+      }
+    }
+
+    return responseParts;
+  }
+
+  private boolean isQueryOperation(final BatchRequestPart part) {
+    return !part.isChangeSet() && part.getRequests().get(0).getMethod() == HttpMethod.GET;
+  }
+
+  private PartResult getResult(final Future<PartResult> responsePart) {
+    try {
+      return responsePart.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataRuntimeException("Interrupted while waiting for batch response part", e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new ODataRuntimeException("Error on handling batch request part", e);
+    }
+  }
+
+  /** Creates an error response part; called only by the thread writing the batch response. */
+  private ODataResponsePart createErrorPart(final ODataServerError serverError, final Exception exception) {
+    final ODataResponse response = new ODataResponse();
+    if (errorHandler == null) {
+      response.setStatusCode(serverError.getStatusCode());
+    } else {
+      errorHandler.handleException(batchRequest, response, serverError, exception);
+    }
+
+    return new ODataResponsePart(response, false);
+  }
+
+  private boolean isFailed(final ODataResponsePart responsePart) {
+    final int statusCode = responsePart.getResponses().get(0).getStatusCode();
+    return statusCode >= 400 && statusCode <= 600;
+  }
+
+  /**
+   * Outcome of handling a request part: either its response part or the failure.
+   * Error response parts are created only by the thread writing the batch response
+   * since the error handler is not meant to be used concurrently.
+   */
+  private class PartResult {
+    private final ODataResponsePart responsePart;
+    private final ODataServerError serverError;
+    private final Exception exception;
+
+    PartResult(final ODataResponsePart responsePart) {
+      this.responsePart = responsePart;
+      serverError = null;
+      exception = null;
+    }
+
+    PartResult(final ODataServerError serverError, final Exception exception) {
+      responsePart = null;
+      this.serverError = serverError;
+      this.exception = exception;
+    }
+
+    ODataResponsePart toResponsePart() {
+      return responsePart == null ? createErrorPart(serverError, exception) : responsePart;
+    }
+  }
+
+  /**
+   * Handles a request part; failures are recorded for an error response part.
+   */
+  private class PartHandling implements Callable<PartResult> {
+    private final BatchRequestPart part;
+
+    PartHandling(final BatchRequestPart part) {
+      this.part = part;
+    }
+
+    @Override
+    public PartResult call() {
+      try {
+        return new PartResult(partHandler.handleBatchRequest(part));
+      } catch (final ODataApplicationException e) {
+        return new PartResult(ODataExceptionHelper.createServerErrorObject(e), e);
+      } catch (final ODataLibraryException e) {
+        return new PartResult(ODataExceptionHelper.createServerErrorObject(e, null), e);
+      } catch (final RuntimeException e) {
+        // The status of the batch response has already been sent, so the failure is reported for this part only.
+        return new PartResult(ODataExceptionHelper.createServerErrorObject(e), e);
+      }
+    }
+  }
+
+  /**
+   * Records the failure for a request part which could not be read.
+   */
+  private class Failure implements Callable<PartResult> {
+    private final ODataServerError serverError;
+    private final Exception exception;
+
+    Failure(final ODataServerError serverError, final Exception exception) {
+      this.serverError = serverError;
+      this.exception = exception;
+    }
+
+    @Override
+    public PartResult call() {
+      return new PartResult(serverError, exception);
+    }
+  }
+}
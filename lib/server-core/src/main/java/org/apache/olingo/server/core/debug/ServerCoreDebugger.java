@@ -19,9 +19,11 @@
 package org.apache.olingo.server.core.debug;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,7 +39,14 @@ import org.apache.olingo.server.api.debug.DebugInformation;
 import org.apache.olingo.server.api.debug.DebugSupport;
 import org.apache.olingo.server.api.debug.RuntimeMeasurement;
 import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoCache;
 
+/**
+ * Collects the debug information of a request.
+ * The debug mode and the runtime measurements belong to a single request, so handlers shared by
+ * concurrent requests keep a configured instance and use a {@link #newRequestDebugger() copy of it}
+ * for each request.
+ */
 public class ServerCoreDebugger {
 
   private static final Charset DEFAULT_ENCODING = Charset.forName("UTF-8");
@@ -45,13 +54,25 @@ public class ServerCoreDebugger {
   private final OData odata;
 
   private boolean isDebugMode = false;
-  private DebugSupport debugSupport;
+  private volatile DebugSupport debugSupport;
   private String debugFormat;
+  private volatile UriInfoCache uriInfoCache;
 
   public ServerCoreDebugger(final OData odata) {
     this.odata = odata;
   }
 
+  /**
+   * Creates a debugger for a single request with the debug support and the URI cache of this debugger.
+   * @return a new debugger which is not in debug mode and has no runtime measurements yet
+   */
+  public ServerCoreDebugger newRequestDebugger() {
+    ServerCoreDebugger requestDebugger = new ServerCoreDebugger(odata);
+    requestDebugger.debugSupport = debugSupport;
+    requestDebugger.uriInfoCache = uriInfoCache;
+    return requestDebugger;
+  }
+
   public void resolveDebugMode(final HttpServletRequest request) {
     if (debugSupport != null) {
       // Should we read the parameter from the servlet here and ignore multiple parameters?
@@ -71,6 +92,7 @@ public class ServerCoreDebugger {
     }
 
     try {
+      materializeContent(response);
       DebugInformation debugInfo =
           createDebugInformation(request, response, exception, uriInfo, serverEnvironmentVariables);
 
@@ -80,6 +102,19 @@ public class ServerCoreDebugger {
     }
   }
 
+  /**
+   * Writes content which is produced only while the response is sent, e.g., the parts of a batch request
+   * handled incrementally, into memory, so that it is produced before the debug tabs read the response body.
+   */
+  private void materializeContent(final ODataResponse response) {
+    if (response != null && response.getContent() == null && response.getODataContent() != null) {
+      ByteArrayOutputStream content = new ByteArrayOutputStream();
+      response.getODataContent().write(content);
+      response.setContent(new ByteArrayInputStream(content.toByteArray()));
+      response.setODataContent(null);
+    }
+  }
+
   private ODataResponse createFailResponse() {
     ODataResponse odResponse = new ODataResponse();
     odResponse.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
@@ -98,7 +133,7 @@ public class ServerCoreDebugger {
 
     debugInfo.setException(exception);
 
-    debugInfo.setServerEnvironmentVariables(serverEnvironmentVariables);
+    debugInfo.setServerEnvironmentVariables(addUriInfoCacheStatistics(serverEnvironmentVariables));
 
     debugInfo.setUriInfo(uriInfo);
 
@@ -106,6 +141,21 @@ public class ServerCoreDebugger {
     return debugInfo;
   }
 
+  private Map<String, String> addUriInfoCacheStatistics(final Map<String, String> serverEnvironmentVariables) {
+    if (uriInfoCache == null) {
+      return serverEnvironmentVariables;
+    }
+    Map<String, String> environment = serverEnvironmentVariables == null ?
+        new LinkedHashMap<String, String>() :
+        new LinkedHashMap<String, String>(serverEnvironmentVariables);
+    environment.put("uriInfoCacheSize", Integer.toString(uriInfoCache.size()));
+    environment.put("uriInfoCacheMaximumSize", Integer.toString(uriInfoCache.getMaximumSize()));
+    environment.put("uriInfoCacheHits", Long.toString(uriInfoCache.getHitCount()));
+    environment.put("uriInfoCacheMisses", Long.toString(uriInfoCache.getMissCount()));
+    environment.put("uriInfoCacheEvictions", Long.toString(uriInfoCache.getEvictionCount()));
+    return environment;
+  }
+
   public int startRuntimeMeasurement(final String className, final String methodName) {
     if (isDebugMode) {
       int handleId = runtimeInformation.size();
@@ -136,6 +186,18 @@ public class ServerCoreDebugger {
     this.debugSupport = debugSupport;
   }
 
+  /**
+   * Sets the URI cache whose statistics are added to the server environment of debug responses.
+   * @param uriInfoCache the URI cache of the handler
+   */
+  public void setUriInfoCache(final UriInfoCache uriInfoCache) {
+    this.uriInfoCache = uriInfoCache;
+  }
+
+  public UriInfoCache getUriInfoCache() {
+    return uriInfoCache;
+  }
+
   public boolean isDebugMode() {
     return isDebugMode;
   }
@@ -35,14 +35,15 @@ import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
-import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
+import org.apache.olingo.server.api.deserializer.IncrementalFixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartIterator;
 import org.apache.olingo.server.core.deserializer.batch.BatchParser;
 import org.apache.olingo.server.core.deserializer.json.ODataJsonDeserializer;
 
-public class FixedFormatDeserializerImpl implements FixedFormatDeserializer {
+public class FixedFormatDeserializerImpl implements IncrementalFixedFormatDeserializer {
 
   private static final int DEFAULT_BUFFER_SIZE = 128;
 
@@ -126,4 +127,12 @@ public class FixedFormatDeserializerImpl implements FixedFormatDeserializer {
 
     return parser.parseBatchRequest(content, boundary, options);
   }
+
+  @Override
+  public BatchRequestPartIterator parseBatchRequestIncrementally(final InputStream content, final String boundary,
+      final BatchOptions options) throws BatchDeserializerException {
+    final BatchParser parser = new BatchParser();
+
+    return parser.parseBatchRequestIncrementally(content, boundary, options);
+  }
 }
@@ -22,11 +22,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.regex.Pattern;
 
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartIterator;
 
 public class BatchParser {
 
@@ -42,6 +46,19 @@ public class BatchParser {
     return parse(content, boundary, transformator);
   }
 
+  /**
+   * Parses the batch request part by part; the content is read only as far as needed
+   * for the part which is requested next from the returned iterator.
+   */
+  public BatchRequestPartIterator parseBatchRequestIncrementally(final InputStream content, final String boundary,
+      final BatchOptions options) {
+    this.options = options;
+
+    BatchRequestTransformator transformator = new BatchRequestTransformator(options.getRawBaseUri(),
+        options.getRawServiceResolutionUri());
+    return new BodyPartIterator(new BatchLineReader(content), boundary, transformator);
+  }
+
   private List<BatchRequestPart> parse(final InputStream in, final String boundary,
       final BatchRequestTransformator transformator)
       throws BatchDeserializerException {
@@ -73,4 +90,101 @@ public class BatchParser {
 
     return BatchParserCommon.splitMessageByBoundary(message, boundary);
   }
+
+  /**
+   * Reads the lines of one body part at a time from the content, following the rules of
+   * {@link BatchParserCommon#splitMessageByBoundary(List, String)}.
+   */
+  private class BodyPartIterator implements BatchRequestPartIterator {
+    private final BatchLineReader reader;
+    private final String boundary;
+    private final BatchRequestTransformator transformator;
+    private final Pattern boundaryDelimiterPattern;
+    private final Pattern boundaryPattern;
+    private final Queue<BatchRequestPart> parts = new LinkedList<BatchRequestPart>();
+    private boolean isPreambleRead = false;
+    private boolean isEndReached = false;
+    private int firstLineNumber = 0;
+
+    BodyPartIterator(final BatchLineReader reader, final String boundary,
+        final BatchRequestTransformator transformator) {
+      this.reader = reader;
+      this.boundary = boundary;
+      this.transformator = transformator;
+
+      final String quotedBoundary = Pattern.quote(boundary);
+      boundaryDelimiterPattern = Pattern.compile("--" + quotedBoundary + "--\\s*");
+      boundaryPattern = Pattern.compile("--" + quotedBoundary + "\\s*");
+    }
+
+    @Override
+    public boolean hasNext() throws BatchDeserializerException {
+      while (parts.isEmpty() && !isEndReached) {
+        final List<Line> bodyPartLines = readBodyPart();
+        if (bodyPartLines != null) {
+          BatchBodyPart bodyPart = new BatchBodyPart(bodyPartLines, boundary, options.isStrict()).parse();
+          parts.addAll(transformator.transform(bodyPart));
+        }
+      }
+
+      return !parts.isEmpty();
+    }
+
+    @Override
+    public BatchRequestPart next() throws BatchDeserializerException {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return parts.remove();
+    }
+
+    /**
+     * Reads the lines up to the next boundary.
+     * @return the lines of the body part or <code>null</code> for the preamble
+     */
+    private List<Line> readBodyPart() throws BatchDeserializerException {
+      final List<Line> currentPart = new LinkedList<Line>();
+      try {
+        Line currentLine;
+        while ((currentLine = reader.nextLine()) != null) {
+          if (firstLineNumber == 0) {
+            firstLineNumber = currentLine.getLineNumber();
+          }
+
+          if (boundaryDelimiterPattern.matcher(currentLine.toString()).matches()) {
+            close();
+            return completeBodyPart(currentPart);
+          } else if (boundaryPattern.matcher(currentLine.toString()).matches()) {
+            return completeBodyPart(currentPart);
+          } else {
+            currentPart.add(currentLine);
+          }
+        }
+        close();
+      } catch (IOException e) {
+        throw new ODataRuntimeException(e);
+      }
+
+      throw new BatchDeserializerException("Missing close boundary delimiter",
+          BatchDeserializerException.MessageKeys.MISSING_CLOSE_DELIMITER, Integer.toString(firstLineNumber));
+    }
+
+    private List<Line> completeBodyPart(final List<Line> currentPart) {
+      if (!isPreambleRead) {
+        isPreambleRead = true;
+        return null;
+      }
+
+      if (!currentPart.isEmpty()) {
+        currentPart.add(BatchParserCommon.removeEndingCRLF(currentPart.remove(currentPart.size() - 1)));
+      }
+      return currentPart;
+    }
+
+    private void close() throws IOException {
+      isEndReached = true;
+      reader.close();
+    }
+  }
 }
@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmMapping;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.edm.geo.Geospatial;
+import org.apache.olingo.commons.api.edm.geo.GeospatialCollection;
+import org.apache.olingo.commons.api.edm.geo.LineString;
+import org.apache.olingo.commons.api.edm.geo.MultiLineString;
+import org.apache.olingo.commons.api.edm.geo.MultiPoint;
+import org.apache.olingo.commons.api.edm.geo.MultiPolygon;
+import org.apache.olingo.commons.api.edm.geo.Point;
+import org.apache.olingo.commons.api.edm.geo.Polygon;
+import org.apache.olingo.commons.api.edm.geo.SRID;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Value checks and conversions shared by the tree-based {@link ODataJsonDeserializer}
+ * and the token-streaming {@link ODataJsonStreamDeserializer}.
+ */
+final class JsonDeserializerHelper {
+
+  private static final Map<String, Class<? extends Geospatial>> jsonNameToGeoDataType;
+  static {
+    Map<String, Class<? extends Geospatial>> temp = new HashMap<String, Class<? extends Geospatial>>();
+    temp.put(Constants.ELEM_POINT, Point.class);
+    temp.put(Constants.ELEM_MULTIPOINT, MultiPoint.class);
+    temp.put(Constants.ELEM_LINESTRING, LineString.class);
+    temp.put("MultiLineString", MultiLineString.class);
+    temp.put(Constants.ELEM_POLYGON, Polygon.class);
+    temp.put("MultiPolygon", MultiPolygon.class);
+    temp.put("GeometryCollection", GeospatialCollection.class);
+    jsonNameToGeoDataType = Collections.unmodifiableMap(temp);
+  }
+
+  /** Thread-safe mapper shared by all deserializers; its factory also shares recycled buffers and symbol tables. */
+  static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true);
+
+  private final boolean isIEEE754Compatible;
+  private final ServiceMetadata serviceMetadata;
+
+  JsonDeserializerHelper(final ContentType contentType, final ServiceMetadata serviceMetadata) {
+    isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
+    this.serviceMetadata = serviceMetadata;
+  }
+
+  /**
+   * Reads a geospatial JSON value following the GeoJSON specification defined in RFC 7946.
+   * @param name property name
+   * @param type EDM type of the value
+   *             (can be <code>null</code> for recursive calls while parsing a GeometryCollection)
+   */
+  Geospatial readPrimitiveGeoValue(final String name, final EdmPrimitiveType type, ObjectNode jsonNode)
+      throws DeserializerException, EdmPrimitiveTypeException {
+    JsonNode typeNode = jsonNode.remove(Constants.ATTR_TYPE);
+    if (typeNode != null && typeNode.isTextual()) {
+      final Class<? extends Geospatial> geoDataType = jsonNameToGeoDataType.get(typeNode.asText());
+      if (geoDataType != null && (type == null || geoDataType.equals(type.getDefaultType()))) {
+        final JsonNode topNode = jsonNode.remove(
+            geoDataType.equals(GeospatialCollection.class) ? Constants.JSON_GEOMETRIES : Constants.JSON_COORDINATES);
+
+        SRID srid = null;
+        if (jsonNode.has(Constants.JSON_CRS)) {
+          srid = SRID.valueOf(
+          jsonNode.remove(Constants.JSON_CRS).get(Constants.PROPERTIES).
+            get(Constants.JSON_NAME).asText().split(":")[1]);
+        }
+        
+        assertJsonNodeIsEmpty(jsonNode);
+
+        if (topNode != null && topNode.isArray()) {
+          final Geospatial.Dimension dimension = type == null || type.getName().startsWith("Geometry") ?
+              Geospatial.Dimension.GEOMETRY :
+              Geospatial.Dimension.GEOGRAPHY;
+          if (geoDataType.equals(Point.class)) {
+            return readGeoPointValue(name, dimension, topNode, srid);
+          } else if (geoDataType.equals(MultiPoint.class)) {
+            return new MultiPoint(dimension, srid, readGeoPointValues(name, dimension, 0, false, topNode));
+          } else if (geoDataType.equals(LineString.class)) {
+            // Although a line string with less than two points is not really one, the OData specification says:
+            // "The coordinates member of a LineString can have zero or more positions".
+            // Therefore the required minimal size of the points array currently is zero.
+            return new LineString(dimension, srid, readGeoPointValues(name, dimension, 0, false, topNode));
+          } else if (geoDataType.equals(MultiLineString.class)) {
+            List<LineString> lines = new ArrayList<LineString>();
+            for (final JsonNode element : topNode) {
+              // Line strings can be empty (see above).
+              lines.add(new LineString(dimension, srid, readGeoPointValues(name, dimension, 0, false, element)));
+            }
+            return new MultiLineString(dimension, srid, lines);
+          } else if (geoDataType.equals(Polygon.class)) {
+            return readGeoPolygon(name, dimension, topNode, srid);
+          } else if (geoDataType.equals(MultiPolygon.class)) {
+            List<Polygon> polygons = new ArrayList<Polygon>();
+            for (final JsonNode element : topNode) {
+              polygons.add(readGeoPolygon(name, dimension, element, null));
+            }
+            return new MultiPolygon(dimension, srid, polygons);
+          } else if (geoDataType.equals(GeospatialCollection.class)) {
+            List<Geospatial> elements = new ArrayList<Geospatial>();
+            for (final JsonNode element : topNode) {
+              if (element.isObject()) {
+                elements.add(readPrimitiveGeoValue(name, null, (ObjectNode) element));
+              } else {
+                throw new DeserializerException("Invalid value '" + element + "' in property: " + name,
+                    DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
+              }
+            }
+            return new GeospatialCollection(dimension, srid, elements);
+          }
+        }
+      }
+    }
+    throw new DeserializerException("Invalid value '" + jsonNode + "' for property: " + name,
+        DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
+  }
+
+  private Point readGeoPointValue(final String name, final Geospatial.Dimension dimension, JsonNode node, SRID srid)
+      throws DeserializerException, EdmPrimitiveTypeException {
+    if (node.isArray() && (node.size() ==2 || node.size() == 3)
+        && node.get(0).isNumber() && node.get(1).isNumber() && (node.get(2) == null || node.get(2).isNumber())) {
+      Point point = new Point(dimension, srid);
+      point.setX(getDoubleValue(node.get(0).asText()));
+      point.setY(getDoubleValue(node.get(1).asText()));
+      if (node.get(2) != null) {
+        point.setZ(getDoubleValue(node.get(2).asText()));
+      }
+      return point;
+    }
+    throw new DeserializerException("Invalid point value '" + node + "' in property: " + name,
+        DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
+  }
+
+  private double getDoubleValue(final String value) throws EdmPrimitiveTypeException {
+    final BigDecimal bigDecimalValue = new BigDecimal(value);
+    final Double result = bigDecimalValue.doubleValue();
+    // "Real" infinite values cannot occur, so we can throw an exception
+    // if the conversion to a double results in an infinite value.
+    // An exception is also thrown if the number cannot be stored in a double without loss.
+    if (result.isInfinite() || BigDecimal.valueOf(result).compareTo(bigDecimalValue) != 0) {
+      throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+    }
+    return result;
+  }
+
+  private List<Point> readGeoPointValues(final String name, final Geospatial.Dimension dimension,
+      final int minimalSize, final boolean closed, JsonNode node)
+      throws DeserializerException, EdmPrimitiveTypeException {
+    if (node.isArray()) {
+      List<Point> points = new ArrayList<Point>();
+      for (final JsonNode element : node) {
+        points.add(readGeoPointValue(name, dimension, element, null));
+      }
+      if (points.size() >= minimalSize
+          && (!closed || points.get(points.size() - 1).equals(points.get(0)))) {
+          return points;
+      }
+    }
+    throw new DeserializerException("Invalid point values '" + node + "' in property: " + name,
+        DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
+  }
+
+  private Polygon readGeoPolygon(final String name, final Geospatial.Dimension dimension, JsonNode node, SRID srid)
+      throws DeserializerException, EdmPrimitiveTypeException {
+    // GeoJSON would allow for more than one interior polygon (hole).
+    // But there is no place in the data object to store this information so for now we throw an error.
+    // There could be a more strict verification that the lines describe boundaries and have the correct winding order.
+    if (node.isArray() && (node.size() == 1 || node.size() == 2)) {
+      return new Polygon(dimension, srid,
+          node.size() > 1 ? readGeoPointValues(name, dimension, 4, true, node.get(1)) : null,
+          readGeoPointValues(name, dimension, 4, true, node.get(0)));
+    }
+    throw new DeserializerException("Invalid polygon values '" + node + "' in property: " + name,
+        DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
+  }
+
+  /**
+   * Returns the primitive type's default class or the manually mapped class if present.
+   * @param mapping
+   * @param edmPrimitiveType
+   * @return the java class to be used during deserialization
+   */
+  static Class<?> getJavaClassForPrimitiveType(final EdmMapping mapping, final EdmPrimitiveType type) {
+    final EdmPrimitiveType edmPrimitiveType =
+        type.getKind() == EdmTypeKind.ENUM ? ((EdmEnumType) type).getUnderlyingType() : type
+            .getKind() == EdmTypeKind.DEFINITION ? ((EdmTypeDefinition) type).getUnderlyingType() : type;
+    return mapping == null || mapping.getMappedJavaClass() == null ? edmPrimitiveType.getDefaultType() : mapping
+        .getMappedJavaClass();
+  }
+
+  /**
+   * Validates that node is empty (<code>node.size() == 0</code>).
+   * @param node node to be checked
+   * @throws DeserializerException if node is not empty
+   */
+  static void assertJsonNodeIsEmpty(final JsonNode node) throws DeserializerException {
+    if (node.size() != 0) {
+      final String unknownField = node.fieldNames().next();
+      throw new DeserializerException("Tree should be empty but still has content left: " + unknownField,
+          DeserializerException.MessageKeys.UNKNOWN_CONTENT, unknownField);
+    }
+  }
+
+  void checkJsonTypeBasedOnPrimitiveType(final String propertyName, final EdmPrimitiveType edmPrimitiveType,
+      final JsonNodeType nodeType) throws DeserializerException {
+    boolean valid = true;
+    if (edmPrimitiveType.getKind() == EdmTypeKind.DEFINITION) {
+      checkJsonTypeBasedOnPrimitiveType(propertyName,
+          ((EdmTypeDefinition) edmPrimitiveType).getUnderlyingType(), nodeType);
+    } else if (edmPrimitiveType.getKind() == EdmTypeKind.ENUM) {
+      // Enum values must be strings.
+      valid = nodeType == JsonNodeType.STRING;
+    } else {
+      final String name = edmPrimitiveType.getName();
+      EdmPrimitiveTypeKind primKind;
+      try {
+        primKind = EdmPrimitiveTypeKind.valueOf(name);
+      } catch (final IllegalArgumentException e) {
+        throw new DeserializerException("Unknown Primitive Type: " + name, e,
+            DeserializerException.MessageKeys.UNKNOWN_PRIMITIVE_TYPE, name, propertyName);
+      }
+      valid = matchTextualCase(nodeType, primKind)
+          || matchNumberCase(nodeType, primKind)
+          || matchBooleanCase(nodeType, primKind)
+          || matchIEEENumberCase(nodeType, primKind)
+          || nodeType == JsonNodeType.OBJECT && name.startsWith("Geo");
+    }
+    if (!valid) {
+      throw new DeserializerException(
+          "Invalid json type: " + nodeType + " for " + edmPrimitiveType + " property: " + propertyName,
+          DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, propertyName);
+    }
+  }
+
+  private boolean matchIEEENumberCase(final JsonNodeType nodeType, final EdmPrimitiveTypeKind primKind) {
+    return (isIEEE754Compatible ? nodeType == JsonNodeType.STRING : nodeType == JsonNodeType.NUMBER)
+        && (primKind == EdmPrimitiveTypeKind.Int64 || primKind == EdmPrimitiveTypeKind.Decimal);
+  }
+
+  private boolean matchBooleanCase(final JsonNodeType nodeType, final EdmPrimitiveTypeKind primKind) {
+    return nodeType == JsonNodeType.BOOLEAN && primKind == EdmPrimitiveTypeKind.Boolean;
+  }
+
+  private boolean matchNumberCase(final JsonNodeType nodeType, final EdmPrimitiveTypeKind primKind) {
+    return nodeType == JsonNodeType.NUMBER &&
+        (primKind == EdmPrimitiveTypeKind.Int16
+            || primKind == EdmPrimitiveTypeKind.Int32
+            || primKind == EdmPrimitiveTypeKind.Byte
+            || primKind == EdmPrimitiveTypeKind.SByte
+            || primKind == EdmPrimitiveTypeKind.Single
+            || primKind == EdmPrimitiveTypeKind.Double);
+  }
+
+  private boolean matchTextualCase(final JsonNodeType nodeType, final EdmPrimitiveTypeKind primKind) {
+    return nodeType == JsonNodeType.STRING &&
+        (primKind == EdmPrimitiveTypeKind.String
+            || primKind == EdmPrimitiveTypeKind.Binary
+            || primKind == EdmPrimitiveTypeKind.Date
+            || primKind == EdmPrimitiveTypeKind.DateTimeOffset
+            || primKind == EdmPrimitiveTypeKind.Duration
+            || primKind == EdmPrimitiveTypeKind.Guid
+            || primKind == EdmPrimitiveTypeKind.TimeOfDay);
+  }
+
+  static DeserializerException wrapParseException(final IOException e) {
+    if (e instanceof JsonParseException) {
+      return new DeserializerException("A JsonParseException occurred.", e,
+          DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    } else if (e instanceof JsonMappingException) {
+      return new DeserializerException("Duplicate json property detected.", e,
+          DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+    } else {
+      return new DeserializerException("An IOException occurred.", e,
+          DeserializerException.MessageKeys.IO_EXCEPTION);
+    }
+  }
+
+  /**
+   * Resolves the type named by an <code>@odata.type</code> annotation value (e.g., <code>#Namespace.Type</code>)
+   * and checks that it can be used where <code>edmType</code> is expected.
+   * @param edmType the declared type
+   * @param odataTypeAnnotation the annotation value, or <code>null</code> if there is none
+   * @return the derived type, or <code>edmType</code> if no type has been given
+   */
+  EdmStructuredType getDerivedType(final EdmStructuredType edmType, final String odataTypeAnnotation)
+      throws DeserializerException {
+    if (odataTypeAnnotation != null) {
+      String odataType = odataTypeAnnotation;
+      if (!odataType.isEmpty()) {
+        odataType = odataType.substring(1);
+
+        if (odataType.equalsIgnoreCase(edmType.getFullQualifiedName().getFullQualifiedNameAsString())) {
+          return edmType;
+        } else if (serviceMetadata == null) {
+          throw new DeserializerException(
+              "Failed to resolve Odata type " + odataType + " due to metadata is not available",
+              DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+        }
+
+        final EdmStructuredType currentEdmType = edmType.getKind() == EdmTypeKind.ENTITY ?
+            serviceMetadata.getEdm().getEntityType(new FullQualifiedName(odataType)) :
+            serviceMetadata.getEdm().getComplexType(new FullQualifiedName(odataType));
+        if (!isAssignable(edmType, currentEdmType)) {
+          throw new DeserializerException("Odata type " + odataType + " not allowed here",
+              DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+        }
+
+        return currentEdmType;
+      }
+    }
+    return edmType;
+  }
+
+  private boolean isAssignable(final EdmStructuredType edmStructuredType,
+      final EdmStructuredType edmStructuredTypeToAssign) {
+    return edmStructuredTypeToAssign != null
+        && (edmStructuredType.getFullQualifiedName().equals(edmStructuredTypeToAssign.getFullQualifiedName())
+            || isAssignable(edmStructuredType, edmStructuredTypeToAssign.getBaseType()));
+  }
+}
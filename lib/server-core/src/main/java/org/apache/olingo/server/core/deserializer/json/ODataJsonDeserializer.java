@@ -20,12 +20,9 @@ package org.apache.olingo.server.core.deserializer.json;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -49,28 +46,15 @@ import org.apache.olingo.commons.api.data.ValueType;
 import org.apache.olingo.commons.api.edm.EdmAction;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
-import org.apache.olingo.commons.api.edm.EdmEnumType;
 import org.apache.olingo.commons.api.edm.EdmMapping;
 import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
 import org.apache.olingo.commons.api.edm.EdmParameter;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
-import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
 import org.apache.olingo.commons.api.edm.EdmProperty;
 import org.apache.olingo.commons.api.edm.EdmStructuredType;
 import org.apache.olingo.commons.api.edm.EdmType;
-import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
-import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
-import org.apache.olingo.commons.api.edm.geo.Geospatial;
-import org.apache.olingo.commons.api.edm.geo.GeospatialCollection;
-import org.apache.olingo.commons.api.edm.geo.LineString;
-import org.apache.olingo.commons.api.edm.geo.MultiLineString;
-import org.apache.olingo.commons.api.edm.geo.MultiPoint;
-import org.apache.olingo.commons.api.edm.geo.MultiPolygon;
-import org.apache.olingo.commons.api.edm.geo.Point;
-import org.apache.olingo.commons.api.edm.geo.Polygon;
-import org.apache.olingo.commons.api.edm.geo.SRID;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
@@ -81,39 +65,19 @@ import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.core.deserializer.DeserializerResultImpl;
 import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilder;
 import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilderImpl;
-import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class ODataJsonDeserializer implements ODataDeserializer {
 
-  private static final Map<String, Class<? extends Geospatial>> jsonNameToGeoDataType;
-  static {
-    Map<String, Class<? extends Geospatial>> temp = new HashMap<String, Class<? extends Geospatial>>();
-    temp.put(Constants.ELEM_POINT, Point.class);
-    temp.put(Constants.ELEM_MULTIPOINT, MultiPoint.class);
-    temp.put(Constants.ELEM_LINESTRING, LineString.class);
-    temp.put("MultiLineString", MultiLineString.class);
-    temp.put(Constants.ELEM_POLYGON, Polygon.class);
-    temp.put("MultiPolygon", MultiPolygon.class);
-    temp.put("GeometryCollection", GeospatialCollection.class);
-    jsonNameToGeoDataType = Collections.unmodifiableMap(temp);
-  }
-
   private static final String ODATA_ANNOTATION_MARKER = "@";
   private static final String ODATA_CONTROL_INFORMATION_PREFIX = "@odata.";
   private static final String REASON = "reason";
 
-  private final boolean isIEEE754Compatible;
-  private ServiceMetadata serviceMetadata;
+  private final JsonDeserializerHelper helper;
   private IConstants constants;
 
   public ODataJsonDeserializer(final ContentType contentType) {
@@ -121,19 +85,17 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   }
 
   public ODataJsonDeserializer(final ContentType contentType, final ServiceMetadata serviceMetadata) {
-    isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
-    this.serviceMetadata = serviceMetadata;
+    helper = new JsonDeserializerHelper(contentType, serviceMetadata);
     this.constants = new Constantsv00();
   }
 
   public ODataJsonDeserializer(ContentType contentType, ServiceMetadata serviceMetadata, IConstants constants) {
-    isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
-    this.serviceMetadata = serviceMetadata;
+    helper = new JsonDeserializerHelper(contentType, serviceMetadata);
     this.constants = constants;
   }
 
   public ODataJsonDeserializer(ContentType contentType, IConstants constants) {
-    isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
+    helper = new JsonDeserializerHelper(contentType, null);
     this.constants = constants;
   }
 
@@ -145,7 +107,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
           consumeEntityCollectionNode(edmEntityType, parseJsonTree(stream), null))
           .build();
     } catch (final IOException e) {
-      throw wrapParseException(e);
+      throw JsonDeserializerHelper.wrapParseException(e);
     }
   }
 
@@ -166,7 +128,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     if (tree.isObject()) {
       removeAnnotations(tree);
     }
-    assertJsonNodeIsEmpty(tree);
+    JsonDeserializerHelper.assertJsonNodeIsEmpty(tree);
 
     return entitySet;
   }
@@ -203,7 +165,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
           .expandOption(expandBuilder.build())
           .build();
     } catch (final IOException e) {
-      throw wrapParseException(e);
+      throw JsonDeserializerHelper.wrapParseException(e);
     }
   }
 
@@ -227,7 +189,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     // consume remaining json node fields
     consumeRemainingJsonNodeFields(edmEntityType, tree, entity);
 
-    assertJsonNodeIsEmpty(tree);
+    JsonDeserializerHelper.assertJsonNodeIsEmpty(tree);
 
     return entity;
   }
@@ -311,18 +273,16 @@ public class ODataJsonDeserializer implements ODataDeserializer {
       if (tree.isObject()) {
         removeAnnotations(tree);
       }
-      assertJsonNodeIsEmpty(tree);
+      JsonDeserializerHelper.assertJsonNodeIsEmpty(tree);
       return DeserializerResultImpl.with().actionParameters(parameters).build();
 
     } catch (final IOException e) {
-      throw wrapParseException(e);
+      throw JsonDeserializerHelper.wrapParseException(e);
     }
   }
 
   private ObjectNode parseJsonTree(final InputStream stream) throws IOException, DeserializerException {
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true);
-    JsonParser parser = new JsonFactory(objectMapper).createParser(stream);
+    JsonParser parser = JsonDeserializerHelper.OBJECT_MAPPER.getFactory().createParser(stream);
     final JsonNode tree = parser.getCodec().readTree(parser);
     if (tree == null || !tree.isObject()) {
       throw new DeserializerException("Invalid JSON syntax.",
@@ -399,9 +359,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   /** Reads a parameter value from a String. */
   public Parameter parameter(final String content, final EdmParameter parameter) throws DeserializerException {
     try {
-      JsonParser parser = new JsonFactory(new ObjectMapper()
-          .configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true))
-              .createParser(content);
+      JsonParser parser = JsonDeserializerHelper.OBJECT_MAPPER.getFactory().createParser(content);
       JsonNode node = parser.getCodec().readTree(parser);
       if (node == null) {
         throw new DeserializerException("Invalid JSON syntax.",
@@ -410,11 +368,11 @@ public class ODataJsonDeserializer implements ODataDeserializer {
       final Parameter result = createParameter(node, parameter.getName(), parameter);
       if (node.isObject()) {
         removeAnnotations((ObjectNode) node);
-        assertJsonNodeIsEmpty(node);
+        JsonDeserializerHelper.assertJsonNodeIsEmpty(node);
       }
       return result;
     } catch (final IOException e) {
-      throw wrapParseException(e);
+      throw JsonDeserializerHelper.wrapParseException(e);
     }
   }
 
@@ -636,7 +594,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
       removeAnnotations((ObjectNode) jsonNode);
     }
     // Afterwards the node must be empty
-    assertJsonNodeIsEmpty(jsonNode);
+    JsonDeserializerHelper.assertJsonNodeIsEmpty(jsonNode);
 
     return value;
   }
@@ -727,14 +685,14 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     if (!isGeoType) {
       checkForValueNode(name, jsonNode);
     }
-    checkJsonTypeBasedOnPrimitiveType(name, type, jsonNode);
+    helper.checkJsonTypeBasedOnPrimitiveType(name, type, jsonNode.getNodeType());
     try {
       if (isGeoType) {
-        return readPrimitiveGeoValue(name, type, (ObjectNode) jsonNode);
+        return helper.readPrimitiveGeoValue(name, type, (ObjectNode) jsonNode);
       }
       return type.valueOfString(jsonNode.asText(),
           isNullable, maxLength, precision, scale, isUnicode,
-          getJavaClassForPrimitiveType(mapping, type));
+          JsonDeserializerHelper.getJavaClassForPrimitiveType(mapping, type));
     } catch (final EdmPrimitiveTypeException e) {
       throw new DeserializerException(
           "Invalid value: " + jsonNode.asText() + " for property: " + name, e,
@@ -755,150 +713,6 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     return false;
   }
 
-  /**
-   * Reads a geospatial JSON value following the GeoJSON specification defined in RFC 7946.
-   * @param name property name
-   * @param type EDM type of the value
-   *             (can be <code>null</code> for recursive calls while parsing a GeometryCollection)
-   */
-  private Geospatial readPrimitiveGeoValue(final String name, final EdmPrimitiveType type, ObjectNode jsonNode)
-      throws DeserializerException, EdmPrimitiveTypeException {
-    JsonNode typeNode = jsonNode.remove(Constants.ATTR_TYPE);
-    if (typeNode != null && typeNode.isTextual()) {
-      final Class<? extends Geospatial> geoDataType = jsonNameToGeoDataType.get(typeNode.asText());
-      if (geoDataType != null && (type == null || geoDataType.equals(type.getDefaultType()))) {
-        final JsonNode topNode = jsonNode.remove(
-            geoDataType.equals(GeospatialCollection.class) ? Constants.JSON_GEOMETRIES : Constants.JSON_COORDINATES);
-
-        SRID srid = null;
-        if (jsonNode.has(Constants.JSON_CRS)) {
-          srid = SRID.valueOf(
-          jsonNode.remove(Constants.JSON_CRS).get(Constants.PROPERTIES).
-            get(Constants.JSON_NAME).asText().split(":")[1]);
-        }
-        
-        assertJsonNodeIsEmpty(jsonNode);
-
-        if (topNode != null && topNode.isArray()) {
-          final Geospatial.Dimension dimension = type == null || type.getName().startsWith("Geometry") ?
-              Geospatial.Dimension.GEOMETRY :
-              Geospatial.Dimension.GEOGRAPHY;
-          if (geoDataType.equals(Point.class)) {
-            return readGeoPointValue(name, dimension, topNode, srid);
-          } else if (geoDataType.equals(MultiPoint.class)) {
-            return new MultiPoint(dimension, srid, readGeoPointValues(name, dimension, 0, false, topNode));
-          } else if (geoDataType.equals(LineString.class)) {
-            // Although a line string with less than two points is not really one, the OData specification says:
-            // "The coordinates member of a LineString can have zero or more positions".
-            // Therefore the required minimal size of the points array currently is zero.
-            return new LineString(dimension, srid, readGeoPointValues(name, dimension, 0, false, topNode));
-          } else if (geoDataType.equals(MultiLineString.class)) {
-            List<LineString> lines = new ArrayList<LineString>();
-            for (final JsonNode element : topNode) {
-              // Line strings can be empty (see above).
-              lines.add(new LineString(dimension, srid, readGeoPointValues(name, dimension, 0, false, element)));
-            }
-            return new MultiLineString(dimension, srid, lines);
-          } else if (geoDataType.equals(Polygon.class)) {
-            return readGeoPolygon(name, dimension, topNode, srid);
-          } else if (geoDataType.equals(MultiPolygon.class)) {
-            List<Polygon> polygons = new ArrayList<Polygon>();
-            for (final JsonNode element : topNode) {
-              polygons.add(readGeoPolygon(name, dimension, element, null));
-            }
-            return new MultiPolygon(dimension, srid, polygons);
-          } else if (geoDataType.equals(GeospatialCollection.class)) {
-            List<Geospatial> elements = new ArrayList<Geospatial>();
-            for (final JsonNode element : topNode) {
-              if (element.isObject()) {
-                elements.add(readPrimitiveGeoValue(name, null, (ObjectNode) element));
-              } else {
-                throw new DeserializerException("Invalid value '" + element + "' in property: " + name,
-                    DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
-              }
-            }
-            return new GeospatialCollection(dimension, srid, elements);
-          }
-        }
-      }
-    }
-    throw new DeserializerException("Invalid value '" + jsonNode + "' for property: " + name,
-        DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
-  }
-
-  private Point readGeoPointValue(final String name, final Geospatial.Dimension dimension, JsonNode node, SRID srid)
-      throws DeserializerException, EdmPrimitiveTypeException {
-    if (node.isArray() && (node.size() ==2 || node.size() == 3)
-        && node.get(0).isNumber() && node.get(1).isNumber() && (node.get(2) == null || node.get(2).isNumber())) {
-      Point point = new Point(dimension, srid);
-      point.setX(getDoubleValue(node.get(0).asText()));
-      point.setY(getDoubleValue(node.get(1).asText()));
-      if (node.get(2) != null) {
-        point.setZ(getDoubleValue(node.get(2).asText()));
-      }
-      return point;
-    }
-    throw new DeserializerException("Invalid point value '" + node + "' in property: " + name,
-        DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
-  }
-
-  private double getDoubleValue(final String value) throws EdmPrimitiveTypeException {
-    final BigDecimal bigDecimalValue = new BigDecimal(value);
-    final Double result = bigDecimalValue.doubleValue();
-    // "Real" infinite values cannot occur, so we can throw an exception
-    // if the conversion to a double results in an infinite value.
-    // An exception is also thrown if the number cannot be stored in a double without loss.
-    if (result.isInfinite() || BigDecimal.valueOf(result).compareTo(bigDecimalValue) != 0) {
-      throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
-    }
-    return result;
-  }
-
-  private List<Point> readGeoPointValues(final String name, final Geospatial.Dimension dimension,
-      final int minimalSize, final boolean closed, JsonNode node)
-      throws DeserializerException, EdmPrimitiveTypeException {
-    if (node.isArray()) {
-      List<Point> points = new ArrayList<Point>();
-      for (final JsonNode element : node) {
-        points.add(readGeoPointValue(name, dimension, element, null));
-      }
-      if (points.size() >= minimalSize
-          && (!closed || points.get(points.size() - 1).equals(points.get(0)))) {
-          return points;
-      }
-    }
-    throw new DeserializerException("Invalid point values '" + node + "' in property: " + name,
-        DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
-  }
-
-  private Polygon readGeoPolygon(final String name, final Geospatial.Dimension dimension, JsonNode node, SRID srid)
-      throws DeserializerException, EdmPrimitiveTypeException {
-    // GeoJSON would allow for more than one interior polygon (hole).
-    // But there is no place in the data object to store this information so for now we throw an error.
-    // There could be a more strict verification that the lines describe boundaries and have the correct winding order.
-    if (node.isArray() && (node.size() == 1 || node.size() == 2)) {
-      return new Polygon(dimension, srid,
-          node.size() > 1 ? readGeoPointValues(name, dimension, 4, true, node.get(1)) : null,
-          readGeoPointValues(name, dimension, 4, true, node.get(0)));
-    }
-    throw new DeserializerException("Invalid polygon values '" + node + "' in property: " + name,
-        DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
-  }
-
-  /**
-   * Returns the primitive type's default class or the manually mapped class if present.
-   * @param mapping
-   * @param edmPrimitiveType
-   * @return the java class to be used during deserialization
-   */
-  private Class<?> getJavaClassForPrimitiveType(final EdmMapping mapping, final EdmPrimitiveType type) {
-    final EdmPrimitiveType edmPrimitiveType =
-        type.getKind() == EdmTypeKind.ENUM ? ((EdmEnumType) type).getUnderlyingType() : type
-            .getKind() == EdmTypeKind.DEFINITION ? ((EdmTypeDefinition) type).getUnderlyingType() : type;
-    return mapping == null || mapping.getMappedJavaClass() == null ? edmPrimitiveType.getDefaultType() : mapping
-        .getMappedJavaClass();
-  }
-
   /**
    * Check if JsonNode is a value node (<code>jsonNode.isValueNode()</code>) and if not throw
    * an DeserializerException.
@@ -935,80 +749,6 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     tree.remove(toRemove);
   }
 
-  /**
-   * Validates that node is empty (<code>node.size() == 0</code>).
-   * @param node node to be checked
-   * @throws DeserializerException if node is not empty
-   */
-  private void assertJsonNodeIsEmpty(final JsonNode node) throws DeserializerException {
-    if (node.size() != 0) {
-      final String unknownField = node.fieldNames().next();
-      throw new DeserializerException("Tree should be empty but still has content left: " + unknownField,
-          DeserializerException.MessageKeys.UNKNOWN_CONTENT, unknownField);
-    }
-  }
-
-  private void checkJsonTypeBasedOnPrimitiveType(final String propertyName, final EdmPrimitiveType edmPrimitiveType,
-      final JsonNode jsonNode) throws DeserializerException {
-    boolean valid = true;
-    if (edmPrimitiveType.getKind() == EdmTypeKind.DEFINITION) {
-      checkJsonTypeBasedOnPrimitiveType(propertyName,
-          ((EdmTypeDefinition) edmPrimitiveType).getUnderlyingType(), jsonNode);
-    } else if (edmPrimitiveType.getKind() == EdmTypeKind.ENUM) {
-      // Enum values must be strings.
-      valid = jsonNode.isTextual();
-    } else {
-      final String name = edmPrimitiveType.getName();
-      EdmPrimitiveTypeKind primKind;
-      try {
-        primKind = EdmPrimitiveTypeKind.valueOf(name);
-      } catch (final IllegalArgumentException e) {
-        throw new DeserializerException("Unknown Primitive Type: " + name, e,
-            DeserializerException.MessageKeys.UNKNOWN_PRIMITIVE_TYPE, name, propertyName);
-      }
-      valid = matchTextualCase(jsonNode, primKind)
-          || matchNumberCase(jsonNode, primKind)
-          || matchBooleanCase(jsonNode, primKind)
-          || matchIEEENumberCase(jsonNode, primKind)
-          || jsonNode.isObject() && name.startsWith("Geo");
-    }
-    if (!valid) {
-      throw new DeserializerException(
-          "Invalid json type: " + jsonNode.getNodeType() + " for " + edmPrimitiveType + " property: " + propertyName,
-          DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, propertyName);
-    }
-  }
-
-  private boolean matchIEEENumberCase(final JsonNode node, final EdmPrimitiveTypeKind primKind) {
-    return (isIEEE754Compatible ? node.isTextual() : node.isNumber())
-        && (primKind == EdmPrimitiveTypeKind.Int64 || primKind == EdmPrimitiveTypeKind.Decimal);
-  }
-
-  private boolean matchBooleanCase(final JsonNode node, final EdmPrimitiveTypeKind primKind) {
-    return node.isBoolean() && primKind == EdmPrimitiveTypeKind.Boolean;
-  }
-
-  private boolean matchNumberCase(final JsonNode node, final EdmPrimitiveTypeKind primKind) {
-    return node.isNumber() &&
-        (primKind == EdmPrimitiveTypeKind.Int16
-            || primKind == EdmPrimitiveTypeKind.Int32
-            || primKind == EdmPrimitiveTypeKind.Byte
-            || primKind == EdmPrimitiveTypeKind.SByte
-            || primKind == EdmPrimitiveTypeKind.Single
-            || primKind == EdmPrimitiveTypeKind.Double);
-  }
-
-  private boolean matchTextualCase(final JsonNode node, final EdmPrimitiveTypeKind primKind) {
-    return node.isTextual() &&
-        (primKind == EdmPrimitiveTypeKind.String
-            || primKind == EdmPrimitiveTypeKind.Binary
-            || primKind == EdmPrimitiveTypeKind.Date
-            || primKind == EdmPrimitiveTypeKind.DateTimeOffset
-            || primKind == EdmPrimitiveTypeKind.Duration
-            || primKind == EdmPrimitiveTypeKind.Guid
-            || primKind == EdmPrimitiveTypeKind.TimeOfDay);
-  }
-
   @Override
   public DeserializerResult property(final InputStream stream, final EdmProperty edmProperty)
       throws DeserializerException {
@@ -1033,7 +773,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
       }
       return DeserializerResultImpl.with().property(property).build();
     } catch (final IOException e) {
-      throw wrapParseException(e);
+      throw JsonDeserializerHelper.wrapParseException(e);
     }
   }
 
@@ -1067,60 +807,16 @@ public class ODataJsonDeserializer implements ODataDeserializer {
       }
       return DeserializerResultImpl.with().entityReferences(parsedValues).build();
     } catch (final IOException e) {
-      throw wrapParseException(e);
+      throw JsonDeserializerHelper.wrapParseException(e);
     } catch (final URISyntaxException e) {
       throw new DeserializerException("failed to read @odata.id", e,
           DeserializerException.MessageKeys.UNKNOWN_CONTENT);
     }
   }
 
-  private DeserializerException wrapParseException(final IOException e) {
-    if (e instanceof JsonParseException) {
-      return new DeserializerException("A JsonParseException occurred.", e,
-          DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
-    } else if (e instanceof JsonMappingException) {
-      return new DeserializerException("Duplicate json property detected.", e,
-          DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
-    } else {
-      return new DeserializerException("An IOException occurred.", e,
-          DeserializerException.MessageKeys.IO_EXCEPTION);
-    }
-  }
-
   private EdmType getDerivedType(final EdmStructuredType edmType, final JsonNode jsonNode)
       throws DeserializerException {
     JsonNode odataTypeNode = jsonNode.get(constants.getType());
-    if (odataTypeNode != null) {
-      String odataType = odataTypeNode.asText();
-      if (!odataType.isEmpty()) {
-        odataType = odataType.substring(1);
-
-        if (odataType.equalsIgnoreCase(edmType.getFullQualifiedName().getFullQualifiedNameAsString())) {
-          return edmType;
-        } else if (this.serviceMetadata == null) {
-          throw new DeserializerException(
-              "Failed to resolve Odata type " + odataType + " due to metadata is not available",
-              DeserializerException.MessageKeys.UNKNOWN_CONTENT);
-        }
-
-        final EdmStructuredType currentEdmType = edmType.getKind() == EdmTypeKind.ENTITY ?
-            serviceMetadata.getEdm().getEntityType(new FullQualifiedName(odataType)) :
-            serviceMetadata.getEdm().getComplexType(new FullQualifiedName(odataType));
-        if (!isAssignable(edmType, currentEdmType)) {
-          throw new DeserializerException("Odata type " + odataType + " not allowed here",
-              DeserializerException.MessageKeys.UNKNOWN_CONTENT);
-        }
-
-        return currentEdmType;
-      }
-    }
-    return edmType;
-  }
-
-  private boolean isAssignable(final EdmStructuredType edmStructuredType,
-      final EdmStructuredType edmStructuredTypeToAssign) {
-    return edmStructuredTypeToAssign != null
-        && (edmStructuredType.getFullQualifiedName().equals(edmStructuredTypeToAssign.getFullQualifiedName())
-            || isAssignable(edmStructuredType, edmStructuredTypeToAssign.getBaseType()));
+    return helper.getDerivedType(edmType, odataTypeNode == null ? null : odataTypeNode.asText());
   }
 }
@@ -0,0 +1,775 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.IConstants;
+import org.apache.olingo.commons.api.constants.Constantsv00;
+import org.apache.olingo.commons.api.constants.Constantsv01;
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.DeletedEntity;
+import org.apache.olingo.commons.api.data.DeletedEntity.Reason;
+import org.apache.olingo.commons.api.data.Delta;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmComplexType;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmMapping;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.deserializer.DeserializerException.MessageKeys;
+import org.apache.olingo.server.api.deserializer.DeserializerResult;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.deserializer.DeserializerResultImpl;
+import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilder;
+import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilderImpl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * JSON deserializer that builds entities directly from the tokens of the request body
+ * instead of reading the whole body into a Jackson tree first.
+ * <p>Entities and entity collections (including deep inserts, binding links and v4.01 delta payloads)
+ * are read in a single pass; the results are the same as the ones of {@link ODataJsonDeserializer}.
+ * Action parameters, properties and entity references are small and are read by the super class.</p>
+ * <p>The <code>@odata.type</code> annotation may appear anywhere in an object; fields that only the
+ * derived type knows are buffered until the end of the object.</p>
+ */
+public class ODataJsonStreamDeserializer extends ODataJsonDeserializer {
+
+  private static final String ODATA_ANNOTATION_MARKER = "@";
+  private static final String ODATA_CONTROL_INFORMATION_PREFIX = "@odata.";
+  private static final String DELTA = Constants.AT + Constants.DELTAVALUE;
+  private static final String REMOVED = Constants.AT + Constants.REMOVED;
+  private static final String REASON = "reason";
+
+  private final JsonDeserializerHelper helper;
+  private final IConstants constants;
+
+  public ODataJsonStreamDeserializer(final ContentType contentType, final ServiceMetadata serviceMetadata) {
+    this(contentType, serviceMetadata, new Constantsv00());
+  }
+
+  public ODataJsonStreamDeserializer(final ContentType contentType, final ServiceMetadata serviceMetadata,
+      final IConstants constants) {
+    super(contentType, serviceMetadata, constants);
+    helper = new JsonDeserializerHelper(contentType, serviceMetadata);
+    this.constants = constants;
+  }
+
+  @Override
+  public DeserializerResult entityCollection(final InputStream stream, final EdmEntityType edmEntityType)
+      throws DeserializerException {
+    JsonParser parser = null;
+    try {
+      parser = createParser(stream);
+      final ObjectFields fields = new ObjectFields();
+      EntityCollection entitySet = null;
+      String name;
+      while ((name = nextField(parser, fields)) != null) {
+        if (Constants.VALUE.equals(name)) {
+          entitySet = new EntityCollection();
+          readEntitySetArray(parser, edmEntityType, entitySet.getEntities());
+        } else if (!consumeAnnotation(parser, name, fields)) {
+          fields.setUnknownField(name);
+          parser.skipChildren();
+        }
+      }
+      if (entitySet == null) {
+        throw new DeserializerException("Could not find value array.",
+            DeserializerException.MessageKeys.VALUE_ARRAY_NOT_PRESENT);
+      }
+      assertFieldsConsumed(fields);
+      return DeserializerResultImpl.with().entityCollection(entitySet).build();
+    } catch (final IOException e) {
+      throw JsonDeserializerHelper.wrapParseException(e);
+    } finally {
+      close(parser);
+    }
+  }
+
+  @Override
+  public DeserializerResult entity(final InputStream stream, final EdmEntityType edmEntityType)
+      throws DeserializerException {
+    JsonParser parser = null;
+    try {
+      parser = createParser(stream);
+      final EntityFields fields = readEntity(parser, edmEntityType, true, false);
+      final Entity entity = toEntity(fields);
+
+      // The expand tree is built afterwards so that its items have the same order as in the tree-based reader.
+      final ExpandTreeBuilder expandBuilder = ExpandTreeBuilderImpl.create();
+      buildExpandTree((EdmEntityType) fields.type, entity, expandBuilder);
+
+      return DeserializerResultImpl.with().entity(entity)
+          .expandOption(expandBuilder.build())
+          .build();
+    } catch (final IOException e) {
+      throw JsonDeserializerHelper.wrapParseException(e);
+    } finally {
+      close(parser);
+    }
+  }
+
+  private JsonParser createParser(final InputStream stream) throws IOException, DeserializerException {
+    final JsonParser parser = JsonDeserializerHelper.OBJECT_MAPPER.getFactory().createParser(stream);
+    // The stream belongs to the caller; closing the parser only releases its buffers.
+    parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new DeserializerException("Invalid JSON syntax.",
+          DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    }
+    return parser;
+  }
+
+  private void close(final JsonParser parser) {
+    if (parser != null) {
+      try {
+        parser.close();
+      } catch (final IOException e) {
+        // Nothing left to do.
+      }
+    }
+  }
+
+  /**
+   * Moves to the value of the next field of the current object.
+   * @return the name of the field or <code>null</code> if the end of the object has been reached
+   */
+  private String nextField(final JsonParser parser, final ObjectFields fields)
+      throws IOException, DeserializerException {
+    if (parser.nextToken() != JsonToken.FIELD_NAME) {
+      return null;
+    }
+    final String name = parser.getCurrentName();
+    if (!fields.names.add(name)) {
+      throw new DeserializerException("Duplicate json property detected: " + name,
+          DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+    }
+    parser.nextToken();
+    return name;
+  }
+
+  private void readEntitySetArray(final JsonParser parser, final EdmEntityType edmEntityType,
+      final List<Entity> entities) throws IOException, DeserializerException {
+    if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+      throw new DeserializerException("The content of the value tag must be an Array but is not.",
+          DeserializerException.MessageKeys.VALUE_TAG_MUST_BE_AN_ARRAY);
+    }
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      assertEntityStart(parser);
+      entities.add(toEntity(readEntity(parser, edmEntityType, true, false)));
+    }
+  }
+
+  private void assertEntityStart(final JsonParser parser) throws DeserializerException {
+    if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+      throw new DeserializerException("Nested Arrays and primitive values are not allowed for an entity value.",
+          DeserializerException.MessageKeys.INVALID_ENTITY);
+    }
+  }
+
+  /**
+   * Reads the entity object the parser is positioned at.
+   * @param edmEntityType the declared type
+   * @param derivable whether an <code>@odata.type</code> annotation may select a derived type
+   * @param inDelta whether the entity is part of a delta payload and may be marked as removed
+   */
+  private EntityFields readEntity(final JsonParser parser, final EdmEntityType edmEntityType,
+      final boolean derivable, final boolean inDelta) throws IOException, DeserializerException {
+    final EntityFields fields = new EntityFields(edmEntityType, !derivable);
+    readStructuredFields(parser, fields, edmEntityType, derivable, inDelta);
+    return fields;
+  }
+
+  private void readStructuredFields(final JsonParser parser, final StructuredFields fields,
+      final EdmStructuredType edmType, final boolean derivable, final boolean inDelta)
+      throws IOException, DeserializerException {
+    String name;
+    while ((name = nextField(parser, fields)) != null) {
+      if (derivable && name.equals(constants.getType())) {
+        fields.type = helper.getDerivedType(edmType, getTypeAnnotation(parser));
+        fields.typeFixed = true;
+      } else if (inDelta && REMOVED.equals(name)) {
+        ((EntityFields) fields).removed = JsonDeserializerHelper.OBJECT_MAPPER.readTree(parser);
+      } else if (!consumeField(parser, name, fields)) {
+        fields.defer(name, parser);
+      }
+    }
+
+    // Now that the type is known, fields that could not be interpreted before are read.
+    fields.typeFixed = true;
+    if (fields.deferredNames != null) {
+      // Deferred fields precede all others in the document, so their problems are reported first.
+      final String laterUnknownField = fields.unknownField;
+      fields.unknownField = null;
+      for (int i = 0; i < fields.deferredNames.size(); i++) {
+        final JsonParser bufferParser = fields.deferredValues.get(i).asParser();
+        bufferParser.nextToken();
+        consumeField(bufferParser, fields.deferredNames.get(i), fields);
+        bufferParser.close();
+      }
+      if (fields.unknownField == null) {
+        fields.unknownField = laterUnknownField;
+      }
+    }
+  }
+
+  /**
+   * Consumes the value of a field of a structured object.
+   * @return <code>false</code> if the field could not be interpreted because the final type is not yet known
+   */
+  private boolean consumeField(final JsonParser parser, final String name, final StructuredFields fields)
+      throws IOException, DeserializerException {
+    final EdmProperty edmProperty = fields.type.getStructuralProperty(name);
+    if (edmProperty != null) {
+      if (parser.getCurrentToken() == JsonToken.VALUE_NULL && !edmProperty.isNullable()) {
+        throw new DeserializerException("Property: " + name + " must not be null.",
+            DeserializerException.MessageKeys.INVALID_NULL_PROPERTY, name);
+      }
+      fields.properties.put(name, readProperty(parser, edmProperty.getName(), edmProperty.getType(),
+          edmProperty.isCollection(), edmProperty.isNullable(), edmProperty.getMaxLength(),
+          edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode(), edmProperty.getMapping()));
+      return true;
+    }
+
+    if (fields instanceof EntityFields) {
+      final EntityFields entityFields = (EntityFields) fields;
+      final EdmEntityType edmEntityType = (EdmEntityType) fields.type;
+      if (constants instanceof Constantsv01 && name.equals(constants.getId())) {
+        entityFields.entity.setId(readId(parser));
+        return true;
+      }
+      EdmNavigationProperty edmNavigationProperty = edmEntityType.getNavigationProperty(name);
+      if (edmNavigationProperty != null) {
+        entityFields.links.put(name, readNavigationLink(parser, edmNavigationProperty));
+        return true;
+      }
+      if (constants instanceof Constantsv01 && name.endsWith(DELTA)) {
+        edmNavigationProperty = edmEntityType.getNavigationProperty(name.substring(0, name.length() - DELTA.length()));
+        if (edmNavigationProperty == null && !fields.typeFixed) {
+          return false;
+        }
+        if (edmNavigationProperty != null && edmNavigationProperty.isCollection()
+            && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+          entityFields.deltaLinks.put(edmNavigationProperty.getName(),
+              readDeltaLink(parser, edmNavigationProperty, edmEntityType));
+          return true;
+        }
+      } else if (name.contains(constants.getBind())) {
+        final String navigationPropertyName = name.split(ODATA_ANNOTATION_MARKER)[0];
+        edmNavigationProperty = edmEntityType.getNavigationProperty(navigationPropertyName);
+        if (edmNavigationProperty == null) {
+          if (!fields.typeFixed) {
+            return false;
+          }
+          throw new DeserializerException("Invalid navigationPropertyName: " + navigationPropertyName,
+              DeserializerException.MessageKeys.NAVIGATION_PROPERTY_NOT_FOUND, navigationPropertyName);
+        }
+        entityFields.entity.getNavigationBindings().add(readBindingLink(parser, name, edmNavigationProperty));
+        return true;
+      }
+    }
+
+    if (consumeAnnotation(parser, name, fields)) {
+      return true;
+    }
+    if (!fields.typeFixed) {
+      return false;
+    }
+    fields.setUnknownField(name);
+    parser.skipChildren();
+    return true;
+  }
+
+  /**
+   * Skips the value of an annotation.
+   * @return <code>false</code> if the field is not an annotation
+   */
+  private boolean consumeAnnotation(final JsonParser parser, final String name, final ObjectFields fields)
+      throws IOException {
+    if (name.contains(ODATA_CONTROL_INFORMATION_PREFIX)) {
+      // Control Information is ignored for requests as per specification chapter "4.5 Control Information"
+    } else if (name.contains(ODATA_ANNOTATION_MARKER)) {
+      if (!(constants instanceof Constantsv01) && fields.customAnnotation == null) {
+        fields.customAnnotation = name;
+      }
+    } else {
+      return false;
+    }
+    parser.skipChildren();
+    return true;
+  }
+
+  private void assertFieldsConsumed(final ObjectFields fields) throws DeserializerException {
+    if (fields.customAnnotation != null) {
+      throw new DeserializerException(
+          "Custom annotation with field name: " + fields.customAnnotation + " not supported",
+          DeserializerException.MessageKeys.NOT_IMPLEMENTED);
+    }
+    if (fields.unknownField != null) {
+      throw new DeserializerException("Object should be empty but still has content left: " + fields.unknownField,
+          DeserializerException.MessageKeys.UNKNOWN_CONTENT, fields.unknownField);
+    }
+  }
+
+  private Entity toEntity(final EntityFields fields) throws DeserializerException {
+    assertFieldsConsumed(fields);
+    final EdmEntityType edmEntityType = (EdmEntityType) fields.type;
+    final Entity entity = fields.entity;
+    entity.setType(edmEntityType.getFullQualifiedName().getFullQualifiedNameAsString());
+    for (final String propertyName : edmEntityType.getPropertyNames()) {
+      final Property property = fields.properties.get(propertyName);
+      if (property != null) {
+        entity.addProperty(property);
+      }
+    }
+    final List<String> navigationPropertyNames = edmEntityType.getNavigationPropertyNames();
+    for (final String navigationPropertyName : navigationPropertyNames) {
+      final Link link = fields.links.get(navigationPropertyName);
+      if (link != null) {
+        entity.getNavigationLinks().add(link);
+      }
+    }
+    for (final String navigationPropertyName : navigationPropertyNames) {
+      final Link link = fields.deltaLinks.get(navigationPropertyName);
+      if (link != null) {
+        entity.getNavigationLinks().add(link);
+      }
+    }
+    return entity;
+  }
+
+  private URI readId(final JsonParser parser) throws IOException, DeserializerException {
+    if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+      throw new DeserializerException("Could not form Id",
+          DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+    }
+    try {
+      return new URI(parser.getText());
+    } catch (final URISyntaxException e) {
+      throw new DeserializerException("Could not form Id", e,
+          DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+    }
+  }
+
+  private Link readNavigationLink(final JsonParser parser, final EdmNavigationProperty edmNavigationProperty)
+      throws IOException, DeserializerException {
+    final JsonToken token = parser.getCurrentToken();
+    final String navigationPropertyName = edmNavigationProperty.getName();
+    if (token == JsonToken.VALUE_NULL
+        && (!edmNavigationProperty.isNullable() || edmNavigationProperty.isCollection())) {
+      throw new DeserializerException("Property: " + navigationPropertyName + " must not be null.",
+          MessageKeys.INVALID_NULL_PROPERTY, navigationPropertyName);
+    }
+    Link link = new Link();
+    link.setTitle(navigationPropertyName);
+    if (token == JsonToken.START_ARRAY && edmNavigationProperty.isCollection()) {
+      link.setType(Constants.ENTITY_SET_NAVIGATION_LINK_TYPE);
+      EntityCollection inlineEntitySet = new EntityCollection();
+      readEntitySetArray(parser, edmNavigationProperty.getType(), inlineEntitySet.getEntities());
+      link.setInlineEntitySet(inlineEntitySet);
+    } else if ((token == JsonToken.START_OBJECT || token == JsonToken.VALUE_NULL)
+        && !edmNavigationProperty.isCollection()) {
+      link.setType(Constants.ENTITY_NAVIGATION_LINK_TYPE);
+      if (token == JsonToken.START_OBJECT) {
+        link.setInlineEntity(toEntity(readEntity(parser, edmNavigationProperty.getType(), true, false)));
+      }
+    } else {
+      throw new DeserializerException("Invalid value: " + getNodeType(token)
+          + " for expanded navigation property: " + navigationPropertyName,
+          MessageKeys.INVALID_VALUE_FOR_NAVIGATION_PROPERTY, navigationPropertyName);
+    }
+    return link;
+  }
+
+  /**
+   * Reads the content of a <code>navigationProperty@delta</code> array.
+   * Like {@link ODataJsonDeserializer}, entities in there are read as entities of the containing type.
+   */
+  private Link readDeltaLink(final JsonParser parser, final EdmNavigationProperty edmNavigationProperty,
+      final EdmEntityType edmEntityType) throws IOException, DeserializerException {
+    Link link = new Link();
+    link.setType(Constants.ENTITY_SET_NAVIGATION_LINK_TYPE);
+    link.setTitle(edmNavigationProperty.getName());
+    Delta deltaValue = new Delta();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      assertEntityStart(parser);
+      final EntityFields fields = readEntity(parser, edmEntityType, false, true);
+      if (fields.removed == null) {
+        deltaValue.getEntities().add(toEntity(fields));
+      } else {
+        deltaValue.getDeletedEntities().add(toDeletedEntity(fields));
+      }
+    }
+    link.setInlineEntitySet(deltaValue);
+    return link;
+  }
+
+  private DeletedEntity toDeletedEntity(final EntityFields fields) throws DeserializerException {
+    final JsonNode reasonNode = fields.removed.get(REASON);
+    if (reasonNode == null) {
+      throw new DeserializerException("DeletedEntity reason is null.",
+          SerializerException.MessageKeys.MISSING_DELTA_PROPERTY, Constants.REASON);
+    }
+    DeletedEntity deletedEntity = new DeletedEntity();
+    if (reasonNode.asText().equals(Reason.changed.name())) {
+      deletedEntity.setReason(Reason.changed);
+    } else if (reasonNode.asText().equals(Reason.deleted.name())) {
+      deletedEntity.setReason(Reason.deleted);
+    }
+    if (fields.entity.getId() == null) {
+      throw new DeserializerException("Could not set Id for deleted Entity",
+          DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+    }
+    deletedEntity.setId(fields.entity.getId());
+    return deletedEntity;
+  }
+
+  private Link readBindingLink(final JsonParser parser, final String key,
+      final EdmNavigationProperty edmNavigationProperty) throws IOException, DeserializerException {
+    Link bindingLink = new Link();
+    bindingLink.setTitle(edmNavigationProperty.getName());
+    JsonToken token = parser.getCurrentToken();
+    if (edmNavigationProperty.isCollection()) {
+      assertNotNull(key, token);
+      if (token != JsonToken.START_ARRAY) {
+        throw new DeserializerException("Binding annotation: " + key + " must be an array.",
+            DeserializerException.MessageKeys.INVALID_ANNOTATION_TYPE, key);
+      }
+      List<String> bindingLinkStrings = new ArrayList<String>();
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        assertNotNull(key, token);
+        if (token != JsonToken.VALUE_STRING) {
+          throw new DeserializerException("Binding annotation: " + key + " must have string valued array.",
+              DeserializerException.MessageKeys.INVALID_ANNOTATION_TYPE, key);
+        }
+        bindingLinkStrings.add(parser.getText());
+      }
+      bindingLink.setType(Constants.ENTITY_COLLECTION_BINDING_LINK_TYPE);
+      bindingLink.setBindingLinks(bindingLinkStrings);
+    } else {
+      if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+        throw new DeserializerException("Binding annotation: " + key + " must be a string value.",
+            DeserializerException.MessageKeys.INVALID_ANNOTATION_TYPE, key);
+      }
+      if (edmNavigationProperty.isNullable() && token == JsonToken.VALUE_NULL) {
+        bindingLink.setBindingLink(null);
+      } else {
+        assertNotNull(key, token);
+        bindingLink.setBindingLink(getText(parser));
+      }
+      bindingLink.setType(Constants.ENTITY_BINDING_LINK_TYPE);
+    }
+    return bindingLink;
+  }
+
+  private void assertNotNull(final String key, final JsonToken token) throws DeserializerException {
+    if (token == JsonToken.VALUE_NULL) {
+      throw new DeserializerException("Annotation: " + key + "must not have a null value.",
+          DeserializerException.MessageKeys.INVALID_NULL_ANNOTATION, key);
+    }
+  }
+
+  private Property readProperty(final JsonParser parser, final String name, final EdmType type,
+      final boolean isCollection, final boolean isNullable, final Integer maxLength, final Integer precision,
+      final Integer scale, final boolean isUnicode, final EdmMapping mapping)
+      throws IOException, DeserializerException {
+    Property property = new Property();
+    property.setName(name);
+    property.setType(type.getFullQualifiedName().getFullQualifiedNameAsString());
+    if (isCollection) {
+      if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+        throw new DeserializerException("Value for property: " + name + " must be an array but is not.",
+            DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY, name);
+      }
+      List<Object> valueArray = new ArrayList<Object>();
+      switch (type.getKind()) {
+      case PRIMITIVE:
+      case DEFINITION:
+      case ENUM:
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          valueArray.add(readPrimitiveValue(parser, name, (EdmPrimitiveType) type,
+              isNullable, maxLength, precision, scale, isUnicode, mapping));
+        }
+        property.setValue(type.getKind() == EdmTypeKind.ENUM ?
+            ValueType.COLLECTION_ENUM :
+            ValueType.COLLECTION_PRIMITIVE, valueArray);
+        break;
+      case COMPLEX:
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          valueArray.add(readComplexValue(parser, name, (EdmComplexType) type, isNullable));
+        }
+        property.setValue(ValueType.COLLECTION_COMPLEX, valueArray);
+        break;
+      default:
+        throw new DeserializerException("Invalid Type Kind for a property found: " + type.getKind(),
+            DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY, name);
+      }
+    } else {
+      switch (type.getKind()) {
+      case PRIMITIVE:
+      case DEFINITION:
+      case ENUM:
+        property.setValue(type.getKind() == EdmTypeKind.ENUM ? ValueType.ENUM : ValueType.PRIMITIVE,
+            readPrimitiveValue(parser, name, (EdmPrimitiveType) type,
+                isNullable, maxLength, precision, scale, isUnicode, mapping));
+        break;
+      case COMPLEX:
+        final ComplexValue value = readComplexValue(parser, name, (EdmComplexType) type, isNullable);
+        if (value != null) {
+          property.setType(value.getTypeName());
+        }
+        property.setValue(ValueType.COMPLEX, value);
+        break;
+      default:
+        throw new DeserializerException("Invalid Type Kind for a property found: " + type.getKind(),
+            DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY, name);
+      }
+    }
+    return property;
+  }
+
+  private ComplexValue readComplexValue(final JsonParser parser, final String name, final EdmComplexType type,
+      final boolean isNullable) throws IOException, DeserializerException {
+    final JsonToken token = parser.getCurrentToken();
+    if (token == JsonToken.VALUE_NULL) {
+      if (isNullable) {
+        return null;
+      }
+      throw new DeserializerException("Property: " + name + " must not be null.",
+          DeserializerException.MessageKeys.INVALID_NULL_PROPERTY, name);
+    }
+    if (token != JsonToken.START_OBJECT) {
+      throw new DeserializerException(
+          "Invalid value for property: " + name + " must not be an array or primitive value.",
+          DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY, name);
+    }
+    final StructuredFields fields = new StructuredFields(type, false);
+    readStructuredFields(parser, fields, type, true, false);
+    assertFieldsConsumed(fields);
+
+    // Even if there are no properties defined we have to give back an empty list
+    ComplexValue complexValue = new ComplexValue();
+    for (final String propertyName : fields.type.getPropertyNames()) {
+      final Property property = fields.properties.get(propertyName);
+      if (property != null) {
+        complexValue.getValue().add(property);
+      }
+    }
+    complexValue.setTypeName(fields.type.getFullQualifiedName().getFullQualifiedNameAsString());
+    return complexValue;
+  }
+
+  private Object readPrimitiveValue(final JsonParser parser, final String name, final EdmPrimitiveType type,
+      final boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
+      final boolean isUnicode, final EdmMapping mapping) throws IOException, DeserializerException {
+    final JsonToken token = parser.getCurrentToken();
+    if (token == JsonToken.VALUE_NULL) {
+      if (isNullable) {
+        return null;
+      }
+      throw new DeserializerException("Property: " + name + " must not be null.",
+          DeserializerException.MessageKeys.INVALID_NULL_PROPERTY, name);
+    }
+    final boolean isGeoType = type.getName().startsWith("Geo");
+    if (!isGeoType && (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY)) {
+      throw new DeserializerException("Invalid value for property: " + name + " must not be an object or array.",
+          DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY, name);
+    }
+    helper.checkJsonTypeBasedOnPrimitiveType(name, type, getNodeType(token));
+    String text = null;
+    try {
+      if (isGeoType) {
+        // Geospatial values are small; they are read with the same code as in the tree-based reader.
+        return helper.readPrimitiveGeoValue(name, type,
+            (ObjectNode) JsonDeserializerHelper.OBJECT_MAPPER.readTree(parser));
+      }
+      text = getText(parser);
+      return type.valueOfString(text,
+          isNullable, maxLength, precision, scale, isUnicode,
+          JsonDeserializerHelper.getJavaClassForPrimitiveType(mapping, type));
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new DeserializerException(
+          "Invalid value: " + text + " for property: " + name, e,
+          DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
+    }
+  }
+
+  /** Returns the value of an <code>@odata.type</code> annotation; non-textual values are ignored as before. */
+  private String getTypeAnnotation(final JsonParser parser) throws IOException {
+    if (parser.getCurrentToken().isStructStart()) {
+      parser.skipChildren();
+      return "";
+    }
+    return getText(parser);
+  }
+
+  /**
+   * Returns the text of the current scalar value in the same form as <code>JsonNode.asText()</code>
+   * of the tree model; numbers are normalized, e.g., <code>1.5E1</code> becomes <code>15.0</code>.
+   */
+  private static String getText(final JsonParser parser) throws IOException {
+    switch (parser.getCurrentToken()) {
+    case VALUE_NUMBER_INT:
+      return parser.getNumberValue().toString();
+    case VALUE_NUMBER_FLOAT:
+      return String.valueOf(parser.getDoubleValue());
+    default:
+      return parser.getText();
+    }
+  }
+
+  private static JsonNodeType getNodeType(final JsonToken token) {
+    switch (token) {
+    case START_OBJECT:
+      return JsonNodeType.OBJECT;
+    case START_ARRAY:
+      return JsonNodeType.ARRAY;
+    case VALUE_STRING:
+      return JsonNodeType.STRING;
+    case VALUE_NUMBER_INT:
+    case VALUE_NUMBER_FLOAT:
+      return JsonNodeType.NUMBER;
+    case VALUE_TRUE:
+    case VALUE_FALSE:
+      return JsonNodeType.BOOLEAN;
+    case VALUE_NULL:
+      return JsonNodeType.NULL;
+    default:
+      return JsonNodeType.MISSING;
+    }
+  }
+
+  /**
+   * Registers the expanded navigation properties in the same order as the tree-based reader:
+   * depth-first along the navigation properties, followed by the entities of delta links.
+   */
+  private void buildExpandTree(final EdmEntityType edmEntityType, final Entity entity,
+      final ExpandTreeBuilder expandBuilder) throws DeserializerException {
+    for (final Link link : entity.getNavigationLinks()) {
+      if (link.getInlineEntitySet() instanceof Delta) {
+        for (final Entity inlineEntity : link.getInlineEntitySet().getEntities()) {
+          buildExpandTree(edmEntityType, inlineEntity, expandBuilder);
+        }
+      } else {
+        final EdmNavigationProperty edmNavigationProperty = edmEntityType.getNavigationProperty(link.getTitle());
+        final ExpandTreeBuilder childExpandBuilder = expandBuilder.expand(edmNavigationProperty);
+        final EdmEntityType targetType = edmNavigationProperty.getType();
+        if (link.getInlineEntity() != null) {
+          buildExpandTree(getEntityType(targetType, link.getInlineEntity()), link.getInlineEntity(),
+              childExpandBuilder);
+        } else if (link.getInlineEntitySet() != null) {
+          for (final Entity inlineEntity : link.getInlineEntitySet().getEntities()) {
+            buildExpandTree(getEntityType(targetType, inlineEntity), inlineEntity, childExpandBuilder);
+          }
+        }
+      }
+    }
+  }
+
+  private EdmEntityType getEntityType(final EdmEntityType declaredType, final Entity entity)
+      throws DeserializerException {
+    return declaredType.getFullQualifiedName().getFullQualifiedNameAsString().equals(entity.getType()) ?
+        declaredType :
+        (EdmEntityType) helper.getDerivedType(declaredType, Constants.HASH + entity.getType());
+  }
+
+  /** Field bookkeeping for one JSON object. */
+  private static class ObjectFields {
+    private final Set<String> names = new HashSet<String>();
+    /** The first field in document order that could not be consumed. */
+    protected String unknownField;
+    /** The first custom annotation in document order; they are only supported in v4.01 payloads. */
+    private String customAnnotation;
+
+    protected void setUnknownField(final String name) {
+      if (unknownField == null) {
+        unknownField = name;
+      }
+    }
+  }
+
+  /** Field bookkeeping for the JSON object of an entity or a complex value. */
+  private static class StructuredFields extends ObjectFields {
+    protected EdmStructuredType type;
+    /** Whether <code>type</code> is final; if not, a later <code>@odata.type</code> annotation may change it. */
+    protected boolean typeFixed;
+    protected final Map<String, Property> properties = new HashMap<String, Property>();
+    protected List<String> deferredNames;
+    protected List<TokenBuffer> deferredValues;
+
+    private StructuredFields(final EdmStructuredType type, final boolean typeFixed) {
+      this.type = type;
+      this.typeFixed = typeFixed;
+    }
+
+    /** Buffers the current value of the parser to read it once the type is known. */
+    protected void defer(final String name, final JsonParser parser) throws IOException {
+      if (deferredNames == null) {
+        deferredNames = new ArrayList<String>();
+        deferredValues = new ArrayList<TokenBuffer>();
+      }
+      TokenBuffer buffer = new TokenBuffer(parser);
+      buffer.copyCurrentStructure(parser);
+      deferredNames.add(name);
+      deferredValues.add(buffer);
+    }
+  }
+
+  /** Field bookkeeping for the JSON object of an entity. */
+  private static final class EntityFields extends StructuredFields {
+    private final Entity entity = new Entity();
+    private final Map<String, Link> links = new HashMap<String, Link>();
+    private final Map<String, Link> deltaLinks = new HashMap<String, Link>();
+    /** The content of the <code>@removed</code> annotation of an entity in a delta payload. */
+    private JsonNode removed;
+
+    private EntityFields(final EdmEntityType type, final boolean typeFixed) {
+      super(type, typeFixed);
+    }
+  }
+}
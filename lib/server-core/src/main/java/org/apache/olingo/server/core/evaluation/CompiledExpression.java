@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.core.evaluation.operand.VisitorOperand;
+
+/**
+ * An expression prepared by the {@link ExpressionCompiler} for repeated evaluation.
+ * Member paths are resolved and literals are converted once, so an instance can be evaluated
+ * for any number of entities, also concurrently from several threads.
+ */
+public abstract class CompiledExpression {
+
+  /**
+   * Evaluates the expression for the given entity.
+   * @param entity the entity the member paths of the expression refer to
+   * @return the result of the evaluation
+   */
+  public VisitorOperand evaluate(final Entity entity) throws ODataApplicationException {
+    return evaluate(entity, null);
+  }
+
+  /**
+   * Evaluates the expression for the given entity
+   * and for the value the variable of an enclosing lambda expression currently refers to.
+   */
+  protected abstract VisitorOperand evaluate(Entity entity, ComplexValue lambdaValue)
+      throws ODataApplicationException;
+}
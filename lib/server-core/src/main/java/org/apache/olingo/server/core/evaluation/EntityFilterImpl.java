@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.evaluation.EntityFilter;
+import org.apache.olingo.server.api.evaluation.FunctionEvaluator;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.evaluation.operand.TypedOperand;
+
+/**
+ * A filter expression compiled once and applicable to any number of entities.
+ * Instances are immutable and can be shared between threads.
+ */
+public class EntityFilterImpl implements EntityFilter {
+
+  private static final EdmPrimitiveType primBoolean =
+      EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean);
+
+  private final CompiledExpression expression;
+
+  private EntityFilterImpl(final CompiledExpression expression) {
+    this.expression = expression;
+  }
+
+  /**
+   * Compiles the given filter expression.
+   * @param expression the expression of the filter system query option
+   * @param uriInfo the URI info the expression is part of
+   * @param functionEvaluator evaluates function calls or <code>null</code>
+   */
+  public static EntityFilter compile(final Expression expression, final UriInfoResource uriInfo,
+      final FunctionEvaluator functionEvaluator) throws ODataApplicationException {
+    try {
+      return new EntityFilterImpl(ExpressionCompiler.compile(expression, uriInfo, functionEvaluator));
+    } catch (final ExpressionVisitException e) {
+      throw new ODataApplicationException("Exception in filter evaluation",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+    }
+  }
+
+  @Override
+  public boolean matches(final Entity entity) throws ODataApplicationException {
+    final TypedOperand typedOperand = expression.evaluate(entity).asTypedOperand();
+    if (typedOperand.is(primBoolean)) {
+      return !Boolean.FALSE.equals(typedOperand.getTypedValue(Boolean.class));
+    } else {
+      throw new ODataApplicationException(
+          "Invalid filter expression. Filter expressions must return a value of type Edm.Boolean",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+    }
+  }
+
+  @Override
+  public void apply(final List<Entity> entities) throws ODataApplicationException {
+    final Iterator<Entity> iterator = entities.iterator();
+    while (iterator.hasNext()) {
+      if (!matches(iterator.next())) {
+        iterator.remove();
+      }
+    }
+  }
+
+  @Override
+  public void apply(final EntityCollection entityCollection) throws ODataApplicationException {
+    apply(entityCollection.getEntities());
+  }
+}
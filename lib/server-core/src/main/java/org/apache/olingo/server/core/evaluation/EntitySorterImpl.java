@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.evaluation.EntitySorter;
+import org.apache.olingo.server.api.evaluation.FunctionEvaluator;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.evaluation.operand.TypedOperand;
+
+/**
+ * The items of an orderby system query option compiled once and applicable to any number of entities.
+ * The sort keys of each entity are evaluated once before sorting, not in every comparison.
+ * Instances are immutable and can be shared between threads.
+ */
+public class EntitySorterImpl implements EntitySorter {
+
+  private final CompiledExpression[] expressions;
+  private final boolean[] descending;
+
+  private EntitySorterImpl(final CompiledExpression[] expressions, final boolean[] descending) {
+    this.expressions = expressions;
+    this.descending = descending;
+  }
+
+  /**
+   * Compiles the expressions of the given orderby option.
+   * @param orderByOption the orderby system query option
+   * @param uriInfo the URI info the option is part of
+   * @param functionEvaluator evaluates function calls or <code>null</code>
+   */
+  public static EntitySorter compile(final OrderByOption orderByOption, final UriInfoResource uriInfo,
+      final FunctionEvaluator functionEvaluator) throws ODataApplicationException {
+    final List<OrderByItem> orders = orderByOption.getOrders();
+    CompiledExpression[] expressions = new CompiledExpression[orders.size()];
+    boolean[] descending = new boolean[orders.size()];
+    try {
+      for (int i = 0; i < expressions.length; i++) {
+        expressions[i] = ExpressionCompiler.compile(orders.get(i).getExpression(), uriInfo, functionEvaluator);
+        descending[i] = orders.get(i).isDescending();
+      }
+    } catch (final ExpressionVisitException e) {
+      throw new ODataApplicationException("Exception in orderBy evaluation",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+    }
+    return new EntitySorterImpl(expressions, descending);
+  }
+
+  @Override
+  public void sort(final List<Entity> entities) throws ODataApplicationException {
+    if (entities.size() < 2) {
+      return;
+    }
+
+    List<SortEntry> entries = new ArrayList<SortEntry>(entities.size());
+    for (final Entity entity : entities) {
+      TypedOperand[] keys = new TypedOperand[expressions.length];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = expressions[i].evaluate(entity).asTypedOperand();
+      }
+      entries.add(new SortEntry(entity, keys));
+    }
+
+    Collections.sort(entries, new Comparator<SortEntry>() {
+      @Override
+      public int compare(final SortEntry entry1, final SortEntry entry2) {
+        // Compare the first keys of both entities.
+        // If and only if the result of the previous comparison is equal to 0
+        // compare the next keys until all keys are compared or they are not equal.
+        int result = 0;
+        for (int i = 0; i < expressions.length && result == 0; i++) {
+          result = compareKeys(entry1.keys[i], entry2.keys[i]);
+          result = descending[i] ? result * -1 : result;
+        }
+        return result;
+      }
+    });
+
+    for (int i = 0; i < entries.size(); i++) {
+      entities.set(i, entries.get(i).entity);
+    }
+  }
+
+  @Override
+  public void sort(final EntityCollection entityCollection) throws ODataApplicationException {
+    sort(entityCollection.getEntities());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compareKeys(final TypedOperand op1, final TypedOperand op2) {
+    if (op1.isNull() || op2.isNull()) {
+      if (op1.isNull() && op2.isNull()) {
+        return 0; // null is equals to null
+      } else {
+        return op1.isNull() ? -1 : 1;
+      }
+    } else {
+      final Object o1 = op1.getValue();
+      final Object o2 = op2.getValue();
+      return o1.getClass() == o2.getClass() && o1 instanceof Comparable ?
+          ((Comparable<Object>) o1).compareTo(o2) :
+          0;
+    }
+  }
+
+  private static class SortEntry {
+    private final Entity entity;
+    private final TypedOperand[] keys;
+
+    private SortEntry(final Entity entity, final TypedOperand[] keys) {
+      this.entity = entity;
+      this.keys = keys;
+    }
+  }
+}
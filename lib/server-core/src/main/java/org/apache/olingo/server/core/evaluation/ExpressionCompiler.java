@@ -0,0 +1,499 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmComplexType;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.evaluation.FunctionEvaluator;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceFunction;
+import org.apache.olingo.server.api.uri.UriResourceLambdaAny;
+import org.apache.olingo.server.api.uri.UriResourceLambdaVariable;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.Binary;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+import org.apache.olingo.server.core.evaluation.operand.TypedOperand;
+import org.apache.olingo.server.core.evaluation.operand.UntypedOperand;
+import org.apache.olingo.server.core.evaluation.operand.VisitorOperand;
+import org.apache.olingo.server.core.evaluation.operation.BinaryOperator;
+import org.apache.olingo.server.core.evaluation.operation.MethodCallOperator;
+import org.apache.olingo.server.core.evaluation.operation.UnaryOperator;
+import org.apache.olingo.server.core.uri.UriResourceLambdaVarImpl;
+
+/**
+ * Compiles an expression of a system query option into a {@link CompiledExpression}.
+ * The expression tree is walked, member paths are resolved against the EDM and literals are
+ * converted only once instead of for every entity.
+ */
+public class ExpressionCompiler implements ExpressionVisitor<CompiledExpression> {
+
+  private static final EdmPrimitiveType primBoolean =
+      EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean);
+
+  private final UriInfoResource uriInfo;
+  private final FunctionEvaluator functionEvaluator;
+
+  public ExpressionCompiler(final UriInfoResource uriInfo, final FunctionEvaluator functionEvaluator) {
+    this.uriInfo = uriInfo;
+    this.functionEvaluator = functionEvaluator;
+  }
+
+  /**
+   * Compiles the given expression.
+   * @param expression the expression, e.g., of a filter or an orderby item
+   * @param uriInfo the URI info the expression is part of, used to resolve parameter aliases
+   * @param functionEvaluator evaluates function calls; if <code>null</code>, their evaluation is not implemented
+   * @return the compiled expression
+   */
+  public static CompiledExpression compile(final Expression expression, final UriInfoResource uriInfo,
+      final FunctionEvaluator functionEvaluator) throws ExpressionVisitException, ODataApplicationException {
+    return expression.accept(new ExpressionCompiler(uriInfo, functionEvaluator));
+  }
+
+  @Override
+  public CompiledExpression visitBinaryOperator(final BinaryOperatorKind operator, final CompiledExpression left,
+      final CompiledExpression right) throws ExpressionVisitException, ODataApplicationException {
+    return new BinaryOperation(operator, left, right);
+  }
+
+  @Override
+  public CompiledExpression visitUnaryOperator(final UnaryOperatorKind operator, final CompiledExpression operand)
+      throws ExpressionVisitException, ODataApplicationException {
+    return new UnaryOperation(operator, operand);
+  }
+
+  @Override
+  public CompiledExpression visitMethodCall(final MethodKind methodCall, final List<CompiledExpression> parameters)
+      throws ExpressionVisitException, ODataApplicationException {
+    return new MethodCall(methodCall, parameters);
+  }
+
+  @Override
+  public CompiledExpression visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+      final Expression expression) throws ExpressionVisitException, ODataApplicationException {
+    return new NotImplemented();
+  }
+
+  @Override
+  public CompiledExpression visitLiteral(final Literal literal)
+      throws ExpressionVisitException, ODataApplicationException {
+    return new Constant(convert(literal.getText()));
+  }
+
+  @Override
+  public CompiledExpression visitMember(final Member member)
+      throws ExpressionVisitException, ODataApplicationException {
+    final List<UriResource> uriResourceParts = member.getResourcePath().getUriResourceParts();
+
+    // UriResourceParts contains at least one UriResource.
+    final UriResource initialPart = uriResourceParts.get(0);
+    if (initialPart instanceof UriResourceProperty) {
+      List<Object> steps = new ArrayList<Object>(uriResourceParts.size() - 1);
+      for (final UriResource part : uriResourceParts.subList(1, uriResourceParts.size())) {
+        if (part instanceof UriResourceLambdaAny) {
+          final Expression expression = ((UriResourceLambdaAny) part).getExpression();
+          steps.add(expression instanceof Binary ? new LambdaAny(expression.accept(this)) : new LambdaAny(null));
+        } else if (part instanceof UriResourceProperty) {
+          steps.add(((UriResourceProperty) part).getProperty());
+        } else {
+          steps.add(new NotImplemented());
+        }
+      }
+      return new PropertyPath(((UriResourceProperty) initialPart).getProperty(), steps.toArray());
+
+    } else if (initialPart instanceof UriResourceFunction) {
+      if (uriResourceParts.size() > 1 || functionEvaluator == null) {
+        return new NotImplemented();
+      }
+      return new FunctionResult((UriResourceFunction) initialPart, uriInfo, functionEvaluator);
+
+    } else if (initialPart instanceof UriResourceLambdaVariable) {
+      final EdmType typeFilter = ((UriResourceLambdaVarImpl) initialPart).getTypeFilter();
+      final EdmType type = typeFilter == null ? ((UriResourceLambdaVariable) initialPart).getType() : typeFilter;
+      if (!(type instanceof EdmComplexType) || uriResourceParts.size() < 2
+          || !(uriResourceParts.get(1) instanceof UriResourceProperty)) {
+        return new NotImplemented();
+      }
+      final EdmProperty edmProperty = ((UriResourceProperty) uriResourceParts.get(1)).getProperty();
+      return new LambdaVariableProperty(edmProperty,
+          ((EdmComplexType) type).getProperty(edmProperty.getName()) != null);
+
+    } else {
+      return new NotImplemented();
+    }
+  }
+
+  @Override
+  public CompiledExpression visitAlias(final String aliasName)
+      throws ExpressionVisitException, ODataApplicationException {
+    final String value = uriInfo.getValueForAlias(aliasName);
+    return new Alias(value, convert(value));
+  }
+
+  @Override
+  public CompiledExpression visitTypeLiteral(final EdmType type)
+      throws ExpressionVisitException, ODataApplicationException {
+    return new NotImplemented();
+  }
+
+  @Override
+  public CompiledExpression visitLambdaReference(final String variableName)
+      throws ExpressionVisitException, ODataApplicationException {
+    return new NotImplemented();
+  }
+
+  @Override
+  public CompiledExpression visitEnum(final EdmEnumType type, final List<String> enumValues)
+      throws ExpressionVisitException, ODataApplicationException {
+    Long result = null;
+    try {
+      for (final String enumValue : enumValues) {
+        final Long value = type.valueOfString(enumValue, null, null, null, null, null, Long.class);
+        result = result == null ? value : result | value;
+      }
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Illegal enum value.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+    return new Constant(new TypedOperand(result, type));
+  }
+
+  /**
+   * Determines the type of a literal in advance.
+   * If that fails, the literal is kept as it is so that the evaluation fails as it would have without compilation.
+   */
+  private static VisitorOperand convert(final String literal) {
+    final UntypedOperand operand = new UntypedOperand(literal);
+    try {
+      return operand.asTypedOperand();
+    } catch (final ODataApplicationException e) {
+      return operand;
+    }
+  }
+
+  private static ODataApplicationException notImplemented() {
+    return new ODataApplicationException("Not implemented", HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(),
+        Locale.ROOT);
+  }
+
+  private static class Constant extends CompiledExpression {
+    private final VisitorOperand value;
+
+    private Constant(final VisitorOperand value) {
+      this.value = value;
+    }
+
+    @Override
+    protected VisitorOperand evaluate(final Entity entity, final ComplexValue lambdaValue) {
+      return value;
+    }
+  }
+
+  private static class NotImplemented extends CompiledExpression {
+    @Override
+    protected VisitorOperand evaluate(final Entity entity, final ComplexValue lambdaValue)
+        throws ODataApplicationException {
+      throw notImplemented();
+    }
+  }
+
+  private static class BinaryOperation extends CompiledExpression {
+    private final BinaryOperatorKind operator;
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+
+    private BinaryOperation(final BinaryOperatorKind operator, final CompiledExpression left,
+        final CompiledExpression right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    protected VisitorOperand evaluate(final Entity entity, final ComplexValue lambdaValue)
+        throws ODataApplicationException {
+      final BinaryOperator binaryOperator = new BinaryOperator(left.evaluate(entity, lambdaValue),
+          right.evaluate(entity, lambdaValue));
+
+      switch (operator) {
+      case AND:
+        return binaryOperator.andOperator();
+      case OR:
+        return binaryOperator.orOperator();
+      case EQ:
+        return binaryOperator.equalsOperator();
+      case NE:
+        return binaryOperator.notEqualsOperator();
+      case GE:
+        return binaryOperator.greaterEqualsOperator();
+      case GT:
+        return binaryOperator.greaterThanOperator();
+      case LE:
+        return binaryOperator.lessEqualsOperator();
+      case LT:
+        return binaryOperator.lessThanOperator();
+      case ADD:
+      case SUB:
+      case MUL:
+      case DIV:
+      case MOD:
+        return binaryOperator.arithmeticOperator(operator);
+      case HAS:
+        return binaryOperator.hasOperator();
+
+      default:
+        throw notImplemented();
+      }
+    }
+  }
+
+  private static class UnaryOperation extends CompiledExpression {
+    private final UnaryOperatorKind operator;
+    private final CompiledExpression operand;
+
+    private UnaryOperation(final UnaryOperatorKind operator, final CompiledExpression operand) {
+      this.operator = operator;
+      this.operand = operand;
+    }
+
+    @Override
+    protected VisitorOperand evaluate(final Entity entity, final ComplexValue lambdaValue)
+        throws ODataApplicationException {
+      final UnaryOperator unaryOperator = new UnaryOperator(operand.evaluate(entity, lambdaValue));
+
+      switch (operator) {
+      case MINUS:
+        return unaryOperator.minusOperation();
+      case NOT:
+        return unaryOperator.notOperation();
+      default:
+        throw notImplemented();
+      }
+    }
+  }
+
+  private static class MethodCall extends CompiledExpression {
+    private final MethodKind methodCall;
+    private final CompiledExpression[] parameters;
+
+    private MethodCall(final MethodKind methodCall, final List<CompiledExpression> parameters) {
+      this.methodCall = methodCall;
+      this.parameters = parameters.toArray(new CompiledExpression[parameters.size()]);
+    }
+
+    @Override
+    protected VisitorOperand evaluate(final Entity entity, final ComplexValue lambdaValue)
+        throws ODataApplicationException {
+      List<VisitorOperand> values = new ArrayList<VisitorOperand>(parameters.length);
+      for (final CompiledExpression parameter : parameters) {
+        values.add(parameter.evaluate(entity, lambdaValue));
+      }
+      final MethodCallOperator methodCallOperation = new MethodCallOperator(values);
+
+      switch (methodCall) {
+      case ENDSWITH:
+        return methodCallOperation.endsWith();
+      case INDEXOF:
+        return methodCallOperation.indexOf();
+      case STARTSWITH:
+        return methodCallOperation.startsWith();
+      case TOLOWER:
+        return methodCallOperation.toLower();
+      case TOUPPER:
+        return methodCallOperation.toUpper();
+      case TRIM:
+        return methodCallOperation.trim();
+      case SUBSTRING:
+        return methodCallOperation.substring();
+      case CONTAINS:
+        return methodCallOperation.contains();
+      case CONCAT:
+        return methodCallOperation.concat();
+      case LENGTH:
+        return methodCallOperation.length();
+      case YEAR:
+        return methodCallOperation.year();
+      case MONTH:
+        return methodCallOperation.month();
+      case DAY:
+        return methodCallOperation.day();
+      case HOUR:
+        return methodCallOperation.hour();
+      case MINUTE:
+        return methodCallOperation.minute();
+      case SECOND:
+        return methodCallOperation.second();
+      case FRACTIONALSECONDS:
+        return methodCallOperation.fractionalseconds();
+      case ROUND:
+        return methodCallOperation.round();
+      case FLOOR:
+        return methodCallOperation.floor();
+      case CEILING:
+        return methodCallOperation.ceiling();
+      case SUBSTRINGOF:
+        return methodCallOperation.substringof();
+
+      default:
+        throw notImplemented();
+      }
+    }
+  }
+
+  /** The any operator on a collection of complex values, with the body only if it can be evaluated. */
+  private static class LambdaAny {
+    private final CompiledExpression expression;
+
+    private LambdaAny(final CompiledExpression expression) {
+      this.expression = expression;
+    }
+  }
+
+  /**
+   * A path of properties starting at the entity.
+   * Each step is either an {@link EdmProperty}, a {@link LambdaAny}, or a {@link NotImplemented} expression.
+   * A property missing in the entity evaluates to a <code>null</code> value of the type of the last property.
+   */
+  private static class PropertyPath extends CompiledExpression {
+    private final EdmProperty initialProperty;
+    private final Object[] steps;
+
+    private PropertyPath(final EdmProperty initialProperty, final Object[] steps) {
+      this.initialProperty = initialProperty;
+      this.steps = steps;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected VisitorOperand evaluate(final Entity entity, final ComplexValue lambdaValue)
+        throws ODataApplicationException {
+      EdmProperty currentEdmProperty = initialProperty;
+      Property currentProperty = entity.getProperty(initialProperty.getName());
+      for (final Object step : steps) {
+        if (currentProperty == null || currentProperty.isNull()) {
+          if (step instanceof EdmProperty) {
+            currentEdmProperty = (EdmProperty) step;
+          } else if (step instanceof CompiledExpression) {
+            return ((CompiledExpression) step).evaluate(entity, lambdaValue);
+          }
+        } else if (currentProperty.isComplex()) {
+          if (step instanceof LambdaAny) {
+            final CompiledExpression expression = ((LambdaAny) step).expression;
+            if (expression != null && currentProperty.isCollection()) {
+              for (final ComplexValue value : (List<ComplexValue>) currentProperty.asCollection()) {
+                final VisitorOperand operand = expression.evaluate(entity, value);
+                final TypedOperand typedOperand = operand.asTypedOperand();
+                if (typedOperand.is(primBoolean) && Boolean.TRUE.equals(typedOperand.getTypedValue(Boolean.class))) {
+                  return operand;
+                }
+              }
+            }
+          } else if (step instanceof EdmProperty) {
+            currentEdmProperty = (EdmProperty) step;
+            final Property innerProperty = currentProperty.asComplex().getProperty(currentEdmProperty.getName());
+            if (innerProperty != null) {
+              currentProperty = innerProperty;
+            }
+          } else {
+            return ((CompiledExpression) step).evaluate(entity, lambdaValue);
+          }
+        }
+      }
+      return new TypedOperand(currentProperty == null ? null : currentProperty.getValue(),
+          currentEdmProperty.getType(), currentEdmProperty);
+    }
+  }
+
+  /** A property of the value the variable of an enclosing lambda expression refers to. */
+  private static class LambdaVariableProperty extends CompiledExpression {
+    private final EdmProperty edmProperty;
+    private final boolean declared;
+
+    private LambdaVariableProperty(final EdmProperty edmProperty, final boolean declared) {
+      this.edmProperty = edmProperty;
+      this.declared = declared;
+    }
+
+    @Override
+    protected VisitorOperand evaluate(final Entity entity, final ComplexValue lambdaValue) {
+      final Property property = declared ? lambdaValue.getProperty(edmProperty.getName()) : null;
+      return new TypedOperand(property == null ? null : property.getValue(), edmProperty.getType(), edmProperty);
+    }
+  }
+
+  private static class FunctionResult extends CompiledExpression {
+    private final UriResourceFunction uriResourceFunction;
+    private final UriInfoResource uriInfo;
+    private final FunctionEvaluator functionEvaluator;
+
+    private FunctionResult(final UriResourceFunction uriResourceFunction, final UriInfoResource uriInfo,
+        final FunctionEvaluator functionEvaluator) {
+      this.uriResourceFunction = uriResourceFunction;
+      this.uriInfo = uriInfo;
+      this.functionEvaluator = functionEvaluator;
+    }
+
+    @Override
+    protected VisitorOperand evaluate(final Entity entity, final ComplexValue lambdaValue)
+        throws ODataApplicationException {
+      return new TypedOperand(functionEvaluator.evaluate(uriResourceFunction, uriInfo),
+          uriResourceFunction.getFunction().getReturnType().getType());
+    }
+  }
+
+  /** A parameter alias, either the name of a property of the entity or a literal. */
+  private static class Alias extends CompiledExpression {
+    private final String value;
+    private final VisitorOperand literal;
+
+    private Alias(final String value, final VisitorOperand literal) {
+      this.value = value;
+      this.literal = literal;
+    }
+
+    @Override
+    protected VisitorOperand evaluate(final Entity entity, final ComplexValue lambdaValue) {
+      final Property property = entity.getProperty(value);
+      return property == null ? literal : new UntypedOperand(String.valueOf(property.getValue()));
+    }
+  }
+}
@@ -16,7 +16,7 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operation;
+package org.apache.olingo.server.core.evaluation.operation;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -31,9 +31,9 @@ import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.TypedOperand;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.VisitorOperand;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.primitive.EdmNull;
+import org.apache.olingo.server.core.evaluation.operand.TypedOperand;
+import org.apache.olingo.server.core.evaluation.operand.VisitorOperand;
+import org.apache.olingo.server.core.evaluation.primitive.EdmNull;
 
 public class BinaryOperator {
   private static final int MILLISECONDS_PER_DAY = 24 * 60 * 60 * 1000;
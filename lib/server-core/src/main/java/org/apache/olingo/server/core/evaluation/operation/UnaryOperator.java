@@ -16,7 +16,7 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operation;
+package org.apache.olingo.server.core.evaluation.operation;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -27,8 +27,8 @@ import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataApplicationException;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.TypedOperand;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.VisitorOperand;
+import org.apache.olingo.server.core.evaluation.operand.TypedOperand;
+import org.apache.olingo.server.core.evaluation.operand.VisitorOperand;
 
 public class UnaryOperator {
 
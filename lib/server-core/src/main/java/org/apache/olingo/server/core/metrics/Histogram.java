@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.olingo.server.api.metrics.HistogramSnapshot;
+
+/**
+ * <p>Lock-free histogram of non-negative long values with logarithmic buckets.</p>
+ * <p>Values below {@value #LINEAR_LIMIT} have a bucket of their own. Above, every power of two is split into
+ * {@value #SUB_BUCKET_COUNT} buckets of equal width, so that the relative error of a bucket is at most
+ * 1/{@value #SUB_BUCKET_COUNT}. Values above {@link #HIGHEST_TRACKABLE_VALUE}, roughly 36 minutes in nanoseconds
+ * or two terabytes, are counted in the last bucket; minimum, maximum and sum stay exact.</p>
+ * <p>Recording a value updates a fixed set of atomic counters and never allocates.</p>
+ */
+public final class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+  private static final int MAX_EXPONENT = 40;
+  static final long HIGHEST_TRACKABLE_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+  static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * Records a value; negative values are recorded as 0.
+   * @param value the value
+   */
+  public void record(final long value) {
+    final long recorded = value < 0 ? 0 : value;
+    counts.incrementAndGet(bucketIndex(recorded));
+    sum.addAndGet(recorded);
+    long current = min.get();
+    while (recorded < current && !min.compareAndSet(current, recorded)) {
+      current = min.get();
+    }
+    current = max.get();
+    while (recorded > current && !max.compareAndSet(current, recorded)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Copies the current state of this histogram.
+   * Values recorded concurrently may be missing from some of the aggregates.
+   * @return the snapshot
+   */
+  public HistogramSnapshot snapshot() {
+    final long[] bucketCounts = new long[BUCKET_COUNT];
+    long count = 0;
+    for (int index = 0; index < BUCKET_COUNT; index++) {
+      bucketCounts[index] = counts.get(index);
+      count += bucketCounts[index];
+    }
+    if (count == 0) {
+      return new Snapshot(bucketCounts, 0, 0, 0, 0);
+    }
+    // A value recorded concurrently may already be counted but not yet be part of minimum and maximum.
+    final long maximum = Math.max(max.get(), 0);
+    return new Snapshot(bucketCounts, count, Math.min(min.get(), maximum), maximum, sum.get());
+  }
+
+  static int bucketIndex(final long value) {
+    if (value < LINEAR_LIMIT) {
+      return (int) value;
+    }
+    final long trackable = Math.min(value, HIGHEST_TRACKABLE_VALUE);
+    final int exponent = 63 - Long.numberOfLeadingZeros(trackable);
+    final int subBucket = (int) (trackable >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKET_COUNT;
+    return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  static long highestValueInBucket(final int index) {
+    if (index < LINEAR_LIMIT) {
+      return index;
+    }
+    final int offset = index - LINEAR_LIMIT;
+    final int shift = offset / SUB_BUCKET_COUNT + 1;
+    final long mantissa = SUB_BUCKET_COUNT + offset % SUB_BUCKET_COUNT;
+    return ((mantissa + 1) << shift) - 1;
+  }
+
+  private static final class Snapshot implements HistogramSnapshot {
+
+    private final long[] bucketCounts;
+    private final long count;
+    private final long min;
+    private final long max;
+    private final long sum;
+
+    private Snapshot(final long[] bucketCounts, final long count, final long min, final long max, final long sum) {
+      this.bucketCounts = bucketCounts;
+      this.count = count;
+      this.min = min;
+      this.max = max;
+      this.sum = sum;
+    }
+
+    @Override
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public long getMin() {
+      return min;
+    }
+
+    @Override
+    public long getMax() {
+      return max;
+    }
+
+    @Override
+    public long getSum() {
+      return sum;
+    }
+
+    @Override
+    public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    @Override
+    public long getValueAtPercentile(final double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      final double fraction = Math.min(Math.max(percentile, 0), 100) / 100;
+      final long rank = Math.max(1, (long) Math.ceil(fraction * count));
+      long seen = 0;
+      for (int index = 0; index < bucketCounts.length; index++) {
+        seen += bucketCounts[index];
+        if (seen >= rank) {
+          return Math.min(highestValueInBucket(index), max);
+        }
+      }
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return "count=" + count + ", min=" + min + ", max=" + max + ", mean=" + getMean()
+          + ", p50=" + getValueAtPercentile(50) + ", p99=" + getValueAtPercentile(99);
+    }
+  }
+}
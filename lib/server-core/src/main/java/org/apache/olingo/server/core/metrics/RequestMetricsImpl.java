@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.server.api.metrics.HistogramSnapshot;
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.metrics.RequestMetricsSnapshot;
+import org.apache.olingo.server.api.metrics.RequestPhase;
+import org.apache.olingo.server.api.metrics.RequestStatistics;
+
+/**
+ * <p>Request metrics aggregating all measurements in {@link Histogram}s.</p>
+ * <p>The statistics of an entity set or a processor are created when its first request completes;
+ * later requests only update atomic counters. {@link #reset()} replaces all aggregates at once,
+ * so requests completing concurrently are recorded either before or after the reset.</p>
+ */
+public class RequestMetricsImpl implements RequestMetrics {
+
+  private volatile Aggregates aggregates = new Aggregates();
+
+  @Override
+  public void phaseCompleted(final RequestPhase phase, final long durationNanos) {
+    aggregates.phases[phase.ordinal()].record(durationNanos);
+  }
+
+  @Override
+  public void requestCompleted(final String entitySetName, final String processorName, final int statusCode,
+      final long durationNanos, final long requestSize, final long responseSize) {
+    final Aggregates current = aggregates;
+    current.total.record(statusCode, durationNanos, requestSize, responseSize);
+    if (entitySetName != null) {
+      getStatistics(current.entitySets, entitySetName).record(statusCode, durationNanos, requestSize, responseSize);
+    }
+    if (processorName != null) {
+      getStatistics(current.processors, processorName).record(statusCode, durationNanos, requestSize, responseSize);
+    }
+  }
+
+  @Override
+  public RequestMetricsSnapshot getSnapshot() {
+    final Aggregates current = aggregates;
+    Map<RequestPhase, HistogramSnapshot> phases = new EnumMap<RequestPhase, HistogramSnapshot>(RequestPhase.class);
+    for (final RequestPhase phase : RequestPhase.values()) {
+      phases.put(phase, current.phases[phase.ordinal()].snapshot());
+    }
+    return new Snapshot(current.total.snapshot(), snapshot(current.entitySets), snapshot(current.processors),
+        Collections.unmodifiableMap(phases));
+  }
+
+  @Override
+  public void reset() {
+    aggregates = new Aggregates();
+  }
+
+  private static Statistics getStatistics(final ConcurrentMap<String, Statistics> map, final String name) {
+    Statistics statistics = map.get(name);
+    if (statistics == null) {
+      statistics = new Statistics();
+      final Statistics previous = map.putIfAbsent(name, statistics);
+      if (previous != null) {
+        statistics = previous;
+      }
+    }
+    return statistics;
+  }
+
+  private static Map<String, RequestStatistics> snapshot(final Map<String, Statistics> map) {
+    Map<String, RequestStatistics> result = new TreeMap<String, RequestStatistics>();
+    for (final Map.Entry<String, Statistics> entry : map.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().snapshot());
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  private static final class Aggregates {
+    private final Histogram[] phases = new Histogram[RequestPhase.values().length];
+    private final Statistics total = new Statistics();
+    private final ConcurrentMap<String, Statistics> entitySets = new ConcurrentHashMap<String, Statistics>();
+    private final ConcurrentMap<String, Statistics> processors = new ConcurrentHashMap<String, Statistics>();
+
+    private Aggregates() {
+      for (int index = 0; index < phases.length; index++) {
+        phases[index] = new Histogram();
+      }
+    }
+  }
+
+  private static final class Statistics {
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final Histogram latency = new Histogram();
+    private final Histogram requestSize = new Histogram();
+    private final Histogram responseSize = new Histogram();
+
+    private void record(final int statusCode, final long durationNanos, final long requestBytes,
+        final long responseBytes) {
+      requestCount.incrementAndGet();
+      if (statusCode >= 400) {
+        errorCount.incrementAndGet();
+      }
+      latency.record(durationNanos);
+      if (requestBytes >= 0) {
+        requestSize.record(requestBytes);
+      }
+      if (responseBytes >= 0) {
+        responseSize.record(responseBytes);
+      }
+    }
+
+    private RequestStatistics snapshot() {
+      return new StatisticsSnapshot(requestCount.get(), errorCount.get(),
+          latency.snapshot(), requestSize.snapshot(), responseSize.snapshot());
+    }
+  }
+
+  private static final class StatisticsSnapshot implements RequestStatistics {
+    private final long requestCount;
+    private final long errorCount;
+    private final HistogramSnapshot latency;
+    private final HistogramSnapshot requestSize;
+    private final HistogramSnapshot responseSize;
+
+    private StatisticsSnapshot(final long requestCount, final long errorCount, final HistogramSnapshot latency,
+        final HistogramSnapshot requestSize, final HistogramSnapshot responseSize) {
+      this.requestCount = requestCount;
+      this.errorCount = errorCount;
+      this.latency = latency;
+      this.requestSize = requestSize;
+      this.responseSize = responseSize;
+    }
+
+    @Override
+    public long getRequestCount() {
+      return requestCount;
+    }
+
+    @Override
+    public long getErrorCount() {
+      return errorCount;
+    }
+
+    @Override
+    public HistogramSnapshot getLatency() {
+      return latency;
+    }
+
+    @Override
+    public HistogramSnapshot getRequestSize() {
+      return requestSize;
+    }
+
+    @Override
+    public HistogramSnapshot getResponseSize() {
+      return responseSize;
+    }
+  }
+
+  private static final class Snapshot implements RequestMetricsSnapshot {
+    private final RequestStatistics total;
+    private final Map<String, RequestStatistics> entitySets;
+    private final Map<String, RequestStatistics> processors;
+    private final Map<RequestPhase, HistogramSnapshot> phases;
+
+    private Snapshot(final RequestStatistics total, final Map<String, RequestStatistics> entitySets,
+        final Map<String, RequestStatistics> processors, final Map<RequestPhase, HistogramSnapshot> phases) {
+      this.total = total;
+      this.entitySets = entitySets;
+      this.processors = processors;
+      this.phases = phases;
+    }
+
+    @Override
+    public RequestStatistics getTotal() {
+      return total;
+    }
+
+    @Override
+    public Map<String, RequestStatistics> getEntitySets() {
+      return entitySets;
+    }
+
+    @Override
+    public Map<String, RequestStatistics> getProcessors() {
+      return processors;
+    }
+
+    @Override
+    public Map<RequestPhase, HistogramSnapshot> getPhases() {
+      return phases;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.metrics.RequestInstrumentation;
+import org.apache.olingo.server.api.metrics.RequestPhase;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceSingleton;
+
+/**
+ * <p>Takes the measurements of a single request and reports them to a {@link RequestInstrumentation}.</p>
+ * <p>Without instrumentation, {@link #DISABLED} is used; it neither reads the clock nor keeps any state,
+ * so that handlers can call it unconditionally.</p>
+ */
+public final class RequestRecorder {
+
+  /** Recorder for requests without instrumentation. */
+  public static final RequestRecorder DISABLED = new RequestRecorder(null);
+
+  private final RequestInstrumentation instrumentation;
+  private final long started;
+  private String processorName;
+
+  private RequestRecorder(final RequestInstrumentation instrumentation) {
+    this.instrumentation = instrumentation;
+    started = instrumentation == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Creates a recorder for a request which starts now.
+   * @param instrumentation the instrumentation of the handler or <code>null</code>
+   * @return a new recorder or {@link #DISABLED} if there is no instrumentation
+   */
+  public static RequestRecorder create(final RequestInstrumentation instrumentation) {
+    return instrumentation == null ? DISABLED : new RequestRecorder(instrumentation);
+  }
+
+  /**
+   * Starts a phase.
+   * @return the start time to be passed to {@link #phaseCompleted(RequestPhase, long)}
+   */
+  public long startPhase() {
+    return instrumentation == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Completes a phase.
+   * @param phase the phase
+   * @param phaseStarted the value returned by {@link #startPhase()}
+   */
+  public void phaseCompleted(final RequestPhase phase, final long phaseStarted) {
+    if (instrumentation != null) {
+      instrumentation.phaseCompleted(phase, System.nanoTime() - phaseStarted);
+    }
+  }
+
+  /**
+   * Remembers the processor interface the request is dispatched to.
+   * @param processorInterface the processor interface
+   */
+  public void setProcessor(final Class<?> processorInterface) {
+    if (instrumentation != null) {
+      processorName = processorInterface.getSimpleName();
+    }
+  }
+
+  /**
+   * Completes the request.
+   * @param request the request
+   * @param statusCode the HTTP status code of the response
+   * @param uriInfo the parsed URI or <code>null</code> if the URI has not been parsed successfully
+   * @param responseSize the number of bytes written as response body or -1 if unknown
+   */
+  public void requestCompleted(final ODataRequest request, final int statusCode, final UriInfo uriInfo,
+      final long responseSize) {
+    if (instrumentation != null) {
+      instrumentation.requestCompleted(getEntitySetName(uriInfo), processorName, statusCode,
+          System.nanoTime() - started, getRequestSize(request), responseSize);
+    }
+  }
+
+  private static String getEntitySetName(final UriInfo uriInfo) {
+    if (uriInfo == null || uriInfo.getKind() != UriInfoKind.resource) {
+      return null;
+    }
+    final List<UriResource> resourceParts = uriInfo.getUriResourceParts();
+    final UriResource first = resourceParts.isEmpty() ? null : resourceParts.get(0);
+    if (first instanceof UriResourceEntitySet) {
+      return ((UriResourceEntitySet) first).getEntitySet().getName();
+    } else if (first instanceof UriResourceSingleton) {
+      return ((UriResourceSingleton) first).getSingleton().getName();
+    }
+    return null;
+  }
+
+  private static long getRequestSize(final ODataRequest request) {
+    final String contentLength = request.getHeader(HttpHeader.CONTENT_LENGTH);
+    if (contentLength != null) {
+      try {
+        return Long.parseLong(contentLength.trim());
+      } catch (final NumberFormatException e) {
+        // The size is unknown.
+      }
+    }
+    return -1;
+  }
+}
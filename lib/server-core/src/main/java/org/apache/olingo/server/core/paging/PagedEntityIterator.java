@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Operation;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.core.Decoder;
+import org.apache.olingo.server.api.serializer.SerializerException;
+
+/**
+ * Entity iterator applying <code>$skip</code>, the position of a skip token, <code>$top</code>,
+ * and the page size to the entities of another entity iterator while iterating.
+ * The position of a skip token is found with {@link #resume()} before iterating.
+ */
+class PagedEntityIterator extends EntityIterator {
+
+  private final EntityIterator source;
+  private final ServerSidePagingImpl paging;
+  private final EdmEntityType entityType;
+  private final Map<String, String> skipAfter;
+  private final List<String> tokenNames;
+  /** Names of the sort properties in descending order; <code>null</code> if the sort order is not known */
+  private final Set<String> descending;
+  private final Integer top;
+  private final Integer pageSize;
+  private final String rawRequestUri;
+  private int skip;
+  private boolean prepared = false;
+  private int returned = 0;
+  private Entity pending;
+  private Entity last;
+  private URI next;
+
+  PagedEntityIterator(final EntityIterator source, final ServerSidePagingImpl paging,
+      final EdmEntityType entityType, final int skip, final Map<String, String> skipAfter,
+      final List<String> tokenNames, final Set<String> descending,
+      final Integer top, final Integer pageSize, final String rawRequestUri) {
+    this.source = source;
+    this.paging = paging;
+    this.entityType = entityType;
+    this.skip = skip;
+    this.skipAfter = skipAfter;
+    this.tokenNames = tokenNames;
+    this.descending = descending;
+    this.top = top;
+    this.pageSize = pageSize;
+    this.rawRequestUri = rawRequestUri;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!prepared) {
+      prepare();
+    }
+    if (top != null && returned >= top) {
+      return false;
+    }
+    if (pageSize != null && returned >= pageSize) {
+      if (next == null && sourceHasNext()) {
+        next = createNextLink();
+      }
+      return false;
+    }
+    return sourceHasNext();
+  }
+
+  @Override
+  public Entity next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    last = sourceNext();
+    returned++;
+    return last;
+  }
+
+  /**
+   * Skips the entities up to the position of the skip token.
+   * If the sort order is known, this is the first entity ordered after the values of the skip token,
+   * so it does not matter whether the last entity of the previous page still exists.
+   * Otherwise the entity with the key values of the skip token is searched for.
+   * @return <code>false</code> if the entity of the skip token has to be found but does not exist
+   */
+  boolean resume() {
+    if (skipAfter == null) {
+      return true;
+    }
+    try {
+      while (source.hasNext()) {
+        final Entity entity = source.next();
+        if (descending == null) {
+          if (skipAfter.equals(paging.getLiterals(entityType, entity, tokenNames))) {
+            return true;
+          }
+        } else if (paging.compare(entityType, entity, skipAfter, descending) > 0) {
+          pending = entity;
+          return true;
+        }
+      }
+    } catch (final SerializerException e) {
+      throw new ODataRuntimeException("Cannot compare entity with skip token.", e);
+    }
+    return descending != null;
+  }
+
+  /** Skips the number of entities given by $skip. */
+  private void prepare() {
+    prepared = true;
+    while (skip > 0 && sourceHasNext()) {
+      sourceNext();
+      skip--;
+    }
+  }
+
+  private boolean sourceHasNext() {
+    return pending != null || source.hasNext();
+  }
+
+  private Entity sourceNext() {
+    if (pending == null) {
+      return source.next();
+    }
+    final Entity entity = pending;
+    pending = null;
+    return entity;
+  }
+
+  private URI createNextLink() {
+    try {
+      final String token = paging.encodeSkipToken(entityType, last, tokenNames,
+          pageSize, top == null ? null : top - returned);
+      return URI.create(removePagingOptions(rawRequestUri) + "%24skiptoken=" + token);
+    } catch (final SerializerException e) {
+      throw new ODataRuntimeException("Cannot create skip token.", e);
+    }
+  }
+
+  /**
+   * Removes the system query options <code>$skip</code>, <code>$top</code>, and <code>$skiptoken</code>
+   * from the URI and appends the separator for the next query option.
+   */
+  static String removePagingOptions(final String rawRequestUri) {
+    final int queryStart = rawRequestUri.indexOf('?');
+    StringBuilder result = new StringBuilder(queryStart < 0 ? rawRequestUri : rawRequestUri.substring(0, queryStart))
+        .append('?');
+    if (queryStart >= 0) {
+      for (final String option : rawRequestUri.substring(queryStart + 1).split("&")) {
+        final int equals = option.indexOf('=');
+        final String name = Decoder.decode(equals < 0 ? option : option.substring(0, equals));
+        if (!option.isEmpty()
+            && !"$skip".equals(name) && !"$top".equals(name) && !"$skiptoken".equals(name)) {
+          result.append(option).append('&');
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  @Override
+  public URI getNext() {
+    return next == null ? source.getNext() : next;
+  }
+
+  @Override
+  public Integer getCount() {
+    return source.getCount();
+  }
+
+  @Override
+  public URI getDeltaLink() {
+    return source.getDeltaLink();
+  }
+
+  @Override
+  public List<Operation> getOperations() {
+    return source.getOperations();
+  }
+}
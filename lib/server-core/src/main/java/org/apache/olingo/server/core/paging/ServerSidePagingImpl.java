@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.core.Decoder;
+import org.apache.olingo.commons.core.Encoder;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.paging.AppliedQueryOptions;
+import org.apache.olingo.server.api.paging.ServerSidePaging;
+import org.apache.olingo.server.api.paging.SkipToken;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+
+/**
+ * <p>Server-side paging with keyset skip tokens.</p>
+ * <p>A skip token is the URL-safe Base64 encoding of
+ * <code>pageSize;top;name=value,name=value...</code> where the values are the percent-encoded
+ * literals of the properties and <code>pageSize</code> and <code>top</code> may be empty.
+ * A property without <code>=value</code> has the value <code>null</code>.
+ * The properties are those of a <code>$orderby</code> of primitive properties followed by the key properties,
+ * otherwise only the key properties.</p>
+ */
+public class ServerSidePagingImpl implements ServerSidePaging {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Override
+  public EntityIterator apply(final EntityIterator entities, final EdmEntityType entityType,
+      final UriInfoResource uriInfo, final Integer maxPageSize, final String rawRequestUri)
+      throws ODataLibraryException {
+    final Set<SystemQueryOptionKind> applied = entities instanceof AppliedQueryOptions ?
+        ((AppliedQueryOptions) entities).getAppliedQueryOptions() :
+        Collections.<SystemQueryOptionKind> emptySet();
+
+    final Set<String> descending = new HashSet<String>();
+    final List<String> sortNames = getSortPropertyNames(entityType, uriInfo, descending);
+    final List<String> tokenNames = sortNames == null ? entityType.getKeyPredicateNames() : sortNames;
+    Map<String, String> skipAfter = null;
+    int skip = 0;
+    Integer top = uriInfo.getTopOption() == null ? null : Math.max(0, uriInfo.getTopOption().getValue());
+    Integer pageSize = maxPageSize;
+    if (uriInfo.getSkipTokenOption() == null) {
+      if (uriInfo.getSkipOption() != null && !applied.contains(SystemQueryOptionKind.SKIP)) {
+        skip = Math.max(0, uriInfo.getSkipOption().getValue());
+      }
+    } else {
+      // $skip and $top have been taken into account while creating the skip token.
+      final String value = uriInfo.getSkipTokenOption().getValue();
+      final Token token = decode(value);
+      if (!applied.contains(SystemQueryOptionKind.SKIPTOKEN)) {
+        // The token must have been created for the same order.
+        if (!tokenNames.equals(new ArrayList<String>(token.literals.keySet()))) {
+          throw invalid(value, null);
+        }
+        skipAfter = token.literals;
+      }
+      // Validate the values.
+      toSkipToken(entityType, value, token);
+      top = token.top;
+      if (token.pageSize != null) {
+        pageSize = token.pageSize;
+      }
+    }
+
+    final PagedEntityIterator result = new PagedEntityIterator(entities, this, entityType, skip, skipAfter,
+        tokenNames, sortNames == null ? null : descending, top, pageSize, rawRequestUri);
+    if (!result.resume()) {
+      // Without keyset order the last entity of the previous page has to be found again.
+      throw invalid(uriInfo.getSkipTokenOption().getValue(), null);
+    }
+    return result;
+  }
+
+  /**
+   * Gets the names of the properties the entities are ordered by:
+   * the properties in <code>$orderby</code> followed by the remaining key properties in ascending order.
+   * @param descending receives the names of the properties in descending order
+   * @return the names or <code>null</code> if the order is not known because there is no <code>$orderby</code>
+   *         or it contains other expressions than primitive properties of the entity type
+   */
+  private List<String> getSortPropertyNames(final EdmEntityType entityType, final UriInfoResource uriInfo,
+      final Set<String> descending) {
+    if (uriInfo.getOrderByOption() == null || uriInfo.getOrderByOption().getOrders().isEmpty()) {
+      return null;
+    }
+    List<String> names = new ArrayList<String>();
+    for (final OrderByItem item : uriInfo.getOrderByOption().getOrders()) {
+      final String name = getPropertyName(item.getExpression());
+      if (name == null || getPrimitiveProperty(entityType, name) == null) {
+        return null;
+      }
+      if (!names.contains(name)) {
+        names.add(name);
+        if (item.isDescending()) {
+          descending.add(name);
+        }
+      }
+    }
+    for (final String keyName : entityType.getKeyPredicateNames()) {
+      if (!names.contains(keyName)) {
+        names.add(keyName);
+      }
+    }
+    return names;
+  }
+
+  private String getPropertyName(final Expression expression) {
+    if (expression instanceof Member && ((Member) expression).getStartTypeFilter() == null) {
+      final List<UriResource> parts = ((Member) expression).getResourcePath().getUriResourceParts();
+      if (parts.size() == 1 && parts.get(0) instanceof UriResourcePrimitiveProperty) {
+        return ((UriResourcePrimitiveProperty) parts.get(0)).getProperty().getName();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Compares the values of the given properties of an entity with the literals of a skip token
+   * in the order given by the properties. <code>null</code> values are ordered before all other values.
+   * @param descending the names of the properties in descending order
+   * @return a negative number, zero, or a positive number if the entity is ordered before the values,
+   *         has the same values, or is ordered after the values
+   */
+  int compare(final EdmStructuredType type, final Entity entity, final Map<String, String> literals,
+      final Set<String> descending) throws SerializerException {
+    final Map<String, String> entityLiterals = getLiterals(type, entity, new ArrayList<String>(literals.keySet()));
+    for (final Map.Entry<String, String> entry : literals.entrySet()) {
+      final int result = compare(getPrimitiveProperty(type, entry.getKey()),
+          entityLiterals.get(entry.getKey()), entry.getValue());
+      if (result != 0) {
+        return descending.contains(entry.getKey()) ? -result : result;
+      }
+    }
+    return 0;
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private int compare(final EdmProperty edmProperty, final String literal1, final String literal2)
+      throws SerializerException {
+    if (literal1 == null || literal2 == null) {
+      return literal1 == null ? literal2 == null ? 0 : -1 : 1;
+    }
+    final EdmPrimitiveType type = (EdmPrimitiveType) edmProperty.getType();
+    try {
+      final Object value1 = type.valueOfString(literal1, edmProperty.isNullable(), edmProperty.getMaxLength(),
+          edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode(), type.getDefaultType());
+      final Object value2 = type.valueOfString(literal2, edmProperty.isNullable(), edmProperty.getMaxLength(),
+          edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode(), type.getDefaultType());
+      // Binary values have no natural order; their literals are compared instead.
+      return value1 instanceof Comparable ? ((Comparable) value1).compareTo(value2) : literal1.compareTo(literal2);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new SerializerException("Wrong value for property " + edmProperty.getName(), e,
+          SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, edmProperty.getName(), literal1);
+    }
+  }
+
+  @Override
+  public SkipToken decodeSkipToken(final EdmEntityType entityType, final String skipToken)
+      throws DeserializerException {
+    return toSkipToken(entityType, skipToken, decode(skipToken));
+  }
+
+  @Override
+  public String encodeSkipToken(final EdmEntityType entityType, final Entity entity, final List<String> propertyNames,
+      final Integer pageSize, final Integer top) throws SerializerException {
+    final Map<String, String> literals = getLiterals(entityType, entity,
+        propertyNames == null ? entityType.getKeyPredicateNames() : propertyNames);
+    StringBuilder result = new StringBuilder();
+    if (pageSize != null) {
+      result.append(pageSize);
+    }
+    result.append(';');
+    if (top != null) {
+      result.append(top);
+    }
+    result.append(';');
+    boolean first = true;
+    for (final Map.Entry<String, String> entry : literals.entrySet()) {
+      if (!first) {
+        result.append(',');
+      }
+      first = false;
+      result.append(entry.getKey());
+      if (entry.getValue() != null) {
+        result.append('=').append(Encoder.encode(entry.getValue()));
+      }
+    }
+    return Base64.encodeBase64URLSafeString(result.toString().getBytes(UTF_8));
+  }
+
+  /**
+   * Gets the literals of the given properties of an entity.
+   * @return a map from property names to literals in the order of the given names
+   */
+  Map<String, String> getLiterals(final EdmStructuredType type, final Entity entity,
+      final List<String> propertyNames) throws SerializerException {
+    Map<String, String> literals = new LinkedHashMap<String, String>();
+    for (final String name : propertyNames) {
+      final EdmProperty edmProperty = getPrimitiveProperty(type, name);
+      if (edmProperty == null) {
+        throw new SerializerException("Property " + name + " is not a primitive property.",
+            SerializerException.MessageKeys.UNSUPPORTED_PROPERTY_TYPE, name);
+      }
+      final Property property = entity.getProperty(name);
+      final Object value = property == null ? null : property.getValue();
+      try {
+        literals.put(name, ((EdmPrimitiveType) edmProperty.getType()).valueToString(value,
+            edmProperty.isNullable(), edmProperty.getMaxLength(), edmProperty.getPrecision(),
+            edmProperty.getScale(), edmProperty.isUnicode()));
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new SerializerException("Wrong value for property " + name, e,
+            SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, name, String.valueOf(value));
+      }
+    }
+    return literals;
+  }
+
+  private EdmProperty getPrimitiveProperty(final EdmStructuredType type, final String name) {
+    final EdmProperty property = type.getStructuralProperty(name);
+    return property == null || !property.isPrimitive() || property.isCollection() ? null : property;
+  }
+
+  private Token decode(final String skipToken) throws DeserializerException {
+    if (skipToken == null || !Base64.isBase64(skipToken)) {
+      throw invalid(skipToken, null);
+    }
+    final String text = new String(Base64.decodeBase64(skipToken), UTF_8);
+    final int pageSizeEnd = text.indexOf(';');
+    final int topEnd = pageSizeEnd < 0 ? -1 : text.indexOf(';', pageSizeEnd + 1);
+    if (topEnd < 0 || topEnd == text.length() - 1) {
+      throw invalid(skipToken, null);
+    }
+    try {
+      Map<String, String> literals = new LinkedHashMap<String, String>();
+      for (final String pair : text.substring(topEnd + 1).split(",")) {
+        final int equals = pair.indexOf('=');
+        literals.put(equals < 0 ? pair : pair.substring(0, equals),
+            equals < 0 ? null : Decoder.decode(pair.substring(equals + 1)));
+      }
+      return new Token(parseInteger(text.substring(0, pageSizeEnd)),
+          parseInteger(text.substring(pageSizeEnd + 1, topEnd)),
+          literals);
+    } catch (final IllegalArgumentException e) {
+      // NumberFormatException is an IllegalArgumentException.
+      throw invalid(skipToken, e);
+    }
+  }
+
+  private Integer parseInteger(final String value) {
+    if (value.isEmpty()) {
+      return null;
+    }
+    final int result = Integer.parseInt(value);
+    if (result < 0) {
+      throw new IllegalArgumentException();
+    }
+    return result;
+  }
+
+  private SkipToken toSkipToken(final EdmEntityType entityType, final String skipToken, final Token token)
+      throws DeserializerException {
+    Map<String, Object> values = new LinkedHashMap<String, Object>();
+    for (final Map.Entry<String, String> entry : token.literals.entrySet()) {
+      final EdmProperty edmProperty = getPrimitiveProperty(entityType, entry.getKey());
+      if (edmProperty == null) {
+        throw invalid(skipToken, null);
+      }
+      final EdmPrimitiveType type = (EdmPrimitiveType) edmProperty.getType();
+      try {
+        values.put(entry.getKey(), type.valueOfString(entry.getValue(),
+            edmProperty.isNullable(), edmProperty.getMaxLength(), edmProperty.getPrecision(),
+            edmProperty.getScale(), edmProperty.isUnicode(), type.getDefaultType()));
+      } catch (final EdmPrimitiveTypeException e) {
+        throw invalid(skipToken, e);
+      }
+    }
+    return new SkipToken(values, token.pageSize, token.top);
+  }
+
+  private DeserializerException invalid(final String skipToken, final Exception cause) {
+    return cause == null ?
+        new DeserializerException("Invalid skip token", DeserializerException.MessageKeys.INVALID_SKIP_TOKEN,
+            skipToken) :
+        new DeserializerException("Invalid skip token", cause, DeserializerException.MessageKeys.INVALID_SKIP_TOKEN,
+            skipToken);
+  }
+
+  /** Skip token with the values as literals. */
+  private static final class Token {
+    private final Integer pageSize;
+    private final Integer top;
+    private final Map<String, String> literals;
+
+    private Token(final Integer pageSize, final Integer top, final Map<String, String> literals) {
+      this.pageSize = pageSize;
+      this.top = top;
+      this.literals = literals;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
@@ -45,12 +46,7 @@ public class AsyncResponseSerializer {
   public InputStream serialize(final ODataResponse response) throws SerializerException {
     try {
       ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-      appendStatusLine(response, buffer);
-      appendResponseHeader(response, buffer);
-      append(CRLF, buffer);
-      appendBody(response, buffer);
-
-      buffer.flush();
+      serialize(response, buffer);
       return new ByteArrayInputStream(buffer.toByteArray(), 0, buffer.size());
     } catch (IOException e) {
       throw new SerializerException("Exception occurred during serialization of asynchronous response.",
@@ -58,8 +54,22 @@ public class AsyncResponseSerializer {
     }
   }
 
+  /**
+   * Writes the response as <code>application/http</code> content to the given output stream.
+   * @param response the response
+   * @param output the output stream; it is not closed
+   * @throws IOException if writing fails
+   */
+  public void serialize(final ODataResponse response, final OutputStream output) throws IOException {
+    appendStatusLine(response, output);
+    appendResponseHeader(response, output);
+    append(CRLF, output);
+    appendBody(response, output);
+    output.flush();
+  }
+
   private void appendResponseHeader(final ODataResponse response,
-      final ByteArrayOutputStream buffer) throws IOException {
+      final OutputStream buffer) throws IOException {
     final Map<String, List<String>> header = response.getAllHeaders();
 
     for (final Map.Entry<String, List<String>> entry : header.entrySet()) {
@@ -67,20 +77,20 @@ public class AsyncResponseSerializer {
     }
   }
 
-  private void appendHeader(final String name, final List<String> values, final ByteArrayOutputStream buffer)
+  private void appendHeader(final String name, final List<String> values, final OutputStream buffer)
       throws IOException {
     for (String value : values) {
       append(name + COLON + SP + value + CRLF, buffer);
     }
   }
 
-  private void appendStatusLine(final ODataResponse response, final ByteArrayOutputStream buffer)
+  private void appendStatusLine(final ODataResponse response, final OutputStream buffer)
       throws IOException {
     HttpStatusCode status = HttpStatusCode.fromStatusCode(response.getStatusCode());
     append(HTTP_VERSION + SP + response.getStatusCode() + SP + status + CRLF, buffer);
   }
 
-  private void appendBody(final ODataResponse response, final ByteArrayOutputStream buffer) throws IOException {
+  private void appendBody(final ODataResponse response, final OutputStream buffer) throws IOException {
     InputStream input = response.getContent();
     if (input != null) {
       ByteBuffer inBuffer = ByteBuffer.allocate(BUFFER_SIZE);
@@ -91,10 +101,12 @@ public class AsyncResponseSerializer {
         oc.write(inBuffer);
         inBuffer.rewind();
       }
+    } else if (response.getODataContent() != null) {
+      response.getODataContent().write(buffer);
     }
   }
 
-  private void append(final String value, final ByteArrayOutputStream buffer) throws IOException {
+  private void append(final String value, final OutputStream buffer) throws IOException {
     try {
       buffer.write(value.getBytes(HEADER_CHARSET_NAME));
     } catch (UnsupportedEncodingException e) {
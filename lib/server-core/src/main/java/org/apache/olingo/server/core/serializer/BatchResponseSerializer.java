@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
@@ -56,24 +57,47 @@ public class BatchResponseSerializer {
     return new ByteArrayInputStream(builder.getContent());
   }
 
+  /**
+   * Writes a single part of a batch response, introduced by its boundary, to the given stream.
+   * Only the content of this part is buffered.
+   */
+  public void serializePart(final ODataResponsePart part, final String boundary, final OutputStream output)
+      throws BatchSerializerException, IOException {
+    final BodyBuilder builder = new BodyBuilder();
+    appendResponsePart(part, boundary, builder);
+    output.write(builder.getContent());
+  }
+
+  /**
+   * Writes the close delimiter which ends a batch response to the given stream.
+   */
+  public void serializeEnd(final String boundary, final OutputStream output) throws IOException {
+    output.write(new BodyBuilder().append(getCloseDelimiter(boundary)).getContent());
+  }
+
   private BodyBuilder createBody(final List<ODataResponsePart> batchResponses, final String boundary)
       throws BatchSerializerException {
     final BodyBuilder builder = new BodyBuilder();
 
     for (final ODataResponsePart part : batchResponses) {
-      builder.append(getDashBoundary(boundary));
-
-      if (part.isChangeSet()) {
-        appendChangeSet(part, builder);
-      } else {
-        appendBodyPart(part.getResponses().get(0), builder, false);
-      }
+      appendResponsePart(part, boundary, builder);
     }
     builder.append(getCloseDelimiter(boundary));
 
     return builder;
   }
 
+  private void appendResponsePart(final ODataResponsePart part, final String boundary, final BodyBuilder builder)
+      throws BatchSerializerException {
+    builder.append(getDashBoundary(boundary));
+
+    if (part.isChangeSet()) {
+      appendChangeSet(part, builder);
+    } else {
+      appendBodyPart(part.getResponses().get(0), builder, false);
+    }
+  }
+
   private void appendChangeSet(final ODataResponsePart part, final BodyBuilder builder)
       throws BatchSerializerException {
     final String changeSetBoundary = generateBoundary("changeset");
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.serializer.PreRenderedDocument;
+import org.apache.olingo.server.api.serializer.SerializerException;
+
+/**
+ * Holds the bytes of a serialized document together with its compressed variants,
+ * which are computed at their first use.
+ */
+public class PreRenderedDocumentImpl implements PreRenderedDocument {
+
+  private final byte[] content;
+  private volatile byte[] gzipContent;
+  private volatile byte[] deflateContent;
+
+  public PreRenderedDocumentImpl(final InputStream content) throws SerializerException {
+    try {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      int count;
+      while ((count = content.read(buffer)) >= 0) {
+        output.write(buffer, 0, count);
+      }
+      content.close();
+      this.content = output.toByteArray();
+    } catch (final IOException e) {
+      throw new SerializerException("An I/O exception occurred.", e,
+          SerializerException.MessageKeys.IO_EXCEPTION);
+    }
+  }
+
+  @Override
+  public InputStream getContent() {
+    return new ByteArrayInputStream(content);
+  }
+
+  @Override
+  public InputStream getContent(final String contentCoding) {
+    if (GZIP.equalsIgnoreCase(contentCoding)) {
+      if (gzipContent == null) {
+        gzipContent = compress(true);
+      }
+      return new ByteArrayInputStream(gzipContent);
+    } else if (DEFLATE.equalsIgnoreCase(contentCoding)) {
+      if (deflateContent == null) {
+        deflateContent = compress(false);
+      }
+      return new ByteArrayInputStream(deflateContent);
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a hash of the content that changes whenever the content changes.
+   * @return the hexadecimal SHA-256 digest of the content
+   */
+  public String getContentHash() {
+    return DigestUtils.sha256Hex(content);
+  }
+
+  private byte[] compress(final boolean gzip) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 4);
+    try {
+      final OutputStream compressor = gzip ? new GZIPOutputStream(output) : new DeflaterOutputStream(output);
+      compressor.write(content);
+      compressor.close();
+    } catch (final IOException e) {
+      // Should not happen because nothing is written to an external resource.
+      throw new ODataRuntimeException(e);
+    }
+    return output.toByteArray();
+  }
+}
@@ -62,6 +62,9 @@ import com.fasterxml.jackson.core.JsonGenerator;
 
 public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
 
+  /** Thread-safe factory shared by all instances; it also shares recycled buffers. */
+  private static final JsonFactory FACTORY = new JsonFactory();
+
   private static final String IO_EXCEPTION_TEXT = "An I/O exception occurred.";
 
   protected final boolean isIEEE754Compatible;
@@ -98,7 +101,7 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       if (obj instanceof AbstractEntityCollection) {
         doSerialize(entityType, (AbstractEntityCollection) obj, contextURLString, metadataETag, json);
       } else if (obj instanceof Entity) {
@@ -239,9 +242,9 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
       if (link.getInlineEntity() != null) {
         json.writeFieldName(name);
         doSerialize(targetType, link.getInlineEntity(), null, null, json);
-      } else if (link.getInlineEntitySet() != null) {
+      } else if (link.getInlineEntityCollection() != null) {
         json.writeArrayFieldStart(name);
-        for (final Entity subEntry : link.getInlineEntitySet().getEntities()) {
+        for (final Entity subEntry : link.getInlineEntityCollection()) {
           doSerialize(targetType, subEntry, null, null, json);
         }
         json.writeEndArray();
@@ -34,9 +34,11 @@ import org.apache.olingo.commons.api.data.DeletedEntity;
 import org.apache.olingo.commons.api.data.Delta;
 import org.apache.olingo.commons.api.data.DeltaLink;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Linked;
 import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.PropertyList;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
@@ -51,15 +53,17 @@ import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
 import org.apache.olingo.server.api.ServiceMetadata;
-import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
+import org.apache.olingo.server.api.serializer.EdmDeltaStreamSerializer;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.serializer.SerializerResult;
+import org.apache.olingo.server.api.serializer.SerializerStreamResult;
 import org.apache.olingo.server.api.uri.UriHelper;
 import org.apache.olingo.server.api.uri.queryoption.CountOption;
 import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.ODataWritableContent;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
@@ -70,7 +74,10 @@ import org.apache.olingo.server.core.uri.UriHelperImpl;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
-public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
+public class JsonDeltaSerializerWithNavigations implements EdmDeltaStreamSerializer {
+
+  /** Thread-safe factory shared by all instances; it also shares recycled buffers. */
+  private static final JsonFactory FACTORY = new JsonFactory();
   private static final String IO_EXCEPTION_TEXT = "An I/O exception occurred.";
   private final boolean isIEEE754Compatible;
   private final boolean isODataMetadataNone;
@@ -91,7 +98,7 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       json.writeStartObject();
 
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
@@ -118,6 +125,61 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
     }
 
   }
+
+  @Override
+  public SerializerStreamResult entityCollectionStreamed(ServiceMetadata metadata, EdmEntityType referencedEntityType,
+      EntityIterator entities, Delta delta, EntityCollectionSerializerOptions options) throws SerializerException {
+    checkStreamOptions(options);
+    return ODataWritableContent.with(entities, referencedEntityType, this, metadata, delta, options).build();
+  }
+
+  public void entityCollectionIntoStream(final ServiceMetadata metadata, final EdmEntityType referencedEntityType,
+      final EntityIterator entities, final Delta delta, final EntityCollectionSerializerOptions options,
+      final OutputStream outputStream) throws SerializerException {
+    checkStreamOptions(options);
+    try {
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
+      json.writeStartObject();
+
+      writeContextURL(checkContextURL(options.getContextURL()), json);
+
+      final boolean writeCount = options.getCount() != null && options.getCount().getValue();
+      final Integer count = writeCount ? entities.getCount() : null;
+      writeInlineCount(count, json);
+      json.writeFieldName(Constants.VALUE);
+      json.writeStartArray();
+      for (final Entity entity : entities) {
+        if (entity instanceof DeletedEntity) {
+          writeDeletedEntity(entity, json);
+        } else {
+          writeAddedUpdatedEntity(metadata, referencedEntityType, entity, options.getExpand(), options.getSelect(),
+              options.getContextURL(), false, options.getContextURL().getEntitySetOrSingletonOrType(), json);
+        }
+      }
+      if (delta != null) {
+        writeDeltaEntries(metadata, referencedEntityType, delta, options, json);
+      }
+      json.writeEndArray();
+
+      // count, next link, and delta link may only be known after the iteration
+      if (writeCount && count == null) {
+        writeInlineCount(entities.getCount(), json);
+      }
+      final boolean pagination = writeNextLink(entities, json);
+      writeDeltaLink(entities, json, pagination);
+
+      json.close();
+    } catch (final IOException e) {
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
+    }
+  }
+
+  /** The entries of a delta response are written relative to the context URL, so it is needed in any case. */
+  private void checkStreamOptions(final EntityCollectionSerializerOptions options) throws SerializerException {
+    if (options == null || options.getContextURL() == null) {
+      throw new SerializerException("ContextURL null!", SerializerException.MessageKeys.NO_CONTEXT_URL);
+    }
+  }
   
   protected void closeCircleStreamBufferOutput(final OutputStream outputStream,
       final SerializerException cachedException)
@@ -140,6 +202,13 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
       final JsonGenerator json) throws IOException,
       SerializerException {
     json.writeStartArray();
+    writeDeltaEntries(metadata, entityType, entitySet, options, json);
+    json.writeEndArray();
+  }
+
+  private void writeDeltaEntries(final ServiceMetadata metadata, final EdmEntityType entityType,
+      final Delta entitySet, final EntityCollectionSerializerOptions options,
+      final JsonGenerator json) throws IOException, SerializerException {
     for (final Entity entity : entitySet.getEntities()) {
       writeAddedUpdatedEntity(metadata, entityType, entity, options.getExpand(), options.getSelect(),
           options.getContextURL(), false, options.getContextURL().getEntitySetOrSingletonOrType(), json);
@@ -153,7 +222,6 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
     for (final DeltaLink deletedLink : entitySet.getDeletedLinks()) {
       writeLink(deletedLink, options, json, false);
     }
-    json.writeEndArray();
   }
 
   private void writeLink(DeltaLink link, EntityCollectionSerializerOptions options,
@@ -254,12 +322,7 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
   }
 
   private Property findProperty(final String propertyName, final List<Property> properties) {
-    for (final Property property : properties) {
-      if (propertyName.equals(property.getName())) {
-        return property;
-      }
-    }
-    return null;
+    return PropertyList.getProperty(properties, propertyName);
   }
 
   protected void writeProperty(final ServiceMetadata metadata,
@@ -562,9 +625,9 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
       final JsonGenerator json) throws IOException, SerializerException {
 
     if (property.isCollection()) {
-      if (navigationLink != null && navigationLink.getInlineEntitySet() != null) {
+      if (navigationLink != null && navigationLink.getInlineEntityCollection() != null) {
         json.writeFieldName(property.getName() + Constants.AT + Constants.DELTAVALUE);
-        writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntitySet(), innerExpand,
+        writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntityCollection(), innerExpand,
             innerSelect, writeOnlyRef, name, json);
       }
 
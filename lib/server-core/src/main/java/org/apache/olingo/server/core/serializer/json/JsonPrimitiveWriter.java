@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.json;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes primitive values of the numeric and boolean EDM types directly through the
+ * {@link JsonGenerator} primitives instead of formatting them into a String first.
+ * <p>A writer only handles values for which {@link EdmPrimitiveType#valueToString} would succeed and
+ * produce the same JSON text; for every other value (including <code>null</code>) it reports
+ * <code>false</code> and the caller falls back to <code>valueToString</code>, which also reports
+ * facet violations.</p>
+ */
+enum JsonPrimitiveWriter {
+
+  BOOLEAN {
+    @Override
+    boolean write(final JsonGenerator json, final Object value, final boolean isIEEE754Compatible)
+        throws IOException {
+      if (value instanceof Boolean) {
+        json.writeBoolean((Boolean) value);
+        return true;
+      }
+      return false;
+    }
+  },
+  BYTE {
+    @Override
+    boolean write(final JsonGenerator json, final Object value, final boolean isIEEE754Compatible)
+        throws IOException {
+      return writeIntegral(json, value, 0, (1 << Byte.SIZE) - 1);
+    }
+  },
+  SBYTE {
+    @Override
+    boolean write(final JsonGenerator json, final Object value, final boolean isIEEE754Compatible)
+        throws IOException {
+      return writeIntegral(json, value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+    }
+  },
+  INT16 {
+    @Override
+    boolean write(final JsonGenerator json, final Object value, final boolean isIEEE754Compatible)
+        throws IOException {
+      return writeIntegral(json, value, Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+  },
+  INT32 {
+    @Override
+    boolean write(final JsonGenerator json, final Object value, final boolean isIEEE754Compatible)
+        throws IOException {
+      return writeIntegral(json, value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+  },
+  /** Int64 values are written as strings in IEEE754-compatible mode, which is left to the caller. */
+  INT64 {
+    @Override
+    boolean write(final JsonGenerator json, final Object value, final boolean isIEEE754Compatible)
+        throws IOException {
+      return !isIEEE754Compatible && writeIntegral(json, value, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+  },
+  /** Infinite and NaN values have special literals and are left to the caller. */
+  SINGLE {
+    @Override
+    boolean write(final JsonGenerator json, final Object value, final boolean isIEEE754Compatible)
+        throws IOException {
+      if (value instanceof Float) {
+        final float floatValue = (Float) value;
+        if (Float.isNaN(floatValue) || Float.isInfinite(floatValue)) {
+          return false;
+        }
+        json.writeNumber(floatValue);
+        return true;
+      }
+      return value instanceof Short || value instanceof Byte ? writeIntegral(json, value, Short.MIN_VALUE,
+          Short.MAX_VALUE) : writeIntegral(json, value, -(1 << 22) + 1, (1 << 22) - 1);
+    }
+  },
+  DOUBLE {
+    @Override
+    boolean write(final JsonGenerator json, final Object value, final boolean isIEEE754Compatible)
+        throws IOException {
+      if (value instanceof Double) {
+        final double doubleValue = (Double) value;
+        if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+          return false;
+        }
+        json.writeNumber(doubleValue);
+        return true;
+      }
+      return !(value instanceof Long) && writeIntegral(json, value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+  };
+
+  private static final Map<EdmPrimitiveType, JsonPrimitiveWriter> WRITERS =
+      new IdentityHashMap<EdmPrimitiveType, JsonPrimitiveWriter>();
+
+  static {
+    WRITERS.put(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean), BOOLEAN);
+    WRITERS.put(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Byte), BYTE);
+    WRITERS.put(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.SByte), SBYTE);
+    WRITERS.put(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int16), INT16);
+    WRITERS.put(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32), INT32);
+    WRITERS.put(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int64), INT64);
+    WRITERS.put(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Single), SINGLE);
+    WRITERS.put(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Double), DOUBLE);
+  }
+
+  /**
+   * Writes the value if this writer can do so without formatting it into a String.
+   * @return <code>true</code> if the value has been written, <code>false</code> if the caller has to write it
+   */
+  abstract boolean write(JsonGenerator json, Object value, boolean isIEEE754Compatible) throws IOException;
+
+  /**
+   * Returns the writer for the given type.
+   * @return the writer or <code>null</code> if values of the type are always written from their String form
+   */
+  static JsonPrimitiveWriter forType(final EdmPrimitiveType type) {
+    return WRITERS.get(type);
+  }
+
+  private static boolean writeIntegral(final JsonGenerator json, final Object value,
+      final long minValue, final long maxValue) throws IOException {
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof Long) {
+      final long longValue = ((Number) value).longValue();
+      if (longValue < minValue || longValue > maxValue) {
+        return false;
+      }
+      if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+        json.writeNumber((int) longValue);
+      } else {
+        json.writeNumber(longValue);
+      }
+      return true;
+    }
+    return false;
+  }
+}
@@ -42,6 +42,7 @@ import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Linked;
 import org.apache.olingo.commons.api.data.Operation;
 import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.PropertyList;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
@@ -81,7 +82,6 @@ import org.apache.olingo.server.api.uri.UriHelper;
 import org.apache.olingo.server.api.uri.queryoption.CountOption;
 import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
-import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.ODataWritableContent;
 import org.apache.olingo.server.core.serializer.AbstractODataSerializer;
@@ -90,14 +90,18 @@ import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.ExpandSelectPlan;
+import org.apache.olingo.server.core.serializer.utils.ExpandSelectPlanCache;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
-import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 public class ODataJsonSerializer extends AbstractODataSerializer {
 
+  /** Thread-safe factory shared by all instances; it also shares recycled buffers. */
+  private static final JsonFactory FACTORY = new JsonFactory();
+
   private static final Map<Geospatial.Type, String> geoValueTypeToJsonName;
   static {
     Map<Geospatial.Type, String> temp = new EnumMap<Geospatial.Type, String>(Geospatial.Type.class);
@@ -115,6 +119,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   private final boolean isODataMetadataNone;
   private final boolean isODataMetadataFull;
   private IConstants constants;
+  private final ExpandSelectPlanCache plans = new ExpandSelectPlanCache();
 
   public ODataJsonSerializer(final ContentType contentType, final IConstants constants) {
     isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
@@ -139,7 +144,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       new ServiceDocumentJsonSerializer(metadata, serviceRoot, isODataMetadataNone).writeServiceDocument(json);
 
       json.close();
@@ -162,7 +167,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       new MetadataDocumentJsonSerializer(serviceMetadata).writeMetadataDocument(json);
 
       json.close();
@@ -184,7 +189,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       new ODataErrorSerializer().writeErrorDocument(json, error);
 
       json.close();
@@ -209,7 +214,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       json.writeStartObject();
 
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
@@ -263,7 +268,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException;
     boolean pagination = false;
     try {
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       json.writeStartObject();
 
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
@@ -271,9 +276,10 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
       writeMetadataETag(metadata, json);
 
-      if (options != null && options.getCount() != null && options.getCount().getValue()) {
-        writeInlineCount("", entitySet.getCount(), json);
-      }
+      final boolean writeCount = options != null && options.getCount() != null && options.getCount().getValue();
+      final Integer count = writeCount ? entitySet.getCount() : null;
+      writeInlineCount("", count, json);
+      writeOperations(entitySet.getOperations(), json);
       json.writeFieldName(Constants.VALUE);
       String name =  contextURL == null ? null:contextURL.getEntitySetOrSingletonOrType() ;
       if (options == null) {
@@ -282,8 +288,12 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         writeEntitySet(metadata, entityType, entitySet,
             options.getExpand(), null, options.getSelect(), options.getWriteOnlyReferences(), null, name, json);
       }
-      // next link support for streaming results
+      // count, next link, and delta link may only be known after the iteration
+      if (writeCount && count == null) {
+        writeInlineCount("", entitySet.getCount(), json);
+      }
       writeNextLink(entitySet, json, pagination);
+      writeDeltaLink(entitySet, json, entitySet.getNext() != null);
 
       json.close();
     } catch (final IOException e) {
@@ -306,7 +316,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       String name =  contextURL == null ? null:contextURL.getEntitySetOrSingletonOrType();
       writeEntity(metadata, entityType, entity, contextURL,
           options == null ? null : options.getExpand(),
@@ -380,19 +390,6 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     return entity.getId().toASCIIString();
   }
 
-  private boolean areKeyPredicateNamesSelected(SelectOption select, EdmEntityType type) {
-    if (select == null || ExpandSelectHelper.isAll(select)) {
-      return true;
-    }
-    final Set<String> selected = ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
-    for (String key : type.getKeyPredicateNames()) {
-      if (!selected.contains(key)) {
-        return false;
-      }
-    }
-    return true;
-  }
-
   protected void writeEntity(final ServiceMetadata metadata, final EdmEntityType entityType, final Entity entity,
       final ContextURL contextURL, final ExpandOption expand, Integer toDepth, 
       final SelectOption select, final boolean onlyReference, Set<String> ancestors, 
@@ -435,10 +432,11 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         json.writeStringField(constants.getId(), getEntityId(entity, entityType, name));
       } else {
         final EdmEntityType resolvedType = resolveEntityType(metadata, entityType, entity.getType());
+        final ExpandSelectPlan plan = plans.get(resolvedType, select, expand, name);
         if ((!isODataMetadataNone && !resolvedType.equals(entityType)) || isODataMetadataFull) {
           json.writeStringField(constants.getType(), "#" + entity.getType());
         }
-        if ((!isODataMetadataNone && !areKeyPredicateNamesSelected(select, resolvedType)) || isODataMetadataFull) {
+        if ((!isODataMetadataNone && !plan.isKeyPredicateNamesSelected()) || isODataMetadataFull) {
           json.writeStringField(constants.getId(), getEntityId(entity, resolvedType, name));
         }
         
@@ -451,8 +449,8 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
           }
         }
         
-        writeProperties(metadata, resolvedType, entity.getProperties(), select, json, entity, expand);
-        writeNavigationProperties(metadata, resolvedType, entity, expand, toDepth, ancestors, name, json);
+        writeProperties(metadata, plan, entity.getProperties(), json, entity, expand);
+        writeNavigationProperties(metadata, plan, entity, expand, toDepth, ancestors, name, json);
         writeOperations(entity.getOperations(), json);      
       }
       json.writeEndObject();
@@ -527,30 +525,18 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final List<Property> properties,
       final SelectOption select, final JsonGenerator json, Linked linked, ExpandOption expand)
       throws IOException, SerializerException {
-    final boolean all = ExpandSelectHelper.isAll(select);
-    final Set<String> selected = all ? new HashSet<String>() :
-        ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
-    addKeyPropertiesToSelected(selected, type);
-    Set<List<String>> expandedPaths = ExpandSelectHelper.getExpandedItemsPath(expand);
-    for (final String propertyName : type.getPropertyNames()) {
-      if (all || selected.contains(propertyName)) {
-        final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
-        final Property property = findProperty(propertyName, properties);
-        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
-            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
-        writeProperty(metadata, edmProperty, property, selectedPaths, json, expandedPaths, linked, expand);
-      }
-    }
+    writeProperties(metadata, plans.get(type, select, expand, null), properties, json, linked, expand);
   }
-  
-  private void addKeyPropertiesToSelected(Set<String> selected, EdmStructuredType type) {
-    if (!selected.isEmpty() && type instanceof EdmEntityType) {
-      List<String> keyNames = ((EdmEntityType) type).getKeyPredicateNames();
-      for (String key : keyNames) {
-        if (!selected.contains(key)) {
-          selected.add(key);
-        }
-      }
+
+  private void writeProperties(final ServiceMetadata metadata, final ExpandSelectPlan plan,
+      final List<Property> properties, final JsonGenerator json, Linked linked, ExpandOption expand)
+      throws IOException, SerializerException {
+    final Set<List<String>> expandedPaths = plan.getExpandedPaths();
+    for (final ExpandSelectPlan.PropertyPlan propertyPlan : plan.getProperties()) {
+      final EdmProperty edmProperty = propertyPlan.getProperty();
+      final Property property = findProperty(edmProperty.getName(), properties);
+      writeProperty(metadata, edmProperty, property, propertyPlan.getSelectedPaths(), json, expandedPaths,
+          linked, expand);
     }
   }
 
@@ -558,8 +544,17 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final EdmStructuredType type, final Linked linked, final ExpandOption expand, final Integer toDepth,
       final Set<String> ancestors, final String name, final JsonGenerator json) 
           throws SerializerException, IOException, DecoderException {
+    writeNavigationProperties(metadata, plans.get(type, null, expand, name), linked, expand, toDepth, ancestors,
+        name, json);
+  }
+
+  private void writeNavigationProperties(final ServiceMetadata metadata,
+      final ExpandSelectPlan plan, final Linked linked, final ExpandOption expand, final Integer toDepth,
+      final Set<String> ancestors, final String name, final JsonGenerator json)
+          throws SerializerException, IOException, DecoderException {
     if (isODataMetadataFull) {
-      for (final String propertyName : type.getNavigationPropertyNames()) {
+      for (final ExpandSelectPlan.NavigationPlan navigation : plan.getNavigations()) {
+        final String propertyName = navigation.getName();
         final Link navigationLink = linked.getNavigationLink(propertyName);
         if (navigationLink != null) {
           json.writeStringField(propertyName + constants.getNavigationLink(), navigationLink.getHref());  
@@ -570,30 +565,14 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         }
       }
     }
-    if ((toDepth != null && toDepth > 1) || (toDepth == null && ExpandSelectHelper.hasExpand(expand))) {
-      final ExpandItem expandAll = ExpandSelectHelper.getExpandAll(expand);
-      for (final String propertyName : type.getNavigationPropertyNames()) {
-        final ExpandItem innerOptions = ExpandSelectHelper.getExpandItemBasedOnType(expand.getExpandItems(), 
-            propertyName, type, name);
-        if (innerOptions != null || expandAll != null || toDepth != null) {
-          Integer levels = null;
-          final EdmNavigationProperty property = type.getNavigationProperty(propertyName);
+    if ((toDepth != null && toDepth > 1) || (toDepth == null && plan.hasExpand())) {
+      for (final ExpandSelectPlan.NavigationPlan navigation : plan.getNavigations()) {
+        if (navigation.isExpanded() || toDepth != null) {
+          final ExpandItem innerOptions = navigation.getExpandItem();
+          final EdmNavigationProperty property = navigation.getProperty();
           final Link navigationLink = linked.getNavigationLink(property.getName());
-          ExpandOption childExpand = null;
-          LevelsExpandOption levelsOption = null;
-          if (innerOptions != null) {
-            levelsOption = innerOptions.getLevelsOption();
-            childExpand = levelsOption == null ? innerOptions.getExpandOption() : new ExpandOptionImpl().addExpandItem(
-                innerOptions);
-          } else if (expandAll != null) {
-            levels = 1;
-            levelsOption = expandAll.getLevelsOption();
-            childExpand = new ExpandOptionImpl().addExpandItem(expandAll);
-          }
-
-          if (levelsOption != null) { 
-            levels = levelsOption.isMax() ? Integer.MAX_VALUE : levelsOption.getValue();
-          }
+          Integer levels = navigation.getLevels();
+          ExpandOption childExpand = navigation.getChildExpand();
           if (toDepth != null) {
             levels = toDepth - 1;
             childExpand = expand;
@@ -655,14 +634,16 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       String name, final JsonGenerator json) throws IOException, SerializerException, DecoderException {
 
     if (property.isCollection()) {
+      final AbstractEntityCollection inlineEntitySet =
+          navigationLink == null ? null : navigationLink.getInlineEntityCollection();
       if (writeOnlyCount) {
-        if (navigationLink == null || navigationLink.getInlineEntitySet() == null) {
+        if (inlineEntitySet == null) {
           writeInlineCount(property.getName(), 0, json);
         } else {
-          writeInlineCount(property.getName(), navigationLink.getInlineEntitySet().getCount(), json);
+          writeInlineCount(property.getName(), inlineEntitySet.getCount(), json);
         }
       } else {
-        if (navigationLink == null || navigationLink.getInlineEntitySet() == null) {
+        if (inlineEntitySet == null) {
           if (innerCount != null && innerCount.getValue()) {
             writeInlineCount(property.getName(), 0, json);
           }
@@ -670,12 +651,20 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
           json.writeStartArray();
           json.writeEndArray();
         } else {
-          if (innerCount != null && innerCount.getValue()) {
-            writeInlineCount(property.getName(), navigationLink.getInlineEntitySet().getCount(), json);
-          }
+          // An entity iterator may know its count only after the iteration; then it is written afterwards.
+          final boolean writeCount = innerCount != null && innerCount.getValue();
+          final Integer count = writeCount ? inlineEntitySet.getCount() : null;
+          writeInlineCount(property.getName(), count, json);
           json.writeFieldName(property.getName());
-          writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntitySet(), innerExpand, toDepth,
+          writeEntitySet(metadata, property.getType(), inlineEntitySet, innerExpand, toDepth,
               innerSelect, writeOnlyRef, ancestors, name, json);
+          if (writeCount && count == null) {
+            writeInlineCount(property.getName(), inlineEntitySet.getCount(), json);
+          }
+          if (inlineEntitySet instanceof EntityIterator && inlineEntitySet.getNext() != null) {
+            json.writeStringField(property.getName() + constants.getNextLink(),
+                inlineEntitySet.getNext().toASCIIString());
+          }
         }
       }
     } else {
@@ -934,6 +923,10 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   protected void writePrimitiveValue(final String name, final EdmPrimitiveType type, final Object primitiveValue,
       final Boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
       final Boolean isUnicode, final JsonGenerator json) throws EdmPrimitiveTypeException, IOException {
+    final JsonPrimitiveWriter writer = JsonPrimitiveWriter.forType(type);
+    if (writer != null && writer.write(json, primitiveValue, isIEEE754Compatible)) {
+      return;
+    }
     final String value = type.valueToString(primitiveValue,
         isNullable, maxLength, precision, scale, isUnicode);
     if (value == null) {
@@ -1109,12 +1102,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     
 
   private Property findProperty(final String propertyName, final List<Property> properties) {
-    for (final Property property : properties) {
-      if (propertyName.equals(property.getName())) {
-        return property;
-      }
-    }
-    return null;
+    return PropertyList.getProperty(properties, propertyName);
   }
 
   @Override
@@ -1126,7 +1114,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1172,7 +1160,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         contextURL.getEntitySetOrSingletonOrType();
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);      
@@ -1231,7 +1219,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1269,7 +1257,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = FACTORY.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1316,7 +1304,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       final UriHelper uriHelper = new UriHelperImpl();
       outputStream = buffer.getOutputStream();
-      final JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      final JsonGenerator json = FACTORY.createGenerator(outputStream);
 
       json.writeStartObject();
       writeContextURL(contextURL, json);
@@ -1348,7 +1336,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       final UriHelper uriHelper = new UriHelperImpl();
       outputStream = buffer.getOutputStream();
-      final JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      final JsonGenerator json = FACTORY.createGenerator(outputStream);
       json.writeStartObject();
 
       writeContextURL(contextURL, json);
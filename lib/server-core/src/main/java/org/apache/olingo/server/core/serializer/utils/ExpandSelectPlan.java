@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
+
+/**
+ * Immutable result of evaluating $select and $expand against one structured type.
+ * <p>The serializers compile a plan once per combination of type, select option, expand option
+ * and resource name (see {@link ExpandSelectPlanCache}) and then only walk it for every entity,
+ * instead of re-deriving the selected properties and expand items row by row.</p>
+ */
+public final class ExpandSelectPlan {
+
+  /** A selected structural property together with the select paths below it. */
+  public static final class PropertyPlan {
+    private final EdmProperty property;
+    private final Set<List<String>> selectedPaths;
+
+    private PropertyPlan(final EdmProperty property, final Set<List<String>> selectedPaths) {
+      this.property = property;
+      this.selectedPaths = selectedPaths;
+    }
+
+    public EdmProperty getProperty() {
+      return property;
+    }
+
+    /** @return the paths selected below this property or <code>null</code> if all of it is selected */
+    public Set<List<String>> getSelectedPaths() {
+      return selectedPaths;
+    }
+  }
+
+  /** A navigation property together with the options for its expanded content. */
+  public static final class NavigationPlan {
+    private final EdmNavigationProperty property;
+    private final ExpandItem expandItem;
+    private final boolean expanded;
+    private final ExpandOption childExpand;
+    private final Integer levels;
+
+    private NavigationPlan(final EdmNavigationProperty property, final ExpandItem expandItem,
+        final ExpandItem expandAll) {
+      this.property = property;
+      this.expandItem = expandItem;
+      expanded = expandItem != null || expandAll != null;
+      LevelsExpandOption levelsOption = null;
+      Integer expandLevels = null;
+      if (expandItem != null) {
+        levelsOption = expandItem.getLevelsOption();
+        childExpand = levelsOption == null ? expandItem.getExpandOption() :
+            new ExpandOptionImpl().addExpandItem(expandItem);
+      } else if (expandAll != null) {
+        expandLevels = 1;
+        levelsOption = expandAll.getLevelsOption();
+        childExpand = new ExpandOptionImpl().addExpandItem(expandAll);
+      } else {
+        childExpand = null;
+      }
+      if (levelsOption != null) {
+        expandLevels = levelsOption.isMax() ? Integer.MAX_VALUE : levelsOption.getValue();
+      }
+      levels = expandLevels;
+    }
+
+    public EdmNavigationProperty getProperty() {
+      return property;
+    }
+
+    public String getName() {
+      return property.getName();
+    }
+
+    /** @return the expand item naming this navigation property or <code>null</code> */
+    public ExpandItem getExpandItem() {
+      return expandItem;
+    }
+
+    /** @return whether the navigation property is expanded explicitly or by <code>*</code> */
+    public boolean isExpanded() {
+      return expanded;
+    }
+
+    /**
+     * @return the expand option to apply to the expanded content; the same instance is returned
+     * for every entity so that nested plans are found in the cache again
+     */
+    public ExpandOption getChildExpand() {
+      return childExpand;
+    }
+
+    /** @return the remaining levels of a <code>$levels</code> expansion or <code>null</code> */
+    public Integer getLevels() {
+      return levels;
+    }
+  }
+
+  private final boolean all;
+  private final List<PropertyPlan> properties;
+  private final Set<List<String>> expandedPaths;
+  private final boolean keyPredicateNamesSelected;
+  private final boolean hasExpand;
+  private final List<NavigationPlan> navigations;
+
+  private ExpandSelectPlan(final EdmStructuredType type, final SelectOption select, final ExpandOption expand,
+      final String resourceName) {
+    all = ExpandSelectHelper.isAll(select);
+    final Set<String> selected = all ? new HashSet<String>() :
+        ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
+    boolean keysSelected = true;
+    if (type instanceof EdmEntityType) {
+      for (final String key : ((EdmEntityType) type).getKeyPredicateNames()) {
+        keysSelected &= all || selected.contains(key);
+        if (!selected.isEmpty()) {
+          selected.add(key);
+        }
+      }
+    }
+    keyPredicateNamesSelected = keysSelected;
+
+    List<PropertyPlan> propertyPlans = new ArrayList<PropertyPlan>();
+    for (final String propertyName : type.getPropertyNames()) {
+      if (all || selected.contains(propertyName)) {
+        final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
+        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
+            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
+        propertyPlans.add(new PropertyPlan(edmProperty,
+            selectedPaths == null ? null : Collections.unmodifiableSet(selectedPaths)));
+      }
+    }
+    properties = Collections.unmodifiableList(propertyPlans);
+    expandedPaths = Collections.unmodifiableSet(ExpandSelectHelper.getExpandedItemsPath(expand));
+
+    hasExpand = ExpandSelectHelper.hasExpand(expand);
+    final ExpandItem expandAll = hasExpand ? ExpandSelectHelper.getExpandAll(expand) : null;
+    List<NavigationPlan> navigationPlans = new ArrayList<NavigationPlan>();
+    for (final String propertyName : type.getNavigationPropertyNames()) {
+      final ExpandItem expandItem = expand == null ? null :
+          ExpandSelectHelper.getExpandItemBasedOnType(expand.getExpandItems(), propertyName, type, resourceName);
+      navigationPlans.add(new NavigationPlan(type.getNavigationProperty(propertyName), expandItem, expandAll));
+    }
+    navigations = Collections.unmodifiableList(navigationPlans);
+  }
+
+  /**
+   * Evaluates the select and expand options against the given type.
+   * @param type the structured type whose properties are written
+   * @param select the select option or <code>null</code>
+   * @param expand the expand option or <code>null</code>
+   * @param resourceName the name of the serialized resource, used to match type-cast expand paths
+   * @return the plan
+   */
+  public static ExpandSelectPlan compile(final EdmStructuredType type, final SelectOption select,
+      final ExpandOption expand, final String resourceName) {
+    return new ExpandSelectPlan(type, select, expand, resourceName);
+  }
+
+  /** @return whether all structural properties are selected */
+  public boolean isAll() {
+    return all;
+  }
+
+  /** @return the selected structural properties (including the keys) in type order */
+  public List<PropertyPlan> getProperties() {
+    return properties;
+  }
+
+  /** @return the expand paths that start at complex properties */
+  public Set<List<String>> getExpandedPaths() {
+    return expandedPaths;
+  }
+
+  /** @return whether all key properties of an entity type are part of the selection */
+  public boolean isKeyPredicateNamesSelected() {
+    return keyPredicateNamesSelected;
+  }
+
+  /** @return whether the expand option contains any item */
+  public boolean hasExpand() {
+    return hasExpand;
+  }
+
+  /** @return all navigation properties of the type in type order */
+  public List<NavigationPlan> getNavigations() {
+    return navigations;
+  }
+}
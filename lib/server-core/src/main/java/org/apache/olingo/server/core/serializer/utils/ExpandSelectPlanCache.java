@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+
+/**
+ * Cache of {@link ExpandSelectPlan}s held by a serializer instance.
+ * <p>Types and query options are compared by identity: the URI parser creates one option instance
+ * per request and the plans hand out the same nested expand options for every entity.
+ * The cache is cleared once it reaches its maximum size, so a long-lived serializer
+ * does not keep the options of all past requests alive.</p>
+ */
+public class ExpandSelectPlanCache {
+
+  private static final int MAX_SIZE = 256;
+
+  private final Map<Key, ExpandSelectPlan> plans = new ConcurrentHashMap<Key, ExpandSelectPlan>();
+
+  public ExpandSelectPlan get(final EdmStructuredType type, final SelectOption select, final ExpandOption expand,
+      final String resourceName) {
+    final Key key = new Key(type, select, expand, resourceName);
+    ExpandSelectPlan plan = plans.get(key);
+    if (plan == null) {
+      plan = ExpandSelectPlan.compile(type, select, expand, resourceName);
+      if (plans.size() >= MAX_SIZE) {
+        plans.clear();
+      }
+      plans.put(key, plan);
+    }
+    return plan;
+  }
+
+  private static final class Key {
+    private final EdmStructuredType type;
+    private final SelectOption select;
+    private final ExpandOption expand;
+    private final String resourceName;
+    private final int hashCode;
+
+    private Key(final EdmStructuredType type, final SelectOption select, final ExpandOption expand,
+        final String resourceName) {
+      this.type = type;
+      this.select = select;
+      this.expand = expand;
+      this.resourceName = resourceName;
+      int result = System.identityHashCode(type);
+      result = 31 * result + System.identityHashCode(select);
+      result = 31 * result + System.identityHashCode(expand);
+      hashCode = 31 * result + (resourceName == null ? 0 : resourceName.hashCode());
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return type == other.type && select == other.select && expand == other.expand
+          && (resourceName == null ? other.resourceName == null : resourceName.equals(other.resourceName));
+    }
+  }
+}
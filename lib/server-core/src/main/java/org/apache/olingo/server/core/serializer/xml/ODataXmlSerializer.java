@@ -42,6 +42,7 @@ import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Linked;
 import org.apache.olingo.commons.api.data.Operation;
 import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.PropertyList;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
@@ -72,7 +73,6 @@ import org.apache.olingo.server.api.uri.UriHelper;
 import org.apache.olingo.server.api.uri.queryoption.CountOption;
 import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
-import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.ODataWritableContent;
 import org.apache.olingo.server.core.serializer.AbstractODataSerializer;
@@ -80,11 +80,15 @@ import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.ExpandSelectPlan;
+import org.apache.olingo.server.core.serializer.utils.ExpandSelectPlanCache;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
-import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
 
 public class ODataXmlSerializer extends AbstractODataSerializer {
 
+  /** Thread-safe factory shared by all instances, to avoid a service lookup per response. */
+  private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+
   /** The default character set is UTF-8. */
   private static final String ATOM = "a";
   private static final String NS_ATOM = Constants.NS_ATOM;
@@ -93,6 +97,8 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
   private static final String DATA = Constants.PREFIX_DATASERVICES;
   private static final String NS_DATA = Constants.NS_DATASERVICES;
 
+  private final ExpandSelectPlanCache plans = new ExpandSelectPlanCache();
+
   @Override
   public SerializerResult serviceDocument(final ServiceMetadata metadata, final String serviceRoot)
       throws SerializerException {
@@ -101,7 +107,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       ServiceDocumentXmlSerializer serializer = new ServiceDocumentXmlSerializer(metadata, serviceRoot);
       serializer.writeServiceDocument(writer);
 
@@ -130,7 +136,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       MetadataDocumentXmlSerializer serializer = new MetadataDocumentXmlSerializer(serviceMetadata);
       serializer.writeMetadataDocument(writer);
 
@@ -164,7 +170,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
 
       writer.writeStartElement("error");
@@ -236,7 +242,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(ATOM, Constants.ATOM_ELEM_FEED, NS_ATOM);
       writer.writeNamespace(ATOM, NS_ATOM);
@@ -298,7 +304,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     final String name = contextURL == null ? null : contextURL.getEntitySetOrSingletonOrType();
     SerializerException cachedException;
     try {
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(ATOM, Constants.ATOM_ELEM_FEED, NS_ATOM);
       writer.writeNamespace(ATOM, NS_ATOM);
@@ -308,6 +314,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       writer.writeAttribute(METADATA, NS_METADATA, Constants.CONTEXT,
           ContextURLBuilder.create(contextURL).toASCIIString());
       writeMetadataETag(metadata, writer);
+      writeOperations(entitySet.getOperations(), writer);
 
       if (options != null && options.getId() != null) {
         writer.writeStartElement(ATOM, Constants.ATOM_ELEM_ID, NS_ATOM);
@@ -315,11 +322,13 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
         writer.writeEndElement();
       }
 
-      if (options != null && options.getCount() != null && options.getCount().getValue()
-          && entitySet.getCount() != null) {
+      final boolean writeCount = options != null && options.getCount() != null && options.getCount().getValue();
+      final boolean countWritten = writeCount && entitySet.getCount() != null;
+      if (countWritten) {
         writeCount(entitySet, writer);
       }
-      if (entitySet!=null && entitySet.getNext() != null) {
+      final boolean nextLinkWritten = entitySet.getNext() != null;
+      if (nextLinkWritten) {
         writeNextLink(entitySet, writer);
       }
       boolean writeOnlyRef = (options != null && options.getWriteOnlyReferences());
@@ -330,6 +339,13 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
             options.getExpand(), null, 
             options.getSelect(), options.xml10InvalidCharReplacement(), writer, writeOnlyRef, name, null);
       }
+      // count and next link may only be known after the iteration
+      if (writeCount && !countWritten && entitySet.getCount() != null) {
+        writeCount(entitySet, writer);
+      }
+      if (!nextLinkWritten && entitySet.getNext() != null) {
+        writeNextLink(entitySet, writer);
+      }
 
       writer.writeEndElement();
       writer.writeEndDocument();
@@ -363,7 +379,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writeEntity(metadata, entityType, entity, contextURL,
           options == null ? null : options.getExpand(),
@@ -511,7 +527,8 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       }
   
       EdmEntityType resolvedType = resolveEntityType(metadata, entityType, entity.getType());
-      writeNavigationProperties(metadata, resolvedType, entity, expand,
+      final ExpandSelectPlan plan = plans.get(resolvedType, select, expand, name);
+      writeNavigationProperties(metadata, plan, entity, expand,
         toDepth, xml10InvalidCharReplacement, ancestors, name, writer);
   
       writer.writeStartElement(ATOM, Constants.ATOM_ELEM_CATEGORY, NS_ATOM);
@@ -527,7 +544,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       }
   
       writer.writeStartElement(METADATA, Constants.PROPERTIES, NS_METADATA);
-      writeProperties(metadata, resolvedType, entity.getProperties(), select, 
+      writeProperties(metadata, plan, entity.getProperties(),
           xml10InvalidCharReplacement, writer, entity, expand);
       writer.writeEndElement(); // properties
   
@@ -629,63 +646,44 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       final List<Property> properties, final SelectOption select, final String xml10InvalidCharReplacement, 
       final XMLStreamWriter writer, Linked linked, ExpandOption expand) 
           throws XMLStreamException, SerializerException {
-    final boolean all = ExpandSelectHelper.isAll(select);
-    final Set<String> selected = all ? new HashSet<String>() :
-        ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
-    addKeyPropertiesToSelected(selected, type);
-    Set<List<String>> expandedPaths = ExpandSelectHelper.getExpandedItemsPath(expand);
-    for (final String propertyName : type.getPropertyNames()) {
-      if (all || selected.contains(propertyName)) {
-        final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
-        final Property property = findProperty(propertyName, properties);
-        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
-            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
-        writeProperty(metadata, edmProperty, property, selectedPaths, 
-            xml10InvalidCharReplacement, writer, expandedPaths, linked, expand);
-      }
-    }
+    writeProperties(metadata, plans.get(type, select, expand, null), properties,
+        xml10InvalidCharReplacement, writer, linked, expand);
   }
 
-  private void addKeyPropertiesToSelected(Set<String> selected, EdmStructuredType type) {
-    if (!selected.isEmpty() && type instanceof EdmEntityType) {
-      List<String> keyNames = ((EdmEntityType) type).getKeyPredicateNames();
-      for (String key : keyNames) {
-        if (!selected.contains(key)) {
-          selected.add(key);
-        }
-      }
+  private void writeProperties(final ServiceMetadata metadata, final ExpandSelectPlan plan,
+      final List<Property> properties, final String xml10InvalidCharReplacement,
+      final XMLStreamWriter writer, Linked linked, ExpandOption expand)
+          throws XMLStreamException, SerializerException {
+    final Set<List<String>> expandedPaths = plan.getExpandedPaths();
+    for (final ExpandSelectPlan.PropertyPlan propertyPlan : plan.getProperties()) {
+      final EdmProperty edmProperty = propertyPlan.getProperty();
+      final Property property = findProperty(edmProperty.getName(), properties);
+      writeProperty(metadata, edmProperty, property, propertyPlan.getSelectedPaths(),
+          xml10InvalidCharReplacement, writer, expandedPaths, linked, expand);
     }
   }
-  
+
   protected void writeNavigationProperties(final ServiceMetadata metadata,
       final EdmStructuredType type, final Linked linked, final ExpandOption expand, final Integer toDepth,
       final String xml10InvalidCharReplacement, final Set<String> ancestors, String name, final XMLStreamWriter writer) 
           throws SerializerException, XMLStreamException {
-    if ((toDepth != null && toDepth > 1) || (toDepth == null && ExpandSelectHelper.hasExpand(expand))) {
-      final ExpandItem expandAll = ExpandSelectHelper.getExpandAll(expand);
-      for (final String propertyName : type.getNavigationPropertyNames()) {
-        final ExpandItem innerOptions = ExpandSelectHelper.getExpandItemBasedOnType(expand.getExpandItems(), 
-            propertyName, type, name);
-        if (expandAll != null || innerOptions != null || toDepth != null) {
-          Integer levels = null;
-          final EdmNavigationProperty property = type.getNavigationProperty(propertyName);
+    writeNavigationProperties(metadata, plans.get(type, null, expand, name), linked, expand, toDepth,
+        xml10InvalidCharReplacement, ancestors, name, writer);
+  }
+
+  private void writeNavigationProperties(final ServiceMetadata metadata,
+      final ExpandSelectPlan plan, final Linked linked, final ExpandOption expand, final Integer toDepth,
+      final String xml10InvalidCharReplacement, final Set<String> ancestors, String name, final XMLStreamWriter writer)
+          throws SerializerException, XMLStreamException {
+    if ((toDepth != null && toDepth > 1) || (toDepth == null && plan.hasExpand())) {
+      for (final ExpandSelectPlan.NavigationPlan navigation : plan.getNavigations()) {
+        final String propertyName = navigation.getName();
+        if (navigation.isExpanded() || toDepth != null) {
+          final ExpandItem innerOptions = navigation.getExpandItem();
+          final EdmNavigationProperty property = navigation.getProperty();
           final Link navigationLink = getOrCreateLink(linked, propertyName);
-          ExpandOption childExpand = null;
-          LevelsExpandOption levelsOption = null;
-          if (innerOptions != null) {
-            levelsOption = innerOptions.getLevelsOption();
-            childExpand = levelsOption == null ? innerOptions.getExpandOption() :
-              new ExpandOptionImpl().addExpandItem(innerOptions);
-          } else if (expandAll != null) {
-            levels = 1;
-            levelsOption = expandAll.getLevelsOption();
-            childExpand = new ExpandOptionImpl().addExpandItem(expandAll);
-          } 
-          
-          if (levelsOption != null) {
-            levels = levelsOption.isMax() ? Integer.MAX_VALUE :
-              levelsOption.getValue();
-          }
+          Integer levels = navigation.getLevels();
+          ExpandOption childExpand = navigation.getChildExpand();
           if (toDepth != null) {
             levels = toDepth - 1;
             childExpand = expand;
@@ -706,8 +704,8 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
         }
       }
     } else {
-      for (final String propertyName : type.getNavigationPropertyNames()) {
-        writeLink(writer, getOrCreateLink(linked, propertyName));
+      for (final ExpandSelectPlan.NavigationPlan navigation : plan.getNavigations()) {
+        writeLink(writer, getOrCreateLink(linked, navigation.getName()));
       }
     }
     for (Link link : linked.getAssociationLinks()) {
@@ -762,16 +760,28 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       final Set<String> ancestors, String name,
       final XMLStreamWriter writer) throws XMLStreamException, SerializerException {
     if (property.isCollection()) {
-      if (navigationLink != null && navigationLink.getInlineEntitySet() != null) {
+      final AbstractEntityCollection inlineEntitySet =
+          navigationLink == null ? null : navigationLink.getInlineEntityCollection();
+      if (inlineEntitySet != null) {
         writer.writeStartElement(ATOM, Constants.ATOM_ELEM_FEED, NS_ATOM);
         if (writeNavigationCount) {
-          writeCount(navigationLink.getInlineEntitySet(), writer);
+          writeCount(inlineEntitySet, writer);
         } else {
-          if (coutOption != null && coutOption.getValue()) {
-            writeCount(navigationLink.getInlineEntitySet(), writer);
+          // An entity iterator may know its count and next link only after the iteration.
+          final boolean iterator = inlineEntitySet instanceof EntityIterator;
+          final boolean trailingCount = coutOption != null && coutOption.getValue()
+              && iterator && inlineEntitySet.getCount() == null;
+          if (coutOption != null && coutOption.getValue() && !trailingCount) {
+            writeCount(inlineEntitySet, writer);
           }
-          writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntitySet(), innerExpand, toDepth,
+          writeEntitySet(metadata, property.getType(), inlineEntitySet, innerExpand, toDepth,
               innerSelect, xml10InvalidCharReplacement, writer, writeOnlyRef, name, ancestors);
+          if (trailingCount) {
+            writeCount(inlineEntitySet, writer);
+          }
+          if (iterator && inlineEntitySet.getNext() != null) {
+            writeNextLink(inlineEntitySet, writer);
+          }
         }
         writer.writeEndElement();
       }
@@ -1031,12 +1041,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
   }
 
   private Property findProperty(final String propertyName, final List<Property> properties) {
-    for (final Property property : properties) {
-      if (propertyName.equals(property.getName())) {
-        return property;
-      }
-    }
-    return null;
+    return PropertyList.getProperty(properties, propertyName);
   }
 
   @Override
@@ -1049,7 +1054,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
 
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(METADATA, Constants.VALUE, NS_METADATA);
@@ -1120,7 +1125,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       }
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(METADATA, Constants.VALUE, NS_METADATA);
       writer.writeNamespace(METADATA, NS_METADATA);
@@ -1169,7 +1174,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
 
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(METADATA, Constants.VALUE, NS_METADATA);
@@ -1223,7 +1228,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(METADATA, Constants.VALUE, NS_METADATA);
       writer.writeNamespace(METADATA, NS_METADATA);
@@ -1279,7 +1284,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writeReference(entity, options == null ? null : options.getContextURL(), writer, true);
       writer.writeEndDocument();
@@ -1330,7 +1335,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(ATOM, Constants.ATOM_ELEM_FEED, NS_ATOM);
       writer.writeNamespace(ATOM, NS_ATOM);
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoCache;
+import org.apache.olingo.server.core.uri.parser.UriShape;
+
+/**
+ * <p>Least-recently-used cache of parsed and validated URIs.</p>
+ * <p>The entries are distributed over independently locked segments so that concurrent requests
+ * with different URIs do not contend on a single monitor.
+ * Each entry remembers the {@link Edm} it has been parsed against; a lookup with another
+ * {@link Edm} instance is treated as a miss so that stale metadata objects are never handed out.</p>
+ * <p>The key is the {@link UriShape} of the URI, so URIs that differ only in the values of literals
+ * share an entry; a lookup binds the literals of the requested URI to a copy of the cached result.
+ * If the literals of a URI cannot be related unambiguously to the parsed result,
+ * the entry is keyed on the shape together with the literal values, so only identical URIs share it.
+ * Every lookup returns a new {@link UriInfo} object.</p>
+ */
+public class UriInfoCacheImpl implements UriInfoCache {
+
+  private static final int MAX_SEGMENTS = 16;
+
+  private final int maximumSize;
+  private final Segment[] segments;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  public UriInfoCacheImpl(final int maximumSize) {
+    if (maximumSize < 1) {
+      throw new ODataRuntimeException("The maximum size of the URI cache must be positive but was " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    final int segmentCount = Math.min(MAX_SEGMENTS, maximumSize);
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0));
+    }
+  }
+
+  @Override
+  public UriInfo get(final Edm edm, final HttpMethod method, final String path, final String query,
+      final String baseUri) {
+    final UriShape shape = UriShape.create(method, path, query, baseUri);
+    if (shape != null) {
+      UriInfo uriInfo = get(edm, shape.getKey(), shape);
+      if (uriInfo == null) {
+        uriInfo = get(edm, shape.getExactKey(), shape);
+      }
+      if (uriInfo != null) {
+        hitCount.incrementAndGet();
+        return uriInfo;
+      }
+    }
+    missCount.incrementAndGet();
+    return null;
+  }
+
+  private UriInfo get(final Edm edm, final String key, final UriShape shape) {
+    final UriInfoTemplate template = segmentFor(key).get(key);
+    return template != null && template.getEdm() == edm ? template.bind(shape) : null;
+  }
+
+  @Override
+  public void put(final Edm edm, final HttpMethod method, final String path, final String query,
+      final String baseUri, final UriInfo uriInfo) {
+    final UriShape shape = UriShape.create(method, path, query, baseUri);
+    if (shape == null || !(uriInfo instanceof UriInfoImpl)) {
+      return;
+    }
+    final UriInfoImpl uriInfoImpl = new UriInfoImpl((UriInfoImpl) uriInfo);
+    final UriInfoTemplate template = UriInfoTemplate.create(edm, uriInfoImpl, shape);
+    if (template == null) {
+      final String key = shape.getExactKey();
+      segmentFor(key).put(key, UriInfoTemplate.createExact(edm, uriInfoImpl));
+    } else {
+      final String key = shape.getKey();
+      segmentFor(key).put(key, template);
+    }
+  }
+
+  @Override
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (final Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  @Override
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  @Override
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  @Override
+  public void clear() {
+    for (final Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  private Segment segmentFor(final String key) {
+    int hash = key.hashCode();
+    // Spread the higher bits since only the lower ones select the segment.
+    hash ^= (hash >>> 16);
+    return segments[(hash & Integer.MAX_VALUE) % segments.length];
+  }
+
+  /** Access-ordered map guarded by its own monitor. */
+  private final class Segment {
+    private final Map<String, UriInfoTemplate> entries;
+
+    private Segment(final int capacity) {
+      entries = new LinkedHashMap<String, UriInfoTemplate>(16, 0.75F, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, UriInfoTemplate> eldest) {
+          if (size() > capacity) {
+            evictionCount.incrementAndGet();
+            return true;
+          }
+          return false;
+        }
+      };
+    }
+
+    private synchronized UriInfoTemplate get(final String key) {
+      return entries.get(key);
+    }
+
+    private synchronized void put(final String key, final UriInfoTemplate template) {
+      entries.put(key, template);
+    }
+
+    private synchronized int size() {
+      return entries.size();
+    }
+
+    private synchronized void clear() {
+      entries.clear();
+    }
+  }
+}
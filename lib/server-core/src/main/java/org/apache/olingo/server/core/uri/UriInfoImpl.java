@@ -75,6 +75,28 @@ public class UriInfoImpl implements UriInfo {
 
   private String fragment;
 
+  public UriInfoImpl() {
+    // Nothing to initialize.
+  }
+
+  /**
+   * Creates a copy of the given URI info.
+   * The copy has its own lists and maps, so resource parts and query options can be replaced
+   * without affecting the original; the resource parts and query options themselves are shared.
+   * @param other the URI info to be copied
+   */
+  UriInfoImpl(final UriInfoImpl other) {
+    kind = other.kind;
+    entitySetNames.addAll(other.entitySetNames);
+    entityTypeCast = other.entityTypeCast;
+    lastResourcePart = other.lastResourcePart;
+    pathParts.addAll(other.pathParts);
+    systemQueryOptions.putAll(other.systemQueryOptions);
+    aliases.putAll(other.aliases);
+    customQueryOptions.addAll(other.customQueryOptions);
+    fragment = other.fragment;
+  }
+
   public UriInfoImpl setKind(final UriInfoKind kind) {
     this.kind = kind;
     return this;
@@ -146,6 +168,18 @@ public class UriInfoImpl implements UriInfo {
     return this;
   }
 
+  /**
+   * Replaces the resource part at the given position.
+   * @param index the position of the resource part
+   * @param uriPathInfo the new resource part
+   */
+  void replaceResourcePart(final int index, final UriResource uriPathInfo) {
+    pathParts.set(index, uriPathInfo);
+    if (index == pathParts.size() - 1) {
+      lastResourcePart = uriPathInfo;
+    }
+  }
+
   public UriResource getLastResourcePart() {
     return lastResourcePart;
   }
@@ -166,6 +200,14 @@ public class UriInfoImpl implements UriInfo {
     return this;
   }
 
+  /**
+   * Replaces the system query option of the same kind.
+   * @param systemOption the new option
+   */
+  void replaceSystemQueryOption(final SystemQueryOption systemOption) {
+    systemQueryOptions.put(systemOption.getKind(), systemOption);
+  }
+
   /**
    * Adds system query option.
    * @param systemOption the option to be added
@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.core.uri.parser.UriShape;
+import org.apache.olingo.server.core.uri.parser.UriShape.Region;
+import org.apache.olingo.server.core.uri.queryoption.FilterOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.SkipOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.TopOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.BinaryImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.ExpressionInterner;
+import org.apache.olingo.server.core.uri.queryoption.expression.LiteralImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.MethodImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.UnaryImpl;
+
+/**
+ * <p>Parsed URI together with the places where the literals of its {@link UriShape} ended up.</p>
+ * <p>Binding the template to another URI of the same shape creates a copy of the parsed URI
+ * with the literals of that URI. Key values are validated against the facets of their key properties
+ * as the parser would do; literals in <code>$filter</code> keep the type the parser has determined,
+ * which the shape guarantees to be the same.</p>
+ */
+final class UriInfoTemplate {
+
+  private final Edm edm;
+  private final UriInfoImpl uriInfo;
+  private final List<KeySlot> keySlots;
+  private final Map<Expression, Integer> filterSlots;
+  private final boolean topSlot;
+  private final boolean skipSlot;
+
+  private UriInfoTemplate(final Edm edm, final UriInfoImpl uriInfo, final List<KeySlot> keySlots,
+      final Map<Expression, Integer> filterSlots, final boolean topSlot, final boolean skipSlot) {
+    this.edm = edm;
+    this.uriInfo = uriInfo;
+    this.keySlots = keySlots;
+    this.filterSlots = filterSlots;
+    this.topSlot = topSlot;
+    this.skipSlot = skipSlot;
+  }
+
+  /**
+   * Creates a template that can be bound to all URIs of the given shape.
+   * @return the template or <code>null</code> if not every literal of the shape
+   *         can be related unambiguously to a literal of the parsed URI
+   */
+  static UriInfoTemplate create(final Edm edm, final UriInfoImpl uriInfo, final UriShape shape) {
+    // Key predicates
+    final List<KeySlot> keySlots = new ArrayList<KeySlot>();
+    final List<String> keyTexts = new ArrayList<String>();
+    final List<UriResource> parts = uriInfo.getUriResourceParts();
+    for (int partIndex = 0; partIndex < parts.size(); partIndex++) {
+      final UriResource part = parts.get(partIndex);
+      if (part.getClass() != UriResourceEntitySetImpl.class
+          && part.getClass() != UriResourceNavigationPropertyImpl.class) {
+        continue;
+      }
+      final UriResourceWithKeysImpl keyPart = (UriResourceWithKeysImpl) part;
+      final List<UriParameter> keys = keyPart.getKeyPredicates();
+      for (int keyIndex = 0; keyIndex < keys.size(); keyIndex++) {
+        final UriParameter key = keys.get(keyIndex);
+        if (key.getAlias() != null || key.getText() == null || key.getReferencedProperty() != null) {
+          continue;
+        }
+        final EdmKeyPropertyRef keyPropertyRef = ((EdmEntityType) keyPart.getType()).getKeyPropertyRef(key.getName());
+        if (keyPropertyRef == null) {
+          return null;
+        }
+        keySlots.add(new KeySlot(partIndex, keyIndex, keyPropertyRef.getProperty()));
+        keyTexts.add(key.getText());
+      }
+    }
+    final int[] keyLiterals = match(keyTexts, shape.getLiterals(Region.PATH));
+    if (keyLiterals == null) {
+      return null;
+    }
+    for (int i = 0; i < keySlots.size(); i++) {
+      keySlots.get(i).literal = keyLiterals[i];
+    }
+
+    // $filter
+    final List<LiteralImpl> filterLiterals = new ArrayList<LiteralImpl>();
+    if (uriInfo.getFilterOption() != null) {
+      collectLiterals(uriInfo.getFilterOption().getExpression(), filterLiterals);
+    }
+    final List<String> filterTexts = new ArrayList<String>();
+    for (final LiteralImpl literal : filterLiterals) {
+      filterTexts.add(literal.getText());
+    }
+    final int[] filterIndexes = match(filterTexts, shape.getLiterals(Region.FILTER));
+    if (filterIndexes == null) {
+      return null;
+    }
+    final Map<Expression, Integer> filterSlots = new IdentityHashMap<Expression, Integer>();
+    for (int i = 0; i < filterLiterals.size(); i++) {
+      if (filterSlots.put(filterLiterals.get(i), filterIndexes[i]) != null) {
+        // The same node appears twice in the expression tree.
+        return null;
+      }
+    }
+
+    // $top and $skip
+    final List<String> topTexts = uriInfo.getTopOption() == null ?
+        Collections.<String> emptyList() :
+        Collections.singletonList(uriInfo.getTopOption().getText());
+    final List<String> skipTexts = uriInfo.getSkipOption() == null ?
+        Collections.<String> emptyList() :
+        Collections.singletonList(uriInfo.getSkipOption().getText());
+    if (match(topTexts, shape.getLiterals(Region.TOP)) == null
+        || match(skipTexts, shape.getLiterals(Region.SKIP)) == null) {
+      return null;
+    }
+
+    return new UriInfoTemplate(edm, uriInfo, keySlots, filterSlots,
+        !topTexts.isEmpty(), !skipTexts.isEmpty());
+  }
+
+  /** Creates a template without any literals to be bound; it can be used only for identical URIs. */
+  static UriInfoTemplate createExact(final Edm edm, final UriInfoImpl uriInfo) {
+    return new UriInfoTemplate(edm, uriInfo, Collections.<KeySlot> emptyList(),
+        Collections.<Expression, Integer> emptyMap(), false, false);
+  }
+
+  Edm getEdm() {
+    return edm;
+  }
+
+  /**
+   * Creates a copy of the parsed URI with the literals of the given shape.
+   * @param shape a shape equal to the one the template has been created for
+   * @return a new URI info or <code>null</code> if a key value is not valid for its key property
+   */
+  UriInfoImpl bind(final UriShape shape) {
+    final UriInfoImpl copy = new UriInfoImpl(uriInfo);
+
+    final List<String> pathLiterals = shape.getLiterals(Region.PATH);
+    int currentPart = -1;
+    List<UriParameter> keys = null;
+    for (final KeySlot slot : keySlots) {
+      if (slot.part != currentPart) {
+        replaceKeys(copy, currentPart, keys);
+        currentPart = slot.part;
+        keys = new ArrayList<UriParameter>(
+            ((UriResourceWithKeysImpl) uriInfo.getUriResourceParts().get(currentPart)).getKeyPredicates());
+      }
+      final String text = pathLiterals.get(slot.literal);
+      if (!isValid(slot.property, text)) {
+        return null;
+      }
+      final UriParameter key = keys.get(slot.key);
+      keys.set(slot.key, new UriParameterImpl().setName(key.getName()).setText(text));
+    }
+    replaceKeys(copy, currentPart, keys);
+
+    final FilterOption filterOption = uriInfo.getFilterOption();
+    if (filterOption != null && !filterSlots.isEmpty()) {
+      final FilterOptionImpl newFilterOption = new FilterOptionImpl();
+      newFilterOption.setExpression(bind(filterOption.getExpression(), shape.getLiterals(Region.FILTER)));
+      newFilterOption.setText(shape.getFilterText());
+      copy.replaceSystemQueryOption(newFilterOption);
+    }
+    if (topSlot) {
+      final String text = shape.getLiterals(Region.TOP).get(0);
+      final TopOptionImpl topOption = new TopOptionImpl().setValue(Integer.parseInt(text));
+      topOption.setText(text);
+      copy.replaceSystemQueryOption(topOption);
+    }
+    if (skipSlot) {
+      final String text = shape.getLiterals(Region.SKIP).get(0);
+      final SkipOptionImpl skipOption = new SkipOptionImpl().setValue(Integer.parseInt(text));
+      skipOption.setText(text);
+      copy.replaceSystemQueryOption(skipOption);
+    }
+    return copy;
+  }
+
+  private void replaceKeys(final UriInfoImpl copy, final int partIndex, final List<UriParameter> keys) {
+    if (partIndex < 0) {
+      return;
+    }
+    final UriResourceWithKeysImpl part = (UriResourceWithKeysImpl) uriInfo.getUriResourceParts().get(partIndex);
+    final UriResourceWithKeysImpl newPart = part instanceof UriResourceEntitySetImpl ?
+        new UriResourceEntitySetImpl(((UriResourceEntitySetImpl) part).getEntitySet()) :
+        new UriResourceNavigationPropertyImpl(((UriResourceNavigationPropertyImpl) part).getProperty());
+    newPart.setKeyPredicates(keys)
+        .setEntryTypeFilter(part.getTypeFilterOnEntry())
+        .setCollectionTypeFilter(part.getTypeFilterOnCollection());
+    copy.replaceResourcePart(partIndex, newPart);
+  }
+
+  private Expression bind(final Expression expression, final List<String> literals) {
+    final Integer slot = filterSlots.get(expression);
+    if (slot != null) {
+      return ExpressionInterner.intern(new LiteralImpl(literals.get(slot), ((LiteralImpl) expression).getType()));
+    } else if (expression instanceof BinaryImpl) {
+      final BinaryImpl binary = (BinaryImpl) expression;
+      final Expression left = bind(binary.getLeftOperand(), literals);
+      final Expression right = bind(binary.getRightOperand(), literals);
+      return left == binary.getLeftOperand() && right == binary.getRightOperand() ?
+          expression :
+          ExpressionInterner.intern(new BinaryImpl(left, binary.getOperator(), right, binary.getType()));
+    } else if (expression instanceof UnaryImpl) {
+      final UnaryImpl unary = (UnaryImpl) expression;
+      final Expression operand = bind(unary.getOperand(), literals);
+      return operand == unary.getOperand() ?
+          expression :
+          ExpressionInterner.intern(new UnaryImpl(unary.getOperator(), operand, unary.getType()));
+    } else if (expression instanceof MethodImpl) {
+      final MethodImpl method = (MethodImpl) expression;
+      final List<Expression> parameters = new ArrayList<Expression>();
+      boolean changed = false;
+      for (final Expression parameter : method.getParameters()) {
+        final Expression newParameter = bind(parameter, literals);
+        changed |= newParameter != parameter;
+        parameters.add(newParameter);
+      }
+      return changed ? ExpressionInterner.intern(new MethodImpl(method.getMethod(), parameters)) : expression;
+    }
+    return expression;
+  }
+
+  /**
+   * Collects the typed literals of the expression, descending only into the kinds of expressions
+   * the template is able to re-create.
+   * Literals within other expressions are not collected; they make the numbers of literals differ
+   * so that no template is created.
+   */
+  private static void collectLiterals(final Expression expression, final List<LiteralImpl> literals) {
+    if (expression instanceof LiteralImpl) {
+      if (((LiteralImpl) expression).getType() != null) {
+        literals.add((LiteralImpl) expression);
+      }
+    } else if (expression instanceof BinaryImpl) {
+      collectLiterals(((BinaryImpl) expression).getLeftOperand(), literals);
+      collectLiterals(((BinaryImpl) expression).getRightOperand(), literals);
+    } else if (expression instanceof UnaryImpl) {
+      collectLiterals(((UnaryImpl) expression).getOperand(), literals);
+    } else if (expression instanceof MethodImpl) {
+      for (final Expression parameter : ((MethodImpl) expression).getParameters()) {
+        collectLiterals(parameter, literals);
+      }
+    }
+  }
+
+  /**
+   * Relates each text of the parsed URI to the shape literal with the same text.
+   * @return the index of the shape literal for each text, or <code>null</code> if the texts
+   *         do not correspond one-to-one to the shape literals
+   */
+  private static int[] match(final List<String> texts, final List<String> literals) {
+    if (texts.size() != literals.size() || new HashSet<String>(literals).size() != literals.size()) {
+      return null;
+    }
+    final int[] indexes = new int[texts.size()];
+    final boolean[] used = new boolean[literals.size()];
+    for (int i = 0; i < texts.size(); i++) {
+      final int index = literals.indexOf(texts.get(i));
+      if (index < 0 || used[index]) {
+        return null;
+      }
+      used[index] = true;
+      indexes[i] = index;
+    }
+    return indexes;
+  }
+
+  private static boolean isValid(final EdmProperty property, final String literal) {
+    final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+    try {
+      return type.validate(type.fromUriLiteral(literal), property.isNullable(), property.getMaxLength(),
+          property.getPrecision(), property.getScale(), property.isUnicode());
+    } catch (final EdmPrimitiveTypeException e) {
+      return false;
+    }
+  }
+
+  private static final class KeySlot {
+    private final int part;
+    private final int key;
+    private final EdmProperty property;
+    private int literal;
+
+    private KeySlot(final int part, final int key, final EdmProperty property) {
+      this.part = part;
+      this.key = key;
+      this.property = property;
+    }
+  }
+}
@@ -87,6 +87,7 @@ import org.apache.olingo.server.core.uri.parser.UriTokenizer.TokenKind;
 import org.apache.olingo.server.core.uri.queryoption.expression.AliasImpl;
 import org.apache.olingo.server.core.uri.queryoption.expression.BinaryImpl;
 import org.apache.olingo.server.core.uri.queryoption.expression.EnumerationImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.ExpressionInterner;
 import org.apache.olingo.server.core.uri.queryoption.expression.LiteralImpl;
 import org.apache.olingo.server.core.uri.queryoption.expression.MemberImpl;
 import org.apache.olingo.server.core.uri.queryoption.expression.MethodImpl;
@@ -194,8 +195,8 @@ public class ExpressionParser {
       final Expression right = parseAnd();
       checkType(right, EdmPrimitiveTypeKind.Boolean);
       checkNoCollection(right);
-      left = new BinaryImpl(left, BinaryOperatorKind.OR, right,
-          odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean));
+      left = ExpressionInterner.intern(new BinaryImpl(left, BinaryOperatorKind.OR, right,
+          odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean)));
     }
     return left;
   }
@@ -208,8 +209,8 @@ public class ExpressionParser {
       final Expression right = parseExprEquality();
       checkType(right, EdmPrimitiveTypeKind.Boolean);
       checkNoCollection(right);
-      left = new BinaryImpl(left, BinaryOperatorKind.AND, right,
-          odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean));
+      left = ExpressionInterner.intern(new BinaryImpl(left, BinaryOperatorKind.AND, right,
+          odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean)));
     }
     return left;
   }
@@ -221,8 +222,8 @@ public class ExpressionParser {
     while (operatorTokenKind != null) {
       final Expression right = parseExprEquality();
       checkEqualityTypes(left, right);
-      left = new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right,
-          odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean));
+      left = ExpressionInterner.intern(new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right,
+          odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean)));
       operatorTokenKind = ParserHelper.next(tokenizer, TokenKind.EqualsOperator, TokenKind.NotEqualsOperator);
     }
     return left;
@@ -241,8 +242,8 @@ public class ExpressionParser {
       while (operatorTokenKind != null) {
         final Expression right = parseExprAdd();
         checkRelationTypes(left, right);
-        left = new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right,
-            odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean));
+        left = ExpressionInterner.intern(new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right,
+            odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean)));
         operatorTokenKind = ParserHelper.next(tokenizer,
             TokenKind.GreaterThanOperator, TokenKind.GreaterThanOrEqualsOperator,
             TokenKind.LessThanOperator, TokenKind.LessThanOrEqualsOperator);
@@ -272,7 +273,7 @@ public class ExpressionParser {
     }
 
     ParserHelper.requireNext(tokenizer, TokenKind.CLOSE);
-    return new MethodImpl(kind, parameters);
+    return ExpressionInterner.intern(new MethodImpl(kind, parameters));
   }
 
   private Expression parseExprAdd() throws UriParserException, UriValidationException {
@@ -283,7 +284,8 @@ public class ExpressionParser {
       final Expression right = parseExprMul();
       final EdmType resultType = getAddSubTypeAndCheckLeftAndRight(left, right,
           operatorTokenKind == TokenKind.SubOperator);
-      left = new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right, resultType);
+      left = ExpressionInterner.intern(
+          new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right, resultType));
       operatorTokenKind = ParserHelper.next(tokenizer, TokenKind.AddOperator, TokenKind.SubOperator);
     }
     return left;
@@ -298,8 +300,8 @@ public class ExpressionParser {
       checkNumericType(left);
       final Expression right = parseExprUnary();
       checkNumericType(right);
-      left = new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right,
-          odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Double));
+      left = ExpressionInterner.intern(new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right,
+          odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Double)));
       operatorTokenKind = ParserHelper.next(tokenizer,
           TokenKind.MulOperator, TokenKind.DivOperator, TokenKind.ModOperator);
     }
@@ -312,12 +314,12 @@ public class ExpressionParser {
       if (!isType(getType(expression), EdmPrimitiveTypeKind.Duration)) {
         checkNumericType(expression);
       }
-      return new UnaryImpl(UnaryOperatorKind.MINUS, expression, getType(expression));
+      return ExpressionInterner.intern(new UnaryImpl(UnaryOperatorKind.MINUS, expression, getType(expression)));
     } else if (tokenizer.next(TokenKind.NotOperator)) {
       final Expression expression = parseExprValue();
       checkType(expression, EdmPrimitiveTypeKind.Boolean);
       checkNoCollection(expression);
-      return new UnaryImpl(UnaryOperatorKind.NOT, expression, getType(expression));
+      return ExpressionInterner.intern(new UnaryImpl(UnaryOperatorKind.NOT, expression, getType(expression)));
     } else if (tokenizer.next(TokenKind.CastMethod)) {
       return parseIsOfOrCastMethod(MethodKind.CAST);
     } else {
@@ -330,8 +332,8 @@ public class ExpressionParser {
     if (isEnumType(left) && tokenizer.next(TokenKind.HasOperator)) {
       ParserHelper.requireNext(tokenizer, TokenKind.EnumValue);
       final Expression right = createEnumExpression(tokenizer.getText());
-      return new BinaryImpl(left, BinaryOperatorKind.HAS, right,
-          odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean));
+      return ExpressionInterner.intern(new BinaryImpl(left, BinaryOperatorKind.HAS, right,
+          odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean)));
     } else {
       return left;
     }
@@ -349,16 +351,16 @@ public class ExpressionParser {
     if (tokenizer.next(TokenKind.ParameterAliasName)) {
       final String name = tokenizer.getText();
       if (aliases.containsKey(name)) {
-        return new AliasImpl(name,
-            ParserHelper.parseAliasValue(name, null, true, true, edm, referringType, aliases));
+        return ExpressionInterner.intern(new AliasImpl(name,
+            ParserHelper.parseAliasValue(name, null, true, true, edm, referringType, aliases)));
       } else {
-        return new AliasImpl(name, null);
+        return ExpressionInterner.intern(new AliasImpl(name, null));
       }
     }
 
     if (tokenizer.next(TokenKind.jsonArrayOrObject)) {
       // There is no obvious way how the type could be determined.
-      return new LiteralImpl(tokenizer.getText(), null);
+      return ExpressionInterner.intern(new LiteralImpl(tokenizer.getText(), null));
     }
 
     if (tokenizer.next(TokenKind.ROOT)) {
@@ -395,7 +397,7 @@ public class ExpressionParser {
     // The method token text includes the opening parenthesis so that method calls can be recognized unambiguously.
     // OData identifiers have to be considered after that.
     final MethodKind methodKind = tokenToMethod.get(nextMethod);
-    return new MethodImpl(methodKind, parseMethodParameters(methodKind));
+    return ExpressionInterner.intern(new MethodImpl(methodKind, parseMethodParameters(methodKind)));
   }
 
   private Expression parsePrimitive(final TokenKind primitiveTokenKind) throws UriParserException {
@@ -405,40 +407,17 @@ public class ExpressionParser {
     } else {
       EdmPrimitiveTypeKind primitiveTypeKind = ParserHelper.tokenToPrimitiveType.get(primitiveTokenKind);
       if (primitiveTypeKind == EdmPrimitiveTypeKind.Int64) {
-        primitiveTypeKind = determineIntegerType(primitiveValueLiteral);
+        primitiveTypeKind = ParserHelper.determineIntegerType(primitiveValueLiteral);
       }
 
       final EdmPrimitiveType type = primitiveTypeKind == null ?
           // Null handling
           null :
           odata.createPrimitiveTypeInstance(primitiveTypeKind);
-      return new LiteralImpl(primitiveValueLiteral, type);
+      return ExpressionInterner.intern(new LiteralImpl(primitiveValueLiteral, type));
     }
   }
 
-  private EdmPrimitiveTypeKind determineIntegerType(final String intValueAsString) throws UriParserSyntaxException {
-    EdmPrimitiveTypeKind typeKind = null;
-    try {
-      final long value = Long.parseLong(intValueAsString);
-      if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
-        typeKind = EdmPrimitiveTypeKind.SByte;
-      } else if (value >= 0 && value <= 255) {
-        typeKind = EdmPrimitiveTypeKind.Byte;
-      } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
-        typeKind = EdmPrimitiveTypeKind.Int16;
-      } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
-        typeKind = EdmPrimitiveTypeKind.Int32;
-      } else {
-        typeKind = EdmPrimitiveTypeKind.Int64;
-      }
-    } catch (final NumberFormatException e) {
-      // The number cannot be formatted wrongly because the tokenizer already checked the format
-      // but it is too large for Long and therefore too large for Edm.Int64.
-      typeKind = EdmPrimitiveTypeKind.Decimal;
-    }
-    return typeKind;
-  }
-
   private List<Expression> parseMethodParameters(final MethodKind methodKind)
       throws UriParserException, UriValidationException {
     List<Expression> parameters = new ArrayList<Expression>();
@@ -649,7 +628,7 @@ public class ExpressionParser {
           parseMemberExpression(tokenKind, uriInfo, new UriResourceStartingTypeFilterImpl(filterType, false), false);
         } else {
           // Type literal
-          return new TypeLiteralImpl(filterType);
+          return ExpressionInterner.intern(new TypeLiteralImpl(filterType));
         }
       } else {
         // Must be bound or unbound function.
@@ -659,7 +638,7 @@ public class ExpressionParser {
       parseFirstMemberODataIdentifier(uriInfo);
     }
 
-    return new MemberImpl(uriInfo, startTypeFilter);
+    return ExpressionInterner.intern(new MemberImpl(uriInfo, startTypeFilter));
   }
 
   private EdmType getPrimitiveType(final FullQualifiedName fullQualifiedName) {
@@ -1226,8 +1205,8 @@ public class ExpressionParser {
     final EdmEnumType enumType = getEnumType(primitiveValueLiteral);
     // The Enumeration interface could be extended to handle the value as a whole, in line with the primitive type.
     try {
-      return new EnumerationImpl(enumType,
-          Arrays.asList(enumType.fromUriLiteral(primitiveValueLiteral).split(",")));
+      return ExpressionInterner.intern(new EnumerationImpl(enumType,
+          Arrays.asList(enumType.fromUriLiteral(primitiveValueLiteral).split(","))));
     } catch (final EdmPrimitiveTypeException e) {
       // This part should not be reached, so a general error message key can be re-used.
       throw new UriParserSemanticException("Wrong enumeration value '" + primitiveValueLiteral + "'.", e,
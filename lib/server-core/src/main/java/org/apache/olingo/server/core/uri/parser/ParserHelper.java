@@ -601,6 +601,34 @@ public class ParserHelper {
     }
   }
   
+  /**
+   * Determines the type of an integer literal as the smallest integer type its value fits in.
+   * @param intValueAsString literal text as found by the tokenizer
+   * @return the type kind; {@link EdmPrimitiveTypeKind#Decimal} if the value is too large for Edm.Int64
+   */
+  protected static EdmPrimitiveTypeKind determineIntegerType(final String intValueAsString) {
+    EdmPrimitiveTypeKind typeKind = null;
+    try {
+      final long value = Long.parseLong(intValueAsString);
+      if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+        typeKind = EdmPrimitiveTypeKind.SByte;
+      } else if (value >= 0 && value <= 255) {
+        typeKind = EdmPrimitiveTypeKind.Byte;
+      } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+        typeKind = EdmPrimitiveTypeKind.Int16;
+      } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+        typeKind = EdmPrimitiveTypeKind.Int32;
+      } else {
+        typeKind = EdmPrimitiveTypeKind.Int64;
+      }
+    } catch (final NumberFormatException e) {
+      // The number cannot be formatted wrongly because the tokenizer already checked the format
+      // but it is too large for Long and therefore too large for Edm.Int64.
+      typeKind = EdmPrimitiveTypeKind.Decimal;
+    }
+    return typeKind;
+  }
+
   protected static void validateFunctionParameterFacets(final EdmFunction function, 
       final List<UriParameter> parameters, Edm edm, Map<String, AliasQueryOption> aliases) 
           throws UriParserException, UriValidationException {
@@ -74,7 +74,7 @@ public class UriDecoder {
    * @param c character at which to split
    * @return list of elements (can be empty)
    */
-  private static List<String> split(final String input, final char c) {
+  protected static List<String> split(final String input, final char c) {
     List<String> list = new LinkedList<String>();
 
     int start = 0;
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+import org.apache.olingo.server.core.uri.parser.UriTokenizer.TokenKind;
+
+/**
+ * <p>Shape of a request URI, i.e., the percent-decoded URI with its literals replaced by their types.</p>
+ * <p>Literals are recognized in the resource path, in the value of <code>$filter</code>,
+ * and as values of <code>$top</code> and <code>$skip</code>.
+ * They are classified with the same tokenizer the parser uses, so an integer is represented by the smallest
+ * integer type its value fits in. URIs with equal shapes differ only in the values of these literals.</p>
+ * <p>Only the URI text is looked at, so a literal found here is not necessarily parsed as literal;
+ * users of the shape have to match the literals against the result of the parser.</p>
+ */
+public final class UriShape {
+
+  /** Parts of the URI in which literals are recognized. */
+  public enum Region {
+    PATH, FILTER, TOP, SKIP
+  }
+
+  private static final char MARK = '\u0000';
+  private static final String ACCEPT_FORM_ENCODING = "odata-accept-forms-encoding";
+
+  private final StringBuilder key = new StringBuilder();
+  private final Map<Region, List<String>> literals = new EnumMap<Region, List<String>>(Region.class);
+  private String filterText;
+
+  private UriShape() {
+    // Use create(...) instead.
+  }
+
+  /**
+   * Determines the shape of a request URI.
+   * @param method the HTTP method of the request
+   * @param path the resource path, not yet percent-decoded
+   * @param query the query-option string, not yet percent-decoded; may be <code>null</code>
+   * @param baseUri the base URI; may be <code>null</code>
+   * @return the shape or <code>null</code> if the URI is not correctly percent-encoded
+   */
+  public static UriShape create(final HttpMethod method, final String path, final String query,
+      final String baseUri) {
+    final UriShape shape = new UriShape();
+    try {
+      shape.build(method, path, query, baseUri);
+    } catch (final UriParserSyntaxException e) {
+      return null;
+    }
+    return shape;
+  }
+
+  /** Returns a key that is equal for URIs of the same shape. */
+  public String getKey() {
+    return key.toString();
+  }
+
+  /** Returns a key that is equal only for URIs of the same shape that have the same literals. */
+  public String getExactKey() {
+    final StringBuilder exactKey = new StringBuilder(key);
+    for (final List<String> regionLiterals : literals.values()) {
+      exactKey.append(MARK).append('!');
+      for (final String literal : regionLiterals) {
+        appendVerbatim(exactKey, literal);
+        exactKey.append(MARK).append(',');
+      }
+    }
+    return exactKey.toString();
+  }
+
+  /**
+   * Returns the literals of a region, in the order of their appearance.
+   * @param region the region
+   * @return the literal texts (can be empty)
+   */
+  public List<String> getLiterals(final Region region) {
+    final List<String> regionLiterals = literals.get(region);
+    return regionLiterals == null ? Collections.<String> emptyList() : Collections.unmodifiableList(regionLiterals);
+  }
+
+  /** Returns the percent-decoded and trimmed value of <code>$filter</code> or <code>null</code> if there is none. */
+  public String getFilterText() {
+    return filterText;
+  }
+
+  private void build(final HttpMethod method, final String path, final String query, final String baseUri)
+      throws UriParserSyntaxException {
+    key.append(method).append(' ');
+    if (baseUri != null) {
+      appendVerbatim(key, baseUri);
+    }
+    for (final String segment : UriDecoder.split(path, '/')) {
+      key.append(MARK).append('/');
+      appendWords(UriDecoder.decode(segment), Region.PATH);
+    }
+    if (query == null || query.isEmpty()) {
+      return;
+    }
+    key.append(MARK).append('?');
+    // With form encoding the parser changes the values, so they are not inspected at all.
+    final boolean formEncoding = query.contains(ACCEPT_FORM_ENCODING);
+    for (final String option : UriDecoder.split(query, '&')) {
+      final int pos = option.indexOf('=');
+      final String name = UriDecoder.decode(pos >= 0 ? option.substring(0, pos) : option).trim();
+      final String text = pos >= 0 ? UriDecoder.decode(option.substring(pos + 1)).trim() : "";
+      key.append(MARK).append('&');
+      appendVerbatim(key, name);
+      key.append(MARK).append('=');
+      if (formEncoding) {
+        appendVerbatim(key, text);
+      } else if (SystemQueryOptionKind.FILTER.toString().equals(name)) {
+        filterText = text;
+        appendWords(text, Region.FILTER);
+      } else if (SystemQueryOptionKind.TOP.toString().equals(name) && isNumber(text)) {
+        appendLiteral(text, Region.TOP, '#');
+      } else if (SystemQueryOptionKind.SKIP.toString().equals(name) && isNumber(text)) {
+        appendLiteral(text, Region.SKIP, '#');
+      } else {
+        appendVerbatim(key, text);
+      }
+    }
+  }
+
+  /**
+   * Splits the text into words at delimiters outside of single-quoted strings
+   * and replaces each word that is a literal with its type.
+   */
+  private void appendWords(final String text, final Region region) {
+    int start = 0;
+    while (start < text.length()) {
+      if (isDelimiter(text.charAt(start))) {
+        key.append(text.charAt(start));
+        start++;
+        continue;
+      }
+      int end = start;
+      while (end < text.length() && !isDelimiter(text.charAt(end))) {
+        end = text.charAt(end) == '\'' ? skipString(text, end) : end + 1;
+      }
+      final String word = text.substring(start, end);
+      final EdmPrimitiveTypeKind kind = getLiteralKind(word);
+      if (kind == null) {
+        appendVerbatim(key, word);
+      } else {
+        appendLiteral(word, region, (char) ('A' + kind.ordinal()));
+      }
+      start = end;
+    }
+  }
+
+  private void appendLiteral(final String literal, final Region region, final char type) {
+    key.append(MARK).append(type);
+    List<String> regionLiterals = literals.get(region);
+    if (regionLiterals == null) {
+      regionLiterals = new ArrayList<String>();
+      literals.put(region, regionLiterals);
+    }
+    regionLiterals.add(literal);
+  }
+
+  private static EdmPrimitiveTypeKind getLiteralKind(final String word) {
+    final UriTokenizer tokenizer = new UriTokenizer(word);
+    final TokenKind tokenKind = ParserHelper.nextPrimitiveValue(tokenizer);
+    if (tokenKind == null || !tokenizer.next(TokenKind.EOF)) {
+      return null;
+    }
+    final EdmPrimitiveTypeKind kind = ParserHelper.tokenToPrimitiveType.get(tokenKind);
+    return kind == EdmPrimitiveTypeKind.Int64 ? ParserHelper.determineIntegerType(word) : kind;
+  }
+
+  /** Returns the position after the single-quoted string starting at the given position. */
+  private static int skipString(final String text, final int start) {
+    int index = start + 1;
+    while (index < text.length()) {
+      if (text.charAt(index) == '\'') {
+        if (index + 1 < text.length() && text.charAt(index + 1) == '\'') {
+          index += 2;
+        } else {
+          return index + 1;
+        }
+      } else {
+        index++;
+      }
+    }
+    return index;
+  }
+
+  private static boolean isDelimiter(final char c) {
+    return c == ' ' || c == '\t' || c == '(' || c == ')' || c == ',' || c == '=';
+  }
+
+  /** Checks for a non-negative integer that certainly fits into an int. */
+  private static boolean isNumber(final String text) {
+    if (text.isEmpty() || text.length() > 9) {
+      return false;
+    }
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void appendVerbatim(final StringBuilder builder, final String text) {
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      builder.append(c);
+      if (c == MARK) {
+        builder.append(MARK);
+      }
+    }
+  }
+}
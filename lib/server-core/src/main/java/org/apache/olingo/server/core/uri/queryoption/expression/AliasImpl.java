@@ -21,6 +21,7 @@ package org.apache.olingo.server.core.uri.queryoption.expression;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.queryoption.AliasQueryOption;
 import org.apache.olingo.server.api.uri.queryoption.expression.Alias;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
 
@@ -28,10 +29,13 @@ public class AliasImpl implements Alias {
 
   private final String parameterName;
   private final AliasQueryOption alias;
+  private final int hashCode;
 
   public AliasImpl(final String parameterName, final AliasQueryOption alias) {
     this.parameterName = parameterName;
     this.alias = alias;
+    final String text = alias == null ? null : alias.getText();
+    hashCode = 31 * (parameterName == null ? 0 : parameterName.hashCode()) + (text == null ? 0 : text.hashCode());
   }
 
   @Override
@@ -48,6 +52,34 @@ public class AliasImpl implements Alias {
     return visitor.visitAlias(parameterName);
   }
 
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final AliasImpl other = (AliasImpl) obj;
+    if (hashCode != other.hashCode
+        || (parameterName == null ? other.parameterName != null : !parameterName.equals(other.parameterName))) {
+      return false;
+    }
+    // The same alias name can stand for different values in different requests.
+    if (alias == null || other.alias == null) {
+      return alias == other.alias;
+    }
+    final String text = alias.getText();
+    final Expression value = alias.getValue();
+    return (text == null ? other.alias.getText() == null : text.equals(other.alias.getText()))
+        && (value == null ? other.alias.getValue() == null : value.equals(other.alias.getValue()));
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
     return parameterName;
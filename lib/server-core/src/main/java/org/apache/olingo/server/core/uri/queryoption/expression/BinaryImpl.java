@@ -32,6 +32,7 @@ public class BinaryImpl implements Binary {
   private final BinaryOperatorKind operator;
   private final Expression right;
   private final EdmType type;
+  private final int hashCode;
 
   public BinaryImpl(final Expression left, final BinaryOperatorKind operator, final Expression right,
       final EdmType type) {
@@ -39,6 +40,8 @@ public class BinaryImpl implements Binary {
     this.operator = operator;
     this.right = right;
     this.type = type;
+    hashCode = ((31 * left.hashCode() + operator.hashCode()) * 31 + right.hashCode()) * 31
+        + (type == null ? 0 : type.hashCode());
   }
 
   @Override
@@ -67,6 +70,27 @@ public class BinaryImpl implements Binary {
     return visitor.visitBinaryOperator(operator, localLeft, localRight);
   }
 
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final BinaryImpl other = (BinaryImpl) obj;
+    return hashCode == other.hashCode
+        && operator == other.operator
+        && left.equals(other.left)
+        && right.equals(other.right)
+        && (type == null ? other.type == null : type.equals(other.type));
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
     return "{" + left + " " + operator.name() + " " + right + '}';
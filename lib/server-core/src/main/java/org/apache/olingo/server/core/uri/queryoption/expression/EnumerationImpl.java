@@ -31,10 +31,12 @@ public class EnumerationImpl implements Enumeration {
 
   private final EdmEnumType type;
   private final List<String> values;
+  private final int hashCode;
 
   public EnumerationImpl(final EdmEnumType type, final List<String> values) {
     this.type = type;
     this.values = values;
+    hashCode = 31 * (type == null ? 0 : type.hashCode()) + getValues().hashCode();
   }
 
   @Override
@@ -54,6 +56,25 @@ public class EnumerationImpl implements Enumeration {
     return visitor.visitEnum(type, values);
   }
 
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final EnumerationImpl other = (EnumerationImpl) obj;
+    return hashCode == other.hashCode
+        && (type == null ? other.type == null : type.equals(other.type))
+        && getValues().equals(other.getValues());
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
     return type == null ? "NULL" :
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.expression;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+
+/**
+ * <p>Canonicalizes structurally equal expression nodes so that they are shared
+ * within one parsed URI and across requests.</p>
+ * <p>The parser builds expression trees bottom-up and interns every node right after creation;
+ * the operands of a node are therefore already canonical, and the structural comparison of
+ * a new node with an interned one usually ends at reference equality of the operands.
+ * Interned nodes are held weakly and disappear as soon as no parsed URI refers to them any more.
+ * The entries are distributed over independently locked segments so that concurrent requests
+ * do not contend on a single monitor.</p>
+ */
+public final class ExpressionInterner {
+
+  private static final int SEGMENT_COUNT = 16;
+
+  private static final Segment[] SEGMENTS = new Segment[SEGMENT_COUNT];
+  static {
+    for (int i = 0; i < SEGMENT_COUNT; i++) {
+      SEGMENTS[i] = new Segment();
+    }
+  }
+
+  private ExpressionInterner() {
+    // Static utility class.
+  }
+
+  /**
+   * Returns the canonical instance for the given expression.
+   * The expression and everything it refers to must not be modified afterwards.
+   * @param expression the expression, may be <code>null</code>
+   * @return an interned expression equal to the given one, or the given expression itself
+   */
+  @SuppressWarnings("unchecked")
+  public static <T extends Expression> T intern(final T expression) {
+    if (expression == null) {
+      return null;
+    }
+    int hash = expression.hashCode();
+    // Spread the higher bits since only the lower ones select the segment.
+    hash ^= (hash >>> 16);
+    // Equal expressions always have the same class, so the cast is safe.
+    return (T) SEGMENTS[(hash & Integer.MAX_VALUE) % SEGMENT_COUNT].intern(expression);
+  }
+
+  /** Weak canonicalizing map guarded by its own monitor. */
+  private static final class Segment {
+    private final Map<Expression, WeakReference<Expression>> entries =
+        new WeakHashMap<Expression, WeakReference<Expression>>();
+
+    private synchronized Expression intern(final Expression expression) {
+      final WeakReference<Expression> reference = entries.get(expression);
+      final Expression interned = reference == null ? null : reference.get();
+      if (interned != null) {
+        return interned;
+      }
+      entries.put(expression, new WeakReference<Expression>(expression));
+      return expression;
+    }
+  }
+}
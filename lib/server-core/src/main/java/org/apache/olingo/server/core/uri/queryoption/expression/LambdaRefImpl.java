@@ -26,9 +26,11 @@ import org.apache.olingo.server.api.uri.queryoption.expression.LambdaRef;
 public class LambdaRefImpl implements LambdaRef {
 
   private final String variableText;
+  private final int hashCode;
 
   public LambdaRefImpl(final String text) {
     variableText = text;
+    hashCode = text == null ? 0 : text.hashCode();
   }
 
   @Override
@@ -41,6 +43,24 @@ public class LambdaRefImpl implements LambdaRef {
     return visitor.visitLambdaReference(variableText);
   }
 
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final LambdaRefImpl other = (LambdaRefImpl) obj;
+    return hashCode == other.hashCode
+        && (variableText == null ? other.variableText == null : variableText.equals(other.variableText));
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
     return variableText;
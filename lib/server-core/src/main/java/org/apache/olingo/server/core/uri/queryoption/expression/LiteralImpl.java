@@ -28,10 +28,12 @@ public class LiteralImpl implements Literal {
 
   private final String text;
   private final EdmType type;
+  private final int hashCode;
 
   public LiteralImpl(final String text, final EdmType type) {
     this.text = text;
     this.type = type;
+    hashCode = 31 * (text == null ? 0 : text.hashCode()) + (type == null ? 0 : type.hashCode());
   }
 
   @Override
@@ -49,6 +51,25 @@ public class LiteralImpl implements Literal {
     return visitor.visitLiteral(this);
   }
 
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final LiteralImpl other = (LiteralImpl) obj;
+    return hashCode == other.hashCode
+        && (text == null ? other.text == null : text.equals(other.text))
+        && (type == null ? other.type == null : type.equals(other.type));
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
     return text == null ? "" : text;
@@ -18,11 +18,24 @@
  */
 package org.apache.olingo.server.core.uri.queryoption.expression;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriParameter;
 import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceAction;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceFunction;
+import org.apache.olingo.server.api.uri.UriResourceLambdaAll;
+import org.apache.olingo.server.api.uri.UriResourceLambdaAny;
+import org.apache.olingo.server.api.uri.UriResourceLambdaVariable;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
 import org.apache.olingo.server.api.uri.UriResourcePartTyped;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.UriResourceSingleton;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
 import org.apache.olingo.server.api.uri.queryoption.expression.Member;
@@ -32,14 +45,23 @@ import org.apache.olingo.server.core.uri.UriResourceImpl;
 import org.apache.olingo.server.core.uri.UriResourceTypedImpl;
 import org.apache.olingo.server.core.uri.UriResourceWithKeysImpl;
 
+/**
+ * Member expression.
+ * Two members are equal if their resource paths consist of the same segments referring to the same
+ * EDM elements; the resource path must therefore be complete and must not be modified afterwards.
+ */
 public class MemberImpl implements Member {
 
   private final UriInfoResource path;
   private final EdmType startTypeFilter;
+  private final List<Object> pathKey;
+  private final int hashCode;
 
   public MemberImpl(final UriInfoResource path, final EdmType startTypeFilter) {
     this.path = path;
     this.startTypeFilter = startTypeFilter;
+    pathKey = createPathKey(path, startTypeFilter);
+    hashCode = pathKey.hashCode();
   }
 
   @Override
@@ -93,8 +115,85 @@ public class MemberImpl implements Member {
         false;
   }
 
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final MemberImpl other = (MemberImpl) obj;
+    return hashCode == other.hashCode && pathKey.equals(other.pathKey);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
     return path.getUriResourceParts().toString() + (startTypeFilter == null ? "" : startTypeFilter);
   }
+
+  /**
+   * Collects everything that distinguishes the resource path of a member.
+   * EDM elements are compared by identity, as the EDM hands out the same instance for the same element.
+   */
+  private static List<Object> createPathKey(final UriInfoResource path, final EdmType startTypeFilter) {
+    List<Object> key = new ArrayList<Object>();
+    key.add(startTypeFilter);
+    for (final UriResource part : path.getUriResourceParts()) {
+      key.add(part.getKind());
+      if (part instanceof UriResourcePartTyped) {
+        final UriResourcePartTyped typedPart = (UriResourcePartTyped) part;
+        key.add(typedPart.toString(true));
+        key.add(typedPart.getType());
+        key.add(typedPart.isCollection());
+      } else {
+        key.add(part.toString());
+      }
+      if (part instanceof UriResourceProperty) {
+        key.add(((UriResourceProperty) part).getProperty());
+      } else if (part instanceof UriResourceNavigation) {
+        key.add(((UriResourceNavigation) part).getProperty());
+        addParameters(key, ((UriResourceNavigation) part).getKeyPredicates());
+      } else if (part instanceof UriResourceEntitySet) {
+        key.add(((UriResourceEntitySet) part).getEntitySet());
+        addParameters(key, ((UriResourceEntitySet) part).getKeyPredicates());
+      } else if (part instanceof UriResourceSingleton) {
+        key.add(((UriResourceSingleton) part).getSingleton());
+      } else if (part instanceof UriResourceFunction) {
+        final UriResourceFunction function = (UriResourceFunction) part;
+        key.add(function.getFunction());
+        key.add(function.getFunctionImport());
+        addParameters(key, function.getParameters());
+        addParameters(key, function.getKeyPredicates());
+      } else if (part instanceof UriResourceAction) {
+        key.add(((UriResourceAction) part).getAction());
+        key.add(((UriResourceAction) part).getActionImport());
+      } else if (part instanceof UriResourceLambdaVariable) {
+        key.add(((UriResourceLambdaVariable) part).getVariableName());
+      } else if (part instanceof UriResourceLambdaAny) {
+        key.add(((UriResourceLambdaAny) part).getLambdaVariable());
+        key.add(((UriResourceLambdaAny) part).getExpression());
+      } else if (part instanceof UriResourceLambdaAll) {
+        key.add(((UriResourceLambdaAll) part).getLambdaVariable());
+        key.add(((UriResourceLambdaAll) part).getExpression());
+      }
+    }
+    return key;
+  }
+
+  private static void addParameters(final List<Object> key, final List<UriParameter> parameters) {
+    key.add(parameters.size());
+    for (final UriParameter parameter : parameters) {
+      key.add(parameter.getName());
+      key.add(parameter.getText());
+      key.add(parameter.getAlias());
+      key.add(parameter.getExpression());
+      key.add(parameter.getReferencedProperty());
+    }
+  }
 }
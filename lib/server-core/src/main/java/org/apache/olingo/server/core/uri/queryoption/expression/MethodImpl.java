@@ -37,10 +37,12 @@ public class MethodImpl implements Method {
 
   private final MethodKind method;
   private final List<Expression> parameters;
+  private final int hashCode;
 
   public MethodImpl(final MethodKind method, final List<Expression> parameters) {
     this.method = method;
     this.parameters = parameters;
+    hashCode = 31 * method.hashCode() + getParameters().hashCode();
   }
 
   @Override
@@ -134,6 +136,25 @@ public class MethodImpl implements Method {
     return visitor.visitMethodCall(method, userParameters);
   }
 
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final MethodImpl other = (MethodImpl) obj;
+    return hashCode == other.hashCode
+        && method == other.method
+        && getParameters().equals(other.getParameters());
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
     return "{" + method + " " + parameters + "}";
@@ -27,9 +27,11 @@ import org.apache.olingo.server.api.uri.queryoption.expression.TypeLiteral;
 public class TypeLiteralImpl implements TypeLiteral {
 
   private final EdmType type;
+  private final int hashCode;
 
   public TypeLiteralImpl(final EdmType type) {
     this.type = type;
+    hashCode = type == null ? 0 : type.hashCode();
   }
 
   @Override
@@ -42,6 +44,24 @@ public class TypeLiteralImpl implements TypeLiteral {
     return visitor.visitTypeLiteral(type);
   }
 
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final TypeLiteralImpl other = (TypeLiteralImpl) obj;
+    return hashCode == other.hashCode
+        && (type == null ? other.type == null : type.equals(other.type));
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
     return type == null ? "NULL" : type.getFullQualifiedName().getFullQualifiedNameAsString();
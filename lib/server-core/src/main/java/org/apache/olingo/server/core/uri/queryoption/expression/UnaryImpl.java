@@ -31,11 +31,13 @@ public class UnaryImpl implements Unary {
   private final UnaryOperatorKind operator;
   private final Expression expression;
   private final EdmType type;
+  private final int hashCode;
 
   public UnaryImpl(final UnaryOperatorKind operator, final Expression expression, final EdmType type) {
     this.operator = operator;
     this.expression = expression;
     this.type = type;
+    hashCode = (31 * operator.hashCode() + expression.hashCode()) * 31 + (type == null ? 0 : type.hashCode());
   }
 
   @Override
@@ -58,6 +60,26 @@ public class UnaryImpl implements Unary {
     return visitor.visitUnaryOperator(operator, operand);
   }
 
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final UnaryImpl other = (UnaryImpl) obj;
+    return hashCode == other.hashCode
+        && operator == other.operator
+        && expression.equals(other.expression)
+        && (type == null ? other.type == null : type.equals(other.type));
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
     return "{" + operator.name() + " " + expression + '}';
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutor;
+
+public class ChunkedContentOutputStreamTest {
+
+  private static final int CHUNK_SIZE = 4;
+
+  private ChannelHandlerContext context;
+  private Channel channel;
+  private EventExecutor executor;
+  private ChannelFuture future;
+
+  @Before
+  public void before() {
+    context = mock(ChannelHandlerContext.class);
+    channel = mock(Channel.class);
+    executor = mock(EventExecutor.class);
+    future = mock(ChannelFuture.class);
+    when(context.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+    when(context.channel()).thenReturn(channel);
+    when(context.executor()).thenReturn(executor);
+    when(context.writeAndFlush(any())).thenReturn(future);
+    when(future.isDone()).thenReturn(true);
+    when(future.isSuccess()).thenReturn(true);
+  }
+
+  @Test
+  public void waitsWhileChannelIsNotWritable() throws Exception {
+    when(channel.isWritable()).thenReturn(false);
+    when(executor.inEventLoop()).thenReturn(false);
+
+    final ChunkedContentOutputStream output = new ChunkedContentOutputStream(context, CHUNK_SIZE);
+    output.write(new byte[CHUNK_SIZE * 2 + 1]);
+
+    verify(context, times(2)).writeAndFlush(any());
+    verify(future, times(2)).awaitUninterruptibly();
+  }
+
+  @Test
+  public void doesNotWaitWhileChannelIsWritable() throws Exception {
+    when(channel.isWritable()).thenReturn(true);
+    when(executor.inEventLoop()).thenReturn(false);
+
+    final ChunkedContentOutputStream output = new ChunkedContentOutputStream(context, CHUNK_SIZE);
+    output.write(new byte[CHUNK_SIZE * 2]);
+
+    verify(context, times(2)).writeAndFlush(any());
+    verify(future, never()).awaitUninterruptibly();
+  }
+
+  @Test
+  public void doesNotWaitOnEventLoop() throws Exception {
+    when(channel.isWritable()).thenReturn(false);
+    when(executor.inEventLoop()).thenReturn(true);
+
+    final ChunkedContentOutputStream output = new ChunkedContentOutputStream(context, CHUNK_SIZE);
+    output.write(new byte[CHUNK_SIZE]);
+
+    verify(context).writeAndFlush(any());
+    verify(future, never()).awaitUninterruptibly();
+  }
+
+  @Test
+  public void failedWrite() throws Exception {
+    when(channel.isWritable()).thenReturn(false);
+    when(executor.inEventLoop()).thenReturn(false);
+    when(future.isSuccess()).thenReturn(false);
+
+    final ChunkedContentOutputStream output = new ChunkedContentOutputStream(context, CHUNK_SIZE);
+    try {
+      output.write(new byte[CHUNK_SIZE]);
+      fail("Expected an IOException.");
+    } catch (final IOException e) {
+      assertEquals("The response could not be sent.", e.getMessage());
+    }
+  }
+
+  @Test
+  public void writeAfterDiscard() throws Exception {
+    final ChunkedContentOutputStream output = new ChunkedContentOutputStream(context, CHUNK_SIZE);
+    output.write(1);
+    output.discard();
+    try {
+      output.write(2);
+      fail("Expected an IOException.");
+    } catch (final IOException e) {
+      assertEquals("The response has already been finished.", e.getMessage());
+    }
+    verify(context, never()).writeAndFlush(any());
+  }
+}
@@ -20,14 +20,31 @@ package org.apache.olingo.server.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.apache.olingo.commons.api.edm.provider.CsdlAbstractEdmProvider;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.metrics.RequestInstrumentation;
 import org.junit.Test;
 
 public class ODataHttpHandlerImplTest {
@@ -224,4 +241,39 @@ public class ODataHttpHandlerImplTest {
     
     }
   }
+
+  @Test
+  public void requestRecordedIfResponseCannotBeWritten() throws Exception {
+    final OData odata = OData.newInstance();
+    ODataHttpHandlerImpl handler = new ODataHttpHandlerImpl(odata, odata.createServiceMetadata(
+        new CsdlAbstractEdmProvider() {}, Collections.<EdmxReference> emptyList()));
+    final RequestInstrumentation instrumentation = mock(RequestInstrumentation.class);
+    handler.register(instrumentation);
+
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getMethod()).thenReturn(HttpMethod.GET.name());
+    when(request.getRequestURL()).thenReturn(new StringBuffer("http://localhost/odata.svc/Unknown"));
+    when(request.getRequestURI()).thenReturn("/odata.svc/Unknown");
+    when(request.getContextPath()).thenReturn("");
+    when(request.getServletPath()).thenReturn("/odata.svc");
+    when(request.getHeaderNames()).thenReturn(Collections.enumeration(Collections.<String> emptyList()));
+    final ByteArrayInputStream body = new ByteArrayInputStream(new byte[0]);
+    when(request.getInputStream()).thenReturn(new ServletInputStream() {
+      @Override
+      public int read() {
+        return body.read();
+      }
+    });
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getOutputStream()).thenThrow(new IOException("connection reset"));
+
+    try {
+      handler.process(request, response);
+      fail("Expected an ODataRuntimeException");
+    } catch (final ODataRuntimeException e) {
+      // The failure to write the response is propagated.
+    }
+    verify(instrumentation).requestCompleted(isNull(String.class), anyString(),
+        eq(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode()), anyLong(), eq(-1L), eq(-1L));
+  }
 }
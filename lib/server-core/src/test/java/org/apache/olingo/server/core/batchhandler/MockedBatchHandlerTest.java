@@ -21,10 +21,16 @@ package org.apache.olingo.server.core.batchhandler;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -33,6 +39,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.olingo.commons.api.ex.ODataException;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -44,11 +56,16 @@ import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.batch.BatchExecutionSupport;
 import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.batch.IncrementalBatchFacade;
+import org.apache.olingo.server.api.deserializer.IncrementalFixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartIterator;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 import org.apache.olingo.server.api.processor.BatchProcessor;
 import org.apache.olingo.server.api.serializer.BatchSerializerException;
@@ -242,6 +259,311 @@ public class MockedBatchHandlerTest {
     reader.close();
   }
 
+  @Test
+  public void incrementalProcessing() throws Exception {
+    final String content = ""
+        + "--batch_12345" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "GET ESAllPrim(0) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--batch_12345" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "GET ESAllPrim(1) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--batch_12345" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "INVALID ESAllPrim(2) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--batch_12345" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "GET ESAllPrim(3) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--batch_12345--";
+    when(oDataHandler.process(any(ODataRequest.class))).then(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        return buildResponse((ODataRequest) invocation.getArguments()[0]);
+      }
+    });
+    final ODataResponse response = new ODataResponse();
+    final ODataRequest request = buildODataRequest(content, getMimeHeader());
+
+    new BatchHandler(oDataHandler, new IncrementalBatchTestProcessorImpl()).process(request, response, true);
+
+    // Nothing is handled until the response content is written.
+    verify(oDataHandler, never()).process(any(ODataRequest.class));
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    response.getODataContent().write(output);
+    verify(oDataHandler, times(2)).process(any(ODataRequest.class));
+
+    BatchLineReader reader = new BatchLineReader(new ByteArrayInputStream(output.toByteArray()));
+    final List<String> responseContent = reader.toList();
+    reader.close();
+
+    assertEquals(25, responseContent.size());
+    assertEquals("HTTP/1.1 200 OK" + CRLF, responseContent.get(4));
+    assertEquals("HTTP/1.1 200 OK" + CRLF, responseContent.get(12));
+    // The malformed part is answered with an error and ends the processing.
+    assertEquals("HTTP/1.1 500 Internal Server Error" + CRLF, responseContent.get(20));
+    assertTrue(responseContent.get(24).matches("--batch_.*--" + CRLF));
+  }
+
+  @Test
+  public void incrementalProcessingWithFailingPart() throws Exception {
+    final String content = ""
+        + getQueryPart("ESAllPrim(0)")
+        + getQueryPart("ESAllPrim(1)")
+        + getQueryPart("ESAllPrim(2)")
+        + "--batch_12345--";
+    when(oDataHandler.process(any(ODataRequest.class))).then(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        final ODataRequest request = (ODataRequest) invocation.getArguments()[0];
+        if (request.getRawODataPath().equals("/ESAllPrim(1)")) {
+          throw new IllegalStateException("failure in part");
+        }
+        return buildResponse(request);
+      }
+    });
+    final ODataResponse response = new ODataResponse();
+
+    new BatchHandler(oDataHandler, new IncrementalBatchTestProcessorImpl())
+        .process(buildODataRequest(content, getMimeHeader()), response, true);
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    response.getODataContent().write(output);
+
+    // The failure is answered with an error part; the response is complete.
+    final String responseContent = new String(output.toByteArray(), "UTF-8");
+    final int error = responseContent.indexOf("HTTP/1.1 500 Internal Server Error");
+    assertTrue(error > responseContent.indexOf("HTTP/1.1 200 OK"));
+    assertTrue(responseContent.indexOf("HTTP/1.1 200 OK", error) > error);
+    assertTrue(responseContent.trim().endsWith("--"));
+    verify(oDataHandler, times(3)).process(any(ODataRequest.class));
+  }
+
+  @Test(expected = BatchDeserializerException.class)
+  public void incrementalProcessingWithInvalidFirstPart() throws Exception {
+    final String content = ""
+        + "--batch_12345" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "INVALID ESAllPrim(0) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--batch_12345--";
+    final ODataRequest request = buildODataRequest(content, getMimeHeader());
+
+    new BatchHandler(oDataHandler, new IncrementalBatchTestProcessorImpl())
+        .process(request, new ODataResponse(), true);
+  }
+
+  @Test
+  public void parallelProcessing() throws Exception {
+    final String content = ""
+        + getQueryPart("ESAllPrim(0)")
+        + getQueryPart("ESAllPrim(1)")
+        + getQueryPart("ESAllPrim(2)")
+        + "--batch_12345" + CRLF
+        + "Content-Type: multipart/mixed; boundary=changeset_12345" + CRLF
+        + CRLF
+        + "--changeset_12345" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + "Content-Id: 1" + CRLF
+        + CRLF
+        + "PUT ESAllPrim(1) HTTP/1.1" + CRLF
+        + "Content-Type: application/json;odata=verbose" + CRLF
+        + CRLF
+        + CRLF
+        + "--changeset_12345--" + CRLF
+        + getQueryPart("ESAllPrim(3)")
+        + getQueryPart("ESAllPrim(4)")
+        + "--batch_12345--";
+    final List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+    final CountDownLatch firstQueries = new CountDownLatch(3);
+    final AtomicBoolean isConcurrent = new AtomicBoolean(true);
+    when(oDataHandler.process(any(ODataRequest.class))).then(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        final ODataRequest request = (ODataRequest) invocation.getArguments()[0];
+        processed.add(request.getMethod() + " " + request.getRawODataPath());
+        if (firstQueries.getCount() > 0 && request.getMethod() == HttpMethod.GET) {
+          // The first three queries can only pass if they are executed at the same time.
+          firstQueries.countDown();
+          isConcurrent.compareAndSet(true, firstQueries.await(10, TimeUnit.SECONDS));
+        }
+        final ODataResponse response = buildResponse(request);
+        response.setHeader("X-Path", request.getRawODataPath());
+        return response;
+      }
+    });
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+    when(oDataHandler.getBatchExecutionSupport()).thenReturn(new BatchExecutionSupport() {
+      @Override
+      public Executor getExecutor() {
+        return executor;
+      }
+
+      @Override
+      public int getMaxParallelism() {
+        return 3;
+      }
+
+      @Override
+      public boolean isParallelByDefault() {
+        return false;
+      }
+    });
+    final Map<String, List<String>> header = new HashMap<String, List<String>>(getMimeHeader());
+    header.put(HttpHeader.PREFER, Arrays.asList(BatchExecutionSupport.PREFERENCE_PARALLEL));
+    final ODataResponse response = new ODataResponse();
+
+    try {
+      new BatchHandler(oDataHandler, new IncrementalBatchTestProcessorImpl())
+          .process(buildODataRequest(content, header), response, true);
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      response.getODataContent().write(output);
+
+      assertTrue(isConcurrent.get());
+      // The change set has been executed after all queries before it and before all queries after it.
+      assertEquals(6, processed.size());
+      assertEquals("PUT /ESAllPrim(1)", processed.get(3));
+      assertTrue(processed.subList(0, 3).containsAll(
+          Arrays.asList("GET /ESAllPrim(0)", "GET /ESAllPrim(1)", "GET /ESAllPrim(2)")));
+      assertTrue(processed.subList(4, 6).containsAll(Arrays.asList("GET /ESAllPrim(3)", "GET /ESAllPrim(4)")));
+
+      // The response parts are in the order of the request parts.
+      final List<String> paths = new ArrayList<String>();
+      for (final String line : new String(output.toByteArray(), "UTF-8").split(CRLF)) {
+        if (line.startsWith("X-Path: ")) {
+          paths.add(line.substring("X-Path: ".length()));
+        }
+      }
+      assertEquals(Arrays.asList("/ESAllPrim(0)", "/ESAllPrim(1)", "/ESAllPrim(2)", "/ESAllPrim(1)",
+          "/ESAllPrim(3)", "/ESAllPrim(4)"), paths);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void parallelProcessingWithRejectingExecutor() throws Exception {
+    final String content = ""
+        + getQueryPart("ESAllPrim(0)")
+        + getQueryPart("ESAllPrim(1)")
+        + "--batch_12345--";
+    when(oDataHandler.process(any(ODataRequest.class))).then(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        return buildResponse((ODataRequest) invocation.getArguments()[0]);
+      }
+    });
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    when(oDataHandler.getBatchExecutionSupport()).thenReturn(new BatchExecutionSupport() {
+      @Override
+      public Executor getExecutor() {
+        return executor;
+      }
+
+      @Override
+      public int getMaxParallelism() {
+        return 2;
+      }
+
+      @Override
+      public boolean isParallelByDefault() {
+        return true;
+      }
+    });
+    final ODataResponse response = new ODataResponse();
+
+    new BatchHandler(oDataHandler, new IncrementalBatchTestProcessorImpl())
+        .process(buildODataRequest(content, getMimeHeader()), response, true);
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    response.getODataContent().write(output);
+
+    // The parts have been handled in the calling thread.
+    verify(oDataHandler, times(2)).process(any(ODataRequest.class));
+    assertEquals(2, new String(output.toByteArray(), "UTF-8").split("HTTP/1.1 200 OK").length - 1);
+  }
+
+  @Test
+  public void parallelProcessingWithFailingParts() throws Exception {
+    final String content = ""
+        + getQueryPart("ESAllPrim(0)")
+        + getQueryPart("ESAllPrim(1)")
+        + getQueryPart("ESAllPrim(2)")
+        + "--batch_12345--";
+    when(oDataHandler.process(any(ODataRequest.class))).thenThrow(new IllegalStateException("failure in part"));
+    final List<Thread> errorThreads = Collections.synchronizedList(new ArrayList<Thread>());
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        errorThreads.add(Thread.currentThread());
+        ((ODataResponse) invocation.getArguments()[1]).setStatusCode(
+            ((ODataServerError) invocation.getArguments()[2]).getStatusCode());
+        return null;
+      }
+    }).when(oDataHandler).handleException(any(ODataRequest.class), any(ODataResponse.class),
+        any(ODataServerError.class), any(Exception.class));
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+    when(oDataHandler.getBatchExecutionSupport()).thenReturn(new BatchExecutionSupport() {
+      @Override
+      public Executor getExecutor() {
+        return executor;
+      }
+
+      @Override
+      public int getMaxParallelism() {
+        return 3;
+      }
+
+      @Override
+      public boolean isParallelByDefault() {
+        return true;
+      }
+    });
+    final ODataResponse response = new ODataResponse();
+
+    try {
+      new BatchHandler(oDataHandler, new IncrementalBatchTestProcessorImpl())
+          .process(buildODataRequest(content, getMimeHeader()), response, true);
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      response.getODataContent().write(output);
+
+      // The error parts have been created by the writing thread only.
+      assertEquals(Arrays.asList(Thread.currentThread(), Thread.currentThread(), Thread.currentThread()),
+          errorThreads);
+      assertEquals(3, new String(output.toByteArray(), "UTF-8").split("HTTP/1.1 500").length - 1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private String getQueryPart(final String resourcePath) {
+    return "--batch_12345" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "GET " + resourcePath + " HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF;
+  }
+
   @Test
   public void testMultipleChangeSets() throws Exception {
     final String content = ""
@@ -628,6 +950,32 @@ public class MockedBatchHandlerTest {
     }
   }
 
+  /**
+   * Batch processor which handles the parts while the response is written
+   */
+  private class IncrementalBatchTestProcessorImpl extends BatchTestProcessorImpl {
+
+    public IncrementalBatchTestProcessorImpl() {
+      init(OData.newInstance(), null);
+    }
+
+    @Override
+    public void processBatch(final BatchFacade facade, final ODataRequest request, final ODataResponse response)
+        throws ODataApplicationException, ODataLibraryException {
+      final String boundary = facade.extractBoundaryFromContentType(request.getHeader(HttpHeader.CONTENT_TYPE));
+      final BatchOptions options = BatchOptions.with().isStrict(true).rawBaseUri(BASE_URI).build();
+      final BatchRequestPartIterator parts =
+          ((IncrementalFixedFormatDeserializer) OData.newInstance().createFixedFormatDeserializer())
+          .parseBatchRequestIncrementally(request.getBody(), boundary, options);
+
+      final String responseBoundary = "batch_" + UUID.randomUUID().toString();
+      response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+      response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.MULTIPART_MIXED + ";boundary=" + responseBoundary);
+      response.setODataContent(
+          ((IncrementalBatchFacade) facade).handleBatchRequestIncrementally(parts, responseBoundary, true));
+    }
+  }
+
   private ODataResponse buildResponse(final ODataRequest request) {
     final ODataResponse oDataResponse = new ODataResponse();
 
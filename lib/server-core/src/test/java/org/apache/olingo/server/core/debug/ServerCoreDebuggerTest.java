@@ -29,13 +29,19 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.debug.DebugInformation;
 import org.apache.olingo.server.api.debug.DebugSupport;
@@ -114,6 +120,37 @@ public class ServerCoreDebuggerTest {
     assertEquals(odResponse, debugResponse);
   }
 
+  @Test
+  public void streamedContentIsWrittenForDebugTabs() throws Exception {
+    ServerCoreDebugger defaultDebugger = new ServerCoreDebugger(odata);
+    defaultDebugger.setDebugSupportProcessor(new DefaultDebugSupport());
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getParameter(DebugSupport.ODATA_DEBUG_QUERY_PARAMETER)).thenReturn(DebugSupport.ODATA_DEBUG_JSON);
+    defaultDebugger.resolveDebugMode(request);
+
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.TEXT_PLAIN.toContentTypeString());
+    response.setODataContent(new ODataContent() {
+      @Override
+      public void write(final WritableByteChannel channel) {
+        write(Channels.newOutputStream(channel));
+      }
+
+      @Override
+      public void write(final OutputStream stream) {
+        try {
+          stream.write("produced while writing".getBytes("UTF-8"));
+        } catch (final IOException e) {
+          throw new ODataRuntimeException(e);
+        }
+      }
+    });
+
+    assertThat(IOUtils.toString(defaultDebugger.createDebugResponse(null, response, null, null, null).getContent()),
+        containsString("\"body\":\"produced while writing\""));
+  }
+
   @Test
   public void runtimeMeasurement() throws Exception {
     ServerCoreDebugger defaultDebugger = new ServerCoreDebugger(odata);
@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.io.IOUtils;
@@ -32,6 +33,7 @@ import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerExceptio
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartIterator;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -1148,13 +1150,67 @@ public class BatchRequestParserTest {
 
   private List<BatchRequestPart> parse(final InputStream in, final boolean isStrict)
       throws BatchDeserializerException {
+    final byte[] content = toByteArray(in);
     final List<BatchRequestPart> batchRequestParts =
-        new BatchParser().parseBatchRequest(in, BOUNDARY,
+        new BatchParser().parseBatchRequest(new ByteArrayInputStream(content), BOUNDARY,
             BatchOptions.with().isStrict(isStrict).rawBaseUri(SERVICE_ROOT).build());
     Assert.assertNotNull(batchRequestParts);
+    assertSameParts(batchRequestParts, parseIncrementally(content, isStrict));
     return batchRequestParts;
   }
 
+  private List<BatchRequestPart> parseIncrementally(final byte[] content, final boolean isStrict)
+      throws BatchDeserializerException {
+    final BatchRequestPartIterator iterator =
+        new BatchParser().parseBatchRequestIncrementally(new ByteArrayInputStream(content), BOUNDARY,
+            BatchOptions.with().isStrict(isStrict).rawBaseUri(SERVICE_ROOT).build());
+    final List<BatchRequestPart> batchRequestParts = new ArrayList<BatchRequestPart>();
+    while (iterator.hasNext()) {
+      batchRequestParts.add(iterator.next());
+    }
+    return batchRequestParts;
+  }
+
+  private void assertSameParts(final List<BatchRequestPart> expected, final List<BatchRequestPart> actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertEquals(expected.get(i).isChangeSet(), actual.get(i).isChangeSet());
+      final List<ODataRequest> expectedRequests = expected.get(i).getRequests();
+      final List<ODataRequest> actualRequests = actual.get(i).getRequests();
+      Assert.assertEquals(expectedRequests.size(), actualRequests.size());
+      for (int j = 0; j < expectedRequests.size(); j++) {
+        final ODataRequest expectedRequest = expectedRequests.get(j);
+        final ODataRequest actualRequest = actualRequests.get(j);
+        Assert.assertEquals(expectedRequest.getMethod(), actualRequest.getMethod());
+        Assert.assertEquals(expectedRequest.getRawRequestUri(), actualRequest.getRawRequestUri());
+        Assert.assertEquals(expectedRequest.getRawODataPath(), actualRequest.getRawODataPath());
+        Assert.assertEquals(expectedRequest.getRawQueryPath(), actualRequest.getRawQueryPath());
+        Assert.assertEquals(expectedRequest.getAllHeaders(), actualRequest.getAllHeaders());
+        Assert.assertArrayEquals(readBody(expectedRequest), readBody(actualRequest));
+      }
+    }
+  }
+
+  private byte[] readBody(final ODataRequest request) {
+    final InputStream body = request.getBody();
+    body.mark(Integer.MAX_VALUE);
+    final byte[] content = toByteArray(body);
+    try {
+      body.reset();
+    } catch (final IOException e) {
+      throw new AssertionError(e);
+    }
+    return content;
+  }
+
+  private byte[] toByteArray(final InputStream in) {
+    try {
+      return IOUtils.toByteArray(in);
+    } catch (final IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+
   private List<BatchRequestPart> parse(final String batch) throws BatchDeserializerException {
     return parse(batch, true);
   }
@@ -1171,6 +1227,13 @@ public class BatchRequestParserTest {
     } catch (BatchDeserializerException e) {
       Assert.assertEquals(key, e.getMessageKey());
     }
+
+    try {
+      parseIncrementally(toByteArray(IOUtils.toInputStream(batch)), isStrict);
+      Assert.fail("No exception thrown in incremental parsing. Expected: " + key);
+    } catch (BatchDeserializerException e) {
+      Assert.assertEquals(key, e.getMessageKey());
+    }
   }
 
   private void parseInvalidBatchBody(final String batch, final MessageKeys key) {
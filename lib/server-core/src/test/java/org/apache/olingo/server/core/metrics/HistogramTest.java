@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.olingo.server.api.metrics.HistogramSnapshot;
+import org.junit.Test;
+
+public class HistogramTest {
+
+  @Test
+  public void empty() {
+    final HistogramSnapshot snapshot = new Histogram().snapshot();
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getMin());
+    assertEquals(0, snapshot.getMax());
+    assertEquals(0, snapshot.getMean(), 0);
+    assertEquals(0, snapshot.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    Histogram histogram = new Histogram();
+    for (int value = 1; value <= 20; value++) {
+      histogram.record(value);
+    }
+    final HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(20, snapshot.getCount());
+    assertEquals(1, snapshot.getMin());
+    assertEquals(20, snapshot.getMax());
+    assertEquals(210, snapshot.getSum());
+    assertEquals(10.5, snapshot.getMean(), 0);
+    assertEquals(10, snapshot.getValueAtPercentile(50));
+    assertEquals(19, snapshot.getValueAtPercentile(95));
+    assertEquals(20, snapshot.getValueAtPercentile(100));
+    assertEquals(1, snapshot.getValueAtPercentile(0));
+  }
+
+  @Test
+  public void bucketsAreContiguous() {
+    long expectedLowest = 0;
+    for (int index = 0; index < Histogram.BUCKET_COUNT; index++) {
+      final long highest = Histogram.highestValueInBucket(index);
+      assertEquals(index, Histogram.bucketIndex(expectedLowest));
+      assertEquals(index, Histogram.bucketIndex(highest));
+      // The width of a bucket is at most a sixteenth of its lowest value.
+      assertTrue(highest - expectedLowest <= Math.max(0, expectedLowest / 16));
+      expectedLowest = highest + 1;
+    }
+    assertEquals(Histogram.HIGHEST_TRACKABLE_VALUE + 1, expectedLowest);
+    assertEquals(Histogram.BUCKET_COUNT - 1, Histogram.bucketIndex(Long.MAX_VALUE));
+    assertEquals(0, Histogram.bucketIndex(0));
+  }
+
+  @Test
+  public void largeValuesWithinPrecision() {
+    Histogram histogram = new Histogram();
+    for (int i = 0; i < 99; i++) {
+      histogram.record(1000000);
+    }
+    histogram.record(Long.MAX_VALUE);
+    histogram.record(-5);
+    final HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(101, snapshot.getCount());
+    assertEquals(0, snapshot.getMin());
+    assertEquals(Long.MAX_VALUE, snapshot.getMax());
+    final long median = snapshot.getValueAtPercentile(50);
+    assertTrue(median >= 1000000 && median <= 1000000 + 1000000 / 16);
+    assertEquals(Histogram.HIGHEST_TRACKABLE_VALUE, snapshot.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void concurrentRecording() throws Exception {
+    final Histogram histogram = new Histogram();
+    final int threadCount = 4;
+    final int valuesPerThread = 10000;
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (final InterruptedException e) {
+            return;
+          }
+          for (int value = 1; value <= valuesPerThread; value++) {
+            histogram.record(value);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    start.countDown();
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    final HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(threadCount * valuesPerThread, snapshot.getCount());
+    assertEquals(threadCount * (long) valuesPerThread * (valuesPerThread + 1) / 2, snapshot.getSum());
+    assertEquals(1, snapshot.getMin());
+    assertEquals(valuesPerThread, snapshot.getMax());
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.olingo.server.api.metrics.RequestMetricsSnapshot;
+import org.apache.olingo.server.api.metrics.RequestPhase;
+import org.apache.olingo.server.api.metrics.RequestStatistics;
+import org.junit.Test;
+
+public class RequestMetricsImplTest {
+
+  @Test
+  public void aggregatePerEntitySetAndProcessor() {
+    RequestMetricsImpl metrics = new RequestMetricsImpl();
+    metrics.requestCompleted("ESAllPrim", "EntityCollectionProcessor", 200, 1000, -1, 512);
+    metrics.requestCompleted("ESAllPrim", "EntityProcessor", 404, 3000, -1, 100);
+    metrics.requestCompleted("ESTwoPrim", "EntityProcessor", 201, 2000, 64, 128);
+    metrics.requestCompleted(null, null, 400, 500, -1, -1);
+
+    final RequestMetricsSnapshot snapshot = metrics.getSnapshot();
+    final RequestStatistics total = snapshot.getTotal();
+    assertEquals(4, total.getRequestCount());
+    assertEquals(2, total.getErrorCount());
+    assertEquals(4, total.getLatency().getCount());
+    assertEquals(6500, total.getLatency().getSum());
+    assertEquals(1, total.getRequestSize().getCount());
+    assertEquals(3, total.getResponseSize().getCount());
+
+    assertEquals(2, snapshot.getEntitySets().size());
+    final RequestStatistics allPrim = snapshot.getEntitySets().get("ESAllPrim");
+    assertEquals(2, allPrim.getRequestCount());
+    assertEquals(1, allPrim.getErrorCount());
+    assertEquals(612, allPrim.getResponseSize().getSum());
+    assertEquals(1, snapshot.getEntitySets().get("ESTwoPrim").getRequestCount());
+
+    assertEquals("[EntityCollectionProcessor, EntityProcessor]", snapshot.getProcessors().keySet().toString());
+    assertEquals(2, snapshot.getProcessors().get("EntityProcessor").getRequestCount());
+  }
+
+  @Test
+  public void phasesAndReset() {
+    RequestMetricsImpl metrics = new RequestMetricsImpl();
+    metrics.phaseCompleted(RequestPhase.PARSE_URI, 10);
+    metrics.phaseCompleted(RequestPhase.PARSE_URI, 20);
+    metrics.phaseCompleted(RequestPhase.DISPATCH, 30);
+
+    RequestMetricsSnapshot snapshot = metrics.getSnapshot();
+    assertEquals(RequestPhase.values().length, snapshot.getPhases().size());
+    assertEquals(2, snapshot.getPhases().get(RequestPhase.PARSE_URI).getCount());
+    assertEquals(20, snapshot.getPhases().get(RequestPhase.PARSE_URI).getMax());
+    assertEquals(1, snapshot.getPhases().get(RequestPhase.DISPATCH).getCount());
+    assertEquals(0, snapshot.getPhases().get(RequestPhase.WRITE_RESPONSE).getCount());
+
+    metrics.reset();
+    snapshot = metrics.getSnapshot();
+    assertEquals(0, snapshot.getPhases().get(RequestPhase.PARSE_URI).getCount());
+    assertEquals(0, snapshot.getTotal().getRequestCount());
+    assertTrue(snapshot.getEntitySets().isEmpty());
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+public class JsonPrimitiveWriterTest {
+
+  private static final JsonFactory FACTORY = new JsonFactory();
+
+  @Test
+  public void sameTextAsValueToString() throws Exception {
+    assertSame(EdmPrimitiveTypeKind.Boolean, true, false);
+    assertSame(EdmPrimitiveTypeKind.Byte, (byte) 0, (short) 255, 17, 200L);
+    assertSame(EdmPrimitiveTypeKind.SByte, (byte) -128, (short) 127, -5, 0L);
+    assertSame(EdmPrimitiveTypeKind.Int16, Short.MIN_VALUE, (byte) 1, 32767, -32768L);
+    assertSame(EdmPrimitiveTypeKind.Int32, Integer.MIN_VALUE, Integer.MAX_VALUE, (short) -1, 42L);
+    assertSame(EdmPrimitiveTypeKind.Int64, Long.MIN_VALUE, Long.MAX_VALUE, 0, (byte) 7);
+    assertSame(EdmPrimitiveTypeKind.Single, 1.5F, -0.0F, 1.0E-10F, (short) 3, (1 << 22) - 1);
+    assertSame(EdmPrimitiveTypeKind.Double, 1.5, -0.0, 1.0E300, 4.9E-324, 42, (byte) -1);
+  }
+
+  @Test
+  public void fallbackForOtherValues() throws Exception {
+    assertFallback(EdmPrimitiveTypeKind.Boolean, "true", null);
+    assertFallback(EdmPrimitiveTypeKind.Byte, -1, 256, (byte) -1);
+    assertFallback(EdmPrimitiveTypeKind.SByte, 128, -129L);
+    assertFallback(EdmPrimitiveTypeKind.Int16, 32768, "1");
+    assertFallback(EdmPrimitiveTypeKind.Int32, Integer.MAX_VALUE + 1L, BigDecimal.ONE);
+    assertFallback(EdmPrimitiveTypeKind.Single, Float.NaN, Float.POSITIVE_INFINITY, 1 << 22, 1.5);
+    assertFallback(EdmPrimitiveTypeKind.Double, Double.NaN, Double.NEGATIVE_INFINITY, 1L, 1.5F);
+    assertFalse(write(JsonPrimitiveWriter.INT64, 1L, true));
+  }
+
+  @Test
+  public void otherTypesHaveNoWriter() throws Exception {
+    assertNull(JsonPrimitiveWriter.forType(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.String)));
+    assertNull(JsonPrimitiveWriter.forType(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Decimal)));
+    assertNull(JsonPrimitiveWriter.forType(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Stream)));
+  }
+
+  private void assertSame(final EdmPrimitiveTypeKind kind, final Object... values) throws Exception {
+    final EdmPrimitiveType type = EdmPrimitiveTypeFactory.getInstance(kind);
+    final JsonPrimitiveWriter writer = JsonPrimitiveWriter.forType(type);
+    for (final Object value : values) {
+      final StringWriter text = new StringWriter();
+      final JsonGenerator json = FACTORY.createGenerator(text);
+      assertTrue(kind + " " + value, writer.write(json, value, false));
+      json.close();
+      assertEquals(type.valueToString(value, null, null, null, null, null), text.toString());
+    }
+  }
+
+  private void assertFallback(final EdmPrimitiveTypeKind kind, final Object... values) throws Exception {
+    final JsonPrimitiveWriter writer = JsonPrimitiveWriter.forType(EdmPrimitiveTypeFactory.getInstance(kind));
+    for (final Object value : values) {
+      assertFalse(kind + " " + value, write(writer, value, false));
+    }
+  }
+
+  private boolean write(final JsonPrimitiveWriter writer, final Object value, final boolean isIEEE754Compatible)
+      throws Exception {
+    return writer.write(FACTORY.createGenerator(new StringWriter()), value, isIEEE754Compatible);
+  }
+}
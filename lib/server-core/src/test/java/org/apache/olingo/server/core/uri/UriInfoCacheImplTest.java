@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class UriInfoCacheImplTest {
+
+  private final Edm edm = Mockito.mock(Edm.class);
+
+  @Test
+  public void hitAndMiss() {
+    final UriInfoCacheImpl cache = new UriInfoCacheImpl(10);
+    final UriInfo uriInfo = new UriInfoImpl().setKind(UriInfoKind.resource);
+    assertNull(cache.get(edm, HttpMethod.GET, "ESAllPrim", "$top=1", null));
+    cache.put(edm, HttpMethod.GET, "ESAllPrim", "$top=1", null, uriInfo);
+
+    assertCopy(uriInfo, cache.get(edm, HttpMethod.GET, "ESAllPrim", "$top=1", null));
+    assertNull(cache.get(edm, HttpMethod.DELETE, "ESAllPrim", "$top=1", null));
+    assertNull(cache.get(edm, HttpMethod.GET, "ESAllPrim", "$top=2", null));
+    assertNull(cache.get(edm, HttpMethod.GET, "ESAllPrim", null, null));
+    assertNull(cache.get(edm, HttpMethod.GET, "ESAllPrim", "$top=1", "http://localhost/"));
+    assertNull(cache.get(Mockito.mock(Edm.class), HttpMethod.GET, "ESAllPrim", "$top=1", null));
+
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(6, cache.getMissCount());
+    assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  public void urisAreComparedDecoded() {
+    final UriInfoCacheImpl cache = new UriInfoCacheImpl(10);
+    final UriInfo uriInfo = new UriInfoImpl().setKind(UriInfoKind.resource);
+    cache.put(edm, HttpMethod.GET, "ESAllPrim", null, null, uriInfo);
+    assertCopy(uriInfo, cache.get(edm, HttpMethod.GET, "ESAllPrim", "", null));
+
+    cache.put(edm, HttpMethod.GET, "ESAllPrim", "$top=1&$skip=2", null, uriInfo);
+    assertCopy(uriInfo, cache.get(edm, HttpMethod.GET, "ESAllPrim", "%24top=1&%24skip=2", null));
+    assertNull(cache.get(edm, HttpMethod.GET, "ESAllPrim", "$skip=2&$top=1", null));
+    assertNull(cache.get(edm, HttpMethod.GET, "esallprim", "$top=1&$skip=2", null));
+  }
+
+  @Test
+  public void notParsedUriInfoIsNotCached() {
+    final UriInfoCacheImpl cache = new UriInfoCacheImpl(10);
+    cache.put(edm, HttpMethod.GET, "ESAllPrim", null, null, Mockito.mock(UriInfo.class));
+    cache.put(edm, HttpMethod.GET, "ESAllPrim", "$filter=%zz", null, new UriInfoImpl());
+    assertEquals(0, cache.size());
+    assertNull(cache.get(edm, HttpMethod.GET, "ESAllPrim", null, null));
+  }
+
+  @Test
+  public void evictLeastRecentlyUsed() {
+    final UriInfoCacheImpl cache = new UriInfoCacheImpl(1);
+    final UriInfo first = new UriInfoImpl().setKind(UriInfoKind.resource);
+    final UriInfo second = new UriInfoImpl().setKind(UriInfoKind.metadata);
+    cache.put(edm, HttpMethod.GET, "ESAllPrim", null, null, first);
+    cache.put(edm, HttpMethod.GET, "ESTwoPrim", null, null, second);
+
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertNull(cache.get(edm, HttpMethod.GET, "ESAllPrim", null, null));
+    assertCopy(second, cache.get(edm, HttpMethod.GET, "ESTwoPrim", null, null));
+  }
+
+  @Test
+  public void boundedSize() {
+    final UriInfoCacheImpl cache = new UriInfoCacheImpl(20);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(edm, HttpMethod.GET, "ESAllPrim(" + i + ")", null, null, new UriInfoImpl());
+    }
+    assertEquals(20, cache.getMaximumSize());
+    assertEquals(20, cache.size());
+    assertEquals(980, cache.getEvictionCount());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test(expected = ODataRuntimeException.class)
+  public void invalidSize() {
+    new UriInfoCacheImpl(0);
+  }
+
+  private void assertCopy(final UriInfo expected, final UriInfo actual) {
+    assertNotNull(actual);
+    assertNotSame(expected, actual);
+    assertEquals(expected.getKind(), actual.getKind());
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.core.uri.parser.UriShape.Region;
+import org.junit.Test;
+
+public class UriShapeTest {
+
+  @Test
+  public void literalsAreReplacedByTheirTypes() {
+    final UriShape shape = shape("ESTwoKeyNav(PropertyInt16=1,PropertyString='a,b')",
+        "$filter=PropertyInt16 gt 5 and startswith(PropertyString,'x y')&$top=10&$skip=20");
+    assertEquals(Arrays.asList("1", "'a,b'"), shape.getLiterals(Region.PATH));
+    assertEquals(Arrays.asList("5", "'x y'"), shape.getLiterals(Region.FILTER));
+    assertEquals(Collections.singletonList("10"), shape.getLiterals(Region.TOP));
+    assertEquals(Collections.singletonList("20"), shape.getLiterals(Region.SKIP));
+    assertEquals("PropertyInt16 gt 5 and startswith(PropertyString,'x y')", shape.getFilterText());
+
+    final UriShape other = shape("ESTwoKeyNav(PropertyInt16=2,PropertyString='it''s')",
+        "$filter=PropertyInt16 gt 7 and startswith(PropertyString,'')&$top=1&$skip=0");
+    assertEquals(shape.getKey(), other.getKey());
+    assertNotEquals(shape.getExactKey(), other.getExactKey());
+    assertEquals(shape.getExactKey(), shape("ESTwoKeyNav(PropertyInt16=1,PropertyString='a%2Cb')",
+        "%24filter=PropertyInt16%20gt%205 and startswith(PropertyString,'x y')&$top=10&$skip=20").getExactKey());
+  }
+
+  @Test
+  public void typesAreDistinguished() {
+    final String key = shape("ESAllPrim(1)", null).getKey();
+    assertEquals(key, shape("ESAllPrim(127)", "").getKey());
+    assertNotEquals(key, shape("ESAllPrim(128)", null).getKey());
+    assertEquals(key, shape("ESAllPrim(-1)", null).getKey());
+    assertNotEquals(key, shape("ESAllPrim(-129)", null).getKey());
+    assertNotEquals(key, shape("ESAllPrim('1')", null).getKey());
+    assertNotEquals(key, shape("ESAllPrim(1.5)", null).getKey());
+    assertNotEquals(key, shape("ESAllPrim(null)", null).getKey());
+    assertNotEquals(shape("ESAllPrim", "$top=1").getKey(), shape("ESAllPrim", "$top=x").getKey());
+  }
+
+  @Test
+  public void otherPartsAreKept() {
+    final String key = shape("ESAllPrim", "$select=PropertyInt16").getKey();
+    assertNotEquals(key, shape("ESAllPrim", "$select=PropertyString").getKey());
+    assertNotEquals(key, shape("ESTwoPrim", "$select=PropertyInt16").getKey());
+    assertNotEquals(key, UriShape.create(HttpMethod.PATCH, "ESAllPrim", "$select=PropertyInt16", null).getKey());
+    assertNotEquals(key, UriShape.create(HttpMethod.GET, "ESAllPrim", "$select=PropertyInt16", "/odata").getKey());
+    assertNotEquals(shape("ESAllPrim", "x=\u0000A").getKey(), shape("ESAllPrim", "x=1").getKey());
+    assertTrue(shape("ESAllPrim", "$orderby=PropertyInt16 desc").getLiterals(Region.FILTER).isEmpty());
+  }
+
+  @Test
+  public void formEncodingKeepsValues() {
+    final UriShape shape = shape("ESAllPrim", "odata-accept-forms-encoding=true&$filter=PropertyInt16+eq+1");
+    assertTrue(shape.getLiterals(Region.FILTER).isEmpty());
+    assertNotEquals(shape.getKey(),
+        shape("ESAllPrim", "odata-accept-forms-encoding=true&$filter=PropertyInt16+eq+2").getKey());
+  }
+
+  @Test
+  public void wrongPercentEncoding() {
+    assertNull(shape("ESAllPrim%zz", null));
+    assertNull(shape("ESAllPrim", "$filter=%zz"));
+  }
+
+  private UriShape shape(final String path, final String query) {
+    return UriShape.create(HttpMethod.GET, path, query, null);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.tecsvc;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.olingo.server.api.batch.BatchExecutionSupport;
+
+/**
+ * Executes query operations of batch requests with the preference
+ * {@value BatchExecutionSupport#PREFERENCE_PARALLEL} in parallel on a thread pool.
+ * The pool is owned by the instance; the servlet creates one instance in its <code>init()</code> method
+ * and shuts it down in its <code>destroy()</code> method.
+ */
+public class ParallelBatchSupport implements BatchExecutionSupport {
+
+  private static final int MAX_PARALLELISM = 8;
+  private final ExecutorService executor = Executors.newFixedThreadPool(MAX_PARALLELISM,
+      new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+          final Thread thread = new Thread(runnable, "tecsvc-batch-" + counter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  @Override
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  @Override
+  public int getMaxParallelism() {
+    return MAX_PARALLELISM;
+  }
+
+  @Override
+  public boolean isParallelByDefault() {
+    return false;
+  }
+
+  /**
+   * Shuts the thread pool down; parts which are already submitted are still handled.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
@@ -35,6 +35,7 @@ import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataHttpHandler;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.debug.DefaultDebugSupport;
+import org.apache.olingo.server.tecsvc.async.TechnicalAsyncService;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
 import org.apache.olingo.server.tecsvc.processor.TechnicalActionProcessor;
 import org.apache.olingo.server.tecsvc.processor.TechnicalBatchProcessor;
@@ -59,40 +60,79 @@ public class TechnicalServlet extends HttpServlet {
    */
   private static final String metadataETag = "W/\"" + UUID.randomUUID() + "\"";
 
+  /** The metadata are built completely once at start-up and shared by all requests. */
+  private ServiceMetadata serviceMetadata;
+  private OData odata;
+  /** Shared by the handlers of all sessions; its thread pool lives as long as this servlet. */
+  private ParallelBatchSupport batchSupport;
+
+  @Override
+  public void init() throws ServletException {
+    super.init();
+    final long start = System.nanoTime();
+    EdmxReference reference = new EdmxReference(URI.create("../v4.0/cs02/vocabularies/Org.OData.Core.V1.xml"));
+    reference.addInclude(new EdmxReferenceInclude("Org.OData.Core.V1", "Core"));
+    odata = OData.newInstance();
+    serviceMetadata = odata.createServiceMetadata(
+        new EdmTechProvider(),
+        Collections.singletonList(reference),
+        new MetadataETagSupport(metadataETag),
+        true);
+    LOG.info("Built EDM in {} ms.", (System.nanoTime() - start) / 1000000);
+    batchSupport = new ParallelBatchSupport();
+  }
+
+  @Override
+  public void destroy() {
+    if (batchSupport != null) {
+      batchSupport.shutdown();
+    }
+    super.destroy();
+  }
+
   @Override
   protected void service(final HttpServletRequest request, HttpServletResponse response)
       throws ServletException, IOException {
     try {
-      OData odata = OData.newInstance();
-      EdmxReference reference = new EdmxReference(URI.create("../v4.0/cs02/vocabularies/Org.OData.Core.V1.xml"));
-      reference.addInclude(new EdmxReferenceInclude("Org.OData.Core.V1", "Core"));
-      final ServiceMetadata serviceMetadata = odata.createServiceMetadata(
-          new EdmTechProvider(),
-          Collections.singletonList(reference),
-          new MetadataETagSupport(metadataETag));
-
-      HttpSession session = request.getSession(true);
-      DataProvider dataProvider = (DataProvider) session.getAttribute(DataProvider.class.getName());
-      if (dataProvider == null) {
-        dataProvider = new DataProvider(odata, serviceMetadata.getEdm());
-        session.setAttribute(DataProvider.class.getName(), dataProvider);
-        LOG.info("Created new data provider.");
-      }
-
-      ODataHttpHandler handler = odata.createHandler(serviceMetadata);
-      // Register processors.
-      handler.register(new TechnicalEntityProcessor(dataProvider, serviceMetadata));
-      handler.register(new TechnicalPrimitiveComplexProcessor(dataProvider, serviceMetadata));
-      handler.register(new TechnicalActionProcessor(dataProvider, serviceMetadata));
-      handler.register(new TechnicalBatchProcessor(dataProvider));
-      // Register helpers.
-      handler.register(new ETagSupport());
-      handler.register(new DefaultDebugSupport());
       // Process the request.
-      handler.process(request, response);
+      getHandler(request.getSession(true)).process(request, response);
     } catch (final RuntimeException e) {
       LOG.error("Server Error", e);
       throw new ServletException(e);
     }
   }
+
+  /**
+   * Gets the handler of the session; the data of the technical service belong to a session.
+   * The handler is built once per session and shared by all its requests.
+   */
+  private ODataHttpHandler getHandler(final HttpSession session) {
+    ODataHttpHandler handler = (ODataHttpHandler) session.getAttribute(ODataHttpHandler.class.getName());
+    if (handler == null) {
+      synchronized (this) {
+        handler = (ODataHttpHandler) session.getAttribute(ODataHttpHandler.class.getName());
+        if (handler == null) {
+          handler = createHandler(new DataProvider(odata, serviceMetadata.getEdm()));
+          session.setAttribute(ODataHttpHandler.class.getName(), handler);
+          LOG.info("Created new data provider.");
+        }
+      }
+    }
+    return handler;
+  }
+
+  private ODataHttpHandler createHandler(final DataProvider dataProvider) {
+    ODataHttpHandler handler = odata.createHandler(serviceMetadata);
+    // Register processors.
+    handler.register(new TechnicalEntityProcessor(dataProvider, serviceMetadata));
+    handler.register(new TechnicalPrimitiveComplexProcessor(dataProvider, serviceMetadata));
+    handler.register(new TechnicalActionProcessor(dataProvider, serviceMetadata));
+    handler.register(new TechnicalBatchProcessor(dataProvider));
+    // Register helpers.
+    handler.register(new ETagSupport());
+    handler.register(batchSupport);
+    handler.register(new DefaultDebugSupport());
+    handler.register(TechnicalAsyncService.getAsyncSupport());
+    return handler;
+  }
 }
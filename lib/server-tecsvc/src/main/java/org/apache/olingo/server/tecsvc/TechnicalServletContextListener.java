@@ -32,6 +32,6 @@ public class TechnicalServletContextListener implements ServletContextListener {
 
   @Override
   public void contextDestroyed(ServletContextEvent servletContextEvent) {
-    TechnicalAsyncService.getInstance().shutdownThreadPool();
+    TechnicalAsyncService.shutdownThreadPool();
   }
 }
@@ -6,9 +6,9 @@
  * to you under the Apache License, Version 2.0 (the
  * "License"); you may not use this file except in compliance
  * with the License. You may obtain a copy of the License at
- *
+ * 
  * http://www.apache.org/licenses/LICENSE-2.0
- *
+ * 
  * Unless required by applicable law or agreed to in writing,
  * software distributed under the License is distributed on an
  * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
@@ -18,285 +18,113 @@
  */
 package org.apache.olingo.server.tecsvc.async;
 
-import org.apache.olingo.commons.api.ex.ODataRuntimeException;
-import org.apache.olingo.commons.api.format.ContentType;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.olingo.commons.api.format.PreferenceName;
 import org.apache.olingo.commons.api.http.HttpHeader;
-import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.server.api.OData;
-import org.apache.olingo.server.api.ODataApplicationException;
-import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
-import org.apache.olingo.server.api.ODataResponse;
-import org.apache.olingo.server.api.processor.Processor;
-import org.apache.olingo.server.api.serializer.SerializerException;
-
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-
-import java.io.Closeable;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.WritableByteChannel;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import org.apache.olingo.server.api.async.AsyncRequestSelector;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.api.prefer.Preferences.Preference;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceKind;
+import org.apache.olingo.server.api.uri.UriResourcePartTyped;
 
 /**
- * The TechnicalAsyncService provides asynchronous support for any Processor.
- * To use it following steps are necessary:
- * <ul>
- *   <li>Get the instance</li>
- *   <li>Create an instance of the Processor which should be wrapped for asynchronous support
- *   (do not forget to call the <code>init(...)</code> method on the processor)</li>
- *   <li>register the Processor instance via the <code>register(...)</code> method</li>
- *   <li>prepare the corresponding method with the request parameters via the
- *   <code>prepareFor()</code> method at the AsyncProcessor</li>
- *   <li>start the async processing via the <code>processAsync()</code> methods</li>
- * </ul>
- * A short code snippet is shown below:
- * <pre>
- * <code>
- * TechnicalAsyncService asyncService = TechnicalAsyncService.getInstance();
- * TechnicalEntityProcessor processor = new TechnicalEntityProcessor(dataProvider, serviceMetadata);
- * processor.init(odata, serviceMetadata);
- * AsyncProcessor<EntityProcessor> asyncProcessor = asyncService.register(processor, EntityProcessor.class);
- * asyncProcessor.prepareFor().readEntity(request, response, uriInfo, requestedFormat);
- * String location = asyncProcessor.processAsync();
- * </code>
- * </pre>
+ * <p>Asynchronous processing in the technical service.</p>
+ * <p>Requests with the preference <code>respond-async</code> are processed as jobs by the
+ * {@link AsyncSupport} shared by all handlers; up to {@value #MAX_JOBS} jobs are kept
+ * and run on a bounded thread pool.
+ * Only batch requests and requests creating or reading entities and entity collections are processed
+ * asynchronously; all other requests, deletions in particular, are processed synchronously.
+ * To be able to test the status monitor while a job is still running, the processors delay
+ * such a request for the number of seconds given with the preference parameter {@value #TEC_ASYNC_SLEEP},
+ * e.g., <code>Prefer: respond-async; tec.sleep=2</code>.</p>
  */
-public class TechnicalAsyncService {
+public final class TechnicalAsyncService {
 
   public static final String TEC_ASYNC_SLEEP = "tec.sleep";
-  public static final String STATUS_MONITOR_TOKEN = "status";
-
-  private static final Map<String, AsyncRunner> LOCATION_2_ASYNC_RUNNER =
-      Collections.synchronizedMap(new HashMap<String, AsyncRunner>());
-  private static final ExecutorService ASYNC_REQUEST_EXECUTOR = Executors.newFixedThreadPool(10);
-  private static final AtomicInteger ID_GENERATOR = new AtomicInteger();
-
-  public <T extends Processor> AsyncProcessor<T> register(T processor, Class<T> processorInterface) {
-    return new AsyncProcessor<T>(processor, processorInterface, this);
-  }
-
-  public static void updateHeader(ODataResponse response, HttpStatusCode status, String location) {
-    response.setStatusCode(status.getStatusCode());
-    response.setHeader(HttpHeader.LOCATION, location);
-    response.setHeader(HttpHeader.PREFERENCE_APPLIED, PreferenceName.RESPOND_ASYNC.toString());
 
-  }
-
-  public static void acceptedResponse(ODataResponse response, String location) {
-    updateHeader(response, HttpStatusCode.ACCEPTED, location);
-  }
-
-  private static final class AsyncProcessorHolder {
-    private static final TechnicalAsyncService INSTANCE = new TechnicalAsyncService();
-  }
-
-  public static TechnicalAsyncService getInstance() {
-    return AsyncProcessorHolder.INSTANCE;
-  }
-
-  public void shutdownThreadPool() {
-    ASYNC_REQUEST_EXECUTOR.shutdown();
-  }
-
-  public boolean isStatusMonitorResource(HttpServletRequest request) {
-    return request.getRequestURL() != null && request.getRequestURL().toString().contains(STATUS_MONITOR_TOKEN);
-  }
-
-  String processAsynchronous(AsyncProcessor<?> dispatchedProcessor)
-      throws ODataApplicationException, ODataLibraryException {
-    // use executor thread pool
-    String location = createNewAsyncLocation(dispatchedProcessor.getRequest());
-    dispatchedProcessor.setLocation(location);
-    AsyncRunner run = new AsyncRunner(dispatchedProcessor);
-    LOCATION_2_ASYNC_RUNNER.put(location, run);
-    ASYNC_REQUEST_EXECUTOR.execute(run);
-    //
-    return location;
-  }
-
-  public void handle(HttpServletRequest request, HttpServletResponse response) throws SerializerException, IOException {
-    String location = getAsyncLocation(request);
-    AsyncRunner runner = LOCATION_2_ASYNC_RUNNER.get(location);
-
-    if (runner == null) {
-      response.setStatus(HttpStatusCode.NOT_FOUND.getStatusCode());
-    } else {
-      if (runner.isFinished()) {
-        ODataResponse wrapResult = runner.getDispatched().getProcessResponse();
-        wrapToAsyncHttpResponse(wrapResult, response);
-        LOCATION_2_ASYNC_RUNNER.remove(location);
-      } else {
-        response.setStatus(HttpStatusCode.ACCEPTED.getStatusCode());
-        response.setHeader(HttpHeader.LOCATION, location);
+  private static final int MAX_JOBS = 100;
+  private static final int THREADS = 10;
+  private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(5);
+  private static final int SPOOL_THRESHOLD = 1024 * 1024;
+
+  private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(THREADS, THREADS,
+      0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(MAX_JOBS),
+      new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+          final Thread thread = new Thread(runnable, "tecsvc-async-" + counter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+  private static final AsyncRequestSelector SELECTOR = new AsyncRequestSelector() {
+    @Override
+    public boolean isAsynchronous(final ODataRequest request, final UriInfo uriInfo) {
+      if (uriInfo.getKind() == UriInfoKind.batch) {
+        return true;
+      } else if (uriInfo.getKind() != UriInfoKind.resource) {
+        return false;
       }
-    }
-  }
-
-  public void listQueue(HttpServletResponse response) {
-    StringBuilder sb = new StringBuilder();
-    sb.append("<html><header/><body><h1>Queued requests</h1><ul>");
-    for (Map.Entry<String, AsyncRunner> entry : LOCATION_2_ASYNC_RUNNER.entrySet()) {
-      AsyncProcessor<?> asyncProcessor = entry.getValue().getDispatched();
-      sb.append("<li><b>ID: </b>").append(entry.getKey()).append("<br/>")
-          .append("<b>Location: </b><a href=\"")
-          .append(asyncProcessor.getLocation()).append("\">")
-          .append(asyncProcessor.getLocation()).append("</a><br/>")
-          .append("<b>Processor: </b>").append(asyncProcessor.getProcessorClass().getSimpleName()).append("<br/>")
-          .append("<b>Finished: </b>").append(entry.getValue().isFinished()).append("<br/>")
-          .append("</li>");
-    }
-    sb.append("</ul></body></html>");
-
-    writeToResponse(response, sb.toString());
-  }
-
-
-  private static void writeToResponse(HttpServletResponse response, InputStream input) throws IOException {
-    copy(input, response.getOutputStream());
-  }
-
-  private void writeToResponse(HttpServletResponse response, String content) {
-    writeToResponse(response, content.getBytes());
-  }
-
-  private static void writeToResponse(HttpServletResponse response, byte[] content) {
-    OutputStream output = null;
-    try {
-      output = response.getOutputStream();
-      output.write(content);
-    } catch (IOException e) {
-      throw new ODataRuntimeException(e);
-    } finally {
-      closeStream(output);
-    }
-  }
-
-  static void wrapToAsyncHttpResponse(final ODataResponse odResponse, final HttpServletResponse response)
-      throws SerializerException, IOException {
-    OData odata = OData.newInstance();
-    InputStream odResponseStream = odata.createFixedFormatSerializer().asyncResponse(odResponse);
-
-    response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_HTTP.toContentTypeString());
-    response.setHeader(HttpHeader.CONTENT_ENCODING, "binary");
-    response.setStatus(HttpStatusCode.OK.getStatusCode());
-
-    writeToResponse(response, odResponseStream);
-  }
-
-  static void copy(final InputStream input, final OutputStream output) {
-    if (output == null || input == null) {
-      return;
-    }
-
-    try {
-      ByteBuffer inBuffer = ByteBuffer.allocate(8192);
-      ReadableByteChannel ic = Channels.newChannel(input);
-      WritableByteChannel oc = Channels.newChannel(output);
-      while (ic.read(inBuffer) > 0) {
-        inBuffer.flip();
-        oc.write(inBuffer);
-        inBuffer.rewind();
+      final List<UriResource> parts = uriInfo.getUriResourceParts();
+      final UriResource lastPart = parts.get(parts.size() - 1);
+      if (lastPart.getKind() != UriResourceKind.entitySet
+          && lastPart.getKind() != UriResourceKind.navigationProperty
+          && lastPart.getKind() != UriResourceKind.singleton) {
+        return false;
       }
-    } catch (IOException e) {
-      throw new ODataRuntimeException("Error on reading request content");
-    } finally {
-      closeStream(input);
-      closeStream(output);
+      return request.getMethod() == HttpMethod.GET
+          || request.getMethod() == HttpMethod.POST && ((UriResourcePartTyped) lastPart).isCollection();
     }
-  }
+  };
+  private static final AsyncSupport ASYNC_SUPPORT =
+      OData.newInstance().createAsyncSupport(EXECUTOR, MAX_JOBS, TIME_TO_LIVE, SPOOL_THRESHOLD, null, SELECTOR);
 
-  private static void closeStream(final Closeable closeable) {
-    if (closeable != null) {
-      try {
-        closeable.close();
-      } catch (IOException e) {
-        throw new RuntimeException(e);
-      }
-    }
-  }
+  private TechnicalAsyncService() {}
 
-  private String createNewAsyncLocation(ODataRequest request) {
-    int pos = request.getRawBaseUri().lastIndexOf("/") + 1;
-    return request.getRawBaseUri().substring(0, pos) + STATUS_MONITOR_TOKEN + "/" + ID_GENERATOR.incrementAndGet();
+  public static AsyncSupport getAsyncSupport() {
+    return ASYNC_SUPPORT;
   }
 
-  private String getAsyncLocation(HttpServletRequest request) {
-    return request.getRequestURL().toString();
+  public static void shutdownThreadPool() {
+    ASYNC_SUPPORT.shutdown();
+    EXECUTOR.shutdown();
   }
 
   /**
-   * Runnable for the AsyncProcessor.
+   * Waits as long as requested with the parameter {@value #TEC_ASYNC_SLEEP}
+   * of the preference <code>respond-async</code>.
+   * @param odata OData instance
+   * @param request the request
    */
-  static class AsyncRunner implements Runnable {
-    private static final Pattern PATTERN = Pattern.compile("(" + TEC_ASYNC_SLEEP + "=)(\\d*)");
-    private final AsyncProcessor<? extends Processor> dispatched;
-    private int defaultSleepTimeInSeconds = 0;
-    private Exception exception;
-    boolean finished = false;
-
-    public AsyncRunner(AsyncProcessor<? extends Processor> wrap) {
-      this(wrap, 0);
-    }
-
-    public AsyncRunner(AsyncProcessor<? extends Processor> wrap, int defaultSleepTimeInSeconds) {
-      this.dispatched = wrap;
-      if (defaultSleepTimeInSeconds > 0) {
-        this.defaultSleepTimeInSeconds = defaultSleepTimeInSeconds;
-      }
+  public static void simulateProcessingTime(final OData odata, final ODataRequest request) {
+    final Preference preference = odata.createPreferences(request.getHeaders(HttpHeader.PREFER))
+        .getPreference(PreferenceName.RESPOND_ASYNC.getName());
+    if (preference == null || preference.getParameters() == null) {
+      return;
     }
-
-    @Override
-    public void run() {
+    final String seconds = preference.getParameters().get(TEC_ASYNC_SLEEP);
+    if (seconds != null) {
       try {
-        int sleep = getSleepTime(dispatched);
-        TimeUnit.SECONDS.sleep(sleep);
-        dispatched.process();
+        TimeUnit.SECONDS.sleep(Integer.parseInt(seconds));
+      } catch (final NumberFormatException e) {
+        // Ignore the invalid parameter value.
       } catch (final InterruptedException e) {
-        exception = e;
-      } catch (final InvocationTargetException e) {
-        exception = e;
-      } catch (final IllegalAccessException e) {
-        exception = e;
+        Thread.currentThread().interrupt();
       }
-      finished = true;
-    }
-
-    private int getSleepTime(AsyncProcessor<? extends Processor> wrap) {
-      String preferHeader = wrap.getPreferHeader();
-      Matcher matcher = PATTERN.matcher(preferHeader);
-      if (matcher.find()) {
-        String waitTimeAsString = matcher.group(2);
-        return Integer.parseInt(waitTimeAsString);
-      }
-      return defaultSleepTimeInSeconds;
-    }
-
-    public Exception getException() {
-      return exception;
-    }
-
-    public boolean isFinished() {
-      return finished;
-    }
-
-    public AsyncProcessor<? extends Processor> getDispatched() {
-      return dispatched;
     }
   }
 }
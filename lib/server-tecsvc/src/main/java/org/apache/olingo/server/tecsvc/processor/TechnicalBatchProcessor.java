@@ -18,7 +18,6 @@
  */
 package org.apache.olingo.server.tecsvc.processor;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -27,16 +26,21 @@ import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.batch.BatchExecutionSupport;
 import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.batch.IncrementalBatchFacade;
+import org.apache.olingo.server.api.deserializer.IncrementalFixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartIterator;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+import org.apache.olingo.server.api.prefer.Preferences;
 import org.apache.olingo.server.api.prefer.PreferencesApplied;
 import org.apache.olingo.server.api.processor.BatchProcessor;
-import org.apache.olingo.server.tecsvc.async.AsyncProcessor;
 import org.apache.olingo.server.tecsvc.async.TechnicalAsyncService;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
 
@@ -49,51 +53,54 @@ public class TechnicalBatchProcessor extends TechnicalProcessor implements Batch
   @Override
   public void processBatch(final BatchFacade facade, final ODataRequest request, final ODataResponse response)
       throws ODataApplicationException, ODataLibraryException {
-    // only the first batch call (process batch) must be handled in a separate way for async support
-    // because a changeset has to be wrapped within a process batch call
-    if(odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).hasRespondAsync()) {
-      TechnicalAsyncService asyncService = TechnicalAsyncService.getInstance();
-      BatchProcessor processor = new TechnicalBatchProcessor(dataProvider);
-      processor.init(odata, serviceMetadata);
-      AsyncProcessor<BatchProcessor> asyncProcessor = asyncService.register(processor, BatchProcessor.class);
-      asyncProcessor.prepareFor().processBatch(facade, request, response);
-      String location = asyncProcessor.processAsync();
-      TechnicalAsyncService.acceptedResponse(response, location);
-      //
-      return;
-    }
-
+    // The batch request as a whole is processed asynchronously if requested, not its parts.
+    TechnicalAsyncService.simulateProcessingTime(odata, request);
 
-    final boolean continueOnError =
-        odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).hasContinueOnError();
+    final Preferences preferences = odata.createPreferences(request.getHeaders(HttpHeader.PREFER));
+    final boolean continueOnError = preferences.hasContinueOnError();
 
     final String boundary = facade.extractBoundaryFromContentType(request.getHeader(HttpHeader.CONTENT_TYPE));
     final BatchOptions options = BatchOptions.with()
         .rawBaseUri(request.getRawBaseUri())
         .rawServiceResolutionUri(request.getRawServiceResolutionUri()).build();
-    final List<BatchRequestPart> parts = odata.createFixedFormatDeserializer().parseBatchRequest(request.getBody(),
-        boundary, options);
-    final List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>();
-
-    for (BatchRequestPart part : parts) {
-      final ODataResponsePart responsePart = facade.handleBatchRequest(part);
-      responseParts.add(responsePart); // Also add failed responses.
-      final int statusCode = responsePart.getResponses().get(0).getStatusCode();
-
-      if ((statusCode >= 400 && statusCode <= 600) && !continueOnError) {
-
-        // Perform some additional actions.
-        // ...
+    final String responseBoundary = "batch_" + UUID.randomUUID().toString();
 
-        break; // Stop processing, but serialize responses to all recent requests.
+    // Handling the parts while the response is written means that failures in writing truncate the response,
+    // so it is used only if the client accepts that; parallel execution of query operations requires it.
+    if (preferences.getPreference(IncrementalBatchFacade.PREFERENCE_INCREMENTAL) != null
+        || preferences.getPreference(BatchExecutionSupport.PREFERENCE_PARALLEL) != null) {
+      // The deserializer and the facade provided by the library support reading and handling part by part.
+      final BatchRequestPartIterator parts =
+          ((IncrementalFixedFormatDeserializer) odata.createFixedFormatDeserializer())
+              .parseBatchRequestIncrementally(request.getBody(), boundary, options);
+
+      // The parts are read, handled, and serialized one after another while the response is written.
+      // Processing stops after the first failed part unless continue-on-error has been requested.
+      final ODataContent responseContent = ((IncrementalBatchFacade) facade).handleBatchRequestIncrementally(parts,
+          responseBoundary, continueOnError);
+      response.setODataContent(responseContent);
+    } else {
+      final List<BatchRequestPart> parts = odata.createFixedFormatDeserializer().parseBatchRequest(request.getBody(),
+          boundary, options);
+      final List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>();
+
+      for (BatchRequestPart part : parts) {
+        final ODataResponsePart responsePart = facade.handleBatchRequest(part);
+        responseParts.add(responsePart); // Also add failed responses.
+        final int statusCode = responsePart.getResponses().get(0).getStatusCode();
+
+        if ((statusCode >= 400 && statusCode <= 600) && !continueOnError) {
+
+          // Perform some additional actions.
+          // ...
+
+          break; // Stop processing, but serialize responses to all recent requests.
+        }
       }
-    }
 
-    final String responseBoundary = "batch_" + UUID.randomUUID().toString();
-    final InputStream responseContent =
-        odata.createFixedFormatSerializer().batchResponse(responseParts, responseBoundary);
+      response.setContent(odata.createFixedFormatSerializer().batchResponse(responseParts, responseBoundary));
+    }
     response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.MULTIPART_MIXED + ";boundary=" + responseBoundary);
-    response.setContent(responseContent);
     response.setStatusCode(HttpStatusCode.OK.getStatusCode());
     if (continueOnError) {
       response.setHeader(HttpHeader.PREFERENCE_APPLIED,
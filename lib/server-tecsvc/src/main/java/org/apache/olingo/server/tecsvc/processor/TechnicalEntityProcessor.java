@@ -77,7 +77,6 @@ import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.IdOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOption;
-import org.apache.olingo.server.tecsvc.async.AsyncProcessor;
 import org.apache.olingo.server.tecsvc.async.TechnicalAsyncService;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
 import org.apache.olingo.server.tecsvc.data.RequestValidator;
@@ -184,16 +183,7 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
     }
     checkRequestFormat(requestFormat);
 
-    if (odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).hasRespondAsync()) {
-      TechnicalAsyncService asyncService = TechnicalAsyncService.getInstance();
-      TechnicalEntityProcessor processor = new TechnicalEntityProcessor(dataProvider, serviceMetadata);
-      processor.init(odata, serviceMetadata);
-      AsyncProcessor<EntityProcessor> asyncProcessor = asyncService.register(processor, EntityProcessor.class);
-      asyncProcessor.prepareFor().createEntity(request, response, uriInfo, requestFormat, responseFormat);
-      String location = asyncProcessor.processAsync();
-      TechnicalAsyncService.acceptedResponse(response, location);
-      return;
-    }
+    TechnicalAsyncService.simulateProcessingTime(odata, request);
 
     final UriResourceEntitySet resourceEntitySet = (UriResourceEntitySet) uriInfo.getUriResourceParts().get(0);
     final EdmEntitySet edmEntitySet = resourceEntitySet.getEntitySet();
@@ -444,19 +434,7 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
   private void readEntity(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
       final ContentType requestedFormat, final boolean isReference)
       throws ODataApplicationException, ODataLibraryException {
-    //
-    if (odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).hasRespondAsync()) {
-      TechnicalAsyncService asyncService = TechnicalAsyncService.getInstance();
-      TechnicalEntityProcessor processor = new TechnicalEntityProcessor(dataProvider, serviceMetadata);
-      processor.init(odata, serviceMetadata);
-      AsyncProcessor<EntityProcessor> asyncProcessor = asyncService.register(processor, EntityProcessor.class);
-      asyncProcessor.prepareFor().readEntity(request, response, uriInfo, requestedFormat);
-      String location = asyncProcessor.processAsync();
-      TechnicalAsyncService.acceptedResponse(response, location);
-      //
-      return;
-    }
-    //
+    TechnicalAsyncService.simulateProcessingTime(odata, request);
 
     final EdmEntitySet edmEntitySet = getEdmEntitySet(uriInfo);
     
@@ -566,20 +544,7 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
   private void readEntityCollection(final ODataRequest request, final ODataResponse response,
       final UriInfo uriInfo, final ContentType requestedContentType, final boolean isReference)
       throws ODataApplicationException, ODataLibraryException {
-    //
-    if (odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).hasRespondAsync()) {
-      TechnicalAsyncService asyncService = TechnicalAsyncService.getInstance();
-      TechnicalEntityProcessor processor = new TechnicalEntityProcessor(dataProvider, serviceMetadata);
-      processor.init(odata, serviceMetadata);
-      AsyncProcessor<EntityCollectionProcessor> asyncProcessor =
-          asyncService.register(processor, EntityCollectionProcessor.class);
-      asyncProcessor.prepareFor().readEntityCollection(request, response, uriInfo, requestedContentType);
-      String location = asyncProcessor.processAsync();
-      TechnicalAsyncService.acceptedResponse(response, location);
-      //
-      return;
-    }
-    //
+    TechnicalAsyncService.simulateProcessingTime(odata, request);
 
     final EdmEntitySet edmEntitySet = getEdmEntitySet(uriInfo.asUriInfoResource());
     final boolean isContNav = checkIfContNavigation(uriInfo);
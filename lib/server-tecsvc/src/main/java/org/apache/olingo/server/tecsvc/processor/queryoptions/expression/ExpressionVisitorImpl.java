@@ -53,14 +53,14 @@ import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
 import org.apache.olingo.server.api.uri.queryoption.expression.Member;
 import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
 import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+import org.apache.olingo.server.core.evaluation.operand.TypedOperand;
+import org.apache.olingo.server.core.evaluation.operand.UntypedOperand;
+import org.apache.olingo.server.core.evaluation.operand.VisitorOperand;
+import org.apache.olingo.server.core.evaluation.operation.BinaryOperator;
+import org.apache.olingo.server.core.evaluation.operation.MethodCallOperator;
+import org.apache.olingo.server.core.evaluation.operation.UnaryOperator;
 import org.apache.olingo.server.core.uri.UriResourceLambdaVarImpl;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.TypedOperand;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.UntypedOperand;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.VisitorOperand;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operation.BinaryOperator;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operation.MethodCallOperator;
-import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operation.UnaryOperator;
 
 public class ExpressionVisitorImpl implements ExpressionVisitor<VisitorOperand> {
 
@@ -237,12 +237,9 @@ public class ExpressionVisitorImpl implements ExpressionVisitor<VisitorOperand>
             }
           } else {
             currentEdmProperty = ((UriResourceProperty) uriResourceParts.get(i)).getProperty();
-            final List<Property> complex = currentProperty.asComplex().getValue();
-            for (final Property innerProperty : complex) {
-              if (innerProperty.getName().equals(currentEdmProperty.getName())) {
-                currentProperty = innerProperty;
-                break;
-              }
+            final Property innerProperty = currentProperty.asComplex().getProperty(currentEdmProperty.getName());
+            if (innerProperty != null) {
+              currentProperty = innerProperty;
             }
           }
         }
@@ -267,15 +264,9 @@ public class ExpressionVisitorImpl implements ExpressionVisitor<VisitorOperand>
     } else if (initialPart instanceof UriResourceLambdaVariable) {
       EdmComplexType complexType = (EdmComplexType) ((UriResourceLambdaVarImpl)initialPart).getTypeFilter();
       EdmProperty currentEdmProperty = ((UriResourceProperty) uriResourceParts.get(1)).getProperty();
-      Property currentProperty = null;
-      List<Property> properties = complexValue.getValue();
-      for (final Property innerProperty : properties) {
-        if (innerProperty.getName().equals(currentEdmProperty.getName()) && 
-            complexType.getProperty(innerProperty.getName()) != null) {
-          currentProperty = innerProperty;
-          break;
-        }
-      }
+      final Property currentProperty = complexType.getProperty(currentEdmProperty.getName()) == null ?
+          null :
+          complexValue.getProperty(currentEdmProperty.getName());
       return new TypedOperand(currentProperty == null ? null : currentProperty.getValue(), 
           currentEdmProperty.getType(), currentEdmProperty);
     } else {
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.tecsvc.processor.queryoptions.options;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmFunction;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.evaluation.FunctionEvaluator;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResourceFunction;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+
+/**
+ * Evaluates function calls in system query options with the data of the technical service.
+ */
+public class DataProviderFunctionEvaluator implements FunctionEvaluator {
+
+  private final DataProvider dataProvider;
+
+  public DataProviderFunctionEvaluator(final Edm edm) {
+    dataProvider = new DataProvider(OData.newInstance(), edm);
+  }
+
+  @Override
+  public Object evaluate(final UriResourceFunction uriResourceFunction, final UriInfoResource uriInfo)
+      throws ODataApplicationException {
+    final EdmFunction function = uriResourceFunction.getFunction();
+    final List<UriParameter> parameters = uriResourceFunction.getParameters();
+    return function.getReturnType().getType().getKind() == EdmTypeKind.ENTITY ?
+        function.getReturnType().isCollection() ?
+            dataProvider.readFunctionEntityCollection(function, parameters, uriInfo) :
+            dataProvider.readFunctionEntity(function, parameters, uriInfo) :
+        dataProvider.readFunctionPrimitiveComplex(function, parameters, uriInfo);
+  }
+}
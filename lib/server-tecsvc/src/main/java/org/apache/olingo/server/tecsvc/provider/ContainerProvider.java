@@ -106,6 +106,7 @@ public class ContainerProvider {
     entitySets.add(prov.getEntitySet(ContainerProvider.nameContainer, "ESTwoKeyNavCont"));
     entitySets.add(prov.getEntitySet(ContainerProvider.nameContainer, "ESWithStream"));
     entitySets.add(prov.getEntitySet(ContainerProvider.nameContainer, ES_STREAM));
+    entitySets.add(prov.getEntitySet(ContainerProvider.nameContainer, "ESStreamOnComplexProp"));
     entitySets.add(prov.getEntitySet(ContainerProvider.nameContainer, "ESPeople"));
     entitySets.add(prov.getEntitySet(ContainerProvider.nameContainer, "ESTwoPrimDerived"));
     entitySets.add(prov.getEntitySet(ContainerProvider.nameContainer, "ESAllPrimDerived"));
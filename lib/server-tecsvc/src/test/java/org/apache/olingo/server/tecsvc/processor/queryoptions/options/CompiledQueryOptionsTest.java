@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.tecsvc.processor.queryoptions.options;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.evaluation.EntityFilter;
+import org.apache.olingo.server.api.evaluation.EntitySorter;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.core.evaluation.operand.TypedOperand;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.ExpressionVisitorImpl;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+/**
+ * Compares the results of the compiled filter and orderby expressions
+ * with the results of the expression visitor evaluating the expressions for every entity.
+ */
+public class CompiledQueryOptionsTest {
+
+  private final OData odata = OData.newInstance();
+  private final Edm edm =
+      odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+  private final DataProvider data = new DataProvider(odata, edm);
+
+  @Test
+  public void filter() throws Exception {
+    final String[] filters = {
+        "PropertyInt16 eq 1",
+        "PropertyInt16 ge 1 and PropertyInt16 lt 32767",
+        "PropertyString eq 'Second Resource - negative values' or PropertyInt16 eq 0",
+        "not (PropertyInt16 eq 1)",
+        "PropertyInt16 add 1 eq (1 sub 3) div 2 mul 3 add 7",
+        "PropertyInt16 gt -2 add --3",
+        "PropertyInt16 add null eq null",
+        "PropertyDouble ge -179000",
+        "PropertyDouble eq 0 sub (358000 div 2)",
+        "PropertyBoolean eq false",
+        "PropertyDate eq 2012-12-03",
+        "PropertyDateTimeOffset eq 2012-12-03T07:16:19Z add duration'PT4S'",
+        "PropertyDuration eq duration'PT2S' add duration'PT4S'",
+        "PropertyTimeOfDay eq 03:26:05",
+        "year(PropertyDate) eq 2015",
+        "hour(PropertyTimeOfDay) eq 3",
+        "PropertyInt16 eq round(2.5)",
+        "startswith(PropertyString,'First')",
+        "contains(PropertyString,concat(toupper('f'),'irst'))",
+        "trim(substring(PropertyString,0,6)) eq 'First'",
+        "length(PropertyString) gt 20",
+        "substringof('Second',PropertyString)",
+        "null eq null",
+        "'Tes' lt 'Test'",
+        "PropertyInt32 eq @p&@p=2147483647",
+        "PropertyInt16 eq @p&@p=PropertyInt16" };
+    for (final String filter : filters) {
+      assertFilter("ESAllPrim", filter);
+    }
+
+    assertFilter("ESCompAllPrim", "PropertyComp/PropertyString eq 'First Resource - first'");
+    assertFilter("ESCompAllPrim", "fractionalseconds(PropertyComp/PropertyDateTimeOffset) eq 0.1234567");
+    assertFilter("ESKeyNav", "PropertyCompCompNav/PropertyCompNav/PropertyInt16 eq 1");
+    assertFilter("ESKeyNav", "PropertyCompCompNav/PropertyCompNav/PropertyInt16 eq null");
+    assertFilter("ESMixPrimCollComp", "PropertyComp/PropertyInt16 eq 111");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void lambdaAny() throws Exception {
+    List<String> expected = new ArrayList<String>();
+    for (final Entity entity : readAll("ESMixPrimCollComp").getEntities()) {
+      for (final ComplexValue value : (List<ComplexValue>) entity.getProperty("CollPropertyComp").getValue()) {
+        if (Short.valueOf((short) 123).equals(value.getProperty("PropertyInt16").getValue())) {
+          expected.add(keys(Collections.singletonList(entity)).get(0));
+          break;
+        }
+      }
+    }
+    assertFalse(expected.isEmpty());
+
+    final UriInfo uriInfo = parse("ESMixPrimCollComp", "$filter=CollPropertyComp/any(c:c/PropertyInt16 eq 123)");
+    EntityCollection actual = readAll("ESMixPrimCollComp");
+    FilterHandler.applyFilterSystemQuery(uriInfo.getFilterOption(), actual, uriInfo, edm);
+    assertEquals(expected, keys(actual.getEntities()));
+  }
+
+  @Test
+  public void orderBy() throws Exception {
+    assertOrderBy("ESAllPrim", "PropertyInt16");
+    assertOrderBy("ESAllPrim", "PropertyString desc");
+    assertOrderBy("ESAllPrim", "PropertyBoolean,PropertyInt16 desc");
+    assertOrderBy("ESAllPrim", "length(PropertyString) desc");
+    assertOrderBy("ESTwoKeyNav", "PropertyString,PropertyInt16 desc");
+    assertOrderBy("ESTwoKeyNav", "PropertyComp/PropertyInt16 desc,PropertyInt16");
+    assertOrderBy("ESMixPrimCollComp", "PropertyComp/PropertyString desc");
+  }
+
+  @Test
+  public void compiledFilterIsReusable() throws Exception {
+    final UriInfo uriInfo = parse("ESAllPrim", "$filter=PropertyInt16 gt 0");
+    final EntityFilter filter = odata.createEntityFilter(uriInfo.getFilterOption().getExpression(), uriInfo,
+        new DataProviderFunctionEvaluator(edm));
+    for (int i = 0; i < 3; i++) {
+      EntityCollection entities = readAll("ESAllPrim");
+      filter.apply(entities);
+      assertEquals(1, entities.getEntities().size());
+      assertEquals(Short.MAX_VALUE, entities.getEntities().get(0).getProperty("PropertyInt16").getValue());
+    }
+  }
+
+  @Test
+  public void missingPropertyEvaluatesToNull() throws Exception {
+    EntityCollection entities = readAll("ESAllPrim");
+    final Entity entity = entities.getEntities().get(1);
+    entity.getProperties().remove(entity.getProperty("PropertyString"));
+
+    UriInfo uriInfo = parse("ESAllPrim", "$filter=PropertyString eq null");
+    final EntityFilter filter = odata.createEntityFilter(uriInfo.getFilterOption().getExpression(), uriInfo, null);
+    assertTrue(filter.matches(entity));
+    assertFalse(filter.matches(entities.getEntities().get(0)));
+
+    uriInfo = parse("ESAllPrim", "$orderby=PropertyString");
+    final EntitySorter sorter = odata.createEntitySorter(uriInfo.getOrderByOption(), uriInfo, null);
+    sorter.sort(entities);
+    assertSame(entity, entities.getEntities().get(0));
+  }
+
+  private void assertFilter(final String entitySetName, final String filter) throws Exception {
+    final UriInfo uriInfo = parse(entitySetName, "$filter=" + filter);
+    final Expression expression = uriInfo.getFilterOption().getExpression();
+
+    List<Entity> expected = null;
+    Integer expectedStatusCode = null;
+    try {
+      expected = new ArrayList<Entity>();
+      for (final Entity entity : readAll(entitySetName).getEntities()) {
+        final TypedOperand operand = expression.accept(new ExpressionVisitorImpl(entity, uriInfo, edm))
+            .asTypedOperand();
+        if (!operand.is(FilterHandler.primBoolean)) {
+          throw new ODataApplicationException("not boolean", 400, null);
+        }
+        if (!Boolean.FALSE.equals(operand.getValue())) {
+          expected.add(entity);
+        }
+      }
+    } catch (final ODataApplicationException e) {
+      expectedStatusCode = e.getStatusCode();
+    }
+
+    EntityCollection actual = readAll(entitySetName);
+    try {
+      FilterHandler.applyFilterSystemQuery(uriInfo.getFilterOption(), actual, uriInfo, edm);
+      if (expectedStatusCode != null) {
+        fail("Expected status code " + expectedStatusCode + " for " + filter);
+      }
+      assertEquals(filter, keys(expected), keys(actual.getEntities()));
+    } catch (final ODataApplicationException e) {
+      assertNotNull("Unexpected exception for " + filter, expectedStatusCode);
+      assertEquals(filter, expectedStatusCode.intValue(), e.getStatusCode());
+    }
+  }
+
+  private void assertOrderBy(final String entitySetName, final String orderBy) throws Exception {
+    final UriInfo uriInfo = parse(entitySetName, "$orderby=" + orderBy);
+    final List<OrderByItem> orders = uriInfo.getOrderByOption().getOrders();
+
+    List<Entity> expected = readAll(entitySetName).getEntities();
+    Collections.sort(expected, new Comparator<Entity>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public int compare(final Entity e1, final Entity e2) {
+        int result = 0;
+        for (int i = 0; i < orders.size() && result == 0; i++) {
+          try {
+            final Expression expression = orders.get(i).getExpression();
+            final TypedOperand op1 = expression.accept(new ExpressionVisitorImpl(e1, uriInfo, edm)).asTypedOperand();
+            final TypedOperand op2 = expression.accept(new ExpressionVisitorImpl(e2, uriInfo, edm)).asTypedOperand();
+            if (op1.isNull() || op2.isNull()) {
+              result = op1.isNull() && op2.isNull() ? 0 : op1.isNull() ? -1 : 1;
+            } else if (op1.getValue().getClass() == op2.getValue().getClass()) {
+              result = ((Comparable<Object>) op1.getValue()).compareTo(op2.getValue());
+            }
+            result = orders.get(i).isDescending() ? -result : result;
+          } catch (final Exception e) {
+            throw new IllegalStateException(e);
+          }
+        }
+        return result;
+      }
+    });
+
+    EntityCollection actual = readAll(entitySetName);
+    OrderByHandler.applyOrderByOption(uriInfo.getOrderByOption(), actual, uriInfo, edm);
+    assertFalse(actual.getEntities().isEmpty());
+    assertEquals(orderBy, keys(expected), keys(actual.getEntities()));
+  }
+
+  private UriInfo parse(final String entitySetName, final String query) throws Exception {
+    return new Parser(edm, odata).parseUri(entitySetName, query, null, "");
+  }
+
+  private EntityCollection readAll(final String entitySetName) throws Exception {
+    EntityCollection entities = new EntityCollection();
+    entities.getEntities().addAll(
+        data.readAll(edm.getEntityContainer().getEntitySet(entitySetName)).getEntities());
+    return entities;
+  }
+
+  private List<String> keys(final List<Entity> entities) {
+    List<String> keys = new ArrayList<String>();
+    for (final Entity entity : entities) {
+      keys.add(entity.getProperties().get(0).getValue() + "/" + entity.getProperties().get(1).getValue());
+    }
+    return keys;
+  }
+}
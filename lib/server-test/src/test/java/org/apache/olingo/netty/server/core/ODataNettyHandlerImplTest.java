@@ -19,38 +19,76 @@
 package org.apache.olingo.netty.server.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.io.IOUtils;
 
 import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.netty.server.api.ODataNetty;
 import org.apache.olingo.netty.server.api.ODataNettyHandler;
+import org.apache.olingo.netty.server.api.ODataNettyStreamingHandler;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.processor.EntityProcessor;
 import org.apache.olingo.server.api.processor.MetadataProcessor;
+import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
 
 public class ODataNettyHandlerImplTest {
 
+  /** More body chunks than are allowed to wait for the processing of the request */
+  private static final int BODY_CHUNKS = 20;
+
   @Test
   public void testNettyReqResp_GetMethod() {
     MetadataProcessor processor = mock(MetadataProcessor.class);
@@ -153,4 +191,164 @@ public class ODataNettyHandlerImplTest {
     nettyResponse.status();
     assertEquals(HttpStatusCode.CREATED.getStatusCode(), HttpResponseStatus.CREATED.code());
   }
+
+  @Test
+  public void streamedResponse() throws Exception {
+    final ODataNetty odata = ODataNetty.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final List<Runnable> tasks = new ArrayList<Runnable>();
+    final EmbeddedChannel channel = createChannel(odata.createNettyHandler(metadata), tasks);
+
+    channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+        io.netty.handler.codec.http.HttpMethod.GET, "/odata.svc/$metadata"));
+    runAll(tasks);
+
+    final HttpResponse response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertTrue(HttpUtil.isTransferEncodingChunked(response));
+    assertFalse(response instanceof HttpContent);
+
+    final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    int chunks = 0;
+    Object message;
+    while ((message = channel.readOutbound()) != null && !(message instanceof LastHttpContent)) {
+      final ByteBuf chunk = ((HttpContent) message).content();
+      assertTrue(chunk.readableBytes() <= ODataNettyHandlerImpl.COPY_BUFFER_SIZE);
+      chunk.readBytes(content, chunk.readableBytes());
+      chunk.release();
+      chunks++;
+    }
+    assertTrue(message instanceof LastHttpContent);
+    assertTrue(chunks > 1);
+    assertEquals(IOUtils.toString(odata.createSerializer(ContentType.APPLICATION_XML)
+        .metadataDocument(metadata).getContent()), content.toString("UTF-8"));
+    assertTrue(channel.isOpen());
+  }
+
+  @Test
+  public void streamedRequest() throws Exception {
+    final ODataNetty odata = ODataNetty.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final ODataNettyHandler handler = odata.createNettyHandler(metadata);
+    final StringBuilder receivedBody = new StringBuilder();
+    final EntityProcessor processor = mock(EntityProcessor.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        receivedBody.append(IOUtils.toString(((ODataRequest) invocation.getArguments()[0]).getBody(), "UTF-8"));
+        ((ODataResponse) invocation.getArguments()[1]).setStatusCode(HttpStatusCode.NO_CONTENT.getStatusCode());
+        return null;
+      }
+    }).when(processor).updateEntity(any(ODataRequest.class), any(ODataResponse.class), any(UriInfo.class),
+        any(ContentType.class), any(ContentType.class));
+    handler.register(processor);
+    final List<Runnable> tasks = new ArrayList<Runnable>();
+    final EmbeddedChannel channel = createChannel(handler, tasks);
+
+    final DefaultHttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+        io.netty.handler.codec.http.HttpMethod.PATCH, "/odata.svc/ESAllPrim(1)");
+    request.headers().set(HttpHeader.CONTENT_TYPE, "application/json");
+    channel.writeInbound(request);
+    final StringBuilder sentBody = new StringBuilder();
+    for (int i = 0; i < BODY_CHUNKS; i++) {
+      final String chunk = i == 0 ? "{\"PropertyString\":\"" : "x";
+      sentBody.append(chunk);
+      channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer(chunk, CharsetUtil.UTF_8)));
+    }
+    assertFalse(channel.config().isAutoRead());
+    channel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("\"}", CharsetUtil.UTF_8)));
+    sentBody.append("\"}");
+    runAll(tasks);
+
+    assertEquals(sentBody.toString(), receivedBody.toString());
+    assertTrue(channel.config().isAutoRead());
+    final HttpResponse response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.NO_CONTENT, response.status());
+    assertEquals(0, HttpUtil.getContentLength(response));
+    assertTrue(channel.readOutbound() instanceof LastHttpContent);
+  }
+
+  @Test
+  public void pipelinedRequestsInOrder() throws Exception {
+    final ODataNetty odata = ODataNetty.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final List<Runnable> tasks = new ArrayList<Runnable>();
+    final EmbeddedChannel channel = createChannel(odata.createNettyHandler(metadata), tasks);
+
+    channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+        io.netty.handler.codec.http.HttpMethod.GET, "/odata.svc/"));
+    channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+        io.netty.handler.codec.http.HttpMethod.GET, "/odata.svc/NotFound"));
+    assertEquals(1, tasks.size());
+    runAll(tasks);
+
+    final List<Integer> statusCodes = new ArrayList<Integer>();
+    Object message;
+    while ((message = channel.readOutbound()) != null) {
+      if (message instanceof HttpResponse) {
+        statusCodes.add(((HttpResponse) message).status().code());
+      }
+      ReferenceCountUtil.release(message);
+    }
+    assertEquals(Arrays.asList(HttpStatusCode.OK.getStatusCode(), HttpStatusCode.NOT_FOUND.getStatusCode()),
+        statusCodes);
+  }
+
+  @Test
+  public void failureWhileStreamingClosesConnection() throws Exception {
+    final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    final ODataResponse odResponse = new ODataResponse();
+    odResponse.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    odResponse.setODataContent(new ODataContent() {
+      @Override
+      public void write(final WritableByteChannel writeChannel) {
+        write(Channels.newOutputStream(writeChannel));
+      }
+
+      @Override
+      public void write(final OutputStream stream) {
+        try {
+          stream.write(new byte[ODataNettyHandlerImpl.COPY_BUFFER_SIZE + 1]);
+        } catch (final IOException e) {
+          throw new ODataRuntimeException(e);
+        }
+        throw new ODataRuntimeException("Failure while producing the content.");
+      }
+    });
+
+    ODataNettyHandlerImpl.writeResponse(
+        new DefaultHttpRequest(HttpVersion.HTTP_1_1, io.netty.handler.codec.http.HttpMethod.GET, "/"),
+        odResponse, channel.pipeline().firstContext());
+
+    assertFalse(channel.isOpen());
+    final HttpResponse response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    final HttpContent chunk = channel.readOutbound();
+    assertEquals(ODataNettyHandlerImpl.COPY_BUFFER_SIZE, chunk.content().readableBytes());
+    chunk.release();
+    // The end of the response is not sent, so the client recognizes the response as incomplete.
+    assertNull(channel.readOutbound());
+  }
+
+  private static EmbeddedChannel createChannel(final ODataNettyHandler handler, final List<Runnable> tasks) {
+    Map<String, String> requestParams = new HashMap<String, String>();
+    requestParams.put("contextPath", "/odata.svc");
+    return new EmbeddedChannel(new ODataNettyChannelHandler((ODataNettyStreamingHandler) handler, requestParams,
+        new Executor() {
+          @Override
+          public void execute(final Runnable command) {
+            tasks.add(command);
+          }
+        }));
+  }
+
+  /** Runs the deferred processing like an executor outside of the event loop would do. */
+  private static void runAll(final List<Runnable> tasks) {
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+  }
 }
@@ -30,6 +30,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 import java.io.InputStream;
 import java.nio.charset.Charset;
@@ -38,6 +39,8 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
@@ -57,6 +60,9 @@ import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.metrics.RequestMetricsSnapshot;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.processor.ActionComplexCollectionProcessor;
 import org.apache.olingo.server.api.processor.ActionComplexProcessor;
 import org.apache.olingo.server.api.processor.ActionEntityCollectionProcessor;
@@ -83,6 +89,7 @@ import org.apache.olingo.server.api.processor.ReferenceCollectionProcessor;
 import org.apache.olingo.server.api.processor.ReferenceProcessor;
 import org.apache.olingo.server.api.processor.ServiceDocumentProcessor;
 import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoCache;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 import org.apache.olingo.server.tecsvc.processor.TechnicalActionProcessor;
 import org.apache.olingo.server.tecsvc.provider.ContainerProvider;
@@ -199,6 +206,48 @@ public class ODataHandlerImplTest {
     assertNull(response2.getContent());
   }
 
+  @Test
+  public void metadataCompressed() throws Exception {
+    final String uncompressed = IOUtils.toString(dispatch(HttpMethod.GET, "$metadata", null).getContent());
+
+    ODataResponse response = dispatch(HttpMethod.GET, "$metadata", null,
+        HttpHeader.ACCEPT_ENCODING, "deflate, gzip;q=0.8", null);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertEquals("gzip", response.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertEquals(HttpHeader.ACCEPT_ENCODING, response.getHeader(HttpHeader.VARY));
+    assertEquals(uncompressed, IOUtils.toString(new GZIPInputStream(response.getContent())));
+
+    response = dispatch(HttpMethod.GET, "$metadata", null, HttpHeader.ACCEPT_ENCODING, "deflate, gzip;q=0", null);
+    assertEquals("deflate", response.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertEquals(uncompressed, IOUtils.toString(new InflaterInputStream(response.getContent())));
+
+    response = dispatch(HttpMethod.GET, "$metadata", null, HttpHeader.ACCEPT_ENCODING, "identity", null);
+    assertNull(response.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertEquals(uncompressed, IOUtils.toString(response.getContent()));
+  }
+
+  @Test
+  public void metadataWithoutPreRendering() throws Exception {
+    final OData odata = OData.newInstance();
+    final ServiceMetadata preRendered = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final ServiceMetadata serviceMetadata = mock(ServiceMetadata.class);
+    when(serviceMetadata.getEdm()).thenReturn(preRendered.getEdm());
+    when(serviceMetadata.getDataServiceVersion()).thenReturn(ODataServiceVersion.V40);
+    when(serviceMetadata.getReferences()).thenReturn(Collections.<EdmxReference> emptyList());
+    final ODataHandlerImpl handler = new ODataHandlerImpl(odata, serviceMetadata, new ServerCoreDebugger(odata));
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawODataPath("$metadata");
+    request.addHeader(HttpHeader.ACCEPT_ENCODING, "gzip");
+
+    final ODataResponse response = handler.process(request);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertNull(response.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertEquals(IOUtils.toString(dispatch(HttpMethod.GET, "$metadata", null).getContent()),
+        IOUtils.toString(response.getContent()));
+  }
+
   @Test
   public void maxVersionNone() {
     final ODataResponse response = dispatch(HttpMethod.GET, "$metadata", null);
@@ -307,6 +356,14 @@ public class ODataHandlerImplTest {
         response.getHeader(HttpHeader.CONTENT_TYPE));
   }
 
+  @Test
+  public void uriParserExceptionWithEmptyQueryAcceptXml() throws Exception {
+    final ODataResponse response = dispatch(HttpMethod.GET, "ESNotAvailable", "",
+        HttpHeader.ACCEPT, ContentType.APPLICATION_XML.toContentTypeString(), null);
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), response.getStatusCode());
+    assertEquals(ContentType.APPLICATION_XML.toContentTypeString(), response.getHeader(HttpHeader.CONTENT_TYPE));
+  }
+
   @Test
   public void uriParserExceptionWithFormatQueryInvali() throws Exception {
     final ODataResponse response = dispatch(HttpMethod.GET, "ESAllPrims", "$format=somenotvalid", "", "", null);
@@ -1115,6 +1172,122 @@ public class ODataHandlerImplTest {
         any(ContentType.class));
   }
 
+  @Test
+  public void uriInfoCache() throws Exception {
+    final OData odata = OData.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final UriInfoCache cache = odata.createUriInfoCache(10);
+    final EntityProcessor processor = mock(EntityProcessor.class);
+
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawQueryPath("$select=PropertyInt16");
+
+    // URIs differing only in key values share the cache entry.
+    for (int i = 0; i < 3; i++) {
+      request.setRawODataPath("ESAllPrim(" + i + ")");
+      ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+      handler.register(processor);
+      handler.register(cache);
+      handler.process(request);
+    }
+    verify(processor, times(3)).readEntity(
+        any(ODataRequest.class), any(ODataResponse.class), any(UriInfo.class), any(ContentType.class));
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(2, cache.getHitCount());
+
+    // Invalid URIs are not cached.
+    request.setRawQueryPath("$top=-1");
+    ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+    handler.register(cache);
+    assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), handler.process(request).getStatusCode());
+    assertEquals(1, cache.size());
+
+    // URIs parsed against other metadata are not reused.
+    final ServiceMetadata otherMetadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    request.setRawQueryPath("$select=PropertyInt16");
+    handler = new ODataHandlerImpl(odata, otherMetadata, new ServerCoreDebugger(odata));
+    handler.register(processor);
+    handler.register(cache);
+    handler.process(request);
+    assertEquals(2, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+  }
+
+  @Test
+  public void requestMetrics() throws Exception {
+    final OData odata = OData.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final RequestMetrics metrics = odata.createRequestMetrics();
+    ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+    handler.register(mock(EntityProcessor.class));
+    handler.register(metrics);
+
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath("$metadata");
+    assertEquals(HttpStatusCode.OK.getStatusCode(), handler.process(request).getStatusCode());
+    request.setRawODataPath("ESAllPrim(0)");
+    // The mocked processor leaves the default status code 500.
+    assertEquals(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), handler.process(request).getStatusCode());
+    request.setRawODataPath("Unknown");
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), handler.process(request).getStatusCode());
+
+    final RequestMetricsSnapshot snapshot = metrics.getSnapshot();
+    assertEquals(3, snapshot.getTotal().getRequestCount());
+    assertEquals(2, snapshot.getTotal().getErrorCount());
+    assertEquals(3, snapshot.getTotal().getLatency().getCount());
+    assertEquals(0, snapshot.getTotal().getResponseSize().getCount());
+    assertEquals(Collections.singleton("ESAllPrim"), snapshot.getEntitySets().keySet());
+    assertEquals(1, snapshot.getEntitySets().get("ESAllPrim").getErrorCount());
+    assertEquals(1, snapshot.getProcessors().get("EntityProcessor").getRequestCount());
+    assertEquals(1, snapshot.getProcessors().get("MetadataProcessor").getRequestCount());
+    assertEquals(3, snapshot.getPhases().get(RequestPhase.PARSE_URI).getCount());
+    assertEquals(2, snapshot.getPhases().get(RequestPhase.VALIDATE_URI).getCount());
+    assertEquals(2, snapshot.getPhases().get(RequestPhase.DISPATCH).getCount());
+    assertEquals(1, snapshot.getPhases().get(RequestPhase.HANDLE_ERROR).getCount());
+  }
+
+  @Test
+  public void requestStateInContext() throws Exception {
+    final OData odata = OData.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+    handler.register(mock(EntityProcessor.class));
+
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath("ESAllPrim(0)");
+    final ODataRequestContext context = new ODataRequestContext(new ServerCoreDebugger(odata));
+    handler.process(request, context);
+    assertNotNull(context.getUriInfo());
+    assertNull(context.getLastThrownException());
+
+    request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath("ESAllPrim");
+    request.setRawQueryPath("$top=-1");
+    final ODataRequestContext failingContext = new ODataRequestContext(new ServerCoreDebugger(odata));
+    assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), handler.process(request, failingContext).getStatusCode());
+    assertNull(failingContext.getUriInfo());
+    assertNotNull(failingContext.getLastThrownException());
+
+    // The shared handler itself keeps no request state.
+    assertNull(handler.getUriInfo());
+    assertNull(handler.getLastThrownException());
+    assertNotNull(context.getUriInfo());
+    assertNull(context.getLastThrownException());
+  }
+
   private ODataResponse dispatch(final HttpMethod method, final String path, final String query,
       final String headerName, final String headerValue, final Processor processor) {
     ODataRequest request = new ODataRequest();
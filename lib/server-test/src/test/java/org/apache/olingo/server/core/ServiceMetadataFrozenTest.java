@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntityContainer;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.edmx.EdmxReferenceInclude;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.PreRenderedServiceMetadata;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class ServiceMetadataFrozenTest {
+
+  private static final String NAMESPACE = "olingo.odata.test1";
+  private static final String CORE_VOCABULARY =
+      "http://docs.oasis-open.org/odata/odata/v4.0/cs02/vocabularies/Org.OData.Core.V1.xml";
+  private static final List<EdmxReference> REFERENCES = Collections.singletonList(
+      new EdmxReference(URI.create(CORE_VOCABULARY))
+          .addInclude(new EdmxReferenceInclude("Org.OData.Core.V1", "Core")));
+
+  private final OData odata = OData.newInstance();
+
+  @Test
+  public void sameMetadataDocument() throws Exception {
+    final ServiceMetadata lazy = odata.createServiceMetadata(new EdmTechProvider(), REFERENCES, null);
+    final ServiceMetadata frozen = odata.createServiceMetadata(new EdmTechProvider(), REFERENCES, null, true);
+    assertEquals(writeMetadata(lazy), writeMetadata(frozen));
+  }
+
+  @Test
+  public void noProviderCallsAfterCreation() throws Exception {
+    final EdmTechProvider provider = spy(new EdmTechProvider());
+    final Edm edm = odata.createServiceMetadata(provider, REFERENCES, null, true).getEdm();
+    reset(provider);
+
+    assertNotNull(edm.getEntityType(new FullQualifiedName(NAMESPACE, "ETAllPrim")));
+    assertNotNull(edm.getEntityType(new FullQualifiedName("Namespace1_Alias", "ETTwoKeyNav")));
+    assertNotNull(edm.getComplexType(new FullQualifiedName(NAMESPACE, "CTPrim")));
+    assertNotNull(edm.getEnumType(new FullQualifiedName(NAMESPACE, "ENString")));
+    assertNotNull(edm.getUnboundAction(new FullQualifiedName(NAMESPACE, "UARTString")));
+    assertNotNull(edm.getUnboundFunction(new FullQualifiedName(NAMESPACE, "UFCRTString"),
+        Collections.<String> emptyList()));
+    final EdmEntityContainer container = edm.getEntityContainer();
+    assertNotNull(container.getEntitySet("ESAllPrim"));
+    assertNotNull(container.getSingleton("SI"));
+    assertNotNull(container.getFunctionImport("FICRTString"));
+    assertNotNull(container.getActionImport("AIRTString"));
+
+    assertNull(edm.getEntityType(new FullQualifiedName(NAMESPACE, "Unknown")));
+    assertNull(edm.getComplexType(new FullQualifiedName(NAMESPACE, "Unknown")));
+    assertNull(edm.getEnumType(new FullQualifiedName(NAMESPACE, "Unknown")));
+    assertNull(edm.getTypeDefinition(new FullQualifiedName(NAMESPACE, "Unknown")));
+    assertNull(edm.getUnboundAction(new FullQualifiedName(NAMESPACE, "Unknown")));
+    assertTrue(edm.getUnboundFunctions(new FullQualifiedName(NAMESPACE, "Unknown")).isEmpty());
+    assertNull(edm.getEntityContainer(new FullQualifiedName(NAMESPACE, "Unknown")));
+    assertNull(container.getEntitySet("Unknown"));
+    assertNull(container.getSingleton("Unknown"));
+    assertNull(container.getActionImport("Unknown"));
+    assertNull(container.getFunctionImport("Unknown"));
+
+    final UriInfo uriInfo = new Parser(edm, odata).parseUri("ESTwoKeyNav",
+        "$filter=PropertyComp/PropertyInt16 eq 1&$expand=NavPropertyETKeyNavOne($select=PropertyString)"
+            + "&$orderby=PropertyString desc",
+        null, null);
+    assertNotNull(uriInfo.getFilterOption());
+
+    verifyZeroInteractions(provider);
+  }
+
+  @Test
+  public void termsAndBoundOperationsResolvedOnDemand() throws Exception {
+    final EdmTechProvider provider = spy(new EdmTechProvider());
+    final Edm edm = odata.createServiceMetadata(provider, REFERENCES, null, true).getEdm();
+    reset(provider);
+
+    final FullQualifiedName unknown = new FullQualifiedName(NAMESPACE, "Unknown");
+    assertNull(edm.getTerm(unknown));
+    verify(provider).getTerm(unknown);
+    assertNull(edm.getBoundAction(unknown, new FullQualifiedName(NAMESPACE, "ETAllPrim"), false));
+    verify(provider).getActions(unknown);
+  }
+
+  @Test
+  public void contentHashETag() throws Exception {
+    final PreRenderedServiceMetadata serviceMetadata = (PreRenderedServiceMetadata)
+        odata.createServiceMetadata(new EdmTechProvider(), REFERENCES, null, true);
+    final String eTag = serviceMetadata.getServiceMetadataETagSupport().getMetadataETag();
+    assertTrue(eTag.matches("W/\"\\p{XDigit}{64}\""));
+    assertEquals(eTag, serviceMetadata.getServiceMetadataETagSupport().getServiceDocumentETag());
+    assertEquals(eTag, odata.createServiceMetadata(new EdmTechProvider(), REFERENCES, null, true)
+        .getServiceMetadataETagSupport().getMetadataETag());
+    assertNull(odata.createServiceMetadata(new EdmTechProvider(), REFERENCES, null).getServiceMetadataETagSupport());
+
+    assertSame(serviceMetadata.getMetadataDocument(ContentType.APPLICATION_XML),
+        serviceMetadata.getMetadataDocument(ContentType.APPLICATION_XML));
+    assertEquals(writeMetadata(odata.createServiceMetadata(new EdmTechProvider(), REFERENCES, null)),
+        IOUtils.toString(serviceMetadata.getMetadataDocument(ContentType.APPLICATION_XML).getContent()));
+
+    final ODataHandlerImpl handler = new ODataHandlerImpl(odata, serviceMetadata, new ServerCoreDebugger(odata));
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri("http://localhost/odata");
+    request.setRawODataPath("$metadata");
+    ODataResponse response = handler.process(request);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertEquals(eTag, response.getHeader(HttpHeader.ETAG));
+
+    request.addHeader(HttpHeader.IF_NONE_MATCH, eTag);
+    response = handler.process(request);
+    assertEquals(HttpStatusCode.NOT_MODIFIED.getStatusCode(), response.getStatusCode());
+    assertNull(response.getContent());
+
+    request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri("http://localhost/odata");
+    request.setRawODataPath("/");
+    request.addHeader(HttpHeader.IF_NONE_MATCH, eTag);
+    response = handler.process(request);
+    assertEquals(HttpStatusCode.NOT_MODIFIED.getStatusCode(), response.getStatusCode());
+  }
+
+  private String writeMetadata(final ServiceMetadata serviceMetadata) throws Exception {
+    return IOUtils.toString(
+        odata.createSerializer(ContentType.APPLICATION_XML).metadataDocument(serviceMetadata).getContent());
+  }
+}
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.async.AsyncRequestSelector;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.api.processor.EntityCollectionProcessor;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AsyncSupportImplTest {
+
+  private static final String BASE_URI = "http://localhost/odata";
+
+  private final OData odata = OData.newInstance();
+  private final List<Runnable> jobs = new ArrayList<Runnable>();
+  private final Executor executor = new Executor() {
+    @Override
+    public void execute(final Runnable command) {
+      jobs.add(command);
+    }
+  };
+  private ODataHandlerImpl handler;
+  private int processed;
+
+  @Rule
+  public TemporaryFolder spoolDirectory = new TemporaryFolder();
+
+  @Before
+  public void before() {
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+    handler.register(new EntityCollectionProcessor() {
+      @Override
+      public void init(final OData odata, final ServiceMetadata serviceMetadata) {}
+
+      @Override
+      public void readEntityCollection(final ODataRequest request, final ODataResponse response,
+          final UriInfo uriInfo, final ContentType responseFormat) {
+        processed++;
+        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+        response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.TEXT_PLAIN.toContentTypeString());
+        response.setContent(new ByteArrayInputStream("result".getBytes()));
+      }
+    });
+  }
+
+  @Test
+  public void jobLifecycle() throws Exception {
+    handler.register(odata.createAsyncSupport(executor, 2, 60000, 1024, null, null));
+
+    ODataResponse response = handler.process(request(HttpMethod.GET, "/ESAllPrim", true));
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), response.getStatusCode());
+    assertEquals("respond-async", response.getHeader(HttpHeader.PREFERENCE_APPLIED));
+    final String location = response.getHeader(HttpHeader.LOCATION);
+    assertNotNull(location);
+    assertTrue(location.startsWith(BASE_URI + "/$async/"));
+    assertEquals(1, jobs.size());
+    assertEquals(0, processed);
+    assertEquals(1, handler.getAsyncSupport().getPendingJobCount());
+
+    final String monitor = location.substring(BASE_URI.length());
+    response = handler.process(request(HttpMethod.GET, monitor, false));
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), response.getStatusCode());
+    assertEquals(location, response.getHeader(HttpHeader.LOCATION));
+
+    jobs.get(0).run();
+    assertEquals(1, processed);
+    assertEquals(1, handler.getAsyncSupport().getFinishedJobCount());
+
+    response = handler.process(request(HttpMethod.GET, monitor, false));
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertEquals(ContentType.APPLICATION_HTTP.toContentTypeString(), response.getHeader(HttpHeader.CONTENT_TYPE));
+    final String content = IOUtils.toString(response.getContent());
+    assertThat(content, containsString("HTTP/1.1 200 OK"));
+    assertThat(content, containsString("result"));
+    assertEquals(String.valueOf(content.length()), response.getHeader(HttpHeader.CONTENT_LENGTH));
+
+    response = handler.process(request(HttpMethod.GET, monitor, false));
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), response.getStatusCode());
+    assertEquals(0, handler.getAsyncSupport().getFinishedJobCount());
+  }
+
+  @Test
+  public void cancelJob() throws Exception {
+    handler.register(odata.createAsyncSupport(executor, 2, 60000, 1024, null, null));
+
+    ODataResponse response = handler.process(request(HttpMethod.GET, "/ESAllPrim", true));
+    final String monitor = response.getHeader(HttpHeader.LOCATION).substring(BASE_URI.length());
+    response = handler.process(request(HttpMethod.DELETE, monitor, false));
+    assertEquals(HttpStatusCode.NO_CONTENT.getStatusCode(), response.getStatusCode());
+
+    jobs.get(0).run();
+    assertEquals(0, processed);
+    response = handler.process(request(HttpMethod.GET, monitor, false));
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), response.getStatusCode());
+  }
+
+  @Test
+  public void statusMonitorMethodNotAllowed() throws Exception {
+    handler.register(odata.createAsyncSupport(executor, 2, 60000, 1024, null, null));
+
+    ODataResponse response = handler.process(request(HttpMethod.GET, "/ESAllPrim", true));
+    final String monitor = response.getHeader(HttpHeader.LOCATION).substring(BASE_URI.length());
+    response = handler.process(request(HttpMethod.POST, monitor, false));
+    assertEquals(HttpStatusCode.METHOD_NOT_ALLOWED.getStatusCode(), response.getStatusCode());
+  }
+
+  @Test
+  public void synchronousWhenFull() throws Exception {
+    handler.register(odata.createAsyncSupport(executor, 1, 60000, 1024, null, null));
+
+    ODataResponse response = handler.process(request(HttpMethod.GET, "/ESAllPrim", true));
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), response.getStatusCode());
+
+    response = handler.process(request(HttpMethod.GET, "/ESAllPrim", true));
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertNull(response.getHeader(HttpHeader.PREFERENCE_APPLIED));
+    assertEquals(1, processed);
+    assertEquals(1, jobs.size());
+    assertEquals(1, handler.getAsyncSupport().getRejectedCount());
+  }
+
+  @Test
+  public void boundHoldsForConcurrentRequests() throws Exception {
+    final AsyncSupport asyncSupport = odata.createAsyncSupport(new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        // The jobs are not run.
+      }
+    }, 2, 60000, 1024, null, null);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<String> locations = Collections.synchronizedList(new ArrayList<String>());
+    final List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 8; i++) {
+      final Thread thread = new Thread() {
+        @Override
+        public void run() {
+          final ODataResponse response = new ODataResponse();
+          try {
+            start.await();
+          } catch (final InterruptedException e) {
+            return;
+          }
+          if (asyncSupport.accept(handler, request(HttpMethod.GET, "/ESAllPrim", true), null, response)) {
+            locations.add(response.getHeader(HttpHeader.LOCATION));
+          }
+        }
+      };
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (final Thread thread : threads) {
+      thread.join(10000);
+    }
+    assertEquals(2, locations.size());
+    assertEquals(2, asyncSupport.getPendingJobCount());
+    assertEquals(6, asyncSupport.getRejectedCount());
+
+    // A removed job makes room for a new one.
+    asyncSupport.processStatusMonitor(
+        request(HttpMethod.DELETE, locations.get(0).substring(BASE_URI.length()), false), new ODataResponse());
+    assertTrue(asyncSupport.accept(handler, request(HttpMethod.GET, "/ESAllPrim", true), null,
+        new ODataResponse()));
+    assertFalse(asyncSupport.accept(handler, request(HttpMethod.GET, "/ESAllPrim", true), null,
+        new ODataResponse()));
+  }
+
+  @Test
+  public void synchronousWithoutPreference() throws Exception {
+    handler.register(odata.createAsyncSupport(executor, 1, 60000, 1024, null, null));
+
+    final ODataResponse response = handler.process(request(HttpMethod.GET, "/ESAllPrim", false));
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertEquals(1, processed);
+    assertTrue(jobs.isEmpty());
+    assertFalse(handler.getAsyncSupport().getRejectedCount() > 0);
+  }
+
+  @Test
+  public void cancelRunningJob() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final boolean[] interrupted = new boolean[1];
+    handler.register(new EntityCollectionProcessor() {
+      @Override
+      public void init(final OData odata, final ServiceMetadata serviceMetadata) {}
+
+      @Override
+      public void readEntityCollection(final ODataRequest request, final ODataResponse response,
+          final UriInfo uriInfo, final ContentType responseFormat) {
+        started.countDown();
+        try {
+          TimeUnit.SECONDS.sleep(10);
+        } catch (final InterruptedException e) {
+          interrupted[0] = true;
+        }
+        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+      }
+    });
+    final List<Thread> threads = new ArrayList<Thread>();
+    handler.register(odata.createAsyncSupport(new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        final Thread thread = new Thread(command);
+        threads.add(thread);
+        thread.start();
+      }
+    }, 2, 60000, 1024, null, null));
+
+    ODataResponse response = handler.process(request(HttpMethod.GET, "/ESAllPrim", true));
+    final String monitor = response.getHeader(HttpHeader.LOCATION).substring(BASE_URI.length());
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    response = handler.process(request(HttpMethod.DELETE, monitor, false));
+    assertEquals(HttpStatusCode.NO_CONTENT.getStatusCode(), response.getStatusCode());
+
+    threads.get(0).join(10000);
+    assertFalse(threads.get(0).isAlive());
+    assertTrue(interrupted[0]);
+    response = handler.process(request(HttpMethod.GET, monitor, false));
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), response.getStatusCode());
+  }
+
+  @Test
+  public void spoolToDisk() throws Exception {
+    handler.register(odata.createAsyncSupport(executor, 2, 60000, 4, spoolDirectory.getRoot(), null));
+
+    ODataRequest request = request(HttpMethod.GET, "/ESAllPrim", true);
+    request.setBody(new ByteArrayInputStream("request body".getBytes()));
+    ODataResponse response = handler.process(request);
+    final String monitor = response.getHeader(HttpHeader.LOCATION).substring(BASE_URI.length());
+    assertEquals(1, spoolDirectory.getRoot().list().length);
+
+    jobs.get(0).run();
+    assertEquals(1, spoolDirectory.getRoot().list().length);
+
+    response = handler.process(request(HttpMethod.GET, monitor, false));
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    final InputStream content = response.getContent();
+    final String result = IOUtils.toString(content);
+    content.close();
+    assertThat(result, containsString("result"));
+    assertEquals(String.valueOf(result.length()), response.getHeader(HttpHeader.CONTENT_LENGTH));
+    assertEquals(0, spoolDirectory.getRoot().list().length);
+  }
+
+  @Test
+  public void expiredJobIsRemoved() throws Exception {
+    handler.register(odata.createAsyncSupport(executor, 2, 0, 4, spoolDirectory.getRoot(), null));
+
+    ODataResponse response = handler.process(request(HttpMethod.GET, "/ESAllPrim", true));
+    final String monitor = response.getHeader(HttpHeader.LOCATION).substring(BASE_URI.length());
+    jobs.get(0).run();
+    assertEquals(1, handler.getAsyncSupport().getFinishedJobCount());
+    assertEquals(1, spoolDirectory.getRoot().list().length);
+
+    Thread.sleep(10);
+    response = handler.process(request(HttpMethod.GET, monitor, false));
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), response.getStatusCode());
+    assertEquals(0, handler.getAsyncSupport().getFinishedJobCount());
+    assertEquals(0, spoolDirectory.getRoot().list().length);
+  }
+
+  @Test
+  public void synchronousWhenNotSelected() throws Exception {
+    handler.register(odata.createAsyncSupport(executor, 2, 60000, 1024, null, new AsyncRequestSelector() {
+      @Override
+      public boolean isAsynchronous(final ODataRequest request, final UriInfo uriInfo) {
+        return request.getMethod() == HttpMethod.POST;
+      }
+    }));
+
+    final ODataResponse response = handler.process(request(HttpMethod.GET, "/ESAllPrim", true));
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertNull(response.getHeader(HttpHeader.PREFERENCE_APPLIED));
+    assertEquals(1, processed);
+    assertTrue(jobs.isEmpty());
+  }
+
+  private ODataRequest request(final HttpMethod method, final String path, final boolean respondAsync) {
+    ODataRequest request = new ODataRequest();
+    request.setMethod(method);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath(path);
+    request.setRawRequestUri(BASE_URI + path);
+    if (respondAsync) {
+      request.addHeader(HttpHeader.PREFER, "respond-async");
+    }
+    return request;
+  }
+}
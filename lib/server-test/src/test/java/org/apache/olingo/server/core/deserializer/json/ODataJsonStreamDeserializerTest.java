@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.DeletedEntity;
+import org.apache.olingo.commons.api.data.Delta;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.deserializer.DeserializerResult;
+import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.core.deserializer.AbstractODataDeserializerTest;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Checks that the streaming JSON deserializer produces the same results
+ * (or the same errors) as the tree-based one.
+ */
+public class ODataJsonStreamDeserializerTest extends AbstractODataDeserializerTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final List<String> V40 = Collections.singletonList("4.0");
+  private static final List<String> V401 = Collections.singletonList("4.01");
+
+  @Test
+  public void factory() throws Exception {
+    assertTrue(odata.createDeserializer(ContentType.JSON, metadata, V40, true)
+        instanceof ODataJsonStreamDeserializer);
+    assertEquals(ODataJsonDeserializer.class,
+        odata.createDeserializer(ContentType.JSON, metadata, V40, false).getClass());
+    assertEquals("ODataXmlDeserializer",
+        odata.createDeserializer(ContentType.APPLICATION_XML, metadata, V40, true).getClass().getSimpleName());
+  }
+
+  @Test
+  public void entityFiles() throws Exception {
+    for (final String file : new String[] {
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimMany.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimManyDelta.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimManyError.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimManyUpdate.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimManyWithCustomAnnotations.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimManyWithODataAnnotations.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimManyWithODataAnnotationsUpdate.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimOne.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimOneUpdate.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimOneWithCustomAnnotations.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimOneWithODataAnnotations.json",
+        "EntityESAllPrimExpandedNavPropertyETTwoPrimOneWithODataAnnotationsUpdate.json" }) {
+      assertSameEntity(read(file), "ETAllPrim");
+    }
+    for (final String file : new String[] {
+        "EntityETMixEnumDefCollComp.json",
+        "EntityETMixEnumDefCollCompUpdate.json",
+        "EntityETMixEnumDefCollCompWithEnumStrings.json",
+        "EntityETMixEnumDefCollCompWithEnumStringsUpdate.json" }) {
+      assertSameEntity(read(file), "ETMixEnumDefCollComp");
+    }
+  }
+
+  @Test
+  public void entityCollectionFiles() throws Exception {
+    for (final String file : new String[] {
+        "ESAllPrim.json", "ESAllPrimUpdate.json",
+        "ESAllPrimWithCustomAnnotations.json", "ESAllPrimWithCustomAnnotationsUpdate.json",
+        "ESAllPrimWithDoubleKey.json", "ESAllPrimWithDoubleKeyUpdate.json",
+        "ESAllPrimWithODataAnnotations.json", "ESAllPrimWithODataAnnotationsUpdate.json",
+        "UnbalancedESAllPrimFeed.json", "UnbalancedESAllPrimFeed2.json", "UnbalancedESAllPrimFeedUpdate.json" }) {
+      assertSameEntityCollection(read(file), "ETAllPrim");
+    }
+    assertSameEntityCollection(read("ESCompCollComp.json"), "ETCompCollComp");
+    assertSameEntityCollection(read("ESCompCollCompUpdate.json"), "ETCompCollComp");
+  }
+
+  @Test
+  public void entityCollectionErrors() throws Exception {
+    assertSameEntityCollection("{}", "ETAllPrim");
+    assertSameEntityCollection("{\"value\":null}", "ETAllPrim");
+    assertSameEntityCollection("{\"value\":[1]}", "ETAllPrim");
+    assertSameEntityCollection("{\"value\":[[]]}", "ETAllPrim");
+    assertSameEntityCollection("{\"value\":[],\"unknown\":1}", "ETAllPrim");
+    assertSameEntityCollection("{\"@custom\":1,\"value\":[]}", "ETAllPrim");
+    assertSameEntityCollection("[]", "ETAllPrim");
+    assertSameEntityCollection("", "ETAllPrim");
+    assertSameEntityCollection("{\"value\":[{\"PropertyInt16\":1}", "ETAllPrim");
+  }
+
+  @Test
+  public void derivedTypes() throws Exception {
+    final String derivedProperties = "\"PropertyInt16\":32767,"
+        + "\"PropertyString\":\"First Resource - positive values\","
+        + "\"AdditionalPropertyString_5\":\"Additional\"";
+    assertSameEntity("{\"@odata.type\":\"#olingo.odata.test1.ETBase\"," + derivedProperties + "}", "ETTwoPrim");
+    // The type annotation comes after the properties it is needed for.
+    assertSameEntity("{" + derivedProperties + ",\"@odata.type\":\"#olingo.odata.test1.ETBase\"}", "ETTwoPrim");
+    assertSameEntity("{" + derivedProperties + "}", "ETTwoPrim");
+    assertSameEntity("{\"Unknown\":1," + derivedProperties + ",\"@odata.type\":\"#olingo.odata.test1.ETBase\"}",
+        "ETTwoPrim");
+    assertSameEntity("{\"@odata.type\":\"#olingo.odata.test1.ETAllPrim\"," + derivedProperties + "}", "ETTwoPrim");
+    assertSameEntity("{\"@odata.type\":\"#olingo.odata.test1.ETTwoPrim\",\"PropertyInt16\":1}", "ETTwoPrim");
+    assertSameEntity("{\"@odata.type\":{},\"PropertyInt16\":1}", "ETTwoPrim");
+
+    assertSameEntity("{\"PropertyInt16\":32767,\"PropertyString\":\"string\",\"NavPropertyETKeyPrimNavOne\":"
+        + "{\"PropertyInt16\":32767,\"PropertyString\":\"First Resource - first\",\"PropertyBoolean\":true,"
+        + "\"@odata.type\":\"#olingo.odata.test1.ETKeyPrimNavDerived\"}}", "ETKeyPrimNav");
+
+    final String complex = "{\"PropertyInt16\":1,\"PropertyComp\":{\"@odata.type\":\"#olingo.odata.test1.CTBase\","
+        + "\"PropertyInt16\":2,\"PropertyString\":\"s\",\"AdditionalPropString\":\"a\"},"
+        + "\"CollPropertyComp\":[{\"PropertyInt16\":3,\"PropertyString\":\"t\",\"AdditionalPropString\":\"b\","
+        + "\"@odata.type\":\"#olingo.odata.test1.CTBase\"},null,{\"PropertyInt16\":4}]}";
+    assertSameEntity(complex, "ETMixPrimCollComp");
+    assertSameEntity(complex.replace("CTBase", "CTTwoPrim"), "ETMixPrimCollComp");
+  }
+
+  @Test
+  public void bindings() throws Exception {
+    assertSameEntity("{\"PropertyInt16\":32767,\"PropertyString\":\"s\","
+        + "\"NavPropertyETTwoPrimOne@odata.bind\":\"ESTwoPrim(2)\","
+        + "\"NavPropertyETTwoPrimMany@odata.bind\":[\"ESTwoPrim(2)\",\"ESTwoPrim(3)\"]}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimMany@odata.bind\":[]}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimOne@odata.bind\":[\"ESTwoPrim(2)\"]}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimOne@odata.bind\":null}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimOne@odata.bind\":1}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimMany@odata.bind\":null}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimMany@odata.bind\":\"ESTwoPrim(2)\"}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimMany@odata.bind\":[null]}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimMany@odata.bind\":[1]}", "ETAllPrim");
+    assertSameEntity("{\"Unknown@odata.bind\":\"ESTwoPrim(2)\"}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimOne\":null,\"NavPropertyETTwoPrimMany\":[]}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimMany\":null}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimMany\":{}}", "ETAllPrim");
+    assertSameEntity("{\"NavPropertyETTwoPrimOne\":[]}", "ETAllPrim");
+  }
+
+  @Test
+  public void primitiveValues() throws Exception {
+    assertSameEntity("{\"PropertyInt16\":-0,\"PropertyInt64\":12345678901234567890,"
+        + "\"PropertyDouble\":1.5E1,\"PropertySingle\":-1e-3,\"PropertyDecimal\":12.5,"
+        + "\"PropertyBoolean\":false,\"PropertyBinary\":\"ASNFZ4mrze8=\",\"PropertyDate\":null}", "ETAllPrim");
+    assertSameEntity("{\"PropertyInt16\":\"1\"}", "ETAllPrim");
+    assertSameEntity("{\"PropertyInt16\":null}", "ETAllPrim");
+    assertSameEntity("{\"PropertyInt16\":{}}", "ETAllPrim");
+    assertSameEntity("{\"PropertyString\":[\"a\"]}", "ETAllPrim");
+    assertSameEntity("{\"PropertyByte\":256}", "ETAllPrim");
+    assertSameEntity("{\"PropertyInt16\":1,\"PropertyInt16\":2}", "ETAllPrim");
+    assertSameEntity("{\"PropertyInt16\":1,\"PropertyString@custom\":2}", "ETAllPrim");
+    assertSameEntity("{\"PropertyInt16\":1,\"PropertyString@odata.type\":{\"a\":[1]}}", "ETAllPrim");
+    assertSameEntity("{\"CollPropertyString\":[\"a\",null,\"b\"],\"CollPropertyComp\":null}", "ETMixPrimCollComp");
+    assertSameEntity("{\"CollPropertyString\":\"a\"}", "ETMixPrimCollComp");
+    assertSameEntity("{\"PropertyComp\":[]}", "ETMixPrimCollComp");
+    assertSameEntity("{\"PropertyComp\":{\"Unknown\":1}}", "ETMixPrimCollComp");
+    assertSameEntity("{\"PropertyEnumString\":\"String1,String2\"}", "ETMixEnumDefCollComp");
+    assertSameEntity("{\"PropertyEnumString\":2}", "ETMixEnumDefCollComp");
+  }
+
+  @Test
+  public void geoValues() throws Exception {
+    EdmProperty property = Mockito.mock(EdmProperty.class);
+    Mockito.when(property.getName()).thenReturn("PropertyGeo");
+    Mockito.when(property.getType()).thenReturn(odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.GeometryPoint));
+    Mockito.when(property.isNullable()).thenReturn(true);
+    EdmEntityType entityType = Mockito.mock(EdmEntityType.class);
+    Mockito.when(entityType.getFullQualifiedName()).thenReturn(new FullQualifiedName(NAMESPACE, "entityType"));
+    Mockito.when(entityType.getPropertyNames()).thenReturn(Arrays.asList("PropertyGeo"));
+    Mockito.when(entityType.getProperty("PropertyGeo")).thenReturn(property);
+    Mockito.when(entityType.getStructuralProperty("PropertyGeo")).thenReturn(property);
+    Mockito.when(entityType.getNavigationPropertyNames()).thenReturn(Collections.<String> emptyList());
+
+    final String preamble = "{\"PropertyGeo\":{";
+    assertSameEntity(preamble + "\"type\":\"Point\",\"coordinates\":[1.25,2.75],"
+        + "\"crs\":{\"type\":\"name\",\"properties\":{\"name\":\"EPSG:42\"}}}}", entityType, V40);
+    assertSameEntity(preamble + "\"type\":\"Point\",\"coordinates\":[1,2],\"extra\":\"extra\"}}", entityType, V40);
+    assertSameEntity(preamble + "\"type\":\"Point\",\"coordinates\":[\"1\",2]}}", entityType, V40);
+    assertSameEntity("{\"PropertyGeo\":[1,2]}", entityType, V40);
+    assertSameEntity("{\"PropertyGeo\":null}", entityType, V40);
+  }
+
+  @Test
+  public void delta() throws Exception {
+    final String properties = "\"PropertyInt16\":1,\"PropertyString\":\"s\",";
+    assertSameEntity("{" + properties + "\"NavPropertyETTwoPrimMany@delta\":[{\"@removed\":{}, \"@id\":\"a\"}]}",
+        "ETAllPrim");
+    assertSameEntity("{" + properties + "\"NavPropertyETTwoPrimMany@delta\":[{\"@removed\":{\"reason\":\"x\"},"
+        + "\"@id\":\"ESAllPrim(1)\",\"PropertyString\":\"ignored\"}]}", "ETAllPrim");
+    assertSameEntity("{" + properties + "\"NavPropertyETTwoPrimMany@delta\":{},"
+        + "\"NavPropertyETTwoPrimOne@delta\":[],\"Unknown@delta\":[]}", "ETAllPrim");
+    assertSameEntity("{" + properties + "\"NavPropertyETTwoPrimMany@delta\":[{\"PropertyInt16\":2,"
+        + "\"NavPropertyETTwoPrimOne\":{\"PropertyInt16\":3}}],"
+        + "\"NavPropertyETTwoPrimMany\":[{\"PropertyInt16\":4}]}", "ETAllPrim");
+    assertSameEntity("{\"@id\":\"ESAllPrim(1)\",\"@custom\":1," + properties.substring(0, properties.length() - 1)
+        + "}", "ETAllPrim");
+  }
+
+  @Test
+  public void expandOrder() throws Exception {
+    // Navigation properties appear in another order than in the metadata.
+    assertSameEntity("{\"PropertyInt16\":1,"
+        + "\"NavPropertyETAllPrimMany\":[{\"PropertyInt16\":2,\"NavPropertyETTwoPrimOne\":{\"PropertyInt16\":3}}],"
+        + "\"NavPropertyETAllPrimOne\":{\"PropertyInt16\":4,"
+        + "\"NavPropertyETTwoPrimMany\":[{\"PropertyInt16\":5}],\"NavPropertyETTwoPrimOne\":null}}", "ETTwoPrim");
+  }
+
+  private void assertSameEntity(final String payload, final String entityTypeName) throws Exception {
+    final EdmEntityType entityType = edm.getEntityType(new FullQualifiedName(NAMESPACE, entityTypeName));
+    assertSameEntity(payload, entityType, V40);
+    assertSameEntity(payload, entityType, V401);
+  }
+
+  private void assertSameEntity(final String payload, final EdmEntityType entityType, final List<String> versions)
+      throws Exception {
+    assertEquals(payload + " (" + versions + ")",
+        readEntity(payload, entityType, versions, false),
+        readEntity(payload, entityType, versions, true));
+  }
+
+  private String readEntity(final String payload, final EdmEntityType entityType, final List<String> versions,
+      final boolean streaming) throws Exception {
+    final ODataDeserializer deserializer = odata.createDeserializer(ContentType.JSON, metadata, versions, streaming);
+    try {
+      final DeserializerResult result = deserializer.entity(toStream(payload), entityType);
+      return describe(result.getEntity()) + describe(result.getExpandTree());
+    } catch (final DeserializerException e) {
+      return e.getMessageKey().toString();
+    }
+  }
+
+  private void assertSameEntityCollection(final String payload, final String entityTypeName) throws Exception {
+    final EdmEntityType entityType = edm.getEntityType(new FullQualifiedName(NAMESPACE, entityTypeName));
+    assertSameEntityCollection(payload, entityType, V40);
+    assertSameEntityCollection(payload, entityType, V401);
+  }
+
+  private void assertSameEntityCollection(final String payload, final EdmEntityType entityType,
+      final List<String> versions) throws Exception {
+    assertEquals(payload + " (" + versions + ")",
+        readEntityCollection(payload, entityType, versions, false),
+        readEntityCollection(payload, entityType, versions, true));
+  }
+
+  private String readEntityCollection(final String payload, final EdmEntityType entityType,
+      final List<String> versions, final boolean streaming) throws Exception {
+    final ODataDeserializer deserializer = odata.createDeserializer(ContentType.JSON, metadata, versions, streaming);
+    try {
+      return describe(deserializer.entityCollection(toStream(payload), entityType).getEntityCollection());
+    } catch (final DeserializerException e) {
+      return e.getMessageKey().toString();
+    }
+  }
+
+  private InputStream toStream(final String payload) {
+    return new ByteArrayInputStream(payload.getBytes());
+  }
+
+  private String read(final String resourceName) throws IOException {
+    final InputStream in = getFileAsStream(resourceName);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int count;
+    while ((count = in.read(buffer)) > 0) {
+      out.write(buffer, 0, count);
+    }
+    in.close();
+    return new String(out.toByteArray(), "UTF-8");
+  }
+
+  /** Describes a deserialization result; unlike <code>equals</code> it also compares binary values. */
+  private static String describe(final Object value) {
+    if (value instanceof Entity) {
+      final Entity entity = (Entity) value;
+      return "Entity(" + entity.getType() + ", " + entity.getId() + ", " + describe(entity.getProperties())
+          + ", " + describe(entity.getNavigationLinks()) + ", " + describe(entity.getNavigationBindings()) + ")";
+    } else if (value instanceof Property) {
+      final Property property = (Property) value;
+      return property.getName() + ":" + property.getType() + ":" + property.getValueType()
+          + "=" + describe(property.getValue());
+    } else if (value instanceof ComplexValue) {
+      return "Complex(" + ((ComplexValue) value).getTypeName() + ", " + describe(((ComplexValue) value).getValue())
+          + ")";
+    } else if (value instanceof Link) {
+      final Link link = (Link) value;
+      return "Link(" + link.getTitle() + ", " + link.getType() + ", " + link.getBindingLink() + ", "
+          + link.getBindingLinks() + ", " + describe(link.getInlineEntity()) + ", "
+          + describe(link.getInlineEntitySet()) + ")";
+    } else if (value instanceof Delta) {
+      final Delta delta = (Delta) value;
+      StringBuilder result = new StringBuilder("Delta(").append(describe(delta.getEntities()));
+      for (final DeletedEntity deletedEntity : delta.getDeletedEntities()) {
+        result.append(", Deleted(").append(deletedEntity.getId()).append(", ").append(deletedEntity.getReason())
+            .append(')');
+      }
+      return result.append(')').toString();
+    } else if (value instanceof EntityCollection) {
+      return "Collection" + describe(((EntityCollection) value).getEntities());
+    } else if (value instanceof ExpandOption) {
+      return "Expand" + describe(((ExpandOption) value).getExpandItems());
+    } else if (value instanceof ExpandItem) {
+      final ExpandItem item = (ExpandItem) value;
+      return item.getResourcePath().getUriResourceParts().get(0).getSegmentValue()
+          + describe(item.getExpandOption());
+    } else if (value instanceof List) {
+      StringBuilder result = new StringBuilder("[");
+      for (final Object element : (List<?>) value) {
+        result.append(describe(element)).append(' ');
+      }
+      return result.append(']').toString();
+    } else if (value instanceof byte[]) {
+      return Arrays.toString((byte[]) value);
+    } else if (value instanceof Calendar) {
+      return ((Calendar) value).getTimeInMillis() + ((Calendar) value).getTimeZone().getID();
+    } else {
+      return value == null ? "null" : value.getClass().getSimpleName() + "=" + value;
+    }
+  }
+}
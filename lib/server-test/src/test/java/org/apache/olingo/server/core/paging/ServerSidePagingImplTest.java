@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.paging.AppliedQueryOptions;
+import org.apache.olingo.server.api.paging.ServerSidePaging;
+import org.apache.olingo.server.api.paging.SkipToken;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class ServerSidePagingImplTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+  private static final String BASE_URI = "http://localhost/odata.svc/";
+
+  private final ServerSidePaging paging = odata.createServerSidePaging();
+
+  @Test
+  public void firstPage() throws Exception {
+    final EntityIterator page = apply("ESTwoKeyNav", null, 2, new ListEntityIterator("ESTwoKeyNav"));
+    final List<Entity> entities = collect(page);
+    assertEquals(2, entities.size());
+    assertNotNull(page.getNext());
+    assertTrue(page.getNext().toString().startsWith(BASE_URI + "ESTwoKeyNav?%24skiptoken="));
+  }
+
+  @Test
+  public void followNextLinks() throws Exception {
+    final List<Entity> all = new ListEntityIterator("ESTwoKeyNav").entities;
+    List<Entity> paged = new ArrayList<Entity>();
+    String query = "$orderby=PropertyInt16";
+    int pages = 0;
+    while (query != null) {
+      final EntityIterator page = apply("ESTwoKeyNav", query, 1, new ListEntityIterator("ESTwoKeyNav"));
+      paged.addAll(collect(page));
+      pages++;
+      query = page.getNext() == null ? null : page.getNext().getRawQuery();
+      if (query != null) {
+        assertTrue(query.startsWith("$orderby=PropertyInt16&%24skiptoken="));
+      }
+    }
+    assertEquals(all.size(), pages);
+    assertEquals(keys(all), keys(paged));
+  }
+
+  @Test
+  public void skipAndTop() throws Exception {
+    final List<Entity> all = new ListEntityIterator("ESAllPrim").entities;
+    EntityIterator page = apply("ESAllPrim", "$skip=1&$top=2", 1, new ListEntityIterator("ESAllPrim"));
+    assertEquals(keys(all.subList(1, 2)), keys(collect(page)));
+    assertNotNull(page.getNext());
+    assertFalse(page.getNext().getRawQuery().contains("$skip"));
+    assertFalse(page.getNext().getRawQuery().contains("$top"));
+
+    final SkipToken token = paging.decodeSkipToken(type("ESAllPrim"),
+        page.getNext().getRawQuery().substring("%24skiptoken=".length()));
+    assertEquals(Integer.valueOf(1), token.getPageSize());
+    assertEquals(Integer.valueOf(1), token.getTop());
+    assertEquals(all.get(1).getProperty("PropertyInt16").getValue(), token.getValues().get("PropertyInt16"));
+
+    page = apply("ESAllPrim", page.getNext().getRawQuery(), 1, new ListEntityIterator("ESAllPrim"));
+    assertEquals(keys(all.subList(2, 3)), keys(collect(page)));
+    assertNull(page.getNext());
+  }
+
+  @Test
+  public void appliedQueryOptions() throws Exception {
+    final List<Entity> all = new ListEntityIterator("ESAllPrim").entities;
+    final EntityIterator page = apply("ESAllPrim", "$skip=1", null,
+        new AppliedListEntityIterator(all.subList(1, all.size()), EnumSet.of(SystemQueryOptionKind.SKIP)));
+    assertEquals(keys(all.subList(1, all.size())), keys(collect(page)));
+    assertNull(page.getNext());
+  }
+
+  @Test
+  public void skipTokenRoundTrip() throws Exception {
+    final EdmEntityType type = type("ESTwoKeyNav");
+    final Entity entity = new ListEntityIterator("ESTwoKeyNav").entities.get(0);
+    final String token = paging.encodeSkipToken(type, entity, null, 10, null);
+    assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    final SkipToken decoded = paging.decodeSkipToken(type, token);
+    assertEquals(Integer.valueOf(10), decoded.getPageSize());
+    assertNull(decoded.getTop());
+    assertEquals(2, decoded.getValues().size());
+    assertEquals(entity.getProperty("PropertyInt16").getValue(), decoded.getValues().get("PropertyInt16"));
+    assertEquals(entity.getProperty("PropertyString").getValue(), decoded.getValues().get("PropertyString"));
+  }
+
+  @Test
+  public void invalidSkipToken() throws Exception {
+    final EdmEntityType type = type("ESAllPrim");
+    for (final String token : new String[] { "", "%%", "MTI", "Ozs", "OztVbmtub3duPTE", "OztQcm9wZXJ0eUludDE2PXg" }) {
+      try {
+        paging.decodeSkipToken(type, token);
+        fail("Expected an exception for '" + token + "'.");
+      } catch (final DeserializerException e) {
+        assertEquals(DeserializerException.MessageKeys.INVALID_SKIP_TOKEN, e.getMessageKey());
+      }
+    }
+  }
+
+  @Test
+  public void orderByValuesInSkipToken() throws Exception {
+    final List<Entity> all = sortedByString("ESAllPrim");
+    final EntityIterator page = apply("ESAllPrim", "$orderby=PropertyString%20desc", 1, new ListEntityIterator(all));
+    assertEquals(keys(all.subList(0, 1)), keys(collect(page)));
+    final String query = page.getNext().getRawQuery();
+    final SkipToken token = paging.decodeSkipToken(type("ESAllPrim"),
+        query.substring(query.indexOf("%24skiptoken=") + "%24skiptoken=".length()));
+    assertEquals(Arrays.asList("PropertyString", "PropertyInt16"), new ArrayList<String>(token.getValues().keySet()));
+    assertEquals(all.get(0).getProperty("PropertyString").getValue(), token.getValues().get("PropertyString"));
+
+    final EntityIterator nextPage = apply("ESAllPrim", query, 1, new ListEntityIterator(all));
+    assertEquals(keys(all.subList(1, 2)), keys(collect(nextPage)));
+  }
+
+  @Test
+  public void resumeAfterDeletedEntity() throws Exception {
+    final List<Entity> all = sortedByKey("ESAllPrim");
+    EntityIterator page = apply("ESAllPrim", "$orderby=PropertyInt16", 1, new ListEntityIterator(all));
+    assertEquals(keys(all.subList(0, 1)), keys(collect(page)));
+
+    // The last entity of the previous page has been deleted meanwhile.
+    page = apply("ESAllPrim", page.getNext().getRawQuery(), 1,
+        new ListEntityIterator(new ArrayList<Entity>(all.subList(1, all.size()))));
+    assertEquals(keys(all.subList(1, 2)), keys(collect(page)));
+    assertNotNull(page.getNext());
+
+    // All entities after the skip token have been deleted meanwhile.
+    page = apply("ESAllPrim", page.getNext().getRawQuery(), 1,
+        new ListEntityIterator(new ArrayList<Entity>(all.subList(0, 2))));
+    assertTrue(collect(page).isEmpty());
+    assertNull(page.getNext());
+  }
+
+  @Test
+  public void deletedEntityWithoutOrder() throws Exception {
+    final List<Entity> all = new ListEntityIterator("ESAllPrim").entities;
+    final EntityIterator page = apply("ESAllPrim", null, 1, new ListEntityIterator("ESAllPrim"));
+    assertEquals(keys(all.subList(0, 1)), keys(collect(page)));
+    try {
+      apply("ESAllPrim", page.getNext().getRawQuery(), 1,
+          new ListEntityIterator(new ArrayList<Entity>(all.subList(1, all.size()))));
+      fail("Expected an exception for the skip token of a deleted entity.");
+    } catch (final DeserializerException e) {
+      assertEquals(DeserializerException.MessageKeys.INVALID_SKIP_TOKEN, e.getMessageKey());
+    }
+  }
+
+  @Test
+  public void skipTokenOfOtherOrder() throws Exception {
+    final EntityIterator page = apply("ESAllPrim", null, 1, new ListEntityIterator("ESAllPrim"));
+    collect(page);
+    try {
+      apply("ESAllPrim", "$orderby=PropertyString&" + page.getNext().getRawQuery(), 1,
+          new ListEntityIterator(sortedByString("ESAllPrim")));
+      fail("Expected an exception for a skip token created for another order.");
+    } catch (final DeserializerException e) {
+      assertEquals(DeserializerException.MessageKeys.INVALID_SKIP_TOKEN, e.getMessageKey());
+    }
+  }
+
+  @Test
+  public void removePagingOptions() {
+    assertEquals("http://host/ES?", PagedEntityIterator.removePagingOptions("http://host/ES"));
+    assertEquals("http://host/ES?$filter=a&x=1&",
+        PagedEntityIterator.removePagingOptions("http://host/ES?$skip=1&$filter=a&%24top=2&$skiptoken=abc&x=1"));
+  }
+
+  private EntityIterator apply(final String entitySetName, final String query, final Integer maxPageSize,
+      final EntityIterator entities) throws ODataLibraryException {
+    final UriInfo uriInfo = new Parser(edm, odata).parseUri(entitySetName, query, null, null);
+    return paging.apply(entities, type(entitySetName), uriInfo, maxPageSize,
+        BASE_URI + entitySetName + (query == null ? "" : "?" + query));
+  }
+
+  private EdmEntityType type(final String entitySetName) {
+    return edm.getEntityContainer().getEntitySet(entitySetName).getEntityType();
+  }
+
+  private List<Entity> collect(final EntityIterator iterator) {
+    List<Entity> result = new ArrayList<Entity>();
+    while (iterator.hasNext()) {
+      result.add(iterator.next());
+    }
+    return result;
+  }
+
+  private List<Entity> sortedByKey(final String entitySetName) throws DataProvider.DataProviderException {
+    List<Entity> entities = new ArrayList<Entity>(new ListEntityIterator(entitySetName).entities);
+    Collections.sort(entities, new Comparator<Entity>() {
+      @Override
+      public int compare(final Entity entity1, final Entity entity2) {
+        return ((Short) entity1.getProperty("PropertyInt16").getValue())
+            .compareTo((Short) entity2.getProperty("PropertyInt16").getValue());
+      }
+    });
+    return entities;
+  }
+
+  /** Sorts by PropertyString in descending order. */
+  private List<Entity> sortedByString(final String entitySetName) throws DataProvider.DataProviderException {
+    List<Entity> entities = new ArrayList<Entity>(new ListEntityIterator(entitySetName).entities);
+    Collections.sort(entities, new Comparator<Entity>() {
+      @Override
+      public int compare(final Entity entity1, final Entity entity2) {
+        return ((String) entity2.getProperty("PropertyString").getValue())
+            .compareTo((String) entity1.getProperty("PropertyString").getValue());
+      }
+    });
+    return entities;
+  }
+
+  private List<Object> keys(final List<Entity> entities) {
+    List<Object> keys = new ArrayList<Object>();
+    for (final Entity entity : entities) {
+      keys.add(entity.getProperty("PropertyInt16").getValue());
+    }
+    return keys;
+  }
+
+  private static class ListEntityIterator extends EntityIterator {
+    protected final List<Entity> entities;
+    private final Iterator<Entity> iterator;
+
+    ListEntityIterator(final String entitySetName) throws DataProvider.DataProviderException {
+      this(readAll(entitySetName));
+    }
+
+    ListEntityIterator(final List<Entity> entities) {
+      this.entities = entities;
+      iterator = entities.iterator();
+    }
+
+    private static List<Entity> readAll(final String entitySetName) throws DataProvider.DataProviderException {
+      final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet(entitySetName);
+      return new DataProvider(odata, edm).readAll(entitySet).getEntities();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public Entity next() {
+      return iterator.next();
+    }
+  }
+
+  private static class AppliedListEntityIterator extends ListEntityIterator implements AppliedQueryOptions {
+    private final Set<SystemQueryOptionKind> applied;
+
+    AppliedListEntityIterator(final List<Entity> entities, final Set<SystemQueryOptionKind> applied) {
+      super(entities);
+      this.applied = applied;
+    }
+
+    @Override
+    public Set<SystemQueryOptionKind> getAppliedQueryOptions() {
+      return applied;
+    }
+  }
+}
@@ -18,10 +18,13 @@
  */
 package org.apache.olingo.server.core.serializer.json;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.io.IOUtils;
@@ -31,6 +34,7 @@ import org.apache.olingo.commons.api.data.DeletedEntity.Reason;
 import org.apache.olingo.commons.api.data.Delta;
 import org.apache.olingo.commons.api.data.DeltaLink;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.ContextURL.Suffix;
 import org.apache.olingo.commons.api.edm.EdmEntityContainer;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
@@ -38,8 +42,10 @@ import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
+import org.apache.olingo.server.api.serializer.EdmDeltaStreamSerializer;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriHelper;
@@ -153,6 +159,63 @@ public class JsonDeltaSerializerTest {
      } 
   
 
+  @Test
+  public void deltaStreamed() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESDelta");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    DeletedEntity deletedEntity = new DeletedEntity();
+    deletedEntity.setId(new URI("ESDelta(100)"));
+    deletedEntity.setReason(Reason.deleted);
+    final Iterator<Entity> entities = Arrays.asList(entity, deletedEntity).iterator();
+    final EntityIterator entityIterator = new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        if (entities.hasNext()) {
+          return true;
+        }
+        setDeltaLink(URI.create("23042017"));
+        return false;
+      }
+
+      @Override
+      public Entity next() {
+        return entities.next();
+      }
+    };
+    Delta delta = new Delta();
+    DeltaLink link = new DeltaLink();
+    link.setRelationship("NavPropertyETAllPrimOne");
+    link.setSource(new URI("ESDelta(100)"));
+    link.setTarget(new URI("ESAllPrim(0)"));
+    delta.getAddedLinks().add(link);
+
+    Assert.assertTrue(ser instanceof EdmDeltaStreamSerializer);
+    ODataContent content = ((EdmDeltaStreamSerializer) ser).entityCollectionStreamed(metadata,
+        edmEntitySet.getEntityType(), entityIterator, delta, EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+            .build()).getODataContent();
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    content.write(bout);
+    final String jsonString = new String(bout.toByteArray(), "UTF-8");
+
+    Assert.assertTrue(jsonString.startsWith("{\"@odata.context\":\"$metadata#ESDelta/$delta\","
+        + "\"value\":[{\"@odata.id\":\"ESDelta(32767)\",\"PropertyInt16\":32767,"));
+    Assert.assertTrue(jsonString.endsWith("},{"
+        + "\"@odata.context\":\"#ESDelta(100)/$deletedEntity\","
+        + "\"id\":\"ESDelta(100)\",\"reason\":\"deleted\"},{"
+        + "\"@odata.context\":\"#ESDelta/$link\",\"source\":\"ESDelta(100)\","
+        + "\"relationship\":\"NavPropertyETAllPrimOne\","
+        + "\"target\":\"ESAllPrim(0)\"}],"
+        + "\"@odata.deltaLink\":\"23042017\"}"));
+  }
+
+  @Test(expected = SerializerException.class)
+  public void deltaStreamedWithoutContextURL() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESDelta");
+    ((EdmDeltaStreamSerializer) ser).entityCollectionStreamed(metadata, edmEntitySet.getEntityType(),
+        Mockito.mock(EntityIterator.class), null, null);
+  }
+
   @Test
   public void addedChangedDeltaEntity() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESDelta");
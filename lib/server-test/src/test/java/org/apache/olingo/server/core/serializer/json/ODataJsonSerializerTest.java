@@ -489,6 +489,63 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals(3, count);
   }
 
+  @Test
+  public void entityCollectionStreamedWithTrailingCountAndNextLink() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final EntityIterator entityIterator =
+        new TrailingEntityIterator(data.readAll(edmEntitySet).getEntities(), URI.create("/next"));
+    CountOption countOption = Mockito.mock(CountOption.class);
+    Mockito.when(countOption.getValue()).thenReturn(true);
+
+    ODataContent result = serializer.entityCollectionStreamed(
+        metadata, edmEntitySet.getEntityType(), entityIterator,
+        EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+            .count(countOption)
+            .build()).getODataContent();
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    result.write(bout);
+    final String resultString = new String(bout.toByteArray(), "UTF-8");
+
+    Assert.assertThat(resultString, CoreMatchers.startsWith("{"
+        + "\"@odata.context\":\"$metadata#ESAllPrim\","
+        + "\"@odata.metadataEtag\":\"W/\\\"metadataETag\\\"\","
+        + "\"value\":[{\"PropertyInt16\":32767,"));
+    Assert.assertThat(resultString, CoreMatchers.endsWith("\"PropertyTimeOfDay\":\"00:01:01\"}],"
+        + "\"@odata.count\":3,\"@odata.nextLink\":\"/next\"}"));
+  }
+
+  @Test
+  public void expandEntityIteratorWithTrailingCountAndNextLink() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final EdmEntityType entityType = edmEntitySet.getEntityType();
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final Link link = entity.getNavigationLink("NavPropertyETTwoPrimMany");
+    final List<Entity> inlineEntities = link.getInlineEntitySet().getEntities();
+    link.setInlineEntityIterator(new TrailingEntityIterator(inlineEntities, URI.create("/next")));
+    CountOption countOption = Mockito.mock(CountOption.class);
+    Mockito.when(countOption.getValue()).thenReturn(true);
+    ExpandItem expandItem = ExpandSelectMock.mockExpandItem(edmEntitySet, "NavPropertyETTwoPrimMany");
+    Mockito.when(expandItem.getCountOption()).thenReturn(countOption);
+    final ExpandOption expand = ExpandSelectMock.mockExpandOption(Collections.singletonList(expandItem));
+    final SelectOption select = ExpandSelectMock.mockSelectOption(Collections.singletonList(
+        ExpandSelectMock.mockSelectItem(edmEntitySet, "PropertyInt16")));
+    final String resultString = IOUtils.toString(serializer
+        .entity(metadata, entityType, entity,
+            EntitySerializerOptions.with()
+                .contextURL(ContextURL.with().entitySet(edmEntitySet)
+                    .selectList(helper.buildContextURLSelectList(entityType, expand, select))
+                    .suffix(Suffix.ENTITY).build())
+                .expand(expand)
+                .select(select)
+                .build()).getContent());
+
+    Assert.assertThat(resultString, CoreMatchers.containsString("\"NavPropertyETTwoPrimMany\":[{"));
+    Assert.assertThat(resultString, CoreMatchers.endsWith("}],"
+        + "\"NavPropertyETTwoPrimMany@odata.count\":" + inlineEntities.size() + ","
+        + "\"NavPropertyETTwoPrimMany@odata.nextLink\":\"/next\"}"));
+  }
+
   @Test
   public void entityCollectionStreamedWithError() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
@@ -2867,4 +2924,31 @@ public class ODataJsonSerializerTest {
             + "\"PropertyComp\":{\"PropertyInt16\":333,\"PropertyString\":\"TEST123\"}}}";
     Assert.assertEquals(expectedResult, resultString);
   }
+
+  /** Iterator that only learns its count and next link once it has been consumed. */
+  private static class TrailingEntityIterator extends EntityIterator {
+    private final List<Entity> entities;
+    private final URI next;
+    private int position = 0;
+
+    TrailingEntityIterator(final List<Entity> entities, final URI next) {
+      this.entities = entities;
+      this.next = next;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (position < entities.size()) {
+        return true;
+      }
+      setCount(entities.size());
+      setNext(next);
+      return false;
+    }
+
+    @Override
+    public Entity next() {
+      return entities.get(position++);
+    }
+  }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.serializer.ExpandSelectMock;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ExpandSelectPlanTest {
+
+  private static final Edm edm = OData.newInstance().createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+  private static final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESAllPrim");
+
+  @Test
+  public void selectAddsKeys() throws Exception {
+    final SelectOption select = ExpandSelectMock.mockSelectOption(Collections.singletonList(
+        ExpandSelectMock.mockSelectItem(entitySet, "PropertyString")));
+    final ExpandSelectPlan plan = ExpandSelectPlan.compile(entitySet.getEntityType(), select, null, null);
+    assertFalse(plan.isAll());
+    assertFalse(plan.isKeyPredicateNamesSelected());
+    assertEquals(2, plan.getProperties().size());
+    assertEquals("PropertyInt16", plan.getProperties().get(0).getProperty().getName());
+    assertEquals("PropertyString", plan.getProperties().get(1).getProperty().getName());
+    assertNull(plan.getProperties().get(1).getSelectedPaths());
+    assertFalse(plan.hasExpand());
+  }
+
+  @Test
+  public void selectAll() throws Exception {
+    final ExpandSelectPlan plan = ExpandSelectPlan.compile(entitySet.getEntityType(), null, null, null);
+    assertTrue(plan.isAll());
+    assertTrue(plan.isKeyPredicateNamesSelected());
+    assertEquals(entitySet.getEntityType().getPropertyNames().size(), plan.getProperties().size());
+    for (final ExpandSelectPlan.NavigationPlan navigation : plan.getNavigations()) {
+      assertFalse(navigation.isExpanded());
+    }
+  }
+
+  @Test
+  public void expand() throws Exception {
+    final ExpandOption expand = ExpandSelectMock.mockExpandOption(Collections.singletonList(
+        ExpandSelectMock.mockExpandItem(entitySet, "NavPropertyETTwoPrimOne")));
+    final ExpandSelectPlan plan = ExpandSelectPlan.compile(entitySet.getEntityType(), null, expand, "ESAllPrim");
+    assertTrue(plan.hasExpand());
+    for (final ExpandSelectPlan.NavigationPlan navigation : plan.getNavigations()) {
+      assertEquals("NavPropertyETTwoPrimOne".equals(navigation.getName()), navigation.isExpanded());
+      assertNull(navigation.getLevels());
+    }
+  }
+
+  @Test
+  public void cacheSharesPlansAndNestedOptions() throws Exception {
+    ExpandItem star = Mockito.mock(ExpandItem.class);
+    Mockito.when(star.isStar()).thenReturn(true);
+    final ExpandOption expand = ExpandSelectMock.mockExpandOption(Collections.singletonList(star));
+    final ExpandSelectPlanCache cache = new ExpandSelectPlanCache();
+
+    final ExpandSelectPlan plan = cache.get(entitySet.getEntityType(), null, expand, "ESAllPrim");
+    assertSame(plan, cache.get(entitySet.getEntityType(), null, expand, "ESAllPrim"));
+    assertNotSame(plan, cache.get(entitySet.getEntityType(), null, expand, "ESTwoPrim"));
+    assertNotSame(plan, cache.get(entitySet.getEntityType(), null, null, "ESAllPrim"));
+
+    final ExpandSelectPlan.NavigationPlan navigation = plan.getNavigations().get(0);
+    assertTrue(navigation.isExpanded());
+    assertEquals(Integer.valueOf(1), navigation.getLevels());
+    assertNotNull(navigation.getChildExpand());
+    assertSame(navigation.getChildExpand(),
+        cache.get(entitySet.getEntityType(), null, expand, "ESAllPrim").getNavigations().get(0).getChildExpand());
+  }
+}
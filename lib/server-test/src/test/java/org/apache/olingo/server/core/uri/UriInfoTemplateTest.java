@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.queryoption.expression.Binary;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class UriInfoTemplateTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  @Test
+  public void keysAreRebound() throws Exception {
+    final UriInfoCacheImpl cache = new UriInfoCacheImpl(10);
+    put(cache, "ESAllPrim(1)", "$select=PropertyInt16");
+
+    final UriInfo uriInfo = cache.get(edm, HttpMethod.GET, "ESAllPrim(2)", "$select=PropertyInt16", null);
+    assertNotNull(uriInfo);
+    assertEquals("2", getKeyText(uriInfo));
+    assertNotNull(uriInfo.getSelectOption());
+    assertEquals("1", getKeyText(cache.get(edm, HttpMethod.GET, "ESAllPrim(1)", "$select=PropertyInt16", null)));
+
+    // Concurrent requests for the same URI get their own objects.
+    final UriInfo other = cache.get(edm, HttpMethod.GET, "ESAllPrim(2)", "$select=PropertyInt16", null);
+    assertNotSame(uriInfo, other);
+    assertNotSame(uriInfo.getUriResourceParts().get(0), other.getUriResourceParts().get(0));
+
+    // Literals of another type need their own entry.
+    assertNull(cache.get(edm, HttpMethod.GET, "ESAllPrim(1000)", "$select=PropertyInt16", null));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void queryOptionsAreRebound() throws Exception {
+    final UriInfoCacheImpl cache = new UriInfoCacheImpl(10);
+    put(cache, "ESAllPrim", "$filter=PropertyInt16 gt 5 and PropertyString eq 'a'&$top=3&$skip=4");
+
+    final UriInfo uriInfo = cache.get(edm, HttpMethod.GET, "ESAllPrim",
+        "$filter=PropertyInt16 gt 7 and PropertyString eq 'b c'&$top=30&$skip=40", null);
+    assertNotNull(uriInfo);
+    assertEquals("PropertyInt16 gt 7 and PropertyString eq 'b c'", uriInfo.getFilterOption().getText());
+    final Binary and = (Binary) uriInfo.getFilterOption().getExpression();
+    final Literal seven = (Literal) ((Binary) and.getLeftOperand()).getRightOperand();
+    assertEquals("7", seven.getText());
+    assertEquals(odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.SByte), seven.getType());
+    assertEquals("'b c'", ((Literal) ((Binary) and.getRightOperand()).getRightOperand()).getText());
+    assertEquals(30, uriInfo.getTopOption().getValue());
+    assertEquals("30", uriInfo.getTopOption().getText());
+    assertEquals(40, uriInfo.getSkipOption().getValue());
+
+    assertNull(cache.get(edm, HttpMethod.GET, "ESAllPrim",
+        "$filter=PropertyInt16 gt 700 and PropertyString eq 'b'&$top=3&$skip=4", null));
+  }
+
+  @Test
+  public void keysAreValidated() throws Exception {
+    final UriInfoCacheImpl cache = new UriInfoCacheImpl(10);
+    put(cache, allKey("1"), null);
+    assertNotNull(cache.get(edm, HttpMethod.GET, allKey("100"), null, null));
+    // -1 has the same literal type as 1 but is not a valid Edm.Byte value.
+    assertNull(cache.get(edm, HttpMethod.GET, allKey("-1"), null, null));
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void ambiguousLiteralsMatchExactly() throws Exception {
+    final UriInfoCacheImpl cache = new UriInfoCacheImpl(10);
+    put(cache, "ESAllPrim", "$filter=PropertyInt16 gt 5 and PropertyInt32 lt 5");
+    assertNull(cache.get(edm, HttpMethod.GET, "ESAllPrim", "$filter=PropertyInt16 gt 6 and PropertyInt32 lt 7",
+        null));
+    assertNotNull(cache.get(edm, HttpMethod.GET, "ESAllPrim", "$filter=PropertyInt16 gt 5 and PropertyInt32 lt 5",
+        null));
+
+    // Literals in lambda expressions are not re-bound.
+    put(cache, "ESTwoKeyNav", "$filter=CollPropertyComp/any(c:c/PropertyInt16 eq 1)");
+    assertNull(cache.get(edm, HttpMethod.GET, "ESTwoKeyNav", "$filter=CollPropertyComp/any(c:c/PropertyInt16 eq 2)",
+        null));
+  }
+
+  private void put(final UriInfoCacheImpl cache, final String path, final String query) throws Exception {
+    cache.put(edm, HttpMethod.GET, path, query, null, new Parser(edm, odata).parseUri(path, query, null, null));
+  }
+
+  private String getKeyText(final UriInfo uriInfo) {
+    return ((UriResourceEntitySet) uriInfo.getUriResourceParts().get(0)).getKeyPredicates().get(0).getText();
+  }
+
+  private String allKey(final String byteValue) {
+    return "ESAllKey(PropertyString='O''Neil',PropertyBoolean=true,PropertyByte=" + byteValue + ","
+        + "PropertySByte=-128,PropertyInt16=-32768,PropertyInt32=-2147483648,"
+        + "PropertyInt64=-9223372036854775808,PropertyDecimal=2,PropertyDate=2013-09-25,"
+        + "PropertyDateTimeOffset=2002-10-10T12:00:00-05:00,"
+        + "PropertyDuration=duration'P50903316DT2H25M4S',"
+        + "PropertyGuid=12345678-1234-1234-1234-123456789012,"
+        + "PropertyTimeOfDay=12:34:55)";
+  }
+}
@@ -21,6 +21,8 @@ package org.apache.olingo.server.core.uri.queryoption.expression;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
@@ -34,8 +36,10 @@ import org.apache.olingo.commons.api.edm.EdmFunction;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.UriInfoKind;
 import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.queryoption.expression.Binary;
 import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
 import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
 import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
@@ -43,6 +47,7 @@ import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind
 import org.apache.olingo.server.core.uri.UriInfoImpl;
 import org.apache.olingo.server.core.uri.UriResourceActionImpl;
 import org.apache.olingo.server.core.uri.UriResourceFunctionImpl;
+import org.apache.olingo.server.core.uri.parser.Parser;
 import org.apache.olingo.server.core.uri.testutil.FilterTreeToText;
 import org.apache.olingo.server.tecsvc.provider.ActionProvider;
 import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
@@ -226,4 +231,60 @@ public class ExpressionTest {
 
     assertEquals("<- <1.2>>", expression.accept(new FilterTreeToText()));
   }
+
+  @Test
+  public void structuralEquality() throws Exception {
+    final Expression literal = new LiteralImpl("1", odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Byte));
+    assertEquals(literal, new LiteralImpl("1", odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Byte)));
+    assertEquals(literal.hashCode(),
+        new LiteralImpl("1", odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Byte)).hashCode());
+    assertFalse(literal.equals(new LiteralImpl("1", odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Int32))));
+    assertFalse(literal.equals(new LiteralImpl("2", odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Byte))));
+
+    final Expression binary = new BinaryImpl(literal, BinaryOperatorKind.ADD, literal,
+        odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Byte));
+    assertEquals(binary, new BinaryImpl(literal, BinaryOperatorKind.ADD,
+        new LiteralImpl("1", odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Byte)),
+        odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Byte)));
+    assertFalse(binary.equals(new BinaryImpl(literal, BinaryOperatorKind.SUB, literal,
+        odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Byte))));
+
+    assertEquals(new MethodImpl(MethodKind.NOW, null), new MethodImpl(MethodKind.NOW, null));
+    assertFalse(new MethodImpl(MethodKind.NOW, null).equals(new MethodImpl(MethodKind.MAXDATETIME, null)));
+    assertEquals(new LambdaRefImpl("x"), new LambdaRefImpl("x"));
+  }
+
+  @Test
+  public void parsedExpressionsAreShared() throws Exception {
+    final String filter = "$filter=PropertyInt16 eq 1 and contains(PropertyString,'A')";
+    final UriInfo first = new Parser(edm, odata).parseUri("ESAllPrim", filter, null, null);
+    final UriInfo second = new Parser(edm, odata).parseUri("ESAllPrim", filter, null, null);
+    assertNotSame(first.getFilterOption(), second.getFilterOption());
+    assertSame(first.getFilterOption().getExpression(), second.getFilterOption().getExpression());
+
+    final UriInfo orderBy = new Parser(edm, odata).parseUri("ESAllPrim",
+        "$orderby=PropertyInt16 desc,PropertyString", null, null);
+    final Expression member = ((Binary) ((Binary) first.getFilterOption().getExpression()).getLeftOperand())
+        .getLeftOperand();
+    assertSame(member, orderBy.getOrderByOption().getOrders().get(0).getExpression());
+
+    final UriInfo lambda = new Parser(edm, odata).parseUri("ESTwoKeyNav",
+        "$filter=NavPropertyETTwoKeyNavMany/any(d:d/PropertyInt16 eq 1)", null, null);
+    assertEquals(lambda.getFilterOption().getExpression(), new Parser(edm, odata).parseUri("ESTwoKeyNav",
+        "$filter=NavPropertyETTwoKeyNavMany/any(d:d/PropertyInt16 eq 1)", null, null)
+        .getFilterOption().getExpression());
+    assertFalse(lambda.getFilterOption().getExpression().equals(new Parser(edm, odata).parseUri("ESTwoKeyNav",
+        "$filter=NavPropertyETTwoKeyNavMany/any(d:d/PropertyInt16 eq 2)", null, null)
+        .getFilterOption().getExpression()));
+  }
+
+  @Test
+  public void membersOfDifferentTypesDiffer() throws Exception {
+    final Expression allPrim = new Parser(edm, odata).parseUri("ESAllPrim", "$filter=PropertyInt16 eq 1", null, null)
+        .getFilterOption().getExpression();
+    final Expression twoPrim = new Parser(edm, odata).parseUri("ESTwoPrim", "$filter=PropertyInt16 eq 1", null, null)
+        .getFilterOption().getExpression();
+    assertEquals(allPrim.toString(), twoPrim.toString());
+    assertFalse(allPrim.equals(twoPrim));
+  }
 }
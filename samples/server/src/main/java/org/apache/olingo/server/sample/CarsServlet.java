@@ -42,6 +42,17 @@ public class CarsServlet extends HttpServlet {
   private static final long serialVersionUID = 1L;
   private static final Logger LOG = LoggerFactory.getLogger(CarsServlet.class);
 
+  private OData odata;
+  private ServiceMetadata edm;
+
+  @Override
+  public void init() throws ServletException {
+    super.init();
+    // Creating the metadata is expensive, so it is done once; the handlers are still created per request.
+    odata = OData.newInstance();
+    edm = odata.createServiceMetadata(new CarsEdmProvider(), new ArrayList<EdmxReference>());
+  }
+
   @Override
   protected void service(final HttpServletRequest req, final HttpServletResponse resp)
       throws ServletException, IOException {
@@ -54,8 +65,6 @@ public class CarsServlet extends HttpServlet {
         LOG.info("Created new data provider.");
       }
 
-      OData odata = OData.newInstance();
-      ServiceMetadata edm = odata.createServiceMetadata(new CarsEdmProvider(), new ArrayList<EdmxReference>());
       ODataHttpHandler handler = odata.createHandler(edm);
       handler.register(new CarsProcessor(dataProvider));
       handler.process(req, resp);